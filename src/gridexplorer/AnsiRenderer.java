@@ -0,0 +1,317 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * The AnsiRenderer class draws a room on an ANSI terminal by only redrawing
+ * the objects that have changed since the last frame. It listens to the room
+ * for changed objects, and for each one moves the cursor to its position and
+ * writes its character. The whole room is redrawn when a different room is
+ * drawn, when the viewport scrolls, when the terminal is resized or when too
+ * many objects have changed for it to be worthwhile.
+ *
+ * Once the size of the terminal is known, only the part of the room around
+ * the player that fits on the terminal is drawn, leaving rows below it for
+ * the lines under the grid, so that the cursor positions stay within the
+ * terminal.
+ *
+ * Any lines below the grid, such as the position of the player and the move
+ * prompt, are cleared at the end of each frame.
+ *
+ * @author Christopher Wells
+ */
+public class AnsiRenderer implements RoomListener {
+
+	private static final String ESCAPE = "\u001B[";	// The start of each ANSI control sequence
+	private static final String CLEAR_SCREEN = ESCAPE + "H" + ESCAPE + "2J";	// Clears the screen
+	private static final String CLEAR_BELOW = ESCAPE + "J";	// Clears from the cursor to the end of the screen
+	private static final int MIN_DIRTY = 16;	// The number of changed objects that are always tracked
+	private static final int STATUS_ROWS = 2;	// The rows of the terminal kept below the room, for the position and the prompt
+
+	private final FrameRenderer frameRenderer = new FrameRenderer();	// Draws the room when all of it is redrawn
+	private final StringBuilder buffer = new StringBuilder();	// The control sequences of the frame being built
+	private Room room;	// The room that was last drawn
+	private int top;	// The first row of the room that was last drawn
+	private int left;	// The first column of the room that was last drawn
+	private int height;	// The number of rows of the room that were last drawn
+	private int width;	// The number of columns of the room that were last drawn
+	private int terminalRows;	// The number of rows of the terminal, if it is known
+	private int terminalColumns;	// The number of columns of the terminal, if it is known
+	private Viewport fitted;	// The viewport that fits on the terminal, or null until it is needed
+	private Viewport fittedFrom;	// The viewport that the fitted viewport was made from, or null for the whole room
+	private boolean redrawAll = true;	// Whether the next frame has to redraw the whole room
+	private int[] dirtyRows = new int[MIN_DIRTY];	// The rows of the objects changed since the last frame
+	private int[] dirtyColumns = new int[MIN_DIRTY];	// The columns of the objects changed since the last frame
+	private int dirtyCount;	// The number of objects changed since the last frame
+	private int[] visibleEntities = new int[MIN_DIRTY];	// The indexes of the entities within the drawn part of the room
+	private int[] entityRows = new int[MIN_DIRTY];	// The rows of the entities drawn in the last frame
+	private int[] entityColumns = new int[MIN_DIRTY];	// The columns of the entities drawn in the last frame
+	private int entityCount;	// The number of entities drawn in the last frame
+	private EntityStore drawnEntities;	// The entities that were last drawn, or null if the room had none
+	private long entityTicks;	// The number of ticks the entities had run when they were last drawn
+	private int entitySize;	// The number of entities in the room when they were last drawn
+
+	/**
+	 * The method used to draw the whole of a room.
+	 *
+	 * @param r The room to draw
+	 * @param out The stream of the terminal
+	 */
+	public void render(Room r, PrintStream out) {
+		render(r, null, out);
+	}
+
+	/**
+	 * The method used to draw the part of a room within a viewport centred on
+	 * the player.
+	 *
+	 * @param r The room to draw
+	 * @param viewport The viewport to draw, or null to draw the whole room
+	 * @param out The stream of the terminal
+	 */
+	public void render(Room r, Viewport viewport, PrintStream out) {
+		if (!Metrics.ENABLED) {
+			draw(r, viewport, out);
+			return;
+		}
+		long start = System.nanoTime();
+		draw(r, viewport, out);
+		Metrics.DISPLAY.record(System.nanoTime() - start);
+	}
+
+	/**
+	 * The method used to draw a room without recording any metrics.
+	 *
+	 * @param r The room to draw
+	 * @param viewport The viewport to draw, or null to draw the whole room
+	 * @param out The stream of the terminal
+	 */
+	private void draw(Room r, Viewport viewport, PrintStream out) {
+		// Listen to the room for changed objects
+		if (r != room) {
+			if (room != null) {
+				room.removeRoomListener(this);
+			}
+			r.addRoomListener(this);
+			room = r;
+			redrawAll = true;
+		}
+
+		// Find the part of the room to draw, which needs a full redraw if the
+		// viewport has scrolled
+		viewport = fit(viewport);
+		int newTop = 0;
+		int newLeft = 0;
+		int newHeight = r.getRows();
+		int newWidth = r.getColumns();
+		if (viewport != null) {
+			newTop = viewport.top(r, r.getPlayerRow());
+			newLeft = viewport.left(r, r.getPlayerColumn());
+			newHeight = viewport.rowsIn(r);
+			newWidth = viewport.columnsIn(r);
+		}
+		if (newTop != top || newLeft != left || newHeight != height || newWidth != width) {
+			top = newTop;
+			left = newLeft;
+			height = newHeight;
+			width = newWidth;
+			redrawAll = true;
+		}
+
+		// Entities do not change the grid, so once they have moved the old and
+		// new positions of the entities within the drawn part of the room are
+		// redrawn
+		EntityStore entities = r.entities();
+		if (redrawAll || entities != drawnEntities || (entities != null
+				&& (entities.getTicks() != entityTicks || entities.size() != entitySize))) {
+			for (int i = 0; i < entityCount; i++) {
+				markDirty(entityRows[i], entityColumns[i]);
+			}
+			saveEntities(entities);
+			for (int i = 0; i < entityCount; i++) {
+				markDirty(entityRows[i], entityColumns[i]);
+			}
+		}
+
+		if (redrawAll) {
+			out.print(CLEAR_SCREEN);
+			frameRenderer.render(r, top, left, height, width, out);
+			out.print(CLEAR_BELOW);
+		} else {
+			buffer.setLength(0);
+			for (int i = 0; i < dirtyCount; i++) {
+				int row = dirtyRows[i] - top;
+				int column = dirtyColumns[i] - left;
+				if (row >= 0 && row < height && column >= 0 && column < width) {
+					moveCursor(row, column);
+					buffer.append(r.charAt(dirtyRows[i], dirtyColumns[i]));
+				}
+			}
+			moveCursor(height, 0);
+			buffer.append(CLEAR_BELOW);
+			out.print(buffer);
+		}
+		out.flush();
+		redrawAll = false;
+		dirtyCount = 0;
+	}
+
+	/**
+	 * The method used to keep the positions of the entities that are drawn in
+	 * a frame, so that they are cleared once the entities move. Only the
+	 * entities within the drawn part of the room are found, through the
+	 * spatial index.
+	 *
+	 * @param entities The entities of the room, or null if it has none
+	 */
+	private void saveEntities(EntityStore entities) {
+		drawnEntities = entities;
+		if (entities != null) {
+			entityTicks = entities.getTicks();
+			entitySize = entities.size();
+		}
+		if (entities == null || entities.size() == 0) {
+			entityCount = 0;
+			return;
+		}
+		SpatialIndex index = entities.getIndex();
+		entityCount = index.findIn(top, left, height, width, visibleEntities);
+		if (entityCount > visibleEntities.length) {
+			visibleEntities = new int[entityCount];
+			entityRows = new int[entityCount];
+			entityColumns = new int[entityCount];
+			index.findIn(top, left, height, width, visibleEntities);
+		}
+		for (int k = 0; k < entityCount; k++) {
+			entityRows[k] = entities.getRow(visibleEntities[k]);
+			entityColumns[k] = entities.getColumn(visibleEntities[k]);
+		}
+	}
+
+	/**
+	 * The method used to shrink a viewport so that it fits on the terminal,
+	 * once the size of the terminal is known.
+	 *
+	 * @param viewport The viewport to draw, or null to draw the whole room
+	 * @return The viewport that fits on the terminal, or the given viewport if
+	 * the size of the terminal is not known or the viewport already fits
+	 */
+	private Viewport fit(Viewport viewport) {
+		if (terminalRows <= 0 || terminalColumns <= 0) {
+			return viewport;
+		}
+		int maxRows = Math.max(1, terminalRows - STATUS_ROWS);
+		if (viewport != null && viewport.getHeight() <= maxRows && viewport.getWidth() <= terminalColumns) {
+			return viewport;
+		}
+		if (fitted == null || fittedFrom != viewport) {
+			int rows = viewport == null ? maxRows : Math.min(viewport.getHeight(), maxRows);
+			int columns = viewport == null ? terminalColumns : Math.min(viewport.getWidth(), terminalColumns);
+			fitted = new Viewport(rows, columns);
+			fittedFrom = viewport;
+		}
+		return fitted;
+	}
+
+	/**
+	 * The method used to add the control sequence that moves the cursor to a
+	 * position on the terminal.
+	 *
+	 * @param row The row of the terminal, starting from 0
+	 * @param column The column of the terminal, starting from 0
+	 */
+	private void moveCursor(int row, int column) {
+		buffer.append(ESCAPE).append(row + 1).append(';').append(column + 1).append('H');
+	}
+
+	/**
+	 * The method used to make the next frame redraw the whole room.
+	 */
+	public void invalidate() {
+		redrawAll = true;
+	}
+
+	/**
+	 * The method used to tell the renderer the size of the terminal, which
+	 * redraws the whole room on the next frame if the size has changed.
+	 *
+	 * @param rows The number of rows of the terminal
+	 * @param columns The number of columns of the terminal
+	 */
+	public void setTerminalSize(int rows, int columns) {
+		if (rows != terminalRows || columns != terminalColumns) {
+			terminalRows = rows;
+			terminalColumns = columns;
+			fitted = null;
+			redrawAll = true;
+		}
+	}
+
+	/**
+	 * The method used to stop listening to the room that was last drawn.
+	 */
+	public void detach() {
+		if (room != null) {
+			room.removeRoomListener(this);
+			room = null;
+		}
+		redrawAll = true;
+	}
+
+	@Override
+	public void objectChanged(Room r, int row, int column, int oldId, int newId) {
+		if (r == room) {
+			markDirty(row, column);
+		}
+	}
+
+	/**
+	 * The method used to redraw a position of the room in the next frame.
+	 *
+	 * @param row The row of the position
+	 * @param column The column of the position
+	 */
+	private void markDirty(int row, int column) {
+		if (redrawAll) {
+			return;
+		}
+		if (dirtyCount == dirtyRows.length) {
+			// Once a quarter of the drawn objects have changed it is cheaper to
+			// redraw all of them
+			if (dirtyCount >= Math.max(MIN_DIRTY, (long) height * width / 4)) {
+				redrawAll = true;
+				dirtyCount = 0;
+				return;
+			}
+			dirtyRows = Arrays.copyOf(dirtyRows, dirtyCount * 2);
+			dirtyColumns = Arrays.copyOf(dirtyColumns, dirtyCount * 2);
+		}
+		dirtyRows[dirtyCount] = row;
+		dirtyColumns[dirtyCount] = column;
+		dirtyCount++;
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The AtomicGridStorage class stores the objects of a grid one per int in an
+ * AtomicIntegerArray, so that the grid can be read and written by several
+ * threads at once, and a position can be claimed with a single compare and
+ * set instead of a lock.
+ *
+ * @author Christopher Wells
+ */
+public class AtomicGridStorage implements GridStorage {
+
+	private final int rows;	// The total number of rows that the grid has
+	private final int columns;	// The total number of columns that the grid has
+	private final AtomicIntegerArray cells;	// The identifiers of the objects, in row-major order
+
+	/**
+	 * The constructor method to create an empty grid.
+	 *
+	 * @param r The number of rows that the grid has
+	 * @param c The number of columns that the grid has
+	 * @throws IllegalArgumentException If the grid has too many cells to fit
+	 * in an array
+	 */
+	public AtomicGridStorage(int r, int c) {
+		long size = (long) r * c;
+		if (size > GridStorages.MAX_ARRAY_CELLS) {
+			throw new IllegalArgumentException("A " + r + " by " + c + " grid is too large for an atomic array.");
+		}
+		rows = r;
+		columns = c;
+		cells = new AtomicIntegerArray((int) size);
+	}
+
+	/**
+	 * The method used to create a grid filled with the objects of a room
+	 * layout.
+	 *
+	 * @param layout The layout of the room
+	 * @return The grid
+	 */
+	public static AtomicGridStorage copyOf(RoomLayout layout) {
+		AtomicGridStorage storage = new AtomicGridStorage(layout.getRows(), layout.getColumns());
+		byte[] codes = layout.cells();
+		for (int i = 0; i < storage.cells.length(); i++) {
+			int id = Tiles.decode(codes[i]);
+			if (id != Tiles.EMPTY) {
+				storage.cells.set(i, id);
+			}
+		}
+		return storage;
+	}
+
+	@Override
+	public int getRows() {
+		return rows;
+	}
+
+	@Override
+	public int getColumns() {
+		return columns;
+	}
+
+	@Override
+	public int get(int r, int c) {
+		return cells.get(r * columns + c);
+	}
+
+	@Override
+	public void set(int r, int c, int id) {
+		cells.set(r * columns + c, id);
+	}
+
+	/**
+	 * The method used to change the object at a position only if it is still
+	 * the expected object, as a single atomic step.
+	 *
+	 * @param r The row of the position
+	 * @param c The column of the position
+	 * @param expected The object that must be at the position
+	 * @param id The object to put at the position
+	 * @return Whether the object was changed
+	 */
+	public boolean compareAndSet(int r, int c, int expected, int id) {
+		return cells.compareAndSet(r * columns + c, expected, id);
+	}
+}
@@ -0,0 +1,207 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The BinaryRoomFormat class reads and writes rooms in a compact binary
+ * format, which can be loaded without parsing any text. Each file starts with
+ * a header holding the size of the room and its spawn point, so that the grid
+ * can be filled with a single bulk read.
+ *
+ * The header is made up of, in big-endian order:
+ * <ul>
+ * <li>the magic number "GXRM"</li>
+ * <li>the format version as a short</li>
+ * <li>the cell encoding as a byte, either one byte per cell or four cells
+ * packed into each byte</li>
+ * <li>a byte of flags, where the lowest bit is set if the room has unknown
+ * objects</li>
+ * <li>the number of rows, number of columns, spawn row and spawn column as
+ * ints, with -1 for a room without a spawn point</li>
+ * </ul>
+ * The cells follow the header in row-major order. Rooms with unknown objects
+ * always use one byte per cell.
+ *
+ * @author Christopher Wells
+ */
+public final class BinaryRoomFormat {
+
+	public static final int MAGIC = 0x4758524D;	// The characters "GXRM"
+	public static final short VERSION = 1;	// The version of the format that is written
+	public static final int HEADER_LENGTH = 24;	// The number of bytes in the header
+
+	static final byte BYTE_CELLS = 0;	// The encoding of one cell per byte
+	static final byte PACKED_CELLS = 1;	// The encoding of four cells per byte
+	private static final byte UNKNOWN_FLAG = 1;	// The flag set when a room has unknown objects
+	private static final int CHUNK_SIZE = 1 << 16;	// The number of bytes written at a time
+
+	/**
+	 * BinaryRoomFormat only holds static methods, so it is not meant to be
+	 * constructed.
+	 */
+	private BinaryRoomFormat() {
+	}
+
+	/**
+	 * The method used to check whether the contents of a file are in the
+	 * binary format.
+	 *
+	 * @param buffer The contents of the file
+	 * @param size The number of bytes in the file
+	 * @return Whether the file starts with the magic number
+	 */
+	static boolean isBinary(ByteBuffer buffer, int size) {
+		return size >= HEADER_LENGTH && buffer.getInt(0) == MAGIC;
+	}
+
+	/**
+	 * The method used to read a room in the binary format.
+	 *
+	 * @param buffer The contents of the file, starting at its position
+	 * @param size The number of bytes in the file
+	 * @return The layout of the room
+	 * @throws IOException If the contents are not a valid binary room
+	 */
+	static RoomLayout parse(ByteBuffer buffer, int size) throws IOException {
+		if (!isBinary(buffer, size)) {
+			throw new IOException("Not a binary room file.");
+		}
+		buffer.getInt();
+		short version = buffer.getShort();
+		if (version != VERSION) {
+			throw new IOException("Unsupported binary room version " + version + ".");
+		}
+		byte encoding = buffer.get();
+		boolean unknown = (buffer.get() & UNKNOWN_FLAG) != 0;
+		int rows = buffer.getInt();
+		int columns = buffer.getInt();
+		int spawnRow = buffer.getInt();
+		int spawnColumn = buffer.getInt();
+
+		long cellCount = (long) rows * columns;
+		if (rows < 0 || columns < 0 || cellCount > GridStorages.MAX_ARRAY_CELLS) {
+			throw new IOException("Invalid binary room size " + rows + " by " + columns + ".");
+		}
+		long expected = HEADER_LENGTH + (encoding == PACKED_CELLS ? (cellCount + 3) / 4 : cellCount);
+		if ((encoding != BYTE_CELLS && encoding != PACKED_CELLS) || size != expected) {
+			throw new IOException("Binary room file is truncated or has an unknown encoding.");
+		}
+
+		byte[] cells = new byte[(int) cellCount];
+		if (encoding == BYTE_CELLS) {
+			buffer.get(cells);
+		} else {
+			byte[] chunk = new byte[CHUNK_SIZE];
+			int whole = cells.length / 4;	// The number of packed bytes that hold four cells
+			int cell = 0;
+			int read = 0;
+			while (buffer.hasRemaining()) {
+				int length = Math.min(chunk.length, buffer.remaining());
+				buffer.get(chunk, 0, length);
+				for (int i = 0; i < length; i++, read++) {
+					int packed = chunk[i];
+					if (read < whole) {
+						cells[cell] = (byte) (packed & 3);
+						cells[cell + 1] = (byte) ((packed >>> 2) & 3);
+						cells[cell + 2] = (byte) ((packed >>> 4) & 3);
+						cells[cell + 3] = (byte) ((packed >>> 6) & 3);
+						cell += 4;
+					} else {
+						for (; cell < cells.length; cell++, packed >>>= 2) {
+							cells[cell] = (byte) (packed & 3);
+						}
+					}
+				}
+			}
+		}
+		return new RoomLayout(rows, columns, spawnRow, spawnColumn, cells, unknown);
+	}
+
+	/**
+	 * The method used to write a room in the binary format.
+	 *
+	 * @param layout The layout of the room
+	 * @param file The file to write the room to
+	 * @throws IOException If the file could not be written
+	 */
+	public static void write(RoomLayout layout, File file) throws IOException {
+		int cellCount = layout.getRows() * layout.getColumns();
+		boolean unknown = layout.hasUnknown();
+		ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+		header.putInt(MAGIC);
+		header.putShort(VERSION);
+		header.put(unknown ? BYTE_CELLS : PACKED_CELLS);
+		header.put(unknown ? UNKNOWN_FLAG : 0);
+		header.putInt(layout.getRows());
+		header.putInt(layout.getColumns());
+		header.putInt(layout.getSpawnRow());
+		header.putInt(layout.getSpawnColumn());
+		header.flip();
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			writeFully(channel, header);
+			byte[] cells = layout.cells();
+			if (unknown) {
+				writeFully(channel, ByteBuffer.wrap(cells, 0, cellCount));
+			} else {
+				// Pack four cells into each byte, a chunk at a time
+				ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+				for (int cell = 0; cell < cellCount; cell += 4) {
+					int packed = 0;
+					for (int i = 0; i < 4 && cell + i < cellCount; i++) {
+						packed |= cells[cell + i] << (i * 2);
+					}
+					chunk.put((byte) packed);
+					if (!chunk.hasRemaining()) {
+						chunk.flip();
+						writeFully(channel, chunk);
+						chunk.clear();
+					}
+				}
+				chunk.flip();
+				writeFully(channel, chunk);
+			}
+		}
+	}
+
+	/**
+	 * The method used to write the whole of a buffer to a channel.
+	 *
+	 * @param channel The channel to write to
+	 * @param buffer The buffer to write
+	 * @throws IOException If the buffer could not be written
+	 */
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+}
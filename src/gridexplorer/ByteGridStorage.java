@@ -0,0 +1,110 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+/**
+ * The ByteGridStorage class stores the objects of a grid one per byte in a
+ * single array, one row after another.
+ *
+ * @author Christopher Wells
+ */
+public class ByteGridStorage implements GridStorage {
+
+	private final int rows;	// The total number of rows that the grid has
+	private final int columns;	// The total number of columns that the grid has
+	private final byte[] cells;	// The compact codes of the objects, in row-major order
+
+	/**
+	 * The constructor method to create an empty grid.
+	 *
+	 * @param r The number of rows that the grid has
+	 * @param c The number of columns that the grid has
+	 * @throws IllegalArgumentException If the grid has too many cells to fit
+	 * in an array
+	 */
+	public ByteGridStorage(int r, int c) {
+		this(r, c, new byte[checkedSize(r, c)]);
+	}
+
+	/**
+	 * The constructor method to create a grid backed by an existing array of
+	 * compact codes.
+	 *
+	 * @param r The number of rows that the grid has
+	 * @param c The number of columns that the grid has
+	 * @param cells The compact codes of the objects in row-major order, which
+	 * may be longer than the number of cells in the grid
+	 */
+	ByteGridStorage(int r, int c, byte[] cells) {
+		rows = r;
+		columns = c;
+		this.cells = cells;
+	}
+
+	/**
+	 * The method used to find the number of cells in a grid, making sure that
+	 * they fit in an array.
+	 *
+	 * @param r The number of rows that the grid has
+	 * @param c The number of columns that the grid has
+	 * @return The number of cells in the grid
+	 */
+	private static int checkedSize(int r, int c) {
+		long size = (long) r * c;
+		if (size > GridStorages.MAX_ARRAY_CELLS) {
+			throw new IllegalArgumentException("A " + r + " by " + c + " grid is too large for a byte array.");
+		}
+		return (int) size;
+	}
+
+	@Override
+	public int getRows() {
+		return rows;
+	}
+
+	@Override
+	public int getColumns() {
+		return columns;
+	}
+
+	@Override
+	public int get(int r, int c) {
+		return Tiles.decode(cells[r * columns + c]);
+	}
+
+	@Override
+	public void set(int r, int c, int id) {
+		cells[r * columns + c] = Tiles.encode(id);
+	}
+
+	/**
+	 * The method used to get the array of compact codes that backs the grid,
+	 * so that the grid can be read and written in bulk.
+	 *
+	 * @return The compact codes of the objects in row-major order
+	 */
+	byte[] cells() {
+		return cells;
+	}
+}
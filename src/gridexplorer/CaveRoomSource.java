@@ -0,0 +1,147 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+/**
+ * The CaveRoomSource class generates a cave from value noise. A random value
+ * is chosen from the seed for every few rows and columns, the values in
+ * between are smoothly blended, and the positions whose value is below the
+ * fraction of walls are filled in. A corridor along the first row and the
+ * last column is always left open, so the portal in the far corner can be
+ * reached from the spawn point in the first corner.
+ *
+ * @author Christopher Wells
+ */
+public class CaveRoomSource extends GeneratedRoomSource {
+
+	private static final int FEATURE_SIZE = 8;	// The number of positions between the chosen random values
+	private static final double DEFAULT_WALLS = 0.45;	// The fraction of walls when none is given
+
+	private static final byte WALL_CODE = Tiles.encode(Tiles.WALL);	// The compact code of a wall
+	private static final byte EMPTY_CODE = Tiles.encode(Tiles.EMPTY);	// The compact code of an empty position
+	private static final byte PORTAL_CODE = Tiles.encode(Tiles.PORTAL);	// The compact code of a portal
+
+	private final double walls;	// The noise value below which a position is a wall
+
+	/**
+	 * The constructor method to create the source of a cave with the default
+	 * fraction of walls.
+	 *
+	 * @param r The number of rows that the room has
+	 * @param c The number of columns that the room has
+	 * @param s The seed that the cave is generated from
+	 */
+	public CaveRoomSource(int r, int c, long s) {
+		this(r, c, s, DEFAULT_WALLS);
+	}
+
+	/**
+	 * The constructor method to create the source of a cave.
+	 *
+	 * @param r The number of rows that the room has
+	 * @param c The number of columns that the room has
+	 * @param s The seed that the cave is generated from
+	 * @param wallFraction The fraction of the cave that is filled with walls,
+	 * from 0 to 1
+	 */
+	public CaveRoomSource(int r, int c, long s, double wallFraction) {
+		super(r, c, s);
+		if (r < 4 && c < 4) {
+			throw new IllegalArgumentException("A cave of " + r + " by " + c + " has no room for a portal.");
+		}
+		walls = wallFraction;
+	}
+
+	@Override
+	public String getName() {
+		return "cave-" + rows + "x" + columns + "-" + seed;
+	}
+
+	@Override
+	protected int getSpawnRow() {
+		return 1;
+	}
+
+	@Override
+	protected int getSpawnColumn() {
+		return 1;
+	}
+
+	@Override
+	protected void fillRow(byte[] cells, int r) {
+		int offset = r * columns;
+		if (r == 0 || r == rows - 1) {
+			for (int c = 0; c < columns; c++) {
+				cells[offset + c] = WALL_CODE;
+			}
+			return;
+		}
+
+		// Blend the random values of the rows of features above and below this
+		// row once, so that each position only blends along the row
+		int featureRow = r / FEATURE_SIZE;
+		double down = smooth((r % FEATURE_SIZE) / (double) FEATURE_SIZE);
+		double[] blended = new double[columns / FEATURE_SIZE + 2];
+		for (int j = 0; j < blended.length; j++) {
+			double above = value(featureRow, j);
+			blended[j] = above + (value(featureRow + 1, j) - above) * down;
+		}
+
+		cells[offset] = WALL_CODE;
+		cells[offset + columns - 1] = WALL_CODE;
+		for (int c = 1; c < columns - 1; c++) {
+			int featureColumn = c / FEATURE_SIZE;
+			double across = smooth((c % FEATURE_SIZE) / (double) FEATURE_SIZE);
+			double left = blended[featureColumn];
+			double noise = left + (blended[featureColumn + 1] - left) * across;
+			boolean corridor = r == 1 || c == columns - 2;
+			cells[offset + c] = !corridor && noise < walls ? WALL_CODE : EMPTY_CODE;
+		}
+		if (r == rows - 2) {
+			cells[offset + columns - 2] = PORTAL_CODE;
+		}
+	}
+
+	/**
+	 * The method used to get the random value of a feature, from 0 to 1.
+	 *
+	 * @param featureRow The row of the feature
+	 * @param featureColumn The column of the feature
+	 * @return The random value of the feature
+	 */
+	private double value(int featureRow, int featureColumn) {
+		return (hash(featureRow, featureColumn) >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * The method used to ease the blend between two values, so that the cave
+	 * has no sharp corners along the features.
+	 *
+	 * @param t The distance between the two values, from 0 to 1
+	 * @return The eased distance
+	 */
+	private static double smooth(double t) {
+		return t * t * (3 - 2 * t);
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+/**
+ * The ChunkSource interface represents where the chunks of a chunked grid are
+ * loaded from, and where they are stored back to once they are evicted.
+ *
+ * @author Christopher Wells
+ */
+public interface ChunkSource {
+
+	/**
+	 * The method used to load the objects of a chunk.
+	 *
+	 * @param top The row of the top left corner of the chunk
+	 * @param left The column of the top left corner of the chunk
+	 * @param height The number of rows in the chunk
+	 * @param width The number of columns in the chunk
+	 * @param codes The array to fill with the compact codes of the objects,
+	 * with rows that are width long
+	 */
+	void load(int top, int left, int height, int width, byte[] codes);
+
+	/**
+	 * The method used to store the objects of a chunk that has been changed.
+	 *
+	 * @param top The row of the top left corner of the chunk
+	 * @param left The column of the top left corner of the chunk
+	 * @param height The number of rows in the chunk
+	 * @param width The number of columns in the chunk
+	 * @param codes The compact codes of the objects, with rows that are width
+	 * long
+	 */
+	void store(int top, int left, int height, int width, byte[] codes);
+}
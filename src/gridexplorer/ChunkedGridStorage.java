@@ -0,0 +1,314 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The ChunkedGridStorage class splits a grid into square chunks, and only
+ * keeps a limited number of them in memory. Chunks are loaded from a chunk
+ * source when they are first used, and the least recently used chunk is
+ * evicted, and stored back if it was changed, once the cache is full.
+ *
+ * When an object is set within a few cells of the edge of its chunk, such as
+ * when the player moves, the chunk across that edge is loaded ahead of time so
+ * that the next moves do not have to wait for it. The chunk that was set stays
+ * the most recently used, so loading ahead never evicts it.
+ *
+ * @author Christopher Wells
+ */
+public class ChunkedGridStorage implements GridStorage {
+
+	private final int rows;	// The total number of rows that the grid has
+	private final int columns;	// The total number of columns that the grid has
+	private final int chunkSize;	// The number of rows and columns in each chunk
+	private final int capacity;	// The largest number of chunks kept in memory
+	private final ChunkSource source;	// Where chunks are loaded from and stored to
+	private final LinkedHashMap<Long, Chunk> chunks;	// The loaded chunks, least recently used first
+	private int prefetchMargin;	// How close to the edge of a chunk a set has to be to load its neighbour
+	private long lastKey = -1;	// The key of the most recently used chunk
+	private Chunk lastChunk;	// The most recently used chunk
+	private long hits;	// The number of times a used chunk was already loaded
+	private long misses;	// The number of times a used chunk had to be loaded
+	private long evictions;	// The number of chunks that have been evicted
+
+	/**
+	 * The constructor method to create the chunked grid.
+	 *
+	 * @param r The number of rows that the grid has
+	 * @param c The number of columns that the grid has
+	 * @param size The number of rows and columns in each chunk
+	 * @param cap The largest number of chunks to keep in memory
+	 * @param src Where chunks are loaded from and stored to
+	 * @throws IllegalArgumentException If the chunk size or capacity is not
+	 * positive
+	 */
+	public ChunkedGridStorage(int r, int c, int size, int cap, ChunkSource src) {
+		if (size <= 0 || cap <= 0) {
+			throw new IllegalArgumentException("Chunk size and capacity must be positive.");
+		}
+		rows = r;
+		columns = c;
+		chunkSize = size;
+		capacity = cap;
+		source = src;
+		prefetchMargin = Math.min(4, size / 4);
+		chunks = new LinkedHashMap<Long, Chunk>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Chunk> eldest) {
+				if (size() > capacity) {
+					evict(eldest.getKey(), eldest.getValue());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	@Override
+	public int getRows() {
+		return rows;
+	}
+
+	@Override
+	public int getColumns() {
+		return columns;
+	}
+
+	@Override
+	public int get(int r, int c) {
+		Chunk chunk = chunk(r / chunkSize, c / chunkSize);
+		return Tiles.decode(chunk.codes[(r - chunk.top) * chunk.width + (c - chunk.left)]);
+	}
+
+	@Override
+	public void set(int r, int c, int id) {
+		int chunkRow = r / chunkSize;
+		int chunkColumn = c / chunkSize;
+		Chunk chunk = chunk(chunkRow, chunkColumn);
+		int localRow = r - chunk.top;
+		int localColumn = c - chunk.left;
+		chunk.codes[localRow * chunk.width + localColumn] = Tiles.encode(id);
+		chunk.dirty = true;
+
+		// Load the neighbouring chunks that the position is close to
+		if (localRow < prefetchMargin) {
+			prefetch(chunkRow - 1, chunkColumn);
+		} else if (localRow >= chunk.height - prefetchMargin) {
+			prefetch(chunkRow + 1, chunkColumn);
+		}
+		if (localColumn < prefetchMargin) {
+			prefetch(chunkRow, chunkColumn - 1);
+		} else if (localColumn >= chunk.width - prefetchMargin) {
+			prefetch(chunkRow, chunkColumn + 1);
+		}
+	}
+
+	/**
+	 * The method used to set how close to the edge of a chunk an object has to
+	 * be set for the neighbouring chunk to be loaded ahead of time.
+	 *
+	 * @param margin The number of cells from the edge, or 0 to never load
+	 * chunks ahead of time
+	 */
+	public void setPrefetchMargin(int margin) {
+		prefetchMargin = margin;
+	}
+
+	/**
+	 * The method used to get a chunk, loading it if it is not in memory.
+	 *
+	 * @param chunkRow The row of the chunk
+	 * @param chunkColumn The column of the chunk
+	 * @return The chunk
+	 */
+	private Chunk chunk(int chunkRow, int chunkColumn) {
+		long key = ((long) chunkRow << 32) | chunkColumn;
+		if (key == lastKey) {
+			// The most recently used chunk is already the newest in the cache,
+			// as prefetch moves it back in front of any chunk it loads
+			hits++;
+			return lastChunk;
+		}
+		Chunk chunk = chunks.get(key);
+		if (chunk == null) {
+			misses++;
+			chunk = load(chunkRow, chunkColumn);
+			chunks.put(key, chunk);
+		} else {
+			hits++;
+		}
+		lastKey = key;
+		lastChunk = chunk;
+		return chunk;
+	}
+
+	/**
+	 * The method used to load a chunk ahead of time, if it exists and is not
+	 * already in memory. The most recently used chunk is then used again, so
+	 * that it stays the newest in the cache and the chunk that is evicted for
+	 * the next load is never the one in use. Nothing is loaded ahead of time
+	 * if only a single chunk fits in memory.
+	 *
+	 * @param chunkRow The row of the chunk
+	 * @param chunkColumn The column of the chunk
+	 */
+	private void prefetch(int chunkRow, int chunkColumn) {
+		if (capacity < 2 || chunkRow < 0 || chunkColumn < 0
+				|| (long) chunkRow * chunkSize >= rows || (long) chunkColumn * chunkSize >= columns) {
+			return;
+		}
+		long key = ((long) chunkRow << 32) | chunkColumn;
+		if (!chunks.containsKey(key)) {
+			misses++;
+			chunks.put(key, load(chunkRow, chunkColumn));
+			if (lastChunk != null) {
+				chunks.get(lastKey);
+			}
+		}
+	}
+
+	/**
+	 * The method used to load a chunk from the chunk source.
+	 *
+	 * @param chunkRow The row of the chunk
+	 * @param chunkColumn The column of the chunk
+	 * @return The loaded chunk
+	 */
+	private Chunk load(int chunkRow, int chunkColumn) {
+		int top = chunkRow * chunkSize;
+		int left = chunkColumn * chunkSize;
+		Chunk chunk = new Chunk(top, left, Math.min(chunkSize, rows - top), Math.min(chunkSize, columns - left));
+		source.load(chunk.top, chunk.left, chunk.height, chunk.width, chunk.codes);
+		return chunk;
+	}
+
+	/**
+	 * The method used to evict a chunk from memory, storing it back if it was
+	 * changed.
+	 *
+	 * @param key The key of the chunk
+	 * @param chunk The chunk
+	 */
+	private void evict(long key, Chunk chunk) {
+		if (chunk.dirty) {
+			source.store(chunk.top, chunk.left, chunk.height, chunk.width, chunk.codes);
+		}
+		if (key == lastKey) {
+			lastKey = -1;
+			lastChunk = null;
+		}
+		evictions++;
+	}
+
+	/**
+	 * The method used to store back every chunk in memory that has been
+	 * changed.
+	 */
+	public void flush() {
+		for (Chunk chunk : chunks.values()) {
+			if (chunk.dirty) {
+				source.store(chunk.top, chunk.left, chunk.height, chunk.width, chunk.codes);
+				chunk.dirty = false;
+			}
+		}
+	}
+
+	/**
+	 * The method used to get the number of chunks that are in memory.
+	 *
+	 * @return The number of loaded chunks
+	 */
+	public int getLoadedChunks() {
+		return chunks.size();
+	}
+
+	/**
+	 * The method used to get the number of times that a used chunk was
+	 * already in memory.
+	 *
+	 * @return The number of cache hits
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * The method used to get the number of times that a chunk had to be
+	 * loaded, including chunks loaded ahead of time.
+	 *
+	 * @return The number of cache misses
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * The method used to get the number of chunks that have been evicted.
+	 *
+	 * @return The number of evictions
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * The method used to reset the hit, miss and eviction counters.
+	 */
+	public void resetCounters() {
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+	}
+
+	/**
+	 * A chunk of the grid that is in memory.
+	 */
+	private static final class Chunk {
+
+		private final int top;	// The row of the top left corner of the chunk
+		private final int left;	// The column of the top left corner of the chunk
+		private final int height;	// The number of rows in the chunk
+		private final int width;	// The number of columns in the chunk
+		private final byte[] codes;	// The compact codes of the objects in the chunk
+		private boolean dirty;	// Whether the chunk has changed since it was loaded
+
+		/**
+		 * The constructor method to create an empty chunk.
+		 *
+		 * @param t The row of the top left corner of the chunk
+		 * @param l The column of the top left corner of the chunk
+		 * @param h The number of rows in the chunk
+		 * @param w The number of columns in the chunk
+		 */
+		private Chunk(int t, int l, int h, int w) {
+			top = t;
+			left = l;
+			height = h;
+			width = w;
+			codes = new byte[h * w];
+		}
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The CopyOnWriteGridStorage class lets a room use a shared room layout as its
+ * grid without copying it. Objects are read from the layout until a row is
+ * changed, at which point only that row is copied, so the layout itself is
+ * never changed and can be shared by any number of rooms.
+ *
+ * @author Christopher Wells
+ */
+public class CopyOnWriteGridStorage implements GridStorage {
+
+	private final int rows;	// The total number of rows that the grid has
+	private final int columns;	// The total number of columns that the grid has
+	private final byte[] shared;	// The compact codes of the shared layout, which must not be changed
+	private byte[][] copied;	// The rows that have been copied, or null until a row is changed
+	private int[] owners;	// The generation in which each copied row was made, or null until a row is changed
+	private int generation = 1;	// The generation of the rows that may be changed in place
+
+	/**
+	 * The constructor method to create a view of a room layout.
+	 *
+	 * @param layout The layout of the room
+	 */
+	public CopyOnWriteGridStorage(RoomLayout layout) {
+		rows = layout.getRows();
+		columns = layout.getColumns();
+		shared = layout.cells();
+	}
+
+	/**
+	 * The constructor method to create a view of a layout and rows that are
+	 * shared with another grid, none of which may be changed in place.
+	 *
+	 * @param r The number of rows that the grid has
+	 * @param c The number of columns that the grid has
+	 * @param layout The compact codes of the shared layout
+	 * @param rowCopies The rows that have been copied, or null if there are none
+	 */
+	private CopyOnWriteGridStorage(int r, int c, byte[] layout, byte[][] rowCopies) {
+		rows = r;
+		columns = c;
+		shared = layout;
+		copied = rowCopies;
+	}
+
+	@Override
+	public int getRows() {
+		return rows;
+	}
+
+	@Override
+	public int getColumns() {
+		return columns;
+	}
+
+	@Override
+	public int get(int r, int c) {
+		if (copied != null && copied[r] != null) {
+			return Tiles.decode(copied[r][c]);
+		}
+		return Tiles.decode(shared[r * columns + c]);
+	}
+
+	@Override
+	public void set(int r, int c, int id) {
+		if (copied == null) {
+			copied = new byte[rows][];
+		}
+		if (owners == null) {
+			owners = new int[rows];
+		}
+		if (owners[r] != generation) {
+			// The row is still shared, with the layout or with a snapshot
+			byte[] row = new byte[columns];
+			if (copied[r] == null) {
+				System.arraycopy(shared, r * columns, row, 0, columns);
+			} else {
+				System.arraycopy(copied[r], 0, row, 0, columns);
+			}
+			copied[r] = row;
+			owners[r] = generation;
+		}
+		copied[r][c] = Tiles.encode(id);
+	}
+
+	/**
+	 * The method used to take a snapshot of the grid without copying its
+	 * objects. The snapshot shares the layout and the copied rows, and any
+	 * row that is changed afterwards, in either grid, is copied again first,
+	 * so the snapshot never changes and can be read from another thread.
+	 *
+	 * @return The snapshot of the grid
+	 */
+	public CopyOnWriteGridStorage snapshot() {
+		generation++;
+		return new CopyOnWriteGridStorage(rows, columns, shared, copied == null ? null : copied.clone());
+	}
+
+	/**
+	 * The method used to get the compact codes of a row without copying them,
+	 * whether the row has been copied or is still read from the layout.
+	 *
+	 * @param r The row
+	 * @return A buffer over the compact codes of the row, which must not be
+	 * changed
+	 */
+	ByteBuffer row(int r) {
+		if (copied != null && copied[r] != null) {
+			return ByteBuffer.wrap(copied[r]);
+		}
+		return ByteBuffer.wrap(shared, r * columns, columns);
+	}
+
+	/**
+	 * The method used to find how many rows have been copied from the shared
+	 * layout.
+	 *
+	 * @return The number of copied rows
+	 */
+	public int getCopiedRows() {
+		int count = 0;
+		if (copied != null) {
+			for (byte[] row : copied) {
+				if (row != null) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The Counter class counts events, such as invalid moves, and can be added to
+ * by many threads at once without a lock.
+ *
+ * @author Christopher Wells
+ */
+public class Counter {
+
+	private final AtomicLong count = new AtomicLong();	// The number of events counted
+
+	/**
+	 * The method used to count a single event.
+	 */
+	public void increment() {
+		count.incrementAndGet();
+	}
+
+	/**
+	 * The method used to count a number of events.
+	 *
+	 * @param events The number of events
+	 */
+	public void add(long events) {
+		count.addAndGet(events);
+	}
+
+	/**
+	 * The method used to get the number of events counted.
+	 *
+	 * @return The number of events
+	 */
+	public long get() {
+		return count.get();
+	}
+
+	/**
+	 * The method used to start counting again from 0.
+	 */
+	public void reset() {
+		count.set(0);
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+/**
+ * The Direction enum represents the directions that the player can move in,
+ * along with the change in row and column of a single step in each of them.
+ *
+ * @author Christopher Wells
+ */
+public enum Direction {
+
+	/**
+	 * Towards the first row of the room.
+	 */
+	UP(-1, 0, "up", 'w'),
+	/**
+	 * Towards the last row of the room.
+	 */
+	DOWN(1, 0, "down", 's'),
+	/**
+	 * Towards the first column of the room.
+	 */
+	LEFT(0, -1, "left", 'a'),
+	/**
+	 * Towards the last column of the room.
+	 */
+	RIGHT(0, 1, "right", 'd');
+
+	private static final Direction[] KEYS = new Direction[128];	// The direction of each key, indexed by the key
+
+	static {
+		for (Direction direction : values()) {
+			KEYS[direction.key] = direction;
+		}
+	}
+
+	private final int rowDelta;	// The change in row of a single step
+	private final int columnDelta;	// The change in column of a single step
+	private final String name;	// The name of the direction used by movePlayer
+	private final char key;	// The key that moves the player in the direction
+
+	/**
+	 * The constructor method of each direction.
+	 *
+	 * @param rowDelta The change in row of a single step
+	 * @param columnDelta The change in column of a single step
+	 * @param name The name of the direction
+	 * @param key The key that moves the player in the direction
+	 */
+	private Direction(int rowDelta, int columnDelta, String name, char key) {
+		this.rowDelta = rowDelta;
+		this.columnDelta = columnDelta;
+		this.name = name;
+		this.key = key;
+	}
+
+	/**
+	 * The method used to get the change in row of a single step.
+	 *
+	 * @return The change in row
+	 */
+	public int getRowDelta() {
+		return rowDelta;
+	}
+
+	/**
+	 * The method used to get the change in column of a single step.
+	 *
+	 * @return The change in column
+	 */
+	public int getColumnDelta() {
+		return columnDelta;
+	}
+
+	/**
+	 * The method used to get the key that moves the player in the direction.
+	 *
+	 * @return The key of the direction
+	 */
+	public char getKey() {
+		return key;
+	}
+
+	/**
+	 * The method used to find the direction of a key, without allocating
+	 * anything.
+	 *
+	 * @param key The key that was pressed
+	 * @return The direction of the key, or null if it is not one of wasd
+	 */
+	public static Direction fromKey(char key) {
+		return key < KEYS.length ? KEYS[key] : null;
+	}
+
+	/**
+	 * The method used to find a direction by its name, such as "up".
+	 *
+	 * @param name The name of the direction
+	 * @return The direction with the name, or null if there is none
+	 */
+	public static Direction fromName(String name) {
+		for (Direction direction : values()) {
+			if (direction.name.equals(name)) {
+				return direction;
+			}
+		}
+		return null;
+	}
+}
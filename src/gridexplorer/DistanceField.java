@@ -0,0 +1,514 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.util.Arrays;
+
+/**
+ * The DistanceField class holds the number of steps from every open position
+ * of a room to its nearest portal. It is found with a single breadth-first
+ * search from all of the portals at once, after which the path from any
+ * position to a portal is found by stepping to the neighbour that is one step
+ * closer, without searching again.
+ *
+ * A distance field listens to the room it was made for, so that adding or
+ * removing walls and portals only updates the distances that changed. Moving
+ * the player does not change any distances, as the player never blocks a
+ * path.
+ *
+ * @author Christopher Wells
+ */
+public class DistanceField implements RoomListener {
+
+	public static final int UNREACHABLE = -1;	// The distance of a position that cannot reach a portal
+
+	private static final int BLOCKED = -1;	// The stored distance of a position that cannot be stepped on
+	private static final int FAR = Integer.MAX_VALUE;	// The stored distance of an open position that cannot reach a portal
+
+	private static final int PORTAL_STATE = 0;	// The state of a portal
+	private static final int OPEN_STATE = 1;	// The state of a position that can be stepped on
+	private static final int BLOCKED_STATE = 2;	// The state of a position that cannot be stepped on
+
+	private final int rows;	// The total number of rows that the room has
+	private final int columns;	// The total number of columns that the room has
+	private final int[] distances;	// The distance of each position in row-major order
+	private int[] queue;	// The positions waiting to be visited by an update, created on the first update
+	private int[] marks;	// The update in which each position was last invalidated
+	private int mark;	// The number of the current update
+
+	/**
+	 * The constructor method to create a distance field from its distances.
+	 *
+	 * @param r The number of rows that the room has
+	 * @param c The number of columns that the room has
+	 * @param distances The distances of each position in row-major order
+	 */
+	private DistanceField(int r, int c, int[] distances) {
+		rows = r;
+		columns = c;
+		this.distances = distances;
+	}
+
+	/**
+	 * The method used to find the distances of every position of a grid to
+	 * its nearest portal.
+	 *
+	 * @param grid The grid of the room
+	 * @return The distance field of the grid
+	 * @throws IllegalStateException If the grid has more positions than an
+	 * array can hold, as an off-heap grid can
+	 */
+	public static DistanceField compute(GridStorage grid) {
+		int r = grid.getRows();
+		int c = grid.getColumns();
+		if ((long) r * c > GridStorages.MAX_ARRAY_CELLS) {
+			throw new IllegalStateException("A " + r + " by " + c + " grid is too large for a distance field.");
+		}
+		int[] distances = new int[r * c];
+		for (int i = 0; i < r; i++) {
+			for (int j = 0; j < c; j++) {
+				distances[i * c + j] = initialDistance(grid.get(i, j));
+			}
+		}
+		DistanceField field = new DistanceField(r, c, distances);
+		field.search();
+		return field;
+	}
+
+	/**
+	 * The method used to find the distances of every position of a room layout
+	 * to its nearest portal.
+	 *
+	 * @param layout The layout of the room
+	 * @return The distance field of the layout
+	 */
+	static DistanceField compute(RoomLayout layout) {
+		int r = layout.getRows();
+		int c = layout.getColumns();
+		byte[] cells = layout.cells();
+		int[] distances = new int[r * c];
+		for (int i = 0; i < distances.length; i++) {
+			distances[i] = initialDistance(Tiles.decode(cells[i]));
+		}
+		DistanceField field = new DistanceField(r, c, distances);
+		field.search();
+		return field;
+	}
+
+	/**
+	 * The method used to copy the distance field, so that the copy can be
+	 * updated for a single room.
+	 *
+	 * @return The copy of the distance field
+	 */
+	public DistanceField copy() {
+		return new DistanceField(rows, columns, distances.clone());
+	}
+
+	/**
+	 * The method used to get the number of rows that the distance field has.
+	 *
+	 * @return The number of rows
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * The method used to get the number of columns that the distance field
+	 * has.
+	 *
+	 * @return The number of columns
+	 */
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * The method used to get the number of steps from a position to the
+	 * nearest portal.
+	 *
+	 * @param r The row of the position
+	 * @param c The column of the position
+	 * @return The number of steps, or UNREACHABLE if the position is outside
+	 * of the room, is blocked or cannot reach a portal
+	 */
+	public int distanceAt(int r, int c) {
+		if (r < 0 || r >= rows || c < 0 || c >= columns) {
+			return UNREACHABLE;
+		}
+		int distance = distances[r * columns + c];
+		return distance == FAR ? UNREACHABLE : distance;
+	}
+
+	/**
+	 * The method used to find the direction of the first step on a shortest
+	 * path from a position to the nearest portal.
+	 *
+	 * @param r The row of the position
+	 * @param c The column of the position
+	 * @return The direction of the step, or null if the position is on a
+	 * portal or cannot reach one
+	 */
+	public Direction nextStep(int r, int c) {
+		int distance = distanceAt(r, c);
+		if (distance <= 0) {
+			return null;
+		}
+		for (Direction direction : Direction.values()) {
+			if (distanceAt(r + direction.getRowDelta(), c + direction.getColumnDelta()) == distance - 1) {
+				return direction;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The method used to find a shortest path from a position to the nearest
+	 * portal, which takes time in proportion to the length of the path.
+	 *
+	 * @param r The row of the position
+	 * @param c The column of the position
+	 * @return The directions of each step of the path, which is empty if the
+	 * position is on a portal or cannot reach one
+	 */
+	public Direction[] pathFrom(int r, int c) {
+		int distance = distanceAt(r, c);
+		Direction[] path = new Direction[Math.max(distance, 0)];
+		for (int i = 0; i < path.length; i++) {
+			path[i] = nextStep(r, c);
+			r += path[i].getRowDelta();
+			c += path[i].getColumnDelta();
+		}
+		return path;
+	}
+
+	@Override
+	public void objectChanged(Room room, int r, int c, int oldId, int newId) {
+		objectChanged(r, c, oldId, newId);
+	}
+
+	/**
+	 * The method used to update the distances after the object at a position
+	 * has changed. Only the distances that depend on the position are looked
+	 * at again.
+	 *
+	 * @param r The row of the position that changed
+	 * @param c The column of the position that changed
+	 * @param oldId The integer identifier of the object that was there before
+	 * @param newId The integer identifier of the object that is there now
+	 */
+	public void objectChanged(int r, int c, int oldId, int newId) {
+		int oldState = stateOf(oldId);
+		int newState = stateOf(newId);
+		if (oldState == newState) {
+			return;
+		}
+		if (queue == null) {
+			queue = new int[distances.length];
+			marks = new int[distances.length];
+		}
+		int index = r * columns + c;
+		if (newState < oldState) {
+			lower(index, newState);
+		} else {
+			raise(index, newState);
+		}
+	}
+
+	/**
+	 * The method used to find the distances from the portals, once the
+	 * portals have a distance of zero and every other open position is far.
+	 */
+	private void search() {
+		int[] frontier = new int[distances.length];
+		int tail = 0;
+		for (int i = 0; i < distances.length; i++) {
+			if (distances[i] == 0) {
+				frontier[tail++] = i;
+			}
+		}
+		relax(frontier, 0, tail);
+	}
+
+	/**
+	 * The method used to visit the positions in a queue in order, giving each
+	 * of their neighbours a shorter distance where one is found.
+	 *
+	 * @param frontier The queue of positions
+	 * @param head The position of the first position in the queue
+	 * @param tail The position after the last position in the queue
+	 */
+	private void relax(int[] frontier, int head, int tail) {
+		while (head < tail) {
+			tail = relaxNeighbours(frontier, frontier[head++], tail);
+		}
+	}
+
+	/**
+	 * The method used to update the distances after a position became easier
+	 * to pass, such as a wall being removed or a portal being added. Only the
+	 * distances that become shorter are changed.
+	 *
+	 * @param index The position that changed
+	 * @param state The new state of the position
+	 */
+	private void lower(int index, int state) {
+		int distance = state == PORTAL_STATE ? 0 : closestNeighbour(index);
+		distances[index] = distance;
+		if (distance != FAR) {
+			queue[0] = index;
+			relax(queue, 0, 1);
+		}
+	}
+
+	/**
+	 * The method used to update the distances after a position became harder
+	 * to pass, such as a wall being added or a portal being removed. The
+	 * positions whose shortest path went through the changed position are
+	 * found first, and then only their distances are found again.
+	 *
+	 * @param index The position that changed
+	 * @param state The new state of the position
+	 */
+	private void raise(int index, int state) {
+		if (distances[index] == FAR) {
+			// Nothing could reach a portal through this position
+			distances[index] = state == BLOCKED_STATE ? BLOCKED : FAR;
+			return;
+		}
+
+		// Find the positions that have no other neighbour one step closer,
+		// nearest first so that each one is checked after its neighbours
+		mark++;
+		marks[index] = mark;
+		queue[0] = index;
+		int tail = 1;
+		for (int head = 0; head < tail; head++) {
+			int current = queue[head];
+			int r = current / columns;
+			int c = current - r * columns;
+			if (r > 0) {
+				tail = invalidate(current, current - columns, tail);
+			}
+			if (r < rows - 1) {
+				tail = invalidate(current, current + columns, tail);
+			}
+			if (c > 0) {
+				tail = invalidate(current, current - 1, tail);
+			}
+			if (c < columns - 1) {
+				tail = invalidate(current, current + 1, tail);
+			}
+		}
+
+		for (int i = 0; i < tail; i++) {
+			distances[queue[i]] = FAR;
+		}
+		if (state == BLOCKED_STATE) {
+			distances[index] = BLOCKED;
+		}
+
+		// Give each invalidated position the distance of its closest neighbour
+		// that is still valid, and search again from them nearest first
+		long[] seeds = new long[tail];
+		int count = 0;
+		for (int i = 0; i < tail; i++) {
+			int position = queue[i];
+			if (distances[position] == FAR) {
+				int distance = closestNeighbour(position);
+				if (distance != FAR) {
+					seeds[count++] = ((long) distance << 32) | position;
+				}
+			}
+		}
+		Arrays.sort(seeds, 0, count);
+
+		int head = 0;
+		tail = 0;
+		int seed = 0;
+		while (seed < count || head < tail) {
+			if (head == tail || (seed < count && (int) (seeds[seed] >>> 32) <= distances[queue[head]])) {
+				int distance = (int) (seeds[seed] >>> 32);
+				int position = (int) seeds[seed++];
+				if (distance < distances[position]) {
+					distances[position] = distance;
+					tail = relaxNeighbours(queue, position, tail);
+				}
+			} else {
+				tail = relaxNeighbours(queue, queue[head++], tail);
+			}
+		}
+	}
+
+	/**
+	 * The method used to give the neighbours of a position a shorter distance
+	 * where one is found, adding them to the end of a queue.
+	 *
+	 * @param frontier The queue of positions
+	 * @param index The position whose neighbours are relaxed
+	 * @param tail The position after the last position in the queue
+	 * @return The new position after the last position in the queue
+	 */
+	private int relaxNeighbours(int[] frontier, int index, int tail) {
+		int next = distances[index] + 1;
+		int r = index / columns;
+		int c = index - r * columns;
+		if (r > 0 && distances[index - columns] > next) {
+			distances[index - columns] = next;
+			frontier[tail++] = index - columns;
+		}
+		if (r < rows - 1 && distances[index + columns] > next) {
+			distances[index + columns] = next;
+			frontier[tail++] = index + columns;
+		}
+		if (c > 0 && distances[index - 1] > next) {
+			distances[index - 1] = next;
+			frontier[tail++] = index - 1;
+		}
+		if (c < columns - 1 && distances[index + 1] > next) {
+			distances[index + 1] = next;
+			frontier[tail++] = index + 1;
+		}
+		return tail;
+	}
+
+	/**
+	 * The method used to invalidate a neighbour of an invalidated position if
+	 * its shortest path went through that position and no other neighbour is
+	 * one step closer.
+	 *
+	 * @param from The invalidated position
+	 * @param to The neighbour of the position
+	 * @param tail The position after the last position in the queue
+	 * @return The new position after the last position in the queue
+	 */
+	private int invalidate(int from, int to, int tail) {
+		int distance = distances[to];
+		if (marks[to] == mark || distance != distances[from] + 1) {
+			return tail;
+		}
+		int r = to / columns;
+		int c = to - r * columns;
+		if ((r > 0 && supports(to - columns, distance))
+				|| (r < rows - 1 && supports(to + columns, distance))
+				|| (c > 0 && supports(to - 1, distance))
+				|| (c < columns - 1 && supports(to + 1, distance))) {
+			return tail;
+		}
+		marks[to] = mark;
+		queue[tail++] = to;
+		return tail;
+	}
+
+	/**
+	 * The method used to check whether a position is still a valid step
+	 * towards a portal for a neighbour at a given distance.
+	 *
+	 * @param index The position
+	 * @param distance The distance of the neighbour
+	 * @return Whether the position is one step closer and has not been
+	 * invalidated
+	 */
+	private boolean supports(int index, int distance) {
+		return marks[index] != mark && distances[index] == distance - 1;
+	}
+
+	/**
+	 * The method used to find the distance of a position from the distances of
+	 * its neighbours.
+	 *
+	 * @param index The position
+	 * @return One more than the distance of the closest neighbour, or FAR if no
+	 * neighbour can reach a portal
+	 */
+	private int closestNeighbour(int index) {
+		int r = index / columns;
+		int c = index - r * columns;
+		int closest = FAR;
+		if (r > 0) {
+			closest = closer(closest, distances[index - columns]);
+		}
+		if (r < rows - 1) {
+			closest = closer(closest, distances[index + columns]);
+		}
+		if (c > 0) {
+			closest = closer(closest, distances[index - 1]);
+		}
+		if (c < columns - 1) {
+			closest = closer(closest, distances[index + 1]);
+		}
+		return closest;
+	}
+
+	/**
+	 * The method used to choose the shorter of a distance and the distance of
+	 * a step from a neighbour.
+	 *
+	 * @param closest The shortest distance found so far
+	 * @param neighbour The distance of the neighbour
+	 * @return The shorter distance
+	 */
+	private static int closer(int closest, int neighbour) {
+		if (neighbour >= 0 && neighbour != FAR && neighbour + 1 < closest) {
+			return neighbour + 1;
+		}
+		return closest;
+	}
+
+	/**
+	 * The method used to find the distance that a position starts with before
+	 * the search.
+	 *
+	 * @param id The integer identifier of the object at the position
+	 * @return The starting distance of the position
+	 */
+	private static int initialDistance(int id) {
+		switch (stateOf(id)) {
+			case PORTAL_STATE:
+				return 0;
+			case OPEN_STATE:
+				return FAR;
+			default:
+				return BLOCKED;
+		}
+	}
+
+	/**
+	 * The method used to find whether an object is a portal, can be stepped
+	 * on or blocks the way.
+	 *
+	 * @param id The integer identifier of the object
+	 * @return The state of the object
+	 */
+	private static int stateOf(int id) {
+		if (id == Tiles.PORTAL) {
+			return PORTAL_STATE;
+		} else if (id == Tiles.EMPTY || id == Tiles.PLAYER) {
+			return OPEN_STATE;
+		} else {
+			return BLOCKED_STATE;
+		}
+	}
+}
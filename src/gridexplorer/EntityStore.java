@@ -0,0 +1,378 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.util.Arrays;
+
+/**
+ * The EntityStore class holds the entities that move around a room on their
+ * own, such as NPCs and projectiles. The entities are kept as parallel arrays
+ * of positions, types and directions instead of as objects, and are found by
+ * position through a SpatialIndex. Entities are a layer above the grid of the
+ * room, so walls, portals and the player block them but they are not written
+ * into the grid. The player is blocked by the entities in the same way, and
+ * the renderers draw the entities over the grid.
+ *
+ * Every entity moves at once in each tick. Each entity first proposes a step
+ * in its direction, using only the positions from before the tick, and then
+ * any step into an entity or a position claimed by an entity with a lower
+ * index is refused. An NPC whose step is refused turns clockwise, while a
+ * projectile whose step is refused is destroyed. The entities are numbered in
+ * the order they were added, and keep that order as others are destroyed.
+ *
+ * @author Christopher Wells
+ */
+public class EntityStore {
+
+	public static final byte NPC = 1;	// An entity that walks and turns when it is blocked
+	public static final byte PROJECTILE = 2;	// An entity that flies until it hits something
+
+	private static final char[] CHARACTERS = {'?', '&', '-'};	// The character drawn for each type of entity
+
+	static final byte BLOCKED = 0;	// The outcome of a refused step
+	static final byte MOVED = 1;	// The outcome of a step that is made
+
+	private static final Direction[] DIRECTIONS = Direction.values();	// The directions, indexed by their ordinal
+	private static final byte[] CLOCKWISE = new byte[DIRECTIONS.length];	// The ordinal of the direction clockwise of each direction
+
+	static {
+		CLOCKWISE[Direction.UP.ordinal()] = (byte) Direction.RIGHT.ordinal();
+		CLOCKWISE[Direction.RIGHT.ordinal()] = (byte) Direction.DOWN.ordinal();
+		CLOCKWISE[Direction.DOWN.ordinal()] = (byte) Direction.LEFT.ordinal();
+		CLOCKWISE[Direction.LEFT.ordinal()] = (byte) Direction.UP.ordinal();
+	}
+
+	private final GridStorage grid;	// The grid of the room that the entities are in
+	private final SpatialIndex index;	// Finds the entities by position
+	private int size;	// The number of entities
+	private int[] rows = new int[16];	// The row of each entity
+	private int[] columns = new int[16];	// The column of each entity
+	private byte[] types = new byte[16];	// The type of each entity
+	private byte[] directions = new byte[16];	// The ordinal of the direction of each entity
+	private int[] targetRows = new int[16];	// The row the entity in each slot proposes to step to during a tick, or -1 if it is refused
+	private int[] targetColumns = new int[16];	// The column the entity in each slot proposes to step to during a tick
+	private byte[] outcomes = new byte[16];	// Whether the step of the entity in each slot is made during a tick
+	private long ticks;	// The number of ticks run
+	private int moved;	// The number of entities that moved in the last tick
+	private int collisions;	// The number of entities that were blocked in the last tick
+
+	/**
+	 * The constructor method to create an empty store for the entities of a
+	 * room.
+	 *
+	 * @param storage The grid of the room
+	 */
+	public EntityStore(GridStorage storage) {
+		grid = storage;
+		index = new SpatialIndex(this, storage.getRows(), storage.getColumns());
+	}
+
+	/**
+	 * The method used to add an entity at an empty position of the room.
+	 *
+	 * @param type The type of the entity, either NPC or PROJECTILE
+	 * @param r The row of the entity
+	 * @param c The column of the entity
+	 * @param direction The direction that the entity moves in
+	 * @return The index of the entity, or -1 if the position is outside of the
+	 * room or is not empty
+	 */
+	public int add(byte type, int r, int c, Direction direction) {
+		if (type != NPC && type != PROJECTILE) {
+			throw new IllegalArgumentException("Unknown entity type " + type + ".");
+		}
+		if (!isOpen(r, c) || index.entityAt(r, c) >= 0) {
+			return -1;
+		}
+		if (size == rows.length) {
+			int capacity = size * 2;
+			rows = Arrays.copyOf(rows, capacity);
+			columns = Arrays.copyOf(columns, capacity);
+			types = Arrays.copyOf(types, capacity);
+			directions = Arrays.copyOf(directions, capacity);
+			targetRows = Arrays.copyOf(targetRows, capacity);
+			targetColumns = Arrays.copyOf(targetColumns, capacity);
+			outcomes = Arrays.copyOf(outcomes, capacity);
+		}
+		rows[size] = r;
+		columns[size] = c;
+		types[size] = type;
+		directions[size] = (byte) direction.ordinal();
+		index.insert(size);
+		return size++;
+	}
+
+	/**
+	 * The method used to move every entity once.
+	 *
+	 * @return The number of entities that moved
+	 */
+	public int tick() {
+		index.update();
+		propose(0, size);
+		int movedCount = resolve(0, size);
+		int destroyed = advance(0, size);
+		finish(movedCount, destroyed);
+		return moved;
+	}
+
+	/**
+	 * The method used to find the step that the entity in each slot of a range
+	 * proposes, which is refused straight away if it leads into a wall, the
+	 * edge of the room or another entity. The slots are in order of position,
+	 * so neighbouring entities are looked up from nearby memory. Only the
+	 * positions from before the tick are read, so ranges can be proposed at
+	 * the same time.
+	 *
+	 * @param from The first slot of the range
+	 * @param to The slot after the last slot of the range
+	 */
+	void propose(int from, int to) {
+		for (int k = from; k < to; k++) {
+			Direction direction = DIRECTIONS[directions[index.idAt(k)]];
+			int tr = index.rowAt(k) + direction.getRowDelta();
+			int tc = index.columnAt(k) + direction.getColumnDelta();
+			if (isOpen(tr, tc) && index.slotAt(tr, tc) < 0) {
+				targetRows[k] = tr;
+				targetColumns[k] = tc;
+			} else {
+				targetRows[k] = -1;
+			}
+		}
+	}
+
+	/**
+	 * The method used to decide whether the entity in each slot of a range
+	 * makes its step, refusing any step that is also proposed by an entity
+	 * with a lower index. Any other entity stepping into the same position
+	 * must be next to it, so only those four positions are searched. Ranges
+	 * can be resolved at the same time once every proposal has been made.
+	 *
+	 * @param from The first slot of the range
+	 * @param to The slot after the last slot of the range
+	 * @return The number of entities in the range that make their step
+	 */
+	int resolve(int from, int to) {
+		int movedCount = 0;
+		for (int k = from; k < to; k++) {
+			if (targetRows[k] >= 0 && !claimedBefore(k)) {
+				outcomes[k] = MOVED;
+				movedCount++;
+			} else {
+				outcomes[k] = BLOCKED;
+			}
+		}
+		return movedCount;
+	}
+
+	/**
+	 * The method used to check if the position that an entity proposes to step
+	 * to is proposed by an entity with a lower index.
+	 *
+	 * @param k The slot of the entity
+	 * @return Whether the step is claimed by an earlier entity
+	 */
+	private boolean claimedBefore(int k) {
+		int i = index.idAt(k);
+		int r = index.rowAt(k);
+		int c = index.columnAt(k);
+		int tr = targetRows[k];
+		int tc = targetColumns[k];
+		for (Direction direction : DIRECTIONS) {
+			int nr = tr + direction.getRowDelta();
+			int nc = tc + direction.getColumnDelta();
+			if (nr == r && nc == c) {
+				continue;
+			}
+			int j = index.slotAt(nr, nc);
+			if (j >= 0 && index.idAt(j) < i && targetRows[j] == tr && targetColumns[j] == tc) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * The method used to make the steps of the entities in a range that were
+	 * not refused, turn the blocked NPCs and mark the blocked projectiles as
+	 * destroyed. Each entity only changes its own place in the arrays, so
+	 * ranges can be advanced at the same time once every step is decided.
+	 *
+	 * @param from The index of the first entity of the range
+	 * @param to The index after the last entity of the range
+	 * @return The number of projectiles destroyed in the range
+	 */
+	int advance(int from, int to) {
+		int destroyed = 0;
+		for (int i = from; i < to; i++) {
+			int k = index.slotOf(i);
+			if (outcomes[k] == MOVED) {
+				rows[i] = targetRows[k];
+				columns[i] = targetColumns[k];
+			} else if (types[i] == PROJECTILE) {
+				types[i] = 0;
+				destroyed++;
+			} else {
+				directions[i] = CLOCKWISE[directions[i]];
+			}
+		}
+		return destroyed;
+	}
+
+	/**
+	 * The method used to end a tick by removing the destroyed projectiles,
+	 * keeping the remaining entities in order, and sorting the entities into
+	 * the index again.
+	 *
+	 * @param movedCount The number of entities that moved
+	 * @param destroyed The number of projectiles that were destroyed
+	 */
+	void finish(int movedCount, int destroyed) {
+		collisions = size - movedCount;
+		moved = movedCount;
+		if (destroyed > 0) {
+			int kept = 0;
+			for (int i = 0; i < size; i++) {
+				if (types[i] != 0) {
+					rows[kept] = rows[i];
+					columns[kept] = columns[i];
+					types[kept] = types[i];
+					directions[kept] = directions[i];
+					kept++;
+				}
+			}
+			size = kept;
+		}
+		index.rebuild();
+		ticks++;
+	}
+
+	/**
+	 * The method used to check if a position is within the room and empty.
+	 *
+	 * @param r The row of the position
+	 * @param c The column of the position
+	 * @return Whether an entity can be at the position
+	 */
+	private boolean isOpen(int r, int c) {
+		return r >= 0 && c >= 0 && r < grid.getRows() && c < grid.getColumns() && grid.get(r, c) == Tiles.EMPTY;
+	}
+
+	/**
+	 * The method used to get the character that an entity is drawn as.
+	 *
+	 * @param type The type of the entity, either NPC or PROJECTILE
+	 * @return The character of the entity
+	 */
+	public static char toChar(byte type) {
+		return type == NPC || type == PROJECTILE ? CHARACTERS[type] : CHARACTERS[0];
+	}
+
+	/**
+	 * The method used to get the index that finds the entities by position.
+	 *
+	 * @return The spatial index of the entities
+	 */
+	public SpatialIndex getIndex() {
+		return index;
+	}
+
+	/**
+	 * The method used to get the number of entities.
+	 *
+	 * @return The number of entities
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * The method used to get the row of an entity.
+	 *
+	 * @param i The index of the entity
+	 * @return The row of the entity
+	 */
+	public int getRow(int i) {
+		return rows[i];
+	}
+
+	/**
+	 * The method used to get the column of an entity.
+	 *
+	 * @param i The index of the entity
+	 * @return The column of the entity
+	 */
+	public int getColumn(int i) {
+		return columns[i];
+	}
+
+	/**
+	 * The method used to get the type of an entity.
+	 *
+	 * @param i The index of the entity
+	 * @return The type of the entity, either NPC or PROJECTILE
+	 */
+	public byte getType(int i) {
+		return types[i];
+	}
+
+	/**
+	 * The method used to get the direction that an entity moves in.
+	 *
+	 * @param i The index of the entity
+	 * @return The direction of the entity
+	 */
+	public Direction getDirection(int i) {
+		return DIRECTIONS[directions[i]];
+	}
+
+	/**
+	 * The method used to get the number of ticks run.
+	 *
+	 * @return The number of ticks
+	 */
+	public long getTicks() {
+		return ticks;
+	}
+
+	/**
+	 * The method used to get the number of entities that moved in the last
+	 * tick.
+	 *
+	 * @return The number of entities that moved
+	 */
+	public int getMoved() {
+		return moved;
+	}
+
+	/**
+	 * The method used to get the number of entities that were blocked in the
+	 * last tick, including the projectiles that were destroyed.
+	 *
+	 * @return The number of blocked entities
+	 */
+	public int getCollisions() {
+		return collisions;
+	}
+}
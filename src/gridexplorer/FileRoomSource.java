@@ -0,0 +1,89 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The FileRoomSource class reads a room from a text or binary room file
+ * through the shared RoomTemplateCache, so each file is only parsed once.
+ *
+ * @author Christopher Wells
+ */
+public class FileRoomSource implements RoomSource {
+
+	private final String name;	// The name of the room
+	private final File file;	// The room file, or null to find it in the rooms directory by name
+
+	/**
+	 * The constructor method to create a source for a room in the rooms
+	 * directory.
+	 *
+	 * @param roomName The name of the room file without its location and file
+	 * type
+	 */
+	public FileRoomSource(String roomName) {
+		name = roomName;
+		file = null;
+	}
+
+	/**
+	 * The constructor method to create a source for a given room file.
+	 *
+	 * @param roomFile The room file
+	 */
+	public FileRoomSource(File roomFile) {
+		name = roomFile.getName();
+		file = roomFile;
+	}
+
+	/**
+	 * The method used to create a source for each of a list of rooms in the
+	 * rooms directory.
+	 *
+	 * @param roomNames The names of the room files
+	 * @return The source of each room
+	 */
+	public static RoomSource[] named(String[] roomNames) {
+		RoomSource[] sources = new RoomSource[roomNames.length];
+		for (int i = 0; i < roomNames.length; i++) {
+			sources[i] = new FileRoomSource(roomNames[i]);
+		}
+		return sources;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public RoomLayout getLayout() throws IOException {
+		if (file == null) {
+			return RoomTemplateCache.shared().get(name);
+		}
+		return RoomTemplateCache.shared().get(file);
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.PrintStream;
+
+/**
+ * The FrameRenderer class draws the grid of a room by building the whole frame
+ * in a reusable character array and writing it out at once, instead of
+ * printing each object on its own. The entities of the room are drawn over the
+ * grid.
+ *
+ * @author Christopher Wells
+ */
+public class FrameRenderer {
+
+	/**
+	 * The largest number of characters written at once. Rooms with larger
+	 * frames are written a group of rows at a time.
+	 */
+	private static final int MAX_FRAME_LENGTH = 1 << 22;
+
+	private final char[] separator = System.lineSeparator().toCharArray();	// The characters that end each row
+	private char[] frame = new char[0];	// The characters of the frame being built
+	private int[] found = new int[16];	// The indexes of the entities within the rows being built
+
+	/**
+	 * The method used to draw the whole grid of a room.
+	 *
+	 * @param room The room to draw
+	 * @param out The stream to draw the room on
+	 */
+	public void render(Room room, PrintStream out) {
+		render(room, 0, 0, room.getRows(), room.getColumns(), out);
+	}
+
+	/**
+	 * The method used to draw a rectangular region of the grid of a room. The
+	 * region must be within the room.
+	 *
+	 * @param room The room to draw
+	 * @param top The row of the top left corner of the region
+	 * @param left The column of the top left corner of the region
+	 * @param height The number of rows in the region
+	 * @param width The number of columns in the region
+	 * @param out The stream to draw the room on
+	 */
+	public void render(Room room, int top, int left, int height, int width, PrintStream out) {
+		GridStorage grid = room.getStorage();
+		EntityStore entities = room.entities();
+		int rowLength = width + separator.length;
+		int batchRows = Math.max(1, Math.min(height, MAX_FRAME_LENGTH / rowLength));
+
+		// The frame is only reallocated when the size of the region changes,
+		// and each write must use the whole array
+		if (frame.length != batchRows * rowLength) {
+			frame = new char[batchRows * rowLength];
+		}
+
+		int bottom = top + height;
+		for (int first = top; first < bottom; first += batchRows) {
+			int count = Math.min(batchRows, bottom - first);
+			int length = 0;
+			for (int i = first; i < first + count; i++) {
+				for (int j = left; j < left + width; j++) {
+					frame[length++] = Tiles.toChar(grid.get(i, j));
+				}
+				for (char c : separator) {
+					frame[length++] = c;
+				}
+			}
+			if (entities != null && entities.size() > 0) {
+				drawEntities(entities, first, count, left, width, rowLength);
+			}
+			if (length == frame.length) {
+				out.print(frame);
+			} else {
+				out.print(new String(frame, 0, length));
+			}
+		}
+		out.flush();
+	}
+
+	/**
+	 * The method used to draw the entities that are within a group of rows of
+	 * the frame over the grid, which are found through the spatial index so
+	 * that entities elsewhere in the room are not visited.
+	 *
+	 * @param entities The entities of the room
+	 * @param first The row of the room at the start of the frame
+	 * @param count The number of rows in the frame
+	 * @param left The column of the room at the start of each row
+	 * @param width The number of columns in each row
+	 * @param rowLength The number of characters in each row, including the
+	 * separator
+	 */
+	private void drawEntities(EntityStore entities, int first, int count, int left, int width, int rowLength) {
+		SpatialIndex index = entities.getIndex();
+		int visible = index.findIn(first, left, count, width, found);
+		if (visible > found.length) {
+			found = new int[visible];
+			index.findIn(first, left, count, width, found);
+		}
+		for (int k = 0; k < visible; k++) {
+			int i = found[k];
+			int row = entities.getRow(i) - first;
+			int column = entities.getColumn(i) - left;
+			frame[row * rowLength + column] = EntityStore.toChar(entities.getType(i));
+		}
+	}
+}
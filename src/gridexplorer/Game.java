@@ -23,21 +23,50 @@
  */
 package gridexplorer;
 
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * The Game class represents an instance of the game.
+ * The Game class represents an instance of the game. Each room is closed once
+ * the game has moved on from it, and the last room is closed when the game is
+ * closed.
  *
  * @author Christopher Wells
  */
-public class Game {
+public class Game implements Closeable {
 
-	private Scanner kb = new Scanner(System.in);
+	private static ExecutorService prefetcher;	// The worker threads that prefetch rooms for every game, once one is needed
+
+	private Scanner kb;
+	private PrintStream out;	// The stream that the game is displayed on, or null for a headless game
 	private String moveDirection;
-	private String[] roomList;
+	private RoomSource[] roomList;
 	private int roomIndex;
 	private Room curRoom;
 	private boolean playing;
+	private Viewport viewport;	// The window of the room that is displayed, or null to display all of it
+	private AnsiRenderer ansiRenderer;	// The renderer that only redraws changes, or null to redraw everything
+	private boolean watchTerminalSize;	// Whether the room is fitted to the size of the terminal
+	private boolean prefetching;	// Whether the next room is loaded in the background
+	private Prefetch prefetch;	// The load of the next room in the background, or null if there is none
+	private final TransitionStats transitions = new TransitionStats();	// The time taken to move into each next room
+	private File checkpointFile;	// The file that the game is checkpointed to, or null to not checkpoint
+	private int checkpointInterval;	// The number of moves between checkpoints
+	private int movesSinceCheckpoint;	// The number of moves made since the last checkpoint
+	private MoveJournal journal;	// The journal that every move is recorded in, or null to not record moves
+	private int keyframeInterval;	// The number of moves between keyframes of the journal
+	private int movesSinceKeyframe;	// The number of moves made since the last keyframe
 
 	/**
 	 * The method used to construct a Game object. Creates the first room that
@@ -47,37 +76,131 @@ public class Game {
 	 * they will be used in
 	 */
 	public Game(String[] rooms) {
+		this(rooms, System.out);
+	}
+
+	/**
+	 * The method used to construct a Game object that is displayed on a given
+	 * stream. Creates the first room that the game will have.
+	 *
+	 * @param rooms A string array of the rooms used in the game in the order
+	 * they will be used in
+	 * @param output The stream that the game is displayed on, or null to not
+	 * display anything
+	 */
+	public Game(String[] rooms, PrintStream output) {
+		this(FileRoomSource.named(rooms), output);
+	}
+
+	/**
+	 * The method used to construct a Game object from sources of rooms, such
+	 * as generated rooms, that is displayed on a given stream. Creates the
+	 * first room that the game will have.
+	 *
+	 * @param rooms The sources of the rooms used in the game in the order they
+	 * will be used in
+	 * @param output The stream that the game is displayed on, or null to not
+	 * display anything
+	 */
+	public Game(RoomSource[] rooms, PrintStream output) {
+		out = output;
 		roomList = rooms;
 		roomIndex = 0;
 		curRoom = new Room(roomList[roomIndex], this);
 		playing = true;
 	}
 
+	/**
+	 * The method used to construct a headless Game object, which does not read
+	 * from the console or display anything. It is played by calling the move
+	 * method directly, such as from a Simulation.
+	 *
+	 * @param rooms A string array of the rooms used in the game in the order
+	 * they will be used in
+	 * @return The headless game
+	 */
+	public static Game headless(String[] rooms) {
+		return new Game(rooms, null);
+	}
+
+	/**
+	 * The method used to construct a headless Game object from sources of
+	 * rooms.
+	 *
+	 * @param rooms The sources of the rooms used in the game in the order they
+	 * will be used in
+	 * @return The headless game
+	 */
+	public static Game headless(RoomSource[] rooms) {
+		return new Game(rooms, null);
+	}
+
 	/**
 	 * The method that allows the user to move the player in the game.
 	 */
 	public void promptMove() {
-		System.out.print("Enter a move direction (wasd or q to quit): ");
+		if (kb == null) {
+			kb = new Scanner(System.in);
+		}
+		print("Enter a move direction (wasd, WASD to slide or q to quit): ");
 		moveDirection = kb.nextLine();
-		switch (moveDirection) {
-			case "w":
-				curRoom.movePlayer("up", 1);
-				break;
-			case "a":
-				curRoom.movePlayer("left", 1);
-				break;
-			case "s":
-				curRoom.movePlayer("down", 1);
-				break;
-			case "d":
-				curRoom.movePlayer("right", 1);
-				break;
-			case "q":
-				playing = false;
-				break;
-			default:
-				System.out.println("Invalid command.");
-				break;
+		if (moveDirection.length() == 1) {
+			move(moveDirection.charAt(0));
+		} else {
+			message("Invalid command.");
+		}
+	}
+
+	/**
+	 * The method used to make a single move in the game based on the key that
+	 * was pressed.
+	 *
+	 * @param key The key of the move, which is one of wasd to move the player
+	 * a single step, WASD to slide the player as far as it can go or q to quit
+	 * @return What happened when the move was made
+	 */
+	public MoveResult move(char key) {
+		if (journal != null) {
+			try {
+				journal.recordMove(key);
+			} catch (IOException e) {
+				stopJournal(e);
+			}
+		}
+		MoveResult result = makeMove(key);
+		if (journal != null && ++movesSinceKeyframe >= keyframeInterval) {
+			movesSinceKeyframe = 0;
+			try {
+				journal.recordKeyframe(GameSnapshot.capture(this));
+			} catch (IOException e) {
+				stopJournal(e);
+			}
+		}
+		if (checkpointFile != null && ++movesSinceCheckpoint >= checkpointInterval) {
+			checkpoint();
+		}
+		return result;
+	}
+
+	/**
+	 * The method used to make a move without checkpointing the game.
+	 *
+	 * @param key The key of the move
+	 * @return What happened when the move was made
+	 */
+	private MoveResult makeMove(char key) {
+		Direction direction = Direction.fromKey(key);
+		Direction slide = Direction.fromKey(Character.toLowerCase(key));
+		if (direction != null) {
+			return curRoom.movePlayer(direction, 1);
+		} else if (slide != null) {
+			return curRoom.slidePlayer(slide);
+		} else if (key == 'q') {
+			playing = false;
+			return MoveResult.QUIT;
+		} else {
+			message("Invalid command.");
+			return MoveResult.INVALID;
 		}
 	}
 
@@ -94,9 +217,102 @@ public class Game {
 	 * The method used to display the current room of the game.
 	 */
 	public void displayRoom() {
-		curRoom.display();
-		int[] playerPos = curRoom.getPlayerPos();
-		System.out.println("Pos: " + curRoom.formatPosition(playerPos));
+		if (out == null) {
+			return;
+		}
+		if (ansiRenderer != null) {
+			if (watchTerminalSize) {
+				int[] size = RawTerminal.watchedSize();
+				if (size != null) {
+					ansiRenderer.setTerminalSize(size[0], size[1]);
+				}
+			}
+			ansiRenderer.render(curRoom, viewport, out);
+		} else if (viewport == null) {
+			curRoom.display();
+		} else {
+			curRoom.display(viewport);
+		}
+		out.println("Pos: " + curRoom.formatPosition(curRoom.getPlayerRow(), curRoom.getPlayerColumn()));
+	}
+
+	/**
+	 * The method used to only display the part of each room around the player,
+	 * so that large rooms take the same time to display as small ones.
+	 *
+	 * @param rows The largest number of rows to display
+	 * @param columns The largest number of columns to display
+	 */
+	public void setViewport(int rows, int columns) {
+		viewport = new Viewport(rows, columns);
+	}
+
+	/**
+	 * The method used to display the whole of each room again, after a
+	 * viewport has been set.
+	 */
+	public void clearViewport() {
+		viewport = null;
+	}
+
+	/**
+	 * The method used to choose whether rooms are displayed by only redrawing
+	 * the objects that changed since the last turn, which needs a terminal
+	 * that understands ANSI control sequences. When the game is displayed on
+	 * the console, the size of the terminal is checked twice a second on a
+	 * background thread, so that the room is redrawn to fit once the terminal
+	 * is resized.
+	 *
+	 * @param incremental Whether to only redraw the changed objects
+	 */
+	public void setIncrementalDisplay(boolean incremental) {
+		if (incremental && ansiRenderer == null) {
+			ansiRenderer = new AnsiRenderer();
+			watchTerminalSize = out == System.out && System.console() != null;
+			if (watchTerminalSize) {
+				RawTerminal.watchSize();
+			}
+		} else if (!incremental && ansiRenderer != null) {
+			ansiRenderer.detach();
+			ansiRenderer = null;
+		}
+	}
+
+	/**
+	 * The method used to redraw the whole room on the next turn, such as after
+	 * the terminal has been resized.
+	 */
+	public void invalidateDisplay() {
+		if (ansiRenderer != null) {
+			ansiRenderer.invalidate();
+		}
+	}
+
+	/**
+	 * The method used to choose whether the next room is loaded on a worker
+	 * thread while the player is still in the current room, so that moving
+	 * through a portal into a large room does not stall the game.
+	 *
+	 * @param enabled Whether to prefetch the next room
+	 */
+	public void setPrefetching(boolean enabled) {
+		prefetching = enabled;
+		if (enabled && prefetch == null) {
+			prefetchNext();
+		} else if (!enabled && prefetch != null) {
+			prefetch.claim();
+			prefetch = null;
+		}
+	}
+
+	/**
+	 * The method used to get how long the game took to move into each next
+	 * room.
+	 *
+	 * @return The transition statistics of the game
+	 */
+	public TransitionStats getTransitionStats() {
+		return transitions;
 	}
 
 	/**
@@ -104,22 +320,356 @@ public class Game {
 	 */
 	public void nextRoom() {
 		roomIndex += 1;
+		if (journal != null) {
+			try {
+				journal.recordTransition(roomIndex);
+			} catch (IOException e) {
+				stopJournal(e);
+			}
+		}
 
 		// Check to make sure that there is a next room
 		if (roomIndex < roomList.length) {
-			curRoom = new Room(roomList[roomIndex], this);
+			Room previous = curRoom;
+			long start = System.nanoTime();
+			RoomSource source = roomList[roomIndex];
+			Prefetch pending = prefetch;
+			prefetch = null;
+			if (pending == null || pending.claim()) {
+				// The room was not prefetched, or its prefetch has not started
+				curRoom = new Room(source, this);
+				transitions.recordSynchronous(System.nanoTime() - start);
+			} else {
+				boolean ready = pending.future.isDone();
+				RoomLayout layout = pending.await();
+				curRoom = layout == null ? new Room(source, this) : new Room(new MemoryRoomSource(source.getName(), layout), this);
+				if (ready) {
+					transitions.recordPrefetched(System.nanoTime() - start);
+				} else {
+					transitions.recordWaited(System.nanoTime() - start);
+				}
+			}
+			closeRoom(previous);
+			prefetchNext();
 		} else {
 			// If there is no next room, then the player has won the game
 			winGame();
 		}
 	}
 
+	/**
+	 * The method used to start loading the room after the current one in the
+	 * background, if prefetching is enabled and there is such a room.
+	 */
+	private void prefetchNext() {
+		if (prefetching && roomIndex + 1 < roomList.length) {
+			prefetch = new Prefetch(roomList[roomIndex + 1]);
+			prefetch.future = prefetcher().submit(prefetch);
+		}
+	}
+
+	/**
+	 * The method used to get the worker threads that prefetch rooms, which
+	 * are shared by every game and do not keep the program running.
+	 *
+	 * @return The worker threads
+	 */
+	private static synchronized ExecutorService prefetcher() {
+		if (prefetcher == null) {
+			prefetcher = Executors.newCachedThreadPool(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "gridexplorer-prefetch");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return prefetcher;
+	}
+
+	/**
+	 * The method used to save the state of the game, including the grid of
+	 * the current room and the position of the player, to a file.
+	 *
+	 * @param file The file to save the game to
+	 * @throws IOException If the file could not be written
+	 */
+	public void saveSnapshot(File file) throws IOException {
+		GameSnapshot.save(this, file);
+	}
+
+	/**
+	 * The method used to restore the state of the game from a file that it
+	 * was saved to. The game must use the same rooms as the game that was
+	 * saved.
+	 *
+	 * @param file The file that the game was saved to
+	 * @throws IOException If the file could not be read, or is a snapshot of a
+	 * game with different rooms
+	 */
+	public void restoreSnapshot(File file) throws IOException {
+		GameSnapshot.restore(this, file);
+	}
+
+	/**
+	 * The method used to save the game to a file every given number of moves,
+	 * so that a crash only loses the moves since the last checkpoint.
+	 *
+	 * @param file The file to save the game to, or null to stop checkpointing
+	 * @param moves The number of moves between checkpoints
+	 */
+	public void setCheckpointing(File file, int moves) {
+		if (file != null && moves < 1) {
+			throw new IllegalArgumentException("Checkpoints must be at least one move apart, not " + moves + ".");
+		}
+		checkpointFile = file;
+		checkpointInterval = moves;
+		movesSinceCheckpoint = 0;
+	}
+
+	/**
+	 * The method used to record every move of the game in a journal, starting
+	 * with a keyframe of the game as it is now, so that the game can be
+	 * replayed from the journal with a JournalReplay.
+	 *
+	 * @param moveJournal The journal to record the moves in, or null to stop
+	 * recording
+	 * @param keyframeMoves The number of moves between keyframes, which lets
+	 * a replay seek to any turn by playing at most that many moves
+	 * @throws IOException If the first keyframe could not be recorded
+	 */
+	public void setJournal(MoveJournal moveJournal, int keyframeMoves) throws IOException {
+		if (moveJournal != null && keyframeMoves < 1) {
+			throw new IllegalArgumentException("Keyframes must be at least one move apart, not " + keyframeMoves + ".");
+		}
+		journal = moveJournal;
+		keyframeInterval = keyframeMoves;
+		movesSinceKeyframe = 0;
+		if (journal != null) {
+			journal.recordKeyframe(GameSnapshot.capture(this));
+		}
+	}
+
+	/**
+	 * The method used to stop recording moves once the journal has failed,
+	 * so that the game carries on without it.
+	 *
+	 * @param e The error that the journal failed with
+	 */
+	private void stopJournal(IOException e) {
+		message("Stopped recording the journal: " + e.getMessage());
+		journal = null;
+	}
+
+	/**
+	 * The method used to save the game to its checkpoint file.
+	 */
+	private void checkpoint() {
+		movesSinceCheckpoint = 0;
+		try {
+			GameSnapshot.save(this, checkpointFile);
+		} catch (IOException e) {
+			message("Could not save a checkpoint: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * The method used to replace the state of the game with a restored one.
+	 *
+	 * @param index The index of the current room
+	 * @param room The restored current room
+	 * @param isPlaying Whether the game is still playing
+	 */
+	void restoreState(int index, Room room, boolean isPlaying) {
+		if (prefetch != null) {
+			prefetch.claim();
+			prefetch = null;
+		}
+		if (ansiRenderer != null) {
+			ansiRenderer.detach();
+		}
+		if (curRoom != room) {
+			closeRoom(curRoom);
+		}
+		roomIndex = index;
+		curRoom = room;
+		playing = isPlaying;
+		prefetchNext();
+	}
+
+	/**
+	 * The method used to close the current room, such as to give back the file
+	 * of an off-heap grid, and stop loading the next room. The game can not be
+	 * played after it has been closed.
+	 */
+	@Override
+	public void close() {
+		if (prefetch != null) {
+			prefetch.claim();
+			prefetch = null;
+		}
+		prefetching = false;
+		playing = false;
+		closeRoom(curRoom);
+	}
+
+	/**
+	 * The method used to close a room that the game no longer uses.
+	 *
+	 * @param room The room to close
+	 */
+	private void closeRoom(Room room) {
+		try {
+			room.close();
+		} catch (IOException e) {
+			message("Could not close the room: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * The method used to get the number of rooms in the game.
+	 *
+	 * @return The number of rooms
+	 */
+	int getRoomCount() {
+		return roomList.length;
+	}
+
+	/**
+	 * The method used to get the source of a room of the game.
+	 *
+	 * @param index The index of the room
+	 * @return The source of the room
+	 */
+	RoomSource getRoomSource(int index) {
+		return roomList[index];
+	}
+
+	/**
+	 * The method used to check that every room of the game can be played,
+	 * such as that a portal can be reached from each spawn point.
+	 *
+	 * @return The report of each room, in the order they are used in
+	 */
+	public List<ValidationReport> validateRooms() {
+		return RoomValidator.validateSources(roomList);
+	}
+
+	/**
+	 * The method used to get the index of the current room in the list of
+	 * rooms.
+	 *
+	 * @return The index of the current room
+	 */
+	public int getRoomIndex() {
+		return roomIndex;
+	}
+
+	/**
+	 * The method used to get the room that the player is currently in.
+	 *
+	 * @return The current room
+	 */
+	public Room getCurrentRoom() {
+		return curRoom;
+	}
+
+	/**
+	 * The method used to get the stream that the game is displayed on.
+	 *
+	 * @return The stream of the game, or null for a headless game
+	 */
+	public PrintStream getOutput() {
+		return out;
+	}
+
+	/**
+	 * The method used to print text without ending the line, unless the game
+	 * is headless.
+	 *
+	 * @param text The text to print
+	 */
+	private void print(String text) {
+		if (out != null) {
+			out.print(text);
+		}
+	}
+
+	/**
+	 * The method used to print a message, unless the game is headless.
+	 *
+	 * @param text The message to print
+	 */
+	private void message(String text) {
+		if (out != null) {
+			out.println(text);
+		}
+	}
+
 	/**
 	 * The method used end the game, and inform the player that they have
 	 * successfully competed the game.
 	 */
 	private void winGame() {
-		System.out.println("Congratulations! You won!");
+		message("Congratulations! You won!");
 		playing = false;
 	}
+
+	/**
+	 * The load of a room on a worker thread. Either the worker or the game
+	 * claims the load first, so a load that has not started by the time the
+	 * player reaches the portal is done on the game thread instead of waiting
+	 * for a worker.
+	 */
+	private static final class Prefetch implements Callable<RoomLayout> {
+
+		private final RoomSource source;	// The source of the room that is loaded
+		private final AtomicBoolean claimed = new AtomicBoolean();	// Whether the load has been claimed
+		private Future<RoomLayout> future;	// The result of the load
+
+		/**
+		 * The constructor method to create the load of a room.
+		 *
+		 * @param roomSource The source of the room
+		 */
+		private Prefetch(RoomSource roomSource) {
+			source = roomSource;
+		}
+
+		@Override
+		public RoomLayout call() throws Exception {
+			if (!claimed.compareAndSet(false, true)) {
+				return null;
+			}
+			return source.getLayout();
+		}
+
+		/**
+		 * The method used by the game to claim the load before a worker starts
+		 * it.
+		 *
+		 * @return Whether the game claimed the load, so the worker will not load
+		 * the room
+		 */
+		private boolean claim() {
+			return claimed.compareAndSet(false, true);
+		}
+
+		/**
+		 * The method used to wait for a load that a worker has started.
+		 *
+		 * @return The layout of the room, or null if it could not be loaded
+		 */
+		private RoomLayout await() {
+			try {
+				return future.get();
+			} catch (ExecutionException e) {
+				return null;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			}
+		}
+	}
 }
@@ -0,0 +1,469 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The GameServer class lets many players play the same rooms at once over
+ * TCP. Each connection is a player in a SharedRoom, and every connection is
+ * served without blocking by a few worker threads, each with its own selector.
+ *
+ * The protocol is made of lines of ASCII text. The client sends keys, where
+ * each of wasd is a move, q closes the connection and whitespace is ignored,
+ * so keys can be sent one at a time or many to a line. The server answers
+ * every key with one line holding only what changed:
+ *
+ * ROOM index name row column - the player is now in the room, at the position
+ * M row column - the player moved to the position
+ * B - the player was blocked by a wall, another player or the edge of the room
+ * WIN - the player went through the portal of the last room
+ * X - the key was not a move, or the player has already won
+ * FULL - the room had no empty position left, and the connection is closed
+ *
+ * A ROOM line is also sent as soon as the player connects.
+ *
+ * @author Christopher Wells
+ */
+public class GameServer implements Closeable {
+
+	private static final int READ_LENGTH = 512;	// The largest number of keys read at once from a connection
+	private static final int LINE_LENGTH = 64;	// The space kept free for each line that is written, apart from room names
+	private static final long MAX_ACCEPT_BACKOFF = 200;	// The longest time the acceptor waits after failing to accept, in milliseconds
+
+	private final SharedRoom[] rooms;	// The rooms that the players play through, in order
+	private final byte[][] roomNames;	// The name of each room, in ASCII
+	private final ServerSocketChannel server;	// The channel that accepts connections
+	private final Worker[] workers;	// The threads that serve the connections
+	private final Thread acceptor;	// The thread that accepts connections
+	private volatile boolean running = true;	// Whether the server has not been closed
+
+	/**
+	 * The constructor method to create a server and start accepting
+	 * connections.
+	 *
+	 * @param sources The sources of the rooms that the players play through,
+	 * in order
+	 * @param address The address to accept connections on, where port 0 picks
+	 * a free port
+	 * @param workerCount The number of threads that serve the connections
+	 * @throws IOException If a room could not be loaded or the address could
+	 * not be bound
+	 */
+	public GameServer(RoomSource[] sources, InetSocketAddress address, int workerCount) throws IOException {
+		rooms = new SharedRoom[sources.length];
+		roomNames = new byte[sources.length][];
+		for (int i = 0; i < sources.length; i++) {
+			rooms[i] = new SharedRoom(sources[i]);
+			roomNames[i] = sources[i].getName().getBytes(StandardCharsets.US_ASCII);
+		}
+		server = ServerSocketChannel.open();
+		server.bind(address, 4096);
+		workers = new Worker[Math.max(1, workerCount)];
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = new Worker();
+			Thread thread = new Thread(workers[i], "gridexplorer-server-" + i);
+			thread.setDaemon(true);
+			workers[i].thread = thread;
+			thread.start();
+		}
+		acceptor = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				accept();
+			}
+		}, "gridexplorer-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	/**
+	 * The method used to get the port that the server accepts connections on.
+	 *
+	 * @return The port of the server
+	 */
+	public int getPort() {
+		return server.socket().getLocalPort();
+	}
+
+	/**
+	 * The method used to get the room that players reach after a given number
+	 * of portals.
+	 *
+	 * @param index The index of the room
+	 * @return The room
+	 */
+	public SharedRoom getRoom(int index) {
+		return rooms[index];
+	}
+
+	/**
+	 * The method used to stop accepting connections and close every
+	 * connection.
+	 *
+	 * @throws IOException If the server could not be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		running = false;
+		server.close();
+		for (Worker worker : workers) {
+			worker.selector.wakeup();
+		}
+		try {
+			acceptor.join();
+			for (Worker worker : workers) {
+				worker.thread.join();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * The method run by the acceptor thread, which hands each new connection to
+	 * the workers in turn. If a connection cannot be accepted, such as when the
+	 * process has run out of file descriptors, the acceptor waits a little
+	 * longer after each failure instead of trying again at once.
+	 */
+	private void accept() {
+		int next = 0;
+		long backoff = 0;
+		while (running && server.isOpen()) {
+			try {
+				SocketChannel channel = server.accept();
+				workers[next].add(channel);
+				next = (next + 1) % workers.length;
+				backoff = 0;
+			} catch (IOException e) {
+				if (!server.isOpen()) {
+					// The server was closed
+					return;
+				}
+				// Too many connections are open, or the connection was dropped
+				// while it was accepted
+				backoff = Math.min(MAX_ACCEPT_BACKOFF, Math.max(1, backoff * 2));
+				try {
+					Thread.sleep(backoff);
+				} catch (InterruptedException interrupted) {
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * A worker thread, which serves its connections with a selector.
+	 */
+	private final class Worker implements Runnable {
+
+		private final Selector selector;	// Finds the connections that can be read or written
+		private final ConcurrentLinkedQueue<SocketChannel> added = new ConcurrentLinkedQueue<>();	// The connections handed over by the acceptor
+		private Thread thread;	// The thread of the worker
+
+		/**
+		 * The constructor method to create a worker.
+		 *
+		 * @throws IOException If the selector could not be opened
+		 */
+		private Worker() throws IOException {
+			selector = Selector.open();
+		}
+
+		/**
+		 * The method used to hand a new connection to the worker.
+		 *
+		 * @param channel The connection
+		 */
+		private void add(SocketChannel channel) {
+			added.add(channel);
+			selector.wakeup();
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (running) {
+					selector.select();
+					SocketChannel channel;
+					while ((channel = added.poll()) != null) {
+						start(channel);
+					}
+					Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+					while (keys.hasNext()) {
+						SelectionKey key = keys.next();
+						keys.remove();
+						Session session = (Session) key.attachment();
+						try {
+							if (key.isValid() && key.isWritable()) {
+								session.flush();
+							}
+							if (key.isValid() && key.isReadable()) {
+								session.read();
+							}
+						} catch (IOException e) {
+							session.close();
+						}
+					}
+				}
+			} catch (IOException e) {
+				// The selector failed, so the connections of the worker are dropped
+			} finally {
+				for (SelectionKey key : selector.keys()) {
+					((Session) key.attachment()).close();
+				}
+				try {
+					selector.close();
+				} catch (IOException e) {
+					// The worker is stopping anyway
+				}
+			}
+		}
+
+		/**
+		 * The method used to start serving a new connection.
+		 *
+		 * @param channel The connection
+		 */
+		private void start(SocketChannel channel) {
+			try {
+				channel.configureBlocking(false);
+				channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				Session session = new Session(channel);
+				session.key = channel.register(selector, SelectionKey.OP_READ, session);
+				session.enter(0);
+				session.flush();
+			} catch (IOException e) {
+				try {
+					channel.close();
+				} catch (IOException ignored) {
+					// The connection is already unusable
+				}
+			}
+		}
+	}
+
+	/**
+	 * A single connection, and the player that it moves.
+	 */
+	private final class Session {
+
+		private final SocketChannel channel;	// The connection
+		private SelectionKey key;	// The registration of the connection with its worker
+		private final ByteBuffer in = ByteBuffer.allocate(READ_LENGTH);	// The keys read from the connection
+		private ByteBuffer out = ByteBuffer.allocate(1024);	// The lines waiting to be written
+		private PlayerHandle player;	// The player, or null once the player has won or been turned away
+		private int roomIndex;	// The index of the room of the player
+		private boolean closing;	// Whether the connection is closed once its lines are written
+
+		/**
+		 * The constructor method to create a session for a connection.
+		 *
+		 * @param socketChannel The connection
+		 */
+		private Session(SocketChannel socketChannel) {
+			channel = socketChannel;
+		}
+
+		/**
+		 * The method used to put the player in a room, or tell it that it has
+		 * won once it has been through every room.
+		 *
+		 * @param index The index of the room
+		 */
+		private void enter(int index) {
+			roomIndex = index;
+			if (index == rooms.length) {
+				player = null;
+				line("WIN");
+				return;
+			}
+			player = rooms[index].join();
+			if (player == null) {
+				line("FULL");
+				closing = true;
+				return;
+			}
+			reserve(roomNames[index].length + LINE_LENGTH);
+			out.put((byte) 'R').put((byte) 'O').put((byte) 'O').put((byte) 'M').put((byte) ' ');
+			putNumber(index);
+			out.put((byte) ' ').put(roomNames[index]).put((byte) ' ');
+			putPosition();
+		}
+
+		/**
+		 * The method used to read the keys that have arrived and answer each of
+		 * them.
+		 *
+		 * @throws IOException If the connection could not be read or written
+		 */
+		private void read() throws IOException {
+			int length = channel.read(in);
+			if (length < 0) {
+				close();
+				return;
+			}
+			in.flip();
+			while (in.hasRemaining() && !closing) {
+				answer(in.get());
+			}
+			in.clear();
+			flush();
+		}
+
+		/**
+		 * The method used to answer a single key.
+		 *
+		 * @param b The key
+		 */
+		private void answer(byte b) {
+			char key = (char) (b & 0xFF);
+			if (Character.isWhitespace(key)) {
+				return;
+			}
+			if (key == 'q') {
+				closing = true;
+				return;
+			}
+			Direction direction = Direction.fromKey(key);
+			if (direction == null || player == null) {
+				line("X");
+				return;
+			}
+			MoveResult result = player.move(direction);
+			if (result == MoveResult.MOVED) {
+				reserve(LINE_LENGTH);
+				out.put((byte) 'M').put((byte) ' ');
+				putPosition();
+			} else if (result == MoveResult.PORTAL) {
+				enter(roomIndex + 1);
+			} else {
+				line("B");
+			}
+		}
+
+		/**
+		 * The method used to write as many waiting lines as the connection will
+		 * take. Until every line is written, keys are not read, so a client that
+		 * does not read its answers cannot make the server hold more of them.
+		 *
+		 * @throws IOException If the connection could not be written
+		 */
+		private void flush() throws IOException {
+			out.flip();
+			channel.write(out);
+			if (out.hasRemaining()) {
+				out.compact();
+				key.interestOps(SelectionKey.OP_WRITE);
+			} else {
+				out.clear();
+				if (closing) {
+					close();
+				} else {
+					key.interestOps(SelectionKey.OP_READ);
+				}
+			}
+		}
+
+		/**
+		 * The method used to end the connection and take the player out of its
+		 * room.
+		 */
+		private void close() {
+			if (player != null) {
+				player.leave();
+				player = null;
+			}
+			if (key != null) {
+				key.cancel();
+			}
+			try {
+				channel.close();
+			} catch (IOException e) {
+				// The connection is already unusable
+			}
+		}
+
+		/**
+		 * The method used to add a line of text.
+		 *
+		 * @param text The line, without its end
+		 */
+		private void line(String text) {
+			reserve(text.length() + 1);
+			for (int i = 0; i < text.length(); i++) {
+				out.put((byte) text.charAt(i));
+			}
+			out.put((byte) '\n');
+		}
+
+		/**
+		 * The method used to add the position of the player and end the line.
+		 */
+		private void putPosition() {
+			putNumber(player.getRow());
+			out.put((byte) ' ');
+			putNumber(player.getColumn());
+			out.put((byte) '\n');
+		}
+
+		/**
+		 * The method used to add the digits of a number that is not negative.
+		 *
+		 * @param number The number
+		 */
+		private void putNumber(int number) {
+			if (number >= 10) {
+				putNumber(number / 10);
+			}
+			out.put((byte) ('0' + number % 10));
+		}
+
+		/**
+		 * The method used to make sure that there is room for a line in the
+		 * waiting lines, growing them if needed.
+		 *
+		 * @param length The length of the line
+		 */
+		private void reserve(int length) {
+			if (out.remaining() < length) {
+				ByteBuffer grown = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + length));
+				out.flip();
+				grown.put(out);
+				out = grown;
+			}
+		}
+	}
+}
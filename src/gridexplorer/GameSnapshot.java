@@ -0,0 +1,462 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The GameSnapshot class saves the state of a game or a room to a file and
+ * restores it again. The grid is written as its compact codes with bulk
+ * channel writes, straight from the array that backs it where there is one,
+ * so a room of many megabytes is saved in a few milliseconds.
+ *
+ * A game snapshot holds, in big-endian order, the magic number "GXSN", the
+ * format version, whether the game is playing, the index of the current room
+ * and its name, followed by a room snapshot. A room snapshot holds the size
+ * of the room, its spawn point, the position of the player and whether the
+ * player was spawned, followed by the compact code of each position in
+ * row-major order.
+ *
+ * @author Christopher Wells
+ */
+public final class GameSnapshot {
+
+	public static final int MAGIC = 0x4758534E;	// The characters "GXSN"
+	public static final short VERSION = 1;	// The version of the format that is written
+
+	private static final int ROOM_HEADER_LENGTH = 25;	// The number of bytes before the cells of a room
+	private static final int CHUNK_SIZE = 1 << 16;	// The number of bytes written at a time
+	private static final int ROWS_PER_WRITE = 256;	// The number of shared rows gathered into a single write
+
+	/**
+	 * GameSnapshot only holds static methods, so it is not meant to be
+	 * constructed.
+	 */
+	private GameSnapshot() {
+	}
+
+	/**
+	 * The method used to save a game to a file. The snapshot is written to a
+	 * temporary file next to it first and then moved into place, so a crash
+	 * while saving never leaves a broken snapshot behind.
+	 *
+	 * @param game The game to save
+	 * @param file The file to save the game to
+	 * @throws IOException If the file could not be written
+	 */
+	public static void save(Game game, File file) throws IOException {
+		File temporary = new File(file.getPath() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			writeGame(game, channel);
+		}
+		Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * The method used to save a game into an array of bytes, such as to keep
+	 * it inside another file.
+	 *
+	 * @param game The game to save
+	 * @return The snapshot of the game
+	 */
+	public static byte[] toBytes(Game game) {
+		return capture(game).toBytes();
+	}
+
+	/**
+	 * The method used to capture the state of a game so that it can be saved
+	 * later, such as on another thread, while the game carries on. The grid of
+	 * a room made from a layout is captured without copying any of its
+	 * objects, as its rows are only copied again once they change. Other
+	 * grids, such as off-heap ones, are copied.
+	 *
+	 * @param game The game to capture
+	 * @return The captured state of the game
+	 * @throws IllegalStateException If the grid must be copied but is too
+	 * large to fit in an array
+	 */
+	public static Capture capture(Game game) {
+		Room room = game.getCurrentRoom();
+		ByteBuffer header = gameHeader(game, ROOM_HEADER_LENGTH);
+		putRoomHeader(room, header);
+		header.flip();
+		return new Capture(header, freeze(room.getStorage()));
+	}
+
+	/**
+	 * The method used to restore a game from a file. The file is
+	 * memory-mapped, so the grid is copied straight out of it. The game must
+	 * have been created with the same rooms as the game that was saved.
+	 *
+	 * @param game The game to restore the state into
+	 * @param file The file that the game was saved to
+	 * @throws IOException If the file could not be read, or is a snapshot of a
+	 * different game
+	 */
+	public static void restore(Game game, File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			restore(game, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * The method used to restore a game from a snapshot held in a buffer,
+	 * which is read from its position to its limit.
+	 *
+	 * @param game The game to restore the state into
+	 * @param snapshot The snapshot of the game
+	 * @throws IOException If the snapshot is not valid, or is of a different
+	 * game
+	 */
+	public static void restore(Game game, ByteBuffer snapshot) throws IOException {
+		try {
+			if (snapshot.getInt() != MAGIC) {
+				throw new IOException("Not a game snapshot.");
+			}
+			short version = snapshot.getShort();
+			if (version != VERSION) {
+				throw new IOException("Unsupported game snapshot version " + version + ".");
+			}
+			boolean playing = snapshot.get() != 0;
+			int roomIndex = snapshot.getInt();
+			int nameLength = snapshot.getInt();
+			if (roomIndex < 0 || nameLength < 0 || nameLength > snapshot.remaining()) {
+				throw new IOException("Invalid game snapshot header.");
+			}
+			byte[] name = new byte[nameLength];
+			snapshot.get(name);
+			int current = Math.min(roomIndex, game.getRoomCount() - 1);
+			if (roomIndex > game.getRoomCount()
+					|| !game.getRoomSource(current).getName().equals(new String(name, StandardCharsets.UTF_8))) {
+				throw new IOException("The snapshot is of a game with different rooms.");
+			}
+			Room room = readRoom(snapshot, game);
+			game.restoreState(roomIndex, room, playing);
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Snapshot is truncated.", e);
+		}
+	}
+
+	/**
+	 * The method used to save a single room to a file.
+	 *
+	 * @param room The room to save
+	 * @param file The file to save the room to
+	 * @throws IOException If the file could not be written
+	 */
+	public static void saveRoom(Room room, File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			writeRoom(room, channel);
+		}
+	}
+
+	/**
+	 * The method used to restore a single room from a file.
+	 *
+	 * @param file The file that the room was saved to
+	 * @param game The current instance of the game that the room is part of
+	 * @return The restored room, which should be closed once it is no longer
+	 * used
+	 * @throws IOException If the file could not be read
+	 */
+	public static Room restoreRoom(File file, Game game) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			return readRoom(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), game);
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Snapshot is truncated.", e);
+		}
+	}
+
+	/**
+	 * The method used to write the state of a game, followed by its current
+	 * room, to a channel.
+	 *
+	 * @param game The game to write
+	 * @param channel The channel to write to
+	 * @throws IOException If the game could not be written
+	 */
+	private static void writeGame(Game game, WritableByteChannel channel) throws IOException {
+		ByteBuffer header = gameHeader(game, 0);
+		header.flip();
+		writeFully(channel, header);
+		writeRoom(game.getCurrentRoom(), channel);
+	}
+
+	/**
+	 * The method used to put the state of a game, without its current room,
+	 * into a new buffer.
+	 *
+	 * @param game The game to put into the buffer
+	 * @param extra The number of bytes to leave free after the state of the
+	 * game
+	 * @return The buffer, positioned after the state of the game
+	 */
+	private static ByteBuffer gameHeader(Game game, int extra) {
+		byte[] name = game.getRoomSource(Math.min(game.getRoomIndex(), game.getRoomCount() - 1))
+				.getName().getBytes(StandardCharsets.UTF_8);
+		ByteBuffer header = ByteBuffer.allocate(15 + name.length + extra);
+		header.putInt(MAGIC);
+		header.putShort(VERSION);
+		header.put((byte) (game.isPlaying() ? 1 : 0));
+		header.putInt(game.getRoomIndex());
+		header.putInt(name.length);
+		header.put(name);
+		return header;
+	}
+
+	/**
+	 * The method used to write a room to a channel.
+	 *
+	 * @param room The room to write
+	 * @param channel The channel to write to
+	 * @throws IOException If the room could not be written
+	 */
+	private static void writeRoom(Room room, WritableByteChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(ROOM_HEADER_LENGTH);
+		putRoomHeader(room, header);
+		header.flip();
+		writeFully(channel, header);
+		writeCells(room.getStorage(), channel);
+	}
+
+	/**
+	 * The method used to put the size of a room, its spawn point and the
+	 * position of the player into a buffer.
+	 *
+	 * @param room The room to put into the buffer
+	 * @param header The buffer to put the room into
+	 */
+	private static void putRoomHeader(Room room, ByteBuffer header) {
+		header.putInt(room.getRows());
+		header.putInt(room.getColumns());
+		header.putInt(room.getSpawnRow());
+		header.putInt(room.getSpawnColumn());
+		header.putInt(room.getPlayerRow());
+		header.putInt(room.getPlayerColumn());
+		header.put((byte) (room.isSpawned() ? 1 : 0));
+	}
+
+	/**
+	 * The method used to get a grid that holds the objects of a grid as they
+	 * are now, and never changes.
+	 *
+	 * @param grid The grid, or null if the room has no grid
+	 * @return The unchanging grid, or null if the room has no grid
+	 */
+	private static GridStorage freeze(GridStorage grid) {
+		if (grid == null) {
+			return null;
+		} else if (grid instanceof CopyOnWriteGridStorage) {
+			return ((CopyOnWriteGridStorage) grid).snapshot();
+		}
+		int rows = grid.getRows();
+		int columns = grid.getColumns();
+		if ((long) rows * columns > GridStorages.MAX_ARRAY_CELLS) {
+			throw new IllegalStateException("A " + rows + " by " + columns + " grid is too large to capture.");
+		}
+		byte[] cells = new byte[rows * columns];
+		if (grid instanceof ByteGridStorage) {
+			System.arraycopy(((ByteGridStorage) grid).cells(), 0, cells, 0, cells.length);
+		} else {
+			for (int i = 0; i < rows; i++) {
+				for (int j = 0; j < columns; j++) {
+					cells[i * columns + j] = Tiles.encode(grid.get(i, j));
+				}
+			}
+		}
+		return new ByteGridStorage(rows, columns, cells);
+	}
+
+	/**
+	 * The method used to write the compact code of each object of a grid to a
+	 * channel, in row-major order.
+	 *
+	 * @param grid The grid to write, or null if the room has no grid
+	 * @param channel The channel to write to
+	 * @throws IOException If the grid could not be written
+	 */
+	private static void writeCells(GridStorage grid, WritableByteChannel channel) throws IOException {
+		if (grid == null) {
+			// A room whose file could not be loaded has no grid
+			return;
+		}
+		int rows = grid.getRows();
+		int columns = grid.getColumns();
+		if (grid instanceof ByteGridStorage) {
+			writeFully(channel, ByteBuffer.wrap(((ByteGridStorage) grid).cells(), 0, rows * columns));
+		} else if (grid instanceof CopyOnWriteGridStorage && channel instanceof GatheringByteChannel) {
+			// Gather the rows, whether copied or shared, into a few large writes
+			GatheringByteChannel gathering = (GatheringByteChannel) channel;
+			CopyOnWriteGridStorage cow = (CopyOnWriteGridStorage) grid;
+			ByteBuffer[] batch = new ByteBuffer[Math.min(ROWS_PER_WRITE, Math.max(rows, 1))];
+			for (int first = 0; first < rows; first += batch.length) {
+				int count = Math.min(batch.length, rows - first);
+				for (int i = 0; i < count; i++) {
+					batch[i] = cow.row(first + i);
+				}
+				while (batch[count - 1].hasRemaining()) {
+					gathering.write(batch, 0, count);
+				}
+			}
+		} else if (grid instanceof CopyOnWriteGridStorage) {
+			CopyOnWriteGridStorage cow = (CopyOnWriteGridStorage) grid;
+			for (int i = 0; i < rows; i++) {
+				writeFully(channel, cow.row(i));
+			}
+		} else {
+			ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+			for (int i = 0; i < rows; i++) {
+				for (int j = 0; j < columns; j++) {
+					chunk.put(Tiles.encode(grid.get(i, j)));
+					if (!chunk.hasRemaining()) {
+						chunk.flip();
+						writeFully(channel, chunk);
+						chunk.clear();
+					}
+				}
+			}
+			chunk.flip();
+			writeFully(channel, chunk);
+		}
+	}
+
+	/**
+	 * The method used to read a room from a buffer.
+	 *
+	 * @param buffer The buffer to read from, which must end with the room
+	 * @param game The current instance of the game that the room is part of
+	 * @return The restored room
+	 * @throws IOException If the room could not be read
+	 */
+	private static Room readRoom(ByteBuffer buffer, Game game) throws IOException {
+		int rows = buffer.getInt();
+		int columns = buffer.getInt();
+		int spawnRow = buffer.getInt();
+		int spawnColumn = buffer.getInt();
+		int playerRow = buffer.getInt();
+		int playerColumn = buffer.getInt();
+		boolean spawned = buffer.get() != 0;
+		long cellCount = (long) rows * columns;
+		if (rows < 0 || columns < 0 || buffer.remaining() != cellCount) {
+			throw new IOException("Room snapshot is truncated or has an invalid size.");
+		}
+
+		GridStorage grid = GridStorages.create(rows, columns, true);
+		if (grid instanceof ByteGridStorage) {
+			buffer.get(((ByteGridStorage) grid).cells(), 0, (int) cellCount);
+		} else {
+			for (int i = 0; i < rows; i++) {
+				for (int j = 0; j < columns; j++) {
+					grid.set(i, j, Tiles.decode(buffer.get()));
+				}
+			}
+		}
+		return new Room(grid, spawnRow, spawnColumn, playerRow, playerColumn, spawned, game);
+	}
+
+	/**
+	 * The state of a game that was captured at one moment, which can be saved
+	 * at any later time and from any thread.
+	 */
+	public static final class Capture {
+
+		private final ByteBuffer header;	// The state of the game and of its current room, without the grid
+		private final GridStorage grid;	// The grid of the current room, which never changes, or null if there is none
+
+		/**
+		 * The constructor method to create a captured game.
+		 *
+		 * @param state The state of the game and of its current room
+		 * @param frozen The grid of the current room, or null if there is none
+		 */
+		private Capture(ByteBuffer state, GridStorage frozen) {
+			header = state;
+			grid = frozen;
+		}
+
+		/**
+		 * The method used to get the number of bytes in the snapshot of the
+		 * game.
+		 *
+		 * @return The length of the snapshot
+		 */
+		public long length() {
+			long cells = grid == null ? 0 : (long) grid.getRows() * grid.getColumns();
+			return header.remaining() + cells;
+		}
+
+		/**
+		 * The method used to save the game into an array of bytes.
+		 *
+		 * @return The snapshot of the game
+		 */
+		public byte[] toBytes() {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try {
+				writeTo(Channels.newChannel(bytes));
+			} catch (IOException e) {
+				throw new IllegalStateException("Could not write a snapshot into memory.", e);
+			}
+			return bytes.toByteArray();
+		}
+
+		/**
+		 * The method used to write the snapshot of the game to a channel.
+		 *
+		 * @param channel The channel to write to
+		 * @throws IOException If the snapshot could not be written
+		 */
+		void writeTo(WritableByteChannel channel) throws IOException {
+			writeFully(channel, header.duplicate());
+			writeCells(grid, channel);
+		}
+	}
+
+	/**
+	 * The method used to write the whole of a buffer to a channel.
+	 *
+	 * @param channel The channel to write to
+	 * @param buffer The buffer to write
+	 * @throws IOException If the buffer could not be written
+	 */
+	private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The GeneratedRoomSource class is the base of rooms that are generated from
+ * a seed instead of being read from a file. Each position is found from the
+ * seed and its own row and column alone, so the rows are generated straight
+ * into the layout in bands on a fork-join pool, and the same seed always
+ * gives the same room however many threads are used.
+ *
+ * The layout is generated the first time it is needed and is then kept, so
+ * every room made from the source shares it.
+ *
+ * @author Christopher Wells
+ */
+public abstract class GeneratedRoomSource implements RoomSource {
+
+	/**
+	 * The number of rows that a worker generates without splitting them up
+	 * any further.
+	 */
+	private static final int ROWS_PER_TASK = 64;
+
+	protected final int rows;	// The total number of rows that the room has
+	protected final int columns;	// The total number of columns that the room has
+	protected final long seed;	// The seed that the room is generated from
+	private int parallelism = Runtime.getRuntime().availableProcessors();	// The number of threads that generate the room
+	private RoomLayout layout;	// The generated layout, or null until it is needed
+
+	/**
+	 * The constructor method to create the source of a generated room.
+	 *
+	 * @param r The number of rows that the room has
+	 * @param c The number of columns that the room has
+	 * @param s The seed that the room is generated from
+	 */
+	protected GeneratedRoomSource(int r, int c, long s) {
+		if (r < 3 || c < 3 || (long) r * c > GridStorages.MAX_ARRAY_CELLS) {
+			throw new IllegalArgumentException("Generated rooms must be at least 3 by 3 and fit in an array, not " + r + " by " + c + ".");
+		}
+		rows = r;
+		columns = c;
+		seed = s;
+	}
+
+	/**
+	 * The method used to set the number of threads that generate the room.
+	 *
+	 * @param threads The number of threads
+	 */
+	public void setParallelism(int threads) {
+		parallelism = Math.max(1, threads);
+	}
+
+	@Override
+	public synchronized RoomLayout getLayout() {
+		if (layout == null) {
+			byte[] cells = new byte[rows * columns];
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				pool.invoke(new RowTask(cells, 0, rows));
+			} finally {
+				pool.shutdown();
+			}
+			layout = new RoomLayout(rows, columns, getSpawnRow(), getSpawnColumn(), cells, false);
+		}
+		return layout;
+	}
+
+	/**
+	 * The method used to fill a single row of the room with the compact codes
+	 * of its objects. It must only depend on the seed, the row and the
+	 * columns, as the rows are filled in no particular order.
+	 *
+	 * @param cells The compact codes of the room in row-major order
+	 * @param r The row to fill
+	 */
+	protected abstract void fillRow(byte[] cells, int r);
+
+	/**
+	 * The method used to get the row of the spawn point of the room.
+	 *
+	 * @return The row of the spawn point
+	 */
+	protected abstract int getSpawnRow();
+
+	/**
+	 * The method used to get the column of the spawn point of the room.
+	 *
+	 * @return The column of the spawn point
+	 */
+	protected abstract int getSpawnColumn();
+
+	/**
+	 * The method used to find a random number for a position, which is always
+	 * the same for the same seed and position.
+	 *
+	 * @param r The row of the position
+	 * @param c The column of the position
+	 * @return The random number
+	 */
+	protected long hash(int r, int c) {
+		long z = seed + 0x9E3779B97F4A7C15L * (((long) r << 32) ^ (c & 0xFFFFFFFFL)) + 0x632BE59BD9B4E019L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * A task that fills a range of the rows, splitting the range in half
+	 * until it is small enough to fill directly.
+	 */
+	private final class RowTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final byte[] cells;	// The compact codes of the room
+		private final int start;	// The first row of the range
+		private final int end;	// The row after the last row of the range
+
+		/**
+		 * The constructor method to create the task.
+		 *
+		 * @param codes The compact codes of the room
+		 * @param first The first row of the range
+		 * @param last The row after the last row of the range
+		 */
+		private RowTask(byte[] codes, int first, int last) {
+			cells = codes;
+			start = first;
+			end = last;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start <= ROWS_PER_TASK) {
+				for (int r = start; r < end; r++) {
+					fillRow(cells, r);
+				}
+				return;
+			}
+			int middle = (start + end) >>> 1;
+			invokeAll(new RowTask(cells, start, middle), new RowTask(cells, middle, end));
+		}
+	}
+}
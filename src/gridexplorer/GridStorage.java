@@ -0,0 +1,68 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+/**
+ * The GridStorage interface represents the way that the objects within a room
+ * are stored. The positions given to its methods are expected to be valid, as
+ * the room checks them before using the storage.
+ *
+ * @author Christopher Wells
+ */
+public interface GridStorage {
+
+	/**
+	 * The method used to get the number of rows that the grid has.
+	 *
+	 * @return The number of rows the grid has
+	 */
+	int getRows();
+
+	/**
+	 * The method used to get the number of columns that the grid has.
+	 *
+	 * @return The number of columns the grid has
+	 */
+	int getColumns();
+
+	/**
+	 * The method used to get the integer identifier of the object at a given
+	 * point.
+	 *
+	 * @param r The row of the object
+	 * @param c The column of the object
+	 * @return The integer identifier of the object at the specified point
+	 */
+	int get(int r, int c);
+
+	/**
+	 * The method used to set the object at a given point.
+	 *
+	 * @param r The row of the position
+	 * @param c The column of the position
+	 * @param id The integer identifier of the object
+	 * @throws IllegalArgumentException If the storage can not hold the object
+	 */
+	void set(int r, int c, int id);
+}
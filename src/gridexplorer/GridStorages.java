@@ -0,0 +1,84 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.IOException;
+
+/**
+ * The GridStorages class creates the storage for the grid of a room, choosing
+ * the kind of storage based on the size and contents of the room.
+ *
+ * @author Christopher Wells
+ */
+public final class GridStorages {
+
+	/**
+	 * The largest number of elements that can safely be allocated for an
+	 * array.
+	 */
+	static final int MAX_ARRAY_CELLS = Integer.MAX_VALUE - 8;
+
+	/**
+	 * The number of cells above which rooms are packed two bits per object.
+	 * Smaller rooms use a byte per object, as their objects are slightly faster
+	 * to get and set and they are small enough that the memory does not matter.
+	 */
+	public static final long PACKED_THRESHOLD = 1L << 20;
+
+	/**
+	 * GridStorages only holds static methods, so it is not meant to be
+	 * constructed.
+	 */
+	private GridStorages() {
+	}
+
+	/**
+	 * The method used to create the storage for an empty grid. Grids that
+	 * would take up more than half of the heap, or that have too many cells to
+	 * fit in an array, are stored off the heap in a memory-mapped file.
+	 *
+	 * @param r The number of rows that the grid has
+	 * @param c The number of columns that the grid has
+	 * @param unknown Whether the grid needs to hold unknown objects
+	 * @return The storage for the grid
+	 * @throws IllegalStateException If the file for an off-heap grid could not
+	 * be created
+	 */
+	public static GridStorage create(int r, int c, boolean unknown) {
+		long size = (long) r * c;
+		long heapBudget = Runtime.getRuntime().maxMemory() / 2;
+		if (unknown || size <= PACKED_THRESHOLD) {
+			if (size <= MAX_ARRAY_CELLS && size <= heapBudget) {
+				return new ByteGridStorage(r, c);
+			}
+		} else if (size / 32 <= MAX_ARRAY_CELLS && size / 4 <= heapBudget) {
+			return new PackedGridStorage(r, c);
+		}
+		try {
+			return new MappedGridStorage(r, c);
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not create the file for a " + r + " by " + c + " grid.", e);
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * The InputPump class reads keystrokes from a stream on its own thread and
+ * queues them for the game, so reading input never waits on the game and the
+ * game never waits on a key. The queue is bounded, and keys that arrive while
+ * it is full are dropped, so a burst of repeated keys cannot build up a long
+ * backlog of moves. Whitespace, such as the end of each line when the terminal
+ * is not in raw mode, is ignored. A channel can be read by wrapping it with
+ * Channels.newInputStream.
+ *
+ * @author Christopher Wells
+ */
+public class InputPump implements Runnable {
+
+	private static final char END = '\uFFFF';	// The key queued once the stream has ended
+	private static final int READ_LENGTH = 256;	// The largest number of bytes read at once
+
+	private final InputStream in;	// The stream that the keys are read from
+	private final int capacity;	// The largest number of keys that are queued
+	private final ArrayBlockingQueue<Character> keys;	// The keys that have been read but not drained
+	private volatile long dropped;	// The number of keys dropped because the queue was full
+	private boolean ended;	// Whether the end of the stream has been drained
+
+	/**
+	 * The constructor method to create a pump that reads from a stream.
+	 *
+	 * @param input The stream to read the keys from
+	 * @param queueCapacity The largest number of keys that are queued
+	 */
+	public InputPump(InputStream input, int queueCapacity) {
+		if (queueCapacity < 1) {
+			throw new IllegalArgumentException("The queue must hold at least one key, not " + queueCapacity + ".");
+		}
+		in = input;
+		capacity = queueCapacity;
+		// Leave room for the end of the stream, so that it is never dropped
+		keys = new ArrayBlockingQueue<>(queueCapacity + 1);
+	}
+
+	/**
+	 * The method used to start reading keys on a daemon thread.
+	 *
+	 * @return The thread that reads the keys
+	 */
+	public Thread start() {
+		Thread reader = new Thread(this, "gridexplorer-input");
+		reader.setDaemon(true);
+		reader.start();
+		return reader;
+	}
+
+	/**
+	 * The method used to read keys until the end of the stream. This is run by
+	 * the thread made by start.
+	 */
+	@Override
+	public void run() {
+		byte[] buffer = new byte[READ_LENGTH];
+		try {
+			int length;
+			while ((length = in.read(buffer)) != -1) {
+				for (int i = 0; i < length; i++) {
+					char key = (char) (buffer[i] & 0xFF);
+					if (Character.isWhitespace(key)) {
+						continue;
+					}
+					// Only this thread adds keys, so the queue cannot fill up between
+					// the check and the add
+					if (keys.size() < capacity) {
+						keys.add(key);
+					} else {
+						dropped++;
+					}
+				}
+			}
+		} catch (IOException e) {
+			// A stream that cannot be read is treated as having ended
+		} finally {
+			keys.add(END);
+		}
+	}
+
+	/**
+	 * The method used to take the queued keys, waiting until there is at least
+	 * one. This must only be called by one thread.
+	 *
+	 * @param batch The array to copy the keys into
+	 * @return The number of keys copied, or -1 if the stream has ended
+	 * @throws InterruptedException If the thread was interrupted while waiting
+	 */
+	public int drain(char[] batch) throws InterruptedException {
+		if (ended) {
+			return -1;
+		}
+		char key = keys.take();
+		if (key == END) {
+			ended = true;
+			return -1;
+		}
+		batch[0] = key;
+		int length = 1;
+		Character next;
+		while (length < batch.length && (next = keys.peek()) != null && next != END) {
+			batch[length++] = keys.poll();
+		}
+		return length;
+	}
+
+	/**
+	 * The method used to get the number of keys that were dropped because the
+	 * queue was full.
+	 *
+	 * @return The number of dropped keys
+	 */
+	public long getDropped() {
+		return dropped;
+	}
+}
@@ -0,0 +1,250 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The JournalReplay class rebuilds a game from a MoveJournal. The journal is
+ * memory-mapped and scanned once to find its keyframes, after which the game
+ * at any turn is rebuilt by restoring the last keyframe before that turn and
+ * playing only the moves after it on a headless game.
+ *
+ * @author Christopher Wells
+ */
+public class JournalReplay {
+
+	private final ByteBuffer journal;	// The contents of the journal
+	private final String[] roomNames;	// The names of the rooms of the recorded game
+	private final int firstRecord;	// The position of the first record
+	private int end;	// The position after the last complete record
+	private long[] keyframeTurns = new long[16];	// The number of moves made before each keyframe
+	private int[] keyframePositions = new int[16];	// The position of each keyframe record
+	private int keyframes;	// The number of keyframes
+	private long turns;	// The number of moves in the journal
+
+	/**
+	 * The constructor method to open a journal and find its keyframes.
+	 *
+	 * @param file The file of the journal
+	 * @throws IOException If the file could not be read or is not a journal
+	 */
+	public JournalReplay(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Journals larger than 2 GiB are not supported.");
+			}
+			journal = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		try {
+			if (journal.getInt() != MoveJournal.MAGIC) {
+				throw new IOException("Not a move journal.");
+			}
+			short version = journal.getShort();
+			if (version != MoveJournal.VERSION) {
+				throw new IOException("Unsupported move journal version " + version + ".");
+			}
+			roomNames = new String[journal.getInt()];
+			for (int i = 0; i < roomNames.length; i++) {
+				byte[] name = new byte[journal.getInt()];
+				journal.get(name);
+				roomNames[i] = new String(name, StandardCharsets.UTF_8);
+			}
+			firstRecord = journal.position();
+			index();
+		} catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+			throw new IOException("The move journal is corrupt.", e);
+		}
+	}
+
+	/**
+	 * The method used to get the names of the rooms of the recorded game.
+	 *
+	 * @return The names of the rooms, in order
+	 */
+	public String[] getRoomNames() {
+		return roomNames.clone();
+	}
+
+	/**
+	 * The method used to get the number of moves in the journal.
+	 *
+	 * @return The number of moves
+	 */
+	public long getTurns() {
+		return turns;
+	}
+
+	/**
+	 * The method used to get the number of keyframes in the journal.
+	 *
+	 * @return The number of keyframes
+	 */
+	public int getKeyframes() {
+		return keyframes;
+	}
+
+	/**
+	 * The method used to rebuild the game after every move in the journal,
+	 * with its rooms read from the rooms directory.
+	 *
+	 * @return The rebuilt headless game
+	 * @throws IOException If the game could not be rebuilt
+	 */
+	public Game replay() throws IOException {
+		return seek(turns);
+	}
+
+	/**
+	 * The method used to rebuild the game after a given number of moves, with
+	 * its rooms read from the rooms directory.
+	 *
+	 * @param turn The number of moves to rebuild the game after
+	 * @return The rebuilt headless game
+	 * @throws IOException If the game could not be rebuilt
+	 */
+	public Game seek(long turn) throws IOException {
+		return seek(FileRoomSource.named(roomNames), turn);
+	}
+
+	/**
+	 * The method used to rebuild the game after a given number of moves, with
+	 * the given sources of its rooms, such as the generators that made them.
+	 *
+	 * @param rooms The sources of the rooms, which must have the names that
+	 * were recorded
+	 * @param turn The number of moves to rebuild the game after
+	 * @return The rebuilt headless game
+	 * @throws IOException If the game could not be rebuilt, or the replay does
+	 * not match the journal
+	 */
+	public Game seek(RoomSource[] rooms, long turn) throws IOException {
+		if (turn < 0 || turn > turns) {
+			throw new IllegalArgumentException("Turn " + turn + " is not within the " + turns + " turns of the journal.");
+		}
+		int keyframe = Arrays.binarySearch(keyframeTurns, 0, keyframes, turn);
+		if (keyframe < 0) {
+			keyframe = -keyframe - 2;
+		} else {
+			// Use the last of several keyframes at the same turn
+			while (keyframe + 1 < keyframes && keyframeTurns[keyframe + 1] == turn) {
+				keyframe++;
+			}
+		}
+
+		Game game = Game.headless(rooms);
+		ByteBuffer records = journal.duplicate();
+		records.limit(end);
+		long current = 0;
+		if (keyframe >= 0) {
+			records.position(keyframePositions[keyframe] + 9);
+			int length = records.getInt();
+			ByteBuffer snapshot = records.slice();
+			snapshot.limit(length);
+			GameSnapshot.restore(game, snapshot);
+			records.position(records.position() + length);
+			current = keyframeTurns[keyframe];
+		} else {
+			records.position(firstRecord);
+		}
+
+		while (records.hasRemaining()) {
+			byte type = records.get();
+			if (type == MoveJournal.TRANSITION) {
+				int roomIndex = records.getInt();
+				if (game.getRoomIndex() != roomIndex) {
+					throw new IOException("The replay moved to room " + game.getRoomIndex()
+							+ " at turn " + current + " but the journal moved to room " + roomIndex + ".");
+				}
+			} else if (type == MoveJournal.KEYFRAME) {
+				records.position(records.position() + 8);
+				int length = records.getInt();
+				records.position(records.position() + length);
+			} else {
+				if (current == turn) {
+					break;
+				}
+				char key = type == MoveJournal.WIDE_MOVE ? records.getChar() : (char) type;
+				game.move(key);
+				current++;
+			}
+		}
+		return game;
+	}
+
+	/**
+	 * The method used to scan the records once, counting the moves and
+	 * finding the position of each keyframe. A record cut short by a crash
+	 * while it was written is left out.
+	 */
+	private void index() {
+		ByteBuffer records = journal.duplicate();
+		records.position(firstRecord);
+		end = firstRecord;
+		try {
+			while (records.hasRemaining()) {
+				indexRecord(records);
+				end = records.position();
+			}
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			// The last record is incomplete
+		}
+	}
+
+	/**
+	 * The method used to read a single record while indexing.
+	 *
+	 * @param records The records, positioned at the start of the record
+	 */
+	private void indexRecord(ByteBuffer records) {
+		int position = records.position();
+		byte type = records.get();
+		if (type == MoveJournal.TRANSITION) {
+			records.getInt();
+		} else if (type == MoveJournal.KEYFRAME) {
+			long turn = records.getLong();
+			int length = records.getInt();
+			records.position(records.position() + length);
+			if (keyframes == keyframeTurns.length) {
+				keyframeTurns = Arrays.copyOf(keyframeTurns, keyframes * 2);
+				keyframePositions = Arrays.copyOf(keyframePositions, keyframes * 2);
+			}
+			keyframeTurns[keyframes] = turn;
+			keyframePositions[keyframes] = position;
+			keyframes++;
+		} else {
+			if (type == MoveJournal.WIDE_MOVE) {
+				records.getChar();
+			}
+			turns++;
+		}
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The LatencyHistogram class counts durations in buckets whose width grows
+ * with the duration, so that every bucket is within about 3% of the durations
+ * it holds, in the same way as an HDR histogram. Recording a duration is a
+ * single atomic increment with no lock, so many threads can record into the
+ * same histogram at once.
+ *
+ * @author Christopher Wells
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 5;	// The log of the number of buckets for each power of two
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;	// The number of buckets for each power of two
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;	// The number of buckets for every long
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);	// The number of durations in each bucket
+	private final AtomicLong total = new AtomicLong();	// The number of durations recorded
+	private final AtomicLong max = new AtomicLong();	// The longest duration recorded
+
+	/**
+	 * The method used to find the bucket of a duration. Durations below the
+	 * number of buckets for each power of two have a bucket each, and each
+	 * larger power of two is split into that many equal buckets.
+	 *
+	 * @param value The duration, which is not negative
+	 * @return The index of the bucket
+	 */
+	private static int bucketOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+	}
+
+	/**
+	 * The method used to find the largest duration held by a bucket.
+	 *
+	 * @param bucket The index of the bucket
+	 * @return The largest duration of the bucket
+	 */
+	private static long highestOf(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long low = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return low + (1L << shift) - 1;
+	}
+
+	/**
+	 * The method used to record a duration.
+	 *
+	 * @param nanos The duration in nanoseconds, where negative durations are
+	 * recorded as 0
+	 */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+		counts.incrementAndGet(bucketOf(value));
+		total.incrementAndGet();
+		long longest = max.get();
+		while (value > longest && !max.compareAndSet(longest, value)) {
+			longest = max.get();
+		}
+	}
+
+	/**
+	 * The method used to add every duration of another histogram to this one.
+	 *
+	 * @param other The histogram to add
+	 */
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < BUCKETS; i++) {
+			long count = other.counts.get(i);
+			if (count != 0) {
+				counts.addAndGet(i, count);
+			}
+		}
+		total.addAndGet(other.total.get());
+		long longest = max.get();
+		long otherLongest = other.max.get();
+		while (otherLongest > longest && !max.compareAndSet(longest, otherLongest)) {
+			longest = max.get();
+		}
+	}
+
+	/**
+	 * The method used to get the number of durations recorded.
+	 *
+	 * @return The number of durations
+	 */
+	public long getCount() {
+		return total.get();
+	}
+
+	/**
+	 * The method used to get the longest duration recorded.
+	 *
+	 * @return The longest duration in nanoseconds
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * The method used to get the duration that a given fraction of the
+	 * recorded durations are no longer than, to within the width of its
+	 * bucket. Durations recorded while this runs may or may not be counted.
+	 *
+	 * @param fraction The fraction of the durations, from 0 to 1, such as 0.99
+	 * for the 99th percentile
+	 * @return The duration in nanoseconds, or 0 if nothing was recorded
+	 */
+	public long getPercentile(double fraction) {
+		long count = total.get();
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(fraction * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(highestOf(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	/**
+	 * The method used to remove every recorded duration.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		total.set(0);
+		max.set(0);
+	}
+
+	/**
+	 * The method used to describe the durations in microseconds.
+	 *
+	 * @return The number of durations and their 50th, 99th and largest values
+	 */
+	@Override
+	public String toString() {
+		return String.format("count=%d p50=%.1fus p99=%.1fus max=%.1fus", getCount(),
+				getPercentile(0.5) / 1e3, getPercentile(0.99) / 1e3, getMax() / 1e3);
+	}
+}
@@ -0,0 +1,216 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * The LoadClient class plays many connections to a GameServer at once from a
+ * single thread, each sending a random move as soon as the answer to its last
+ * move arrives, and measures the time from sending each move to receiving its
+ * answer.
+ *
+ * Run it with "host port connections seconds" to load a running server, or
+ * with "--local connections seconds" to start a server on a large generated
+ * cave and load it over loopback.
+ *
+ * @author Christopher Wells
+ */
+public class LoadClient {
+
+	private static final byte[] KEYS = {'w', 'a', 's', 'd'};	// The keys of the moves that are sent
+	private static final int LOCAL_ROOM_SIZE = 400;	// The size of the cave played by a local server
+
+	/**
+	 * LoadClient only holds static methods, so it is not meant to be
+	 * constructed.
+	 */
+	private LoadClient() {
+	}
+
+	/**
+	 * The method that is run when the client starts.
+	 *
+	 * @param args The address of the server, the number of connections and
+	 * the number of seconds to play for
+	 * @throws IOException If the server could not be reached or started
+	 */
+	public static void main(String[] args) throws IOException {
+		GameServer server = null;
+		InetSocketAddress address;
+		int next;
+		if (args.length > 0 && args[0].equals("--local")) {
+			RoomSource[] rooms = {new CaveRoomSource(LOCAL_ROOM_SIZE, LOCAL_ROOM_SIZE, 1, 0.2)};
+			server = new GameServer(rooms, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+					Runtime.getRuntime().availableProcessors());
+			address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+			next = 1;
+		} else if (args.length >= 2) {
+			address = new InetSocketAddress(args[0], Integer.parseInt(args[1]));
+			next = 2;
+		} else {
+			System.out.println("Usage: LoadClient (host port | --local) [connections] [seconds]");
+			return;
+		}
+		int connections = args.length > next ? Integer.parseInt(args[next]) : 10000;
+		int seconds = args.length > next + 1 ? Integer.parseInt(args[next + 1]) : 10;
+
+		try {
+			long start = System.nanoTime();
+			LatencyHistogram latencies = run(address, connections, seconds * 1000L);
+			double elapsed = (System.nanoTime() - start) / 1e9;
+			System.out.printf("%d connections, %.0f moves/s, %s%n", connections, latencies.getCount() / elapsed, latencies);
+		} finally {
+			if (server != null) {
+				server.close();
+			}
+		}
+	}
+
+	/**
+	 * The method used to play many connections to a server for a given time.
+	 *
+	 * @param address The address of the server
+	 * @param connections The number of connections
+	 * @param millis The time to play for, in milliseconds, which includes the
+	 * time taken to connect
+	 * @return The time taken to answer each move
+	 * @throws IOException If the connections could not be opened
+	 */
+	public static LatencyHistogram run(InetSocketAddress address, int connections, long millis) throws IOException {
+		LatencyHistogram latencies = new LatencyHistogram();
+		Random random = new Random(1);
+		long end = System.nanoTime() + millis * 1000000;
+		try (Selector selector = Selector.open()) {
+			for (int i = 0; i < connections; i++) {
+				SocketChannel channel = SocketChannel.open();
+				channel.configureBlocking(false);
+				channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				channel.connect(address);
+				channel.register(selector, SelectionKey.OP_CONNECT, new Connection(channel));
+			}
+
+			long remaining;
+			while ((remaining = end - System.nanoTime()) > 0) {
+				selector.select(Math.max(1, remaining / 1000000));
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					Connection connection = (Connection) key.attachment();
+					try {
+						if (key.isConnectable() && connection.channel.finishConnect()) {
+							key.interestOps(SelectionKey.OP_READ);
+						} else if (key.isReadable() && !connection.read(latencies, random)) {
+							key.cancel();
+							connection.channel.close();
+						}
+					} catch (IOException e) {
+						key.cancel();
+						connection.channel.close();
+					}
+				}
+			}
+
+			for (SelectionKey key : selector.keys()) {
+				key.channel().close();
+			}
+		}
+		return latencies;
+	}
+
+	/**
+	 * A single connection to the server.
+	 */
+	private static final class Connection {
+
+		private final SocketChannel channel;	// The connection
+		private final ByteBuffer in = ByteBuffer.allocate(256);	// The answers read from the connection
+		private final ByteBuffer out = ByteBuffer.allocate(1);	// The key of the next move
+		private boolean greeted;	// Whether the first line, which is not an answer, has arrived
+		private long sentAt;	// The time that the last move was sent
+
+		/**
+		 * The constructor method to create a connection.
+		 *
+		 * @param socketChannel The connection
+		 */
+		private Connection(SocketChannel socketChannel) {
+			channel = socketChannel;
+		}
+
+		/**
+		 * The method used to read the lines that have arrived, record the time
+		 * taken to answer the last move and send the next move.
+		 *
+		 * @param latencies The time taken to answer each move
+		 * @param random The source of the moves
+		 * @return Whether the connection is still open
+		 * @throws IOException If the connection could not be read or written
+		 */
+		private boolean read(LatencyHistogram latencies, Random random) throws IOException {
+			if (channel.read(in) < 0) {
+				return false;
+			}
+			long now = System.nanoTime();
+			boolean answered = false;
+			for (int i = 0; i < in.position(); i++) {
+				if (in.get(i) != '\n') {
+					continue;
+				}
+				if (in.get(0) == 'F') {
+					// The room is full
+					return false;
+				}
+				if (greeted) {
+					latencies.record(now - sentAt);
+				}
+				greeted = true;
+				answered = true;
+				// Drop the line that has been handled
+				in.flip();
+				in.position(i + 1);
+				in.compact();
+				i = -1;
+			}
+			if (answered) {
+				out.clear();
+				out.put(KEYS[random.nextInt(KEYS.length)]);
+				out.flip();
+				sentAt = System.nanoTime();
+				channel.write(out);
+			}
+			return true;
+		}
+	}
+}
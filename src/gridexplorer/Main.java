@@ -23,6 +23,10 @@
  */
 package gridexplorer;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
 /**
  * Runs the game.
  *
@@ -30,12 +34,26 @@ package gridexplorer;
  */
 public class Main {
 
+	private static final int KEYFRAME_MOVES = 100;	// The number of moves between keyframes of a journal
+
 	/**
-	 * The method that is run when the program starts.
+	 * The method that is run when the program starts. Passing "--ansi" only
+	 * redraws the parts of the room that change each turn, passing
+	 * "--realtime" moves the player as soon as each key is pressed without
+	 * waiting for Enter, passing "--journal" followed by a file records every
+	 * move in a MoveJournal that can be replayed with a JournalReplay,
+	 * passing "--simulate" followed by a file of moves
+	 * plays a headless game through those moves and prints the outcome, and
+	 * passing "--serve" followed by a port lets players play the rooms
+	 * together over the network through a GameServer.
 	 *
 	 * @param args The command line arguments
+	 * @throws IOException If the file of moves could not be read, or the
+	 * journal could not be written
+	 * @throws InterruptedException If the game was interrupted while waiting
+	 * for a frame
 	 */
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException, InterruptedException {
 
 		// Create a list of rooms that the game will use
 		String[] roomList = {
@@ -44,8 +62,81 @@ public class Main {
 			"special"
 		};
 
+		// Show the metrics over JMX and in a file, if they are recorded
+		Metrics.install();
+
+		// Play through a file of moves without displaying the game
+		if (args.length == 2 && args[0].equals("--simulate")) {
+			SimulationResult result = Simulation.run(Game.headless(roomList), new File(args[1]));
+			System.out.println(result);
+			return;
+		}
+
+		// Serve the rooms to other players until Enter is pressed
+		if (args.length == 2 && args[0].equals("--serve")) {
+			try (GameServer server = new GameServer(FileRoomSource.named(roomList),
+					new InetSocketAddress(Integer.parseInt(args[1])), Runtime.getRuntime().availableProcessors())) {
+				System.out.println("Serving on port " + server.getPort() + ", press Enter to stop.");
+				System.in.read();
+			}
+			return;
+		}
+
 		// Start the game
 		Game theGame = new Game(roomList);
+		theGame.setPrefetching(true);
+		boolean realtime = false;
+		File journalFile = null;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--ansi")) {
+				theGame.setIncrementalDisplay(true);
+			} else if (args[i].equals("--realtime")) {
+				realtime = true;
+			} else if (args[i].equals("--journal") && i + 1 < args.length) {
+				journalFile = new File(args[++i]);
+			}
+		}
+
+		// Record every move, and write the last of them once the game ends, when
+		// the last room is closed too
+		MoveJournal journal = null;
+		if (journalFile != null) {
+			journal = new MoveJournal(journalFile, FileRoomSource.named(roomList));
+			theGame.setJournal(journal, KEYFRAME_MOVES);
+		}
+		try {
+			play(theGame, realtime);
+		} finally {
+			theGame.close();
+			if (journal != null) {
+				journal.close();
+			}
+		}
+	}
+
+	/**
+	 * The method used to play the game until the player finishes all of the
+	 * rooms or quits.
+	 *
+	 * @param theGame The game to play
+	 * @param realtime Whether to move the player as soon as each key is
+	 * pressed
+	 * @throws InterruptedException If the game was interrupted while waiting
+	 * for a frame
+	 */
+	private static void play(Game theGame, boolean realtime) throws InterruptedException {
+
+		// Read each key as it is pressed, and redraw the room at most 30 times a second
+		if (realtime) {
+			RawTerminal terminal = RawTerminal.enable();
+			try {
+				new RealtimeLoop(theGame, new InputPump(System.in, 64), 30).run();
+			} finally {
+				terminal.close();
+			}
+			return;
+		}
+
 		theGame.displayRoom();
 
 		// Allow the user to move until they finish all of the rooms
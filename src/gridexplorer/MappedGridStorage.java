@@ -0,0 +1,222 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The MappedGridStorage class stores the objects of a grid one per byte in a
+ * memory-mapped file instead of on the heap, which allows for grids with more
+ * cells than an array can hold. The file is mapped in segments, and each
+ * segment is only mapped once a position within it is used, so only the parts
+ * of the grid that are used get read into memory.
+ *
+ * @author Christopher Wells
+ */
+public class MappedGridStorage implements GridStorage, Closeable {
+
+	private static final int SEGMENT_BITS = 30;	// The log2 of the number of bytes in a full segment
+
+	private final int rows;	// The total number of rows that the grid has
+	private final int columns;	// The total number of columns that the grid has
+	private final int segmentBits;	// The log2 of the number of bytes in each segment
+	private final long segmentMask;	// The bits of a cell index that give its offset within a segment
+	private final RandomAccessFile file;	// The file that holds the grid
+	private final File temporary;	// The file to delete when the storage is closed, if it could not be deleted at once
+	private final MappedByteBuffer[] segments;	// The segments of the file that have been mapped so far
+
+	/**
+	 * The constructor method to create a grid backed by a temporary file. The
+	 * file is deleted as soon as it has been opened, so its space is given back
+	 * once the storage is closed or the program exits, even if it crashes.
+	 *
+	 * @param r The number of rows that the grid has
+	 * @param c The number of columns that the grid has
+	 * @throws IOException If the temporary file could not be created
+	 */
+	public MappedGridStorage(int r, int c) throws IOException {
+		this(createTemporary(), true, r, c, SEGMENT_BITS);
+	}
+
+	/**
+	 * The constructor method to create a grid backed by a given file. If the
+	 * file already holds a grid of the same size then its objects are kept,
+	 * and if it is empty then it is extended to hold an empty grid.
+	 *
+	 * @param gridFile The file that holds the grid
+	 * @param r The number of rows that the grid has
+	 * @param c The number of columns that the grid has
+	 * @throws IOException If the file could not be opened, or holds a grid of
+	 * a different size
+	 */
+	public MappedGridStorage(File gridFile, int r, int c) throws IOException {
+		this(gridFile, false, r, c, SEGMENT_BITS);
+	}
+
+	/**
+	 * The constructor method to create a grid with a given segment size.
+	 *
+	 * @param gridFile The file that holds the grid
+	 * @param delete Whether the file is temporary, so it is deleted as soon as
+	 * it is open
+	 * @param r The number of rows that the grid has
+	 * @param c The number of columns that the grid has
+	 * @param bits The log2 of the number of bytes in each segment
+	 * @throws IOException If the file could not be opened, or holds a grid of
+	 * a different size
+	 */
+	MappedGridStorage(File gridFile, boolean delete, int r, int c, int bits) throws IOException {
+		rows = r;
+		columns = c;
+		segmentBits = bits;
+		segmentMask = (1L << bits) - 1;
+		file = new RandomAccessFile(gridFile, "rw");
+
+		// Extending the file does not write anything to the disk on most file
+		// systems, and the new bytes read as empty spaces
+		long size = (long) r * c;
+		long length = file.length();
+		if (length == 0) {
+			file.setLength(size);
+		} else if (length != size) {
+			file.close();
+			throw new IOException("The grid file " + gridFile + " holds " + length
+					+ " cells, not the " + size + " cells of a " + r + " by " + c + " grid.");
+		}
+		segments = new MappedByteBuffer[(int) ((size + segmentMask) >>> bits)];
+
+		// The open file can still be mapped once it is deleted, except on
+		// systems that do not delete open files
+		if (delete && !gridFile.delete()) {
+			gridFile.deleteOnExit();
+			temporary = gridFile;
+		} else {
+			temporary = null;
+		}
+	}
+
+	/**
+	 * The method used to create the temporary file for a grid.
+	 *
+	 * @return The temporary file
+	 * @throws IOException If the temporary file could not be created
+	 */
+	private static File createTemporary() throws IOException {
+		return File.createTempFile("grid", ".bin");
+	}
+
+	@Override
+	public int getRows() {
+		return rows;
+	}
+
+	@Override
+	public int getColumns() {
+		return columns;
+	}
+
+	@Override
+	public int get(int r, int c) {
+		long index = (long) r * columns + c;
+		return Tiles.decode(segment(index).get((int) (index & segmentMask)));
+	}
+
+	@Override
+	public void set(int r, int c, int id) {
+		long index = (long) r * columns + c;
+		segment(index).put((int) (index & segmentMask), Tiles.encode(id));
+	}
+
+	/**
+	 * The method used to get the segment that holds a given cell, mapping the
+	 * segment if it has not been used yet.
+	 *
+	 * @param index The index of the cell in row-major order
+	 * @return The segment that holds the cell
+	 */
+	private MappedByteBuffer segment(long index) {
+		int number = (int) (index >>> segmentBits);
+		MappedByteBuffer segment = segments[number];
+		if (segment == null) {
+			long start = (long) number << segmentBits;
+			long length = Math.min(segmentMask + 1, (long) rows * columns - start);
+			try {
+				segment = file.getChannel().map(FileChannel.MapMode.READ_WRITE, start, length);
+			} catch (IOException e) {
+				throw new IllegalStateException("Could not map the grid file.", e);
+			}
+			segments[number] = segment;
+		}
+		return segment;
+	}
+
+	/**
+	 * The method used to find how many segments of the grid have been mapped
+	 * so far.
+	 *
+	 * @return The number of mapped segments
+	 */
+	public int getMappedSegments() {
+		int mapped = 0;
+		for (MappedByteBuffer segment : segments) {
+			if (segment != null) {
+				mapped++;
+			}
+		}
+		return mapped;
+	}
+
+	/**
+	 * The method used to write any changes to the grid out to its file.
+	 */
+	public void flush() {
+		for (MappedByteBuffer segment : segments) {
+			if (segment != null) {
+				segment.force();
+			}
+		}
+	}
+
+	/**
+	 * The method used to close the file that holds the grid. The storage can
+	 * not be used after it has been closed.
+	 *
+	 * @throws IOException If the file could not be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = null;
+		}
+		file.close();
+		if (temporary != null) {
+			temporary.delete();
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+/**
+ * The MazeRoomSource class generates a maze with the binary tree algorithm.
+ * The positions with an odd row and column are open, and each of them is
+ * joined to the position above it or to its left, chosen from the seed. Every
+ * open position can then reach every other one, so the portal in the far
+ * corner can always be reached from the spawn point in the first corner.
+ *
+ * @author Christopher Wells
+ */
+public class MazeRoomSource extends GeneratedRoomSource {
+
+	private static final byte WALL_CODE = Tiles.encode(Tiles.WALL);	// The compact code of a wall
+	private static final byte EMPTY_CODE = Tiles.encode(Tiles.EMPTY);	// The compact code of an empty position
+	private static final byte PORTAL_CODE = Tiles.encode(Tiles.PORTAL);	// The compact code of a portal
+
+	private final int lastRow;	// The row of the last open positions of the maze
+	private final int lastColumn;	// The column of the last open positions of the maze
+
+	/**
+	 * The constructor method to create the source of a maze.
+	 *
+	 * @param r The number of rows that the room has
+	 * @param c The number of columns that the room has
+	 * @param s The seed that the maze is generated from
+	 */
+	public MazeRoomSource(int r, int c, long s) {
+		super(r, c, s);
+		lastRow = (r - 2) % 2 == 1 ? r - 2 : r - 3;
+		lastColumn = (c - 2) % 2 == 1 ? c - 2 : c - 3;
+		if (lastRow == 1 && lastColumn == 1) {
+			throw new IllegalArgumentException("A maze of " + r + " by " + c + " has no room for a portal.");
+		}
+	}
+
+	@Override
+	public String getName() {
+		return "maze-" + rows + "x" + columns + "-" + seed;
+	}
+
+	@Override
+	protected int getSpawnRow() {
+		return 1;
+	}
+
+	@Override
+	protected int getSpawnColumn() {
+		return 1;
+	}
+
+	@Override
+	protected void fillRow(byte[] cells, int r) {
+		int offset = r * columns;
+		for (int c = 0; c < columns; c++) {
+			cells[offset + c] = isOpen(r, c) ? EMPTY_CODE : WALL_CODE;
+		}
+		if (r == lastRow) {
+			cells[offset + lastColumn] = PORTAL_CODE;
+		}
+	}
+
+	/**
+	 * The method used to find whether a position of the maze is open.
+	 *
+	 * @param r The row of the position
+	 * @param c The column of the position
+	 * @return Whether the position is open
+	 */
+	private boolean isOpen(int r, int c) {
+		boolean oddRow = r % 2 == 1 && r <= lastRow;
+		boolean oddColumn = c % 2 == 1 && c <= lastColumn;
+		if (oddRow && oddColumn) {
+			return true;
+		} else if (oddRow && c > 0 && c < lastColumn) {
+			return !joinsUp(r, c + 1);
+		} else if (oddColumn && r > 0 && r < lastRow) {
+			return joinsUp(r + 1, c);
+		}
+		return false;
+	}
+
+	/**
+	 * The method used to find whether an open position with an odd row and
+	 * column is joined to the position above it instead of the position to its
+	 * left. The first open position is joined to neither.
+	 *
+	 * @param r The row of the open position
+	 * @param c The column of the open position
+	 * @return Whether the open position is joined upwards
+	 */
+	private boolean joinsUp(int r, int c) {
+		if (r == 1) {
+			return false;
+		} else if (c == 1) {
+			return true;
+		}
+		return (hash(r, c) & 1) == 0;
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The MemoryRoomSource class provides a room that is already held in memory,
+ * such as a layout built by a tool or a room written as text in a test.
+ *
+ * @author Christopher Wells
+ */
+public class MemoryRoomSource implements RoomSource {
+
+	private final String name;	// The name of the room
+	private final RoomLayout layout;	// The layout of the room
+
+	/**
+	 * The constructor method to create a source for a layout.
+	 *
+	 * @param roomName The name of the room
+	 * @param roomLayout The layout of the room
+	 */
+	public MemoryRoomSource(String roomName, RoomLayout roomLayout) {
+		name = roomName;
+		layout = roomLayout;
+	}
+
+	/**
+	 * The method used to create a source from the text of a room, written in
+	 * the same way as a text room file.
+	 *
+	 * @param roomName The name of the room
+	 * @param text The text of the room
+	 * @return The source of the room
+	 * @throws IOException If the text is not a valid room
+	 */
+	public static MemoryRoomSource fromText(String roomName, String text) throws IOException {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		return new MemoryRoomSource(roomName, RoomLoader.parse(ByteBuffer.wrap(bytes), bytes.length));
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public RoomLayout getLayout() {
+		return layout;
+	}
+}
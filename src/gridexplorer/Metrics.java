@@ -0,0 +1,238 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The Metrics class holds the metrics recorded on the hot paths of the game,
+ * such as the time taken to load a room, to display it and to move the
+ * player. They are only recorded when the game is started with
+ * -Dgridexplorer.metrics=true. The switch is read once into a static final
+ * field, so when it is off the JIT compiler folds away the checks around each
+ * recording once the class is loaded, although they are still in the
+ * bytecode.
+ *
+ * When metrics are on, install makes them visible over JMX, and
+ * -Dgridexplorer.metrics.file names a file that they are written to every
+ * -Dgridexplorer.metrics.period seconds, which defaults to 10.
+ *
+ * @author Christopher Wells
+ */
+public final class Metrics {
+
+	/**
+	 * Whether the metrics are recorded.
+	 */
+	public static final boolean ENABLED = Boolean.getBoolean("gridexplorer.metrics");
+
+	private static final MetricsRegistry REGISTRY = new MetricsRegistry();	// Every metric of the game
+
+	public static final LatencyHistogram ROOM_LOAD = REGISTRY.histogram("room.load");	// The time taken to load each room
+	public static final Counter ROOM_LOAD_FAILURES = REGISTRY.counter("room.load.failed");	// The rooms that could not be loaded
+	public static final LatencyHistogram DISPLAY = REGISTRY.histogram("room.display");	// The time taken to display each room
+	public static final LatencyHistogram MOVE = REGISTRY.histogram("room.move");	// The time taken by a sample of the moves of the player
+	public static final Counter MOVED = REGISTRY.counter("room.move.moved");	// The moves that moved the player
+	public static final Counter BLOCKED = REGISTRY.counter("room.move.blocked");	// The moves into walls
+	public static final Counter OUT_OF_BOUNDS = REGISTRY.counter("room.move.out_of_bounds");	// The moves off the edge of the room
+	public static final Counter PORTALS = REGISTRY.counter("room.move.portal");	// The moves into portals
+	public static final Counter INVALID = REGISTRY.counter("room.move.invalid");	// The moves that were not valid
+	public static final LatencyHistogram TRANSITION = REGISTRY.histogram("room.transition");	// The time taken to move into each next room
+	public static final Counter TRANSITION_PREFETCHED = REGISTRY.counter("room.transition.prefetched");	// The transitions whose room was already prefetched
+	public static final Counter TRANSITION_WAITED = REGISTRY.counter("room.transition.waited");	// The transitions that waited for a running prefetch
+	public static final Counter TRANSITION_SYNCHRONOUS = REGISTRY.counter("room.transition.synchronous");	// The transitions that loaded their room on the game thread
+
+	/**
+	 * The number of moves of the player in each room for every move that is
+	 * timed. Reading the clock takes longer than a move, so only a sample of
+	 * the moves are timed, while every move is counted.
+	 */
+	static final int MOVE_SAMPLE_PERIOD = 16;
+
+	private static final String OBJECT_NAME = "gridexplorer:type=Metrics";	// The name of the metrics over JMX
+
+	/**
+	 * Metrics only holds static methods, so it is not meant to be constructed.
+	 */
+	private Metrics() {
+	}
+
+	/**
+	 * The method used to get the registry that holds every metric of the game.
+	 *
+	 * @return The registry of the metrics
+	 */
+	public static MetricsRegistry registry() {
+		return REGISTRY;
+	}
+
+	/**
+	 * The method used to count a move of the player by what happened.
+	 *
+	 * @param result What happened when the move was made
+	 */
+	static void countMove(MoveResult result) {
+		switch (result) {
+			case MOVED:
+				MOVED.increment();
+				break;
+			case BLOCKED:
+				BLOCKED.increment();
+				break;
+			case OUT_OF_BOUNDS:
+				OUT_OF_BOUNDS.increment();
+				break;
+			case PORTAL:
+				PORTALS.increment();
+				break;
+			default:
+				INVALID.increment();
+				break;
+		}
+	}
+
+	/**
+	 * The method used to make the metrics visible over JMX, and start writing
+	 * them to the file named by -Dgridexplorer.metrics.file if there is one.
+	 * Nothing is done if metrics are not recorded.
+	 *
+	 * @return The reporter that writes the metrics to the file, which writes a
+	 * last report as the program ends, or null if there is no file
+	 */
+	public static MetricsReporter install() {
+		if (!ENABLED) {
+			return null;
+		}
+		try {
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(REGISTRY), name);
+			}
+		} catch (JMException e) {
+			System.err.println("Could not show the metrics over JMX: " + e.getMessage());
+		}
+
+		String path = System.getProperty("gridexplorer.metrics.file");
+		if (path == null) {
+			return null;
+		}
+		final MetricsReporter reporter = new MetricsReporter(REGISTRY, new File(path),
+				Long.getLong("gridexplorer.metrics.period", 10) * 1000);
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					reporter.close();
+				} catch (IOException e) {
+					System.err.println("Could not write the metrics: " + e.getMessage());
+				}
+			}
+		}, "gridexplorer-metrics-report"));
+		return reporter;
+	}
+
+	/**
+	 * The view of a registry that is shown over JMX.
+	 */
+	static final class Bean implements MetricsMXBean {
+
+		private final MetricsRegistry registry;	// The metrics that are shown
+
+		/**
+		 * The constructor method to create a view of a registry.
+		 *
+		 * @param metrics The metrics to show
+		 */
+		Bean(MetricsRegistry metrics) {
+			registry = metrics;
+		}
+
+		@Override
+		public Map<String, Long> getCounters() {
+			Map<String, Long> values = new LinkedHashMap<>();
+			for (Map.Entry<String, Counter> entry : registry.getCounters().entrySet()) {
+				values.put(entry.getKey(), entry.getValue().get());
+			}
+			return values;
+		}
+
+		@Override
+		public Map<String, Long> getLatencyCounts() {
+			Map<String, Long> values = new LinkedHashMap<>();
+			for (Map.Entry<String, LatencyHistogram> entry : registry.getHistograms().entrySet()) {
+				values.put(entry.getKey(), entry.getValue().getCount());
+			}
+			return values;
+		}
+
+		@Override
+		public Map<String, Long> getLatencyP50() {
+			return percentiles(0.5);
+		}
+
+		@Override
+		public Map<String, Long> getLatencyP99() {
+			return percentiles(0.99);
+		}
+
+		@Override
+		public Map<String, Long> getLatencyMax() {
+			Map<String, Long> values = new LinkedHashMap<>();
+			for (Map.Entry<String, LatencyHistogram> entry : registry.getHistograms().entrySet()) {
+				values.put(entry.getKey(), entry.getValue().getMax());
+			}
+			return values;
+		}
+
+		/**
+		 * The method used to get a percentile of every histogram.
+		 *
+		 * @param fraction The fraction of the durations, such as 0.99
+		 * @return The percentiles, by name
+		 */
+		private Map<String, Long> percentiles(double fraction) {
+			Map<String, Long> values = new LinkedHashMap<>();
+			for (Map.Entry<String, LatencyHistogram> entry : registry.getHistograms().entrySet()) {
+				values.put(entry.getKey(), entry.getValue().getPercentile(fraction));
+			}
+			return values;
+		}
+
+		@Override
+		public String getJson() {
+			return registry.toJson();
+		}
+
+		@Override
+		public void reset() {
+			registry.reset();
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.util.Map;
+
+/**
+ * The MetricsMXBean interface shows the metrics of the game over JMX, such as
+ * in JConsole, with the durations in nanoseconds.
+ *
+ * @author Christopher Wells
+ */
+public interface MetricsMXBean {
+
+	/**
+	 * The method used to get the value of every counter.
+	 *
+	 * @return The counts, by name
+	 */
+	Map<String, Long> getCounters();
+
+	/**
+	 * The method used to get the number of durations in every histogram.
+	 *
+	 * @return The numbers of durations, by name
+	 */
+	Map<String, Long> getLatencyCounts();
+
+	/**
+	 * The method used to get the median duration of every histogram.
+	 *
+	 * @return The median durations, by name
+	 */
+	Map<String, Long> getLatencyP50();
+
+	/**
+	 * The method used to get the 99th percentile of every histogram.
+	 *
+	 * @return The 99th percentile durations, by name
+	 */
+	Map<String, Long> getLatencyP99();
+
+	/**
+	 * The method used to get the longest duration of every histogram.
+	 *
+	 * @return The longest durations, by name
+	 */
+	Map<String, Long> getLatencyMax();
+
+	/**
+	 * The method used to describe every metric as JSON.
+	 *
+	 * @return The description of the metrics
+	 */
+	String getJson();
+
+	/**
+	 * The method used to start every metric again from nothing.
+	 */
+	void reset();
+}
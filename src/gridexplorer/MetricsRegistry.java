@@ -0,0 +1,160 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The MetricsRegistry class holds named counters and latency histograms, and
+ * describes all of them at once as text or as JSON. Each metric is looked up
+ * once by name and then kept, so recording into it does not touch the
+ * registry.
+ *
+ * @author Christopher Wells
+ */
+public class MetricsRegistry {
+
+	private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();	// The counters, by name
+	private final ConcurrentHashMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();	// The histograms, by name
+
+	/**
+	 * The method used to get the counter with a given name, creating it the
+	 * first time it is asked for.
+	 *
+	 * @param name The name of the counter
+	 * @return The counter
+	 */
+	public Counter counter(String name) {
+		Counter counter = counters.get(name);
+		if (counter == null) {
+			Counter created = new Counter();
+			counter = counters.putIfAbsent(name, created);
+			if (counter == null) {
+				counter = created;
+			}
+		}
+		return counter;
+	}
+
+	/**
+	 * The method used to get the histogram with a given name, creating it the
+	 * first time it is asked for.
+	 *
+	 * @param name The name of the histogram
+	 * @return The histogram
+	 */
+	public LatencyHistogram histogram(String name) {
+		LatencyHistogram histogram = histograms.get(name);
+		if (histogram == null) {
+			LatencyHistogram created = new LatencyHistogram();
+			histogram = histograms.putIfAbsent(name, created);
+			if (histogram == null) {
+				histogram = created;
+			}
+		}
+		return histogram;
+	}
+
+	/**
+	 * The method used to get every counter, in order of name.
+	 *
+	 * @return The counters, by name
+	 */
+	public SortedMap<String, Counter> getCounters() {
+		return new TreeMap<>(counters);
+	}
+
+	/**
+	 * The method used to get every histogram, in order of name.
+	 *
+	 * @return The histograms, by name
+	 */
+	public SortedMap<String, LatencyHistogram> getHistograms() {
+		return new TreeMap<>(histograms);
+	}
+
+	/**
+	 * The method used to start every metric again from nothing.
+	 */
+	public void reset() {
+		for (Counter counter : counters.values()) {
+			counter.reset();
+		}
+		for (LatencyHistogram histogram : histograms.values()) {
+			histogram.reset();
+		}
+	}
+
+	/**
+	 * The method used to describe every metric as text, with one line for
+	 * each metric in order of name.
+	 *
+	 * @return The description of the metrics
+	 */
+	public String toText() {
+		StringBuilder text = new StringBuilder();
+		for (Map.Entry<String, Counter> entry : getCounters().entrySet()) {
+			text.append(entry.getKey()).append(' ').append(entry.getValue().get()).append('\n');
+		}
+		for (Map.Entry<String, LatencyHistogram> entry : getHistograms().entrySet()) {
+			text.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+		}
+		return text.toString();
+	}
+
+	/**
+	 * The method used to describe every metric as a JSON object, with the
+	 * durations of the histograms in nanoseconds.
+	 *
+	 * @return The description of the metrics
+	 */
+	public String toJson() {
+		StringBuilder json = new StringBuilder("{\"counters\":{");
+		boolean first = true;
+		for (Map.Entry<String, Counter> entry : getCounters().entrySet()) {
+			if (!first) {
+				json.append(',');
+			}
+			first = false;
+			json.append('"').append(entry.getKey()).append("\":").append(entry.getValue().get());
+		}
+		json.append("},\"histograms\":{");
+		first = true;
+		for (Map.Entry<String, LatencyHistogram> entry : getHistograms().entrySet()) {
+			if (!first) {
+				json.append(',');
+			}
+			first = false;
+			LatencyHistogram histogram = entry.getValue();
+			json.append('"').append(entry.getKey()).append("\":{\"count\":").append(histogram.getCount())
+					.append(",\"p50\":").append(histogram.getPercentile(0.5))
+					.append(",\"p99\":").append(histogram.getPercentile(0.99))
+					.append(",\"max\":").append(histogram.getMax()).append('}');
+		}
+		return json.append("}}").toString();
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The MetricsReporter class writes every metric of a registry to a file at a
+ * fixed period, as JSON if the name of the file ends with ".json" and as text
+ * otherwise. Each report replaces the last one in a single step, so the file
+ * can be read at any time.
+ *
+ * @author Christopher Wells
+ */
+public class MetricsReporter implements Closeable {
+
+	private final MetricsRegistry registry;	// The metrics that are reported
+	private final File file;	// The file that the reports are written to
+	private final boolean json;	// Whether the reports are written as JSON
+	private final ScheduledExecutorService timer;	// The thread that writes the reports
+
+	/**
+	 * The constructor method to create a reporter and start writing reports.
+	 *
+	 * @param metrics The metrics to report
+	 * @param reportFile The file to write the reports to
+	 * @param periodMillis The time between reports, in milliseconds
+	 */
+	public MetricsReporter(MetricsRegistry metrics, File reportFile, long periodMillis) {
+		registry = metrics;
+		file = reportFile;
+		json = reportFile.getName().endsWith(".json");
+		timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "gridexplorer-metrics");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		timer.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					report();
+				} catch (IOException e) {
+					System.err.println("Could not write the metrics: " + e.getMessage());
+				}
+			}
+		}, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * The method used to write a report straight away.
+	 *
+	 * @throws IOException If the report could not be written
+	 */
+	public void report() throws IOException {
+		String text = json ? registry.toJson() + "\n" : registry.toText();
+		File temporary = new File(file.getPath() + ".tmp");
+		Files.write(temporary.toPath(), text.getBytes(StandardCharsets.UTF_8));
+		Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * The method used to stop writing reports, after writing a last one.
+	 *
+	 * @throws IOException If the last report could not be written
+	 */
+	@Override
+	public void close() throws IOException {
+		timer.shutdown();
+		try {
+			timer.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		report();
+	}
+}
@@ -0,0 +1,451 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The MoveJournal class records every move of a game to an append-only file,
+ * along with each move into a next room and periodic keyframes holding a
+ * snapshot of the whole game, so that a JournalReplay can rebuild the game at
+ * any turn.
+ *
+ * Records are added to a buffer in memory and a writer thread commits them to
+ * the file in groups, so recording a move never waits on the disk. Keyframes
+ * are captured without copying the grid and are only encoded by the writer.
+ * Recording only waits if the writer falls more than 16 MiB of records
+ * behind, and once the writer has failed every record call reports the
+ * error. Once a group has been written it survives the program crashing, and
+ * closing the journal forces it to the disk.
+ *
+ * The journal starts with, in big-endian order, the magic number "GXJN", the
+ * format version and the names of the rooms of the game. Each record after
+ * that is one of:
+ * <ul>
+ * <li>a move, as the single byte of its key when the key is printable
+ * ASCII</li>
+ * <li>a move with any other key, as WIDE_MOVE followed by the key as a
+ * char</li>
+ * <li>a move into a next room, as TRANSITION followed by the index of the
+ * room as an int</li>
+ * <li>a keyframe, as KEYFRAME followed by the number of moves made before it
+ * as a long, the length of the snapshot as an int and the snapshot</li>
+ * </ul>
+ *
+ * @author Christopher Wells
+ */
+public class MoveJournal implements Closeable {
+
+	public static final int MAGIC = 0x47584A4E;	// The characters "GXJN"
+	public static final short VERSION = 1;	// The version of the format that is written
+
+	static final byte TRANSITION = 1;	// The first byte of a move into a next room
+	static final byte KEYFRAME = 2;	// The first byte of a keyframe
+	static final byte WIDE_MOVE = 3;	// The first byte of a move whose key is not printable ASCII
+
+	private static final int COMMIT_BYTES = 1 << 16;	// The number of bytes that are committed without waiting for more
+	private static final long COMMIT_MILLIS = 5;	// The longest time a commit waits for more records
+	private static final long MAX_PENDING_BYTES = 1 << 24;	// The most bytes of records that may wait to be committed
+
+	private final FileChannel channel;	// The file of the journal
+	private final Object lock = new Object();	// Guards the buffers and the counts
+	private final Thread writer;	// The thread that commits the records
+	private ByteBuffer pending = ByteBuffer.allocate(COMMIT_BYTES);	// The records that have not been committed yet
+	private ByteBuffer spare = ByteBuffer.allocate(COMMIT_BYTES);	// The buffer that is being written, or is free
+	private List<Keyframe> pendingKeyframes = new ArrayList<>();	// The keyframes among the pending records
+	private List<Keyframe> spareKeyframes = new ArrayList<>();	// The keyframes that are being written, or an empty list
+	private long pendingKeyframeBytes;	// The number of bytes of the pending keyframes
+	private long handedOff;	// The number of bytes of records handed to the writer
+	private long written;	// The number of bytes of records committed
+	private long flushTarget;	// The number of bytes that a flush is waiting to be committed
+	private long commits;	// The number of group writes made
+	private long turns;	// The number of moves recorded
+	private boolean closing;	// Whether the journal is being closed
+	private IOException failure;	// The error that stopped the writer, or null if there was none
+
+	/**
+	 * The constructor method to create a journal for a game with the given
+	 * rooms, replacing any file that is already there.
+	 *
+	 * @param file The file of the journal
+	 * @param rooms The sources of the rooms of the game, in order
+	 * @throws IOException If the file could not be created
+	 */
+	public MoveJournal(File file, RoomSource[] rooms) throws IOException {
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+		byte[][] names = new byte[rooms.length][];
+		int length = 10;
+		for (int i = 0; i < rooms.length; i++) {
+			names[i] = rooms[i].getName().getBytes(StandardCharsets.UTF_8);
+			length += 4 + names[i].length;
+		}
+		ByteBuffer header = ByteBuffer.allocate(length);
+		header.putInt(MAGIC);
+		header.putShort(VERSION);
+		header.putInt(rooms.length);
+		for (byte[] name : names) {
+			header.putInt(name.length);
+			header.put(name);
+		}
+		header.flip();
+		while (header.hasRemaining()) {
+			channel.write(header);
+		}
+
+		writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				writeLoop();
+			}
+		}, "gridexplorer-journal");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * The method used to record a move.
+	 *
+	 * @param key The key of the move
+	 * @throws IOException If the writer has failed or the journal is closed
+	 */
+	public void recordMove(char key) throws IOException {
+		synchronized (lock) {
+			boolean wasEmpty = pendingBytes() == 0;
+			if (key >= 0x20 && key < 0x7F) {
+				reserve(1).put((byte) key);
+			} else {
+				reserve(3).put(WIDE_MOVE).putChar(key);
+			}
+			turns++;
+			wakeWriter(wasEmpty);
+		}
+	}
+
+	/**
+	 * The method used to record a move into a next room.
+	 *
+	 * @param roomIndex The index of the room that the game moved to
+	 * @throws IOException If the writer has failed or the journal is closed
+	 */
+	public void recordTransition(int roomIndex) throws IOException {
+		synchronized (lock) {
+			boolean wasEmpty = pendingBytes() == 0;
+			reserve(5).put(TRANSITION).putInt(roomIndex);
+			wakeWriter(wasEmpty);
+		}
+	}
+
+	/**
+	 * The method used to record a keyframe holding a snapshot of the game
+	 * after the moves recorded so far. The snapshot is only encoded by the
+	 * writer thread.
+	 *
+	 * @param snapshot The captured game, from GameSnapshot.capture
+	 * @throws IOException If the writer has failed or the journal is closed
+	 * @throws IllegalArgumentException If the snapshot is too large for a
+	 * keyframe
+	 */
+	public void recordKeyframe(GameSnapshot.Capture snapshot) throws IOException {
+		long length = snapshot.length();
+		if (length > Integer.MAX_VALUE - 13) {
+			throw new IllegalArgumentException("A snapshot of " + length + " bytes is too large for a keyframe.");
+		}
+		synchronized (lock) {
+			boolean wasEmpty = pendingBytes() == 0;
+			awaitSpace(13 + length);
+			pendingKeyframes.add(new Keyframe(pending.position(), turns, snapshot));
+			pendingKeyframeBytes += 13 + length;
+			wakeWriter(wasEmpty);
+		}
+	}
+
+	/**
+	 * The method used to get the number of moves recorded.
+	 *
+	 * @return The number of moves
+	 */
+	public long getTurns() {
+		synchronized (lock) {
+			return turns;
+		}
+	}
+
+	/**
+	 * The method used to get the number of group writes made to the file,
+	 * which is usually far fewer than the number of records.
+	 *
+	 * @return The number of writes
+	 */
+	public long getCommits() {
+		synchronized (lock) {
+			return commits;
+		}
+	}
+
+	/**
+	 * The method used to wait until every record added so far has been
+	 * written to the file.
+	 *
+	 * @throws IOException If the records could not be written
+	 */
+	public void flush() throws IOException {
+		synchronized (lock) {
+			flushTarget = Math.max(flushTarget, handedOff + pendingBytes());
+			lock.notifyAll();
+			try {
+				while (written < flushTarget && failure == null) {
+					lock.wait();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while flushing the journal.");
+			}
+			if (failure != null) {
+				throw failure;
+			}
+		}
+	}
+
+	/**
+	 * The method used to write the remaining records, force them to the disk
+	 * and close the file.
+	 *
+	 * @throws IOException If the records could not be written
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+			synchronized (lock) {
+				closing = true;
+				lock.notifyAll();
+			}
+			writer.join();
+			channel.force(false);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while closing the journal.");
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * The method used to get the number of bytes of records that have not
+	 * been handed to the writer yet. The lock must be held.
+	 *
+	 * @return The number of pending bytes
+	 */
+	private long pendingBytes() {
+		return pending.position() + pendingKeyframeBytes;
+	}
+
+	/**
+	 * The method used to wait until a record fits within the bytes that may
+	 * wait to be committed, which only happens if the writer has fallen far
+	 * behind. A record is always let in once nothing else is waiting. The lock
+	 * must be held.
+	 *
+	 * @param length The length of the record
+	 * @throws IOException If the writer has failed or the journal is closed
+	 */
+	private void awaitSpace(long length) throws IOException {
+		try {
+			while (failure == null && !closing) {
+				long waiting = handedOff + pendingBytes() - written;
+				if (waiting == 0 || waiting + length <= MAX_PENDING_BYTES) {
+					break;
+				}
+				lock.wait();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the journal.");
+		}
+		if (failure != null) {
+			throw failure;
+		} else if (closing) {
+			throw new IOException("The journal has been closed.");
+		}
+	}
+
+	/**
+	 * The method used to make room for a record in the pending buffer, growing
+	 * it if needed. The lock must be held.
+	 *
+	 * @param length The length of the record
+	 * @return The pending buffer
+	 * @throws IOException If the writer has failed or the journal is closed
+	 */
+	private ByteBuffer reserve(int length) throws IOException {
+		awaitSpace(length);
+		if (pending.remaining() < length) {
+			ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + length));
+			pending.flip();
+			grown.put(pending);
+			pending = grown;
+		}
+		return pending;
+	}
+
+	/**
+	 * The method used to wake the writer when the first record of a group is
+	 * added, or once enough records are pending to commit them without
+	 * waiting for more. The lock must be held.
+	 *
+	 * @param wasEmpty Whether no records were pending before the new record
+	 */
+	private void wakeWriter(boolean wasEmpty) {
+		if (wasEmpty || pendingBytes() >= COMMIT_BYTES) {
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * The method run by the writer thread, which waits for records and commits
+	 * each group of them with a single write.
+	 */
+	private void writeLoop() {
+		try {
+			while (true) {
+				ByteBuffer batch;
+				List<Keyframe> keyframes;
+				long length;
+				synchronized (lock) {
+					while (pendingBytes() == 0 && !closing) {
+						lock.wait();
+					}
+					if (pendingBytes() == 0) {
+						return;
+					}
+					// Give more records a short time to join the group, unless a
+					// flush is waiting or the group is already large
+					if (pendingBytes() < COMMIT_BYTES && flushTarget <= written && !closing) {
+						lock.wait(COMMIT_MILLIS);
+					}
+					length = pendingBytes();
+					batch = pending;
+					pending = spare;
+					keyframes = pendingKeyframes;
+					pendingKeyframes = spareKeyframes;
+					pendingKeyframeBytes = 0;
+					handedOff += length;
+				}
+
+				// Write the records, encoding each keyframe where it was recorded
+				batch.flip();
+				int end = batch.limit();
+				for (Keyframe keyframe : keyframes) {
+					batch.limit(keyframe.offset);
+					writeFully(batch);
+					keyframe.writeTo(channel);
+				}
+				batch.limit(end);
+				writeFully(batch);
+				batch.clear();
+				keyframes.clear();
+
+				synchronized (lock) {
+					spare = batch;
+					spareKeyframes = keyframes;
+					written += length;
+					commits++;
+					lock.notifyAll();
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			synchronized (lock) {
+				failure = e instanceof IOException ? (IOException) e : new IOException("The journal writer failed.", e);
+				lock.notifyAll();
+			}
+		} catch (InterruptedException e) {
+			synchronized (lock) {
+				failure = new InterruptedIOException("The journal writer was interrupted.");
+				lock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * The method used to write the whole of a buffer to the file.
+	 *
+	 * @param buffer The buffer to write
+	 * @throws IOException If the buffer could not be written
+	 */
+	private void writeFully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * A keyframe that has been recorded but not yet written.
+	 */
+	private static final class Keyframe {
+
+		private final int offset;	// The position in the pending buffer of the record after the keyframe
+		private final long turn;	// The number of moves made before the keyframe
+		private final GameSnapshot.Capture snapshot;	// The captured game
+
+		/**
+		 * The constructor method to create a keyframe.
+		 *
+		 * @param position The position in the pending buffer of the record
+		 * after the keyframe
+		 * @param moves The number of moves made before the keyframe
+		 * @param capture The captured game
+		 */
+		private Keyframe(int position, long moves, GameSnapshot.Capture capture) {
+			offset = position;
+			turn = moves;
+			snapshot = capture;
+		}
+
+		/**
+		 * The method used to encode the keyframe and write it to a channel.
+		 *
+		 * @param channel The channel to write to
+		 * @throws IOException If the keyframe could not be written
+		 */
+		private void writeTo(FileChannel channel) throws IOException {
+			ByteBuffer header = ByteBuffer.allocate(13);
+			header.put(KEYFRAME).putLong(turn).putInt((int) snapshot.length());
+			header.flip();
+			while (header.hasRemaining()) {
+				channel.write(header);
+			}
+			snapshot.writeTo(channel);
+		}
+	}
+}
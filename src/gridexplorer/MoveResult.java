@@ -0,0 +1,57 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+/**
+ * The MoveResult enum represents what happened when the player tried to move.
+ *
+ * @author Christopher Wells
+ */
+public enum MoveResult {
+
+	/**
+	 * The player moved to the new position.
+	 */
+	MOVED,
+	/**
+	 * The new position had an object in it, such as a wall.
+	 */
+	BLOCKED,
+	/**
+	 * The new position was outside of the room.
+	 */
+	OUT_OF_BOUNDS,
+	/**
+	 * The new position had a portal in it, so the game moved to the next room.
+	 */
+	PORTAL,
+	/**
+	 * The move was not a valid move.
+	 */
+	INVALID,
+	/**
+	 * The player quit the game.
+	 */
+	QUIT
+}
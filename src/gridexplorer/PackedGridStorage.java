@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+/**
+ * The PackedGridStorage class stores the objects of a grid in two bits each,
+ * with 32 objects packed into every long. It can only hold the four known
+ * objects, so it is not used for rooms that have unknown objects.
+ *
+ * @author Christopher Wells
+ */
+public class PackedGridStorage implements GridStorage {
+
+	private static final int CELLS_PER_WORD = 32;	// The number of objects packed into a long
+	private static final long CELL_MASK = 3L;	// The bits of a single object
+
+	private final int rows;	// The total number of rows that the grid has
+	private final int columns;	// The total number of columns that the grid has
+	private final long[] words;	// The packed objects, in row-major order
+
+	/**
+	 * The constructor method to create an empty grid.
+	 *
+	 * @param r The number of rows that the grid has
+	 * @param c The number of columns that the grid has
+	 * @throws IllegalArgumentException If the grid has too many cells to fit
+	 * in an array
+	 */
+	public PackedGridStorage(int r, int c) {
+		long wordCount = ((long) r * c + CELLS_PER_WORD - 1) / CELLS_PER_WORD;
+		if (wordCount > GridStorages.MAX_ARRAY_CELLS) {
+			throw new IllegalArgumentException("A " + r + " by " + c + " grid is too large for a packed array.");
+		}
+		rows = r;
+		columns = c;
+		words = new long[(int) wordCount];
+	}
+
+	@Override
+	public int getRows() {
+		return rows;
+	}
+
+	@Override
+	public int getColumns() {
+		return columns;
+	}
+
+	@Override
+	public int get(int r, int c) {
+		long index = (long) r * columns + c;
+		return (int) ((words[(int) (index >>> 5)] >>> ((index & 31) << 1)) & CELL_MASK);
+	}
+
+	@Override
+	public void set(int r, int c, int id) {
+		if (id < Tiles.EMPTY || id > Tiles.PORTAL) {
+			throw new IllegalArgumentException("Packed storage can not hold the object " + id + ".");
+		}
+		long index = (long) r * columns + c;
+		int word = (int) (index >>> 5);
+		int shift = (int) (index & 31) << 1;
+		words[word] = (words[word] & ~(CELL_MASK << shift)) | ((long) id << shift);
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The ParallelTickEngine class moves the entities of a room on a fork-join
+ * pool, with the same outcome as EntityStore.tick down to the last bit. The
+ * room is split into horizontal bands of whole rows of index buckets, and each
+ * phase of the tick is run on every band at once, waiting for all of the bands
+ * to finish before the next phase starts.
+ *
+ * Every proposal is made from the positions before the tick, so the bands do
+ * not depend on each other while proposing. A step across the edge of a band
+ * is then resolved by reading the proposals of the neighbouring band, which
+ * are finished by then, and the lowest index wins no matter which band
+ * decides first. Destroyed projectiles are removed and the index is sorted
+ * again in a single merge at the end of the tick.
+ *
+ * @author Christopher Wells
+ */
+public class ParallelTickEngine {
+
+	/**
+	 * The number of bands made for each worker thread, so that a thread that
+	 * finishes a sparse band early can take another.
+	 */
+	private static final int BANDS_PER_THREAD = 4;
+
+	private static final int MIN_ENTITIES_PER_BAND = 2048;	// The fewest entities, on average, that each band is made for
+
+	private static final int PROPOSE = 0;	// The phase that proposes the steps
+	private static final int RESOLVE = 1;	// The phase that decides which steps are made
+	private static final int ADVANCE = 2;	// The phase that makes the steps
+
+	private final ForkJoinPool pool;	// The pool that runs the bands
+	private final int parallelism;	// The number of worker threads
+
+	/**
+	 * The constructor method to create an engine that uses every processor.
+	 */
+	public ParallelTickEngine() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * The constructor method to create an engine with a given number of worker
+	 * threads.
+	 *
+	 * @param threads The number of worker threads
+	 */
+	public ParallelTickEngine(int threads) {
+		parallelism = Math.max(1, threads);
+		pool = new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * The method used to move every entity of a store once.
+	 *
+	 * @param entities The entities to move
+	 * @return The number of entities that moved
+	 */
+	public int tick(EntityStore entities) {
+		SpatialIndex index = entities.getIndex();
+		index.update();
+		int size = entities.size();
+
+		// Make fewer bands for fewer entities, so that each band has enough
+		// work to be worth handing to another thread
+		int bucketRows = index.getBucketRows();
+		int bands = Math.min(Math.min(bucketRows, parallelism * BANDS_PER_THREAD), size / MIN_ENTITIES_PER_BAND);
+		if (bands < 2) {
+			return entities.tick();
+		}
+
+		// Split the slots at the edges of the bands of bucket rows
+		int[] slotEdges = new int[bands + 1];
+		for (int b = 0; b <= bands; b++) {
+			slotEdges[b] = index.firstSlotOfRow((int) ((long) b * bucketRows / bands));
+		}
+		pool.invoke(new BandTask(entities, PROPOSE, slotEdges, 0, bands));
+		int movedCount = pool.invoke(new BandTask(entities, RESOLVE, slotEdges, 0, bands));
+
+		// The steps are made by index, so split the indexes evenly instead
+		int[] indexEdges = new int[bands + 1];
+		for (int b = 0; b <= bands; b++) {
+			indexEdges[b] = (int) ((long) b * size / bands);
+		}
+		int destroyed = pool.invoke(new BandTask(entities, ADVANCE, indexEdges, 0, bands));
+		entities.finish(movedCount, destroyed);
+		return movedCount;
+	}
+
+	/**
+	 * The method used to stop the worker threads once the engine is no longer
+	 * needed.
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	/**
+	 * A task that runs a phase of the tick on a range of the bands, splitting
+	 * the range in half until it is a single band.
+	 */
+	private static final class BandTask extends RecursiveTask<Integer> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final EntityStore entities;	// The entities that are moved
+		private final int phase;	// The phase that is run
+		private final int[] edges;	// The first slot or index of each band, followed by the end of the last band
+		private final int start;	// The first band of the range
+		private final int end;	// The band after the last band of the range
+
+		/**
+		 * The constructor method to create the task.
+		 *
+		 * @param store The entities that are moved
+		 * @param tickPhase The phase that is run
+		 * @param bandEdges The first slot or index of each band, followed by the
+		 * end of the last band
+		 * @param first The first band of the range
+		 * @param last The band after the last band of the range
+		 */
+		private BandTask(EntityStore store, int tickPhase, int[] bandEdges, int first, int last) {
+			entities = store;
+			phase = tickPhase;
+			edges = bandEdges;
+			start = first;
+			end = last;
+		}
+
+		@Override
+		protected Integer compute() {
+			if (end - start == 1) {
+				int from = edges[start];
+				int to = edges[end];
+				if (phase == PROPOSE) {
+					entities.propose(from, to);
+					return 0;
+				} else if (phase == RESOLVE) {
+					return entities.resolve(from, to);
+				} else {
+					return entities.advance(from, to);
+				}
+			}
+			int middle = (start + end) >>> 1;
+			BandTask right = new BandTask(entities, phase, edges, middle, end);
+			right.fork();
+			int count = new BandTask(entities, phase, edges, start, middle).compute();
+			return count + right.join();
+		}
+	}
+}
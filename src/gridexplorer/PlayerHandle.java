@@ -0,0 +1,131 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+/**
+ * The PlayerHandle class is a single player in a SharedRoom. Each handle is
+ * meant to be used by one thread at a time, while other handles move around
+ * the same room on other threads.
+ *
+ * @author Christopher Wells
+ */
+public class PlayerHandle {
+
+	private final SharedRoom room;	// The room that the player is in
+	private int row;	// The current row of the player
+	private int column;	// The current column of the player
+	private boolean inRoom = true;	// Whether the player is still in the room
+
+	/**
+	 * The constructor method to create the handle of a player that has
+	 * claimed a position.
+	 *
+	 * @param sharedRoom The room that the player is in
+	 * @param r The row of the player
+	 * @param c The column of the player
+	 */
+	PlayerHandle(SharedRoom sharedRoom, int r, int c) {
+		room = sharedRoom;
+		row = r;
+		column = c;
+	}
+
+	/**
+	 * The method used to move the player a single step. Moving into a portal
+	 * takes the player out of the room.
+	 *
+	 * @param d The direction to move the player in
+	 * @return What happened when the move was made, which is INVALID once the
+	 * player has left the room
+	 */
+	public MoveResult move(Direction d) {
+		if (!inRoom) {
+			return MoveResult.INVALID;
+		}
+		return room.move(this, d);
+	}
+
+	/**
+	 * The method used to take the player out of the room.
+	 */
+	public void leave() {
+		if (inRoom) {
+			room.leave(this);
+		}
+	}
+
+	/**
+	 * The method used to record that the player has moved.
+	 *
+	 * @param r The new row of the player
+	 * @param c The new column of the player
+	 */
+	void moveTo(int r, int c) {
+		row = r;
+		column = c;
+	}
+
+	/**
+	 * The method used to record that the player has left the room.
+	 */
+	void left() {
+		inRoom = false;
+	}
+
+	/**
+	 * The method used to get the room that the player is in.
+	 *
+	 * @return The room of the player
+	 */
+	public SharedRoom getRoom() {
+		return room;
+	}
+
+	/**
+	 * The method used to get the current row of the player.
+	 *
+	 * @return The row of the player
+	 */
+	public int getRow() {
+		return row;
+	}
+
+	/**
+	 * The method used to get the current column of the player.
+	 *
+	 * @return The column of the player
+	 */
+	public int getColumn() {
+		return column;
+	}
+
+	/**
+	 * The method used to check if the player is still in the room.
+	 *
+	 * @return Whether the player is in the room
+	 */
+	public boolean isInRoom() {
+		return inRoom;
+	}
+}
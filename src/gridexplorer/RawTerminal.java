@@ -0,0 +1,206 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The RawTerminal class switches the terminal into raw mode with stty, so that
+ * each key is read as soon as it is pressed instead of once Enter is pressed,
+ * and switches it back when it is closed. The terminal is also switched back
+ * when the program exits without closing it, such as on Ctrl+C or
+ * System.exit. Where there is no terminal or no stty, the terminal is left as
+ * it is.
+ *
+ * @author Christopher Wells
+ */
+final class RawTerminal implements Closeable {
+
+	private static final long SIZE_CHECK_MILLIS = 500;	// The time between checks of the size of the terminal
+
+	private static volatile int[] watchedSize;	// The last size of the terminal found by the watcher, or null if it is not known
+	private static Thread sizeWatcher;	// The thread that checks the size of the terminal, or null until it is needed
+
+	private final String saved;	// The settings of the terminal before raw mode, or null if they were not changed
+	private final AtomicBoolean restored = new AtomicBoolean();	// Whether the settings have been restored
+	private final Thread exitHook;	// The thread that restores the settings as the program exits, or null if there is none
+
+	/**
+	 * The constructor method to create a handle on a terminal.
+	 *
+	 * @param settings The settings to restore, or null to restore nothing
+	 */
+	private RawTerminal(String settings) {
+		saved = settings;
+		if (settings == null) {
+			exitHook = null;
+		} else {
+			exitHook = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					restore();
+				}
+			}, "gridexplorer-terminal");
+			Runtime.getRuntime().addShutdownHook(exitHook);
+		}
+	}
+
+	/**
+	 * The method used to switch the terminal into raw mode.
+	 *
+	 * @return The handle that switches the terminal back when closed
+	 */
+	static RawTerminal enable() {
+		String settings = stty("-g");
+		if (settings != null && stty("-icanon", "-echo", "min", "1") == null) {
+			settings = null;
+		}
+		return new RawTerminal(settings);
+	}
+
+	/**
+	 * The method used to find the size of the terminal.
+	 *
+	 * @return The number of rows and columns of the terminal, or null if there
+	 * is no terminal or its size is not known
+	 */
+	static int[] size() {
+		String size = stty("size");
+		if (size == null) {
+			return null;
+		}
+		String[] parts = size.split("\\s+");
+		try {
+			int[] rowsAndColumns = {Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+			return rowsAndColumns[0] > 0 && rowsAndColumns[1] > 0 ? rowsAndColumns : null;
+		} catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * The method used to start checking the size of the terminal twice a
+	 * second on a daemon thread, so that no process is started while a frame
+	 * is drawn.
+	 */
+	static synchronized void watchSize() {
+		if (sizeWatcher != null) {
+			return;
+		}
+		sizeWatcher = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					while (true) {
+						int[] size = size();
+						int[] last = watchedSize;
+						if (size != null && (last == null || last[0] != size[0] || last[1] != size[1])) {
+							watchedSize = size;
+						}
+						Thread.sleep(SIZE_CHECK_MILLIS);
+					}
+				} catch (InterruptedException e) {
+					// The watcher is only stopped as the program exits
+				}
+			}
+		}, "gridexplorer-terminal-size");
+		sizeWatcher.setDaemon(true);
+		sizeWatcher.start();
+	}
+
+	/**
+	 * The method used to get the last size of the terminal found by the
+	 * thread started by watchSize, without starting a process.
+	 *
+	 * @return The number of rows and columns of the terminal, or null if it is
+	 * not known yet
+	 */
+	static int[] watchedSize() {
+		return watchedSize;
+	}
+
+	/**
+	 * The method used to switch the terminal back to the settings it had
+	 * before it was switched into raw mode.
+	 */
+	@Override
+	public void close() {
+		restore();
+		if (exitHook != null) {
+			try {
+				Runtime.getRuntime().removeShutdownHook(exitHook);
+			} catch (IllegalStateException e) {
+				// The program is already exiting, and the hook finds the terminal restored
+			}
+		}
+	}
+
+	/**
+	 * The method used to restore the settings of the terminal, only the first
+	 * time that it is called.
+	 */
+	private void restore() {
+		if (saved != null && restored.compareAndSet(false, true)) {
+			stty(saved);
+		}
+	}
+
+	/**
+	 * The method used to run stty on the terminal.
+	 *
+	 * @param args The arguments of stty
+	 * @return What stty printed, or null if it failed
+	 */
+	private static String stty(String... args) {
+		String[] command = new String[args.length + 1];
+		command[0] = "stty";
+		System.arraycopy(args, 0, command, 1, args.length);
+		try {
+			Process process = new ProcessBuilder(command).redirectInput(new File("/dev/tty")).start();
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			try (InputStream in = process.getInputStream()) {
+				byte[] buffer = new byte[256];
+				int length;
+				while ((length = in.read(buffer)) != -1) {
+					output.write(buffer, 0, length);
+				}
+			}
+			if (process.waitFor() != 0) {
+				return null;
+			}
+			return new String(output.toByteArray(), StandardCharsets.UTF_8).trim();
+		} catch (IOException e) {
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+}
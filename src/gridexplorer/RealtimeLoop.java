@@ -0,0 +1,204 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+/**
+ * The RealtimeLoop class plays a game from keys read by an InputPump, with the
+ * moves and the display on separate threads. The simulation thread takes every
+ * key that has been queued since its last batch and plays them together, and
+ * the calling thread redraws the room at most a given number of times a second,
+ * so a burst of keys is drawn once instead of once per key.
+ *
+ * @author Christopher Wells
+ */
+public class RealtimeLoop {
+
+	private static final int BATCH_LENGTH = 256;	// The largest number of keys played in a batch
+
+	private final Game game;	// The game that is played
+	private final InputPump input;	// The keys that are played
+	private final long framePeriod;	// The shortest time between frames, in nanoseconds
+	private final Object lock = new Object();	// Guards the game and the fields below
+	private boolean changed = true;	// Whether the game has changed since the last frame
+	private boolean finished;	// Whether the simulation thread has stopped
+	private RuntimeException failure;	// The error that stopped the simulation thread, or null if there was none
+	private long moves;	// The number of moves played
+	private long batches;	// The number of batches of moves played
+	private long frames;	// The number of frames drawn
+
+	/**
+	 * The constructor method to create a loop for a game.
+	 *
+	 * @param theGame The game to play
+	 * @param inputPump The keys to play, which is started by run
+	 * @param framesPerSecond The largest number of times a second that the
+	 * room is drawn
+	 */
+	public RealtimeLoop(Game theGame, InputPump inputPump, int framesPerSecond) {
+		if (framesPerSecond < 1) {
+			throw new IllegalArgumentException("The frame rate must be at least 1, not " + framesPerSecond + ".");
+		}
+		game = theGame;
+		input = inputPump;
+		framePeriod = 1000000000L / framesPerSecond;
+	}
+
+	/**
+	 * The method used to play the game until it ends, either by finishing it,
+	 * quitting it or reaching the end of the input. The room is drawn on the
+	 * calling thread.
+	 *
+	 * @throws InterruptedException If the thread was interrupted while waiting
+	 * for a frame
+	 * @throws IllegalStateException If a move failed on the simulation thread
+	 */
+	public void run() throws InterruptedException {
+		input.start();
+		Thread simulation = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				simulate();
+			}
+		}, "gridexplorer-simulation");
+		simulation.setDaemon(true);
+		simulation.start();
+		render();
+		synchronized (lock) {
+			if (failure != null) {
+				throw new IllegalStateException("A move failed on the simulation thread.", failure);
+			}
+		}
+	}
+
+	/**
+	 * The method run by the simulation thread, which plays each batch of keys
+	 * as it is queued.
+	 */
+	private void simulate() {
+		char[] batch = new char[BATCH_LENGTH];
+		try {
+			while (true) {
+				int length = input.drain(batch);
+				synchronized (lock) {
+					if (length < 0) {
+						// The input has ended, so there is no way to carry on playing
+						if (game.isPlaying()) {
+							game.move('q');
+						}
+					} else {
+						for (int i = 0; i < length && game.isPlaying(); i++) {
+							game.move(batch[i]);
+							moves++;
+						}
+					}
+					batches++;
+					changed = true;
+					lock.notifyAll();
+					if (!game.isPlaying()) {
+						return;
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			// The thread is a daemon, so it is only interrupted as the program ends
+		} catch (RuntimeException e) {
+			// Stop the render thread, rather than leave it waiting for a change
+			synchronized (lock) {
+				failure = e;
+				finished = true;
+				changed = true;
+				lock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * The method used to draw the room whenever it has changed, waiting for the
+	 * rest of the frame period between frames.
+	 *
+	 * @throws InterruptedException If the thread was interrupted while waiting
+	 */
+	private void render() throws InterruptedException {
+		long nextFrame = System.nanoTime();
+		while (true) {
+			synchronized (lock) {
+				while (!changed) {
+					lock.wait();
+				}
+				if (finished || !game.isPlaying()) {
+					return;
+				}
+			}
+
+			// Keep playing moves while waiting, so they are all drawn in one frame
+			long delay = nextFrame - System.nanoTime();
+			if (delay > 0) {
+				Thread.sleep(delay / 1000000, (int) (delay % 1000000));
+			}
+
+			synchronized (lock) {
+				if (finished || !game.isPlaying()) {
+					return;
+				}
+				changed = false;
+				game.displayRoom();
+				frames++;
+			}
+			nextFrame = System.nanoTime() + framePeriod;
+		}
+	}
+
+	/**
+	 * The method used to get the number of moves played.
+	 *
+	 * @return The number of moves
+	 */
+	public long getMoves() {
+		synchronized (lock) {
+			return moves;
+		}
+	}
+
+	/**
+	 * The method used to get the number of batches of moves played.
+	 *
+	 * @return The number of batches
+	 */
+	public long getBatches() {
+		synchronized (lock) {
+			return batches;
+		}
+	}
+
+	/**
+	 * The method used to get the number of frames drawn.
+	 *
+	 * @return The number of frames
+	 */
+	public long getFrames() {
+		synchronized (lock) {
+			return frames;
+		}
+	}
+}
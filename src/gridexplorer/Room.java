@@ -23,17 +23,19 @@
  */
 package gridexplorer;
 
-import java.io.File;
-import java.util.Scanner;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
 
 /**
  * The Room class represents a room within the game.
  *
  * @author Christopher Wells
  */
-public class Room {
+public class Room implements Closeable {
 
-	private int[][] grid;	// A grid of the objects that are within the room
+	private GridStorage grid;	// A grid of the objects that are within the room
 	private int rows;	// The total number of rows that the room has
 	private int columns;	// The total number of columns that the room has
 	private int spawnRow;	// The row of the player spawn point
@@ -42,6 +44,13 @@ public class Room {
 	private int playerColumn;	// The current column of the player
 	private boolean spawned;	// Whether or not the player has been spawned yet
 	private Game curGame;	// The current instance of the game that is being played
+	private PrintStream out;	// The stream that messages are printed on, or null to print nothing
+	private FrameRenderer renderer;	// The renderer used to display the grid, once it has been displayed
+	private RoomListener[] listeners = new RoomListener[0];	// The listeners told about changed objects
+	private RoomLayout template;	// The layout the room was made from, while its walls and portals still match it
+	private DistanceField distanceField;	// The distances to the nearest portal, or null until they are needed
+	private EntityStore entities;	// The entities that move around the room, or null until one is added
+	private int untimedMoves;	// The number of moves since one was last timed for the metrics
 
 	/**
 	 * The constructor method to create the room. Creates the grid based on the
@@ -54,68 +63,107 @@ public class Room {
 	 * @param g The current instance of the game that is being played
 	 */
 	public Room(int r, int c, int sr, int sc, Game g) {
-		rows = r;
-		columns = c;
+		this(GridStorages.create(r, c, false), sr, sc, g);
+	}
+
+	/**
+	 * The constructor method to create the room on top of a given grid
+	 * storage, such as an off-heap grid for rooms that are too large for the
+	 * heap. Any objects already in the storage are kept.
+	 *
+	 * @param storage The storage of the grid of the room
+	 * @param sr The row of the player spawn point
+	 * @param sc The column of the player spawn point
+	 * @param g The current instance of the game that is being played
+	 */
+	public Room(GridStorage storage, int sr, int sc, Game g) {
+		rows = storage.getRows();
+		columns = storage.getColumns();
 		spawnRow = sr;
 		spawnColumn = sc;
 		curGame = g;
-		grid = new int[r][c];
+		out = outputOf(g);
+		grid = storage;
 		spawned = false;
 		spawnPlayer();
 	}
 
+	/**
+	 * The constructor method to restore a room from a snapshot, with the
+	 * player already in the grid.
+	 *
+	 * @param storage The storage of the grid of the room
+	 * @param sr The row of the player spawn point
+	 * @param sc The column of the player spawn point
+	 * @param pr The row of the player
+	 * @param pc The column of the player
+	 * @param wasSpawned Whether the player had been spawned
+	 * @param g The current instance of the game that is being played
+	 */
+	Room(GridStorage storage, int sr, int sc, int pr, int pc, boolean wasSpawned, Game g) {
+		rows = storage.getRows();
+		columns = storage.getColumns();
+		spawnRow = sr;
+		spawnColumn = sc;
+		playerRow = pr;
+		playerColumn = pc;
+		spawned = wasSpawned;
+		curGame = g;
+		out = outputOf(g);
+		grid = storage;
+	}
+
 	/**
 	 * The constructor method to create the room based on an input file. It
 	 * takes in the name of the room file without its location and file type, as
 	 * all room files are placed in the "resources/rooms/" directory and are of
-	 * the ".txt" file type.
+	 * the ".txt" file type. Each room file is only parsed once, as its layout is
+	 * kept in the shared RoomTemplateCache.
 	 *
 	 * @param roomName The name of the room file
 	 * @param g The current instance of the game that is being played
 	 */
 	public Room(String roomName, Game g) {
+		this(new FileRoomSource(roomName), g);
+	}
+
+	/**
+	 * The constructor method to create the room from a source of room layouts,
+	 * such as a room file or a generator. The layout is used as the grid
+	 * without being copied, and only the rows that change are copied.
+	 *
+	 * @param source The source of the layout of the room
+	 * @param g The current instance of the game that is being played
+	 */
+	public Room(RoomSource source, Game g) {
+		curGame = g;
+		out = outputOf(g);
+		long start = Metrics.ENABLED ? System.nanoTime() : 0;
 		try {
-			File roomFile = new File("resources/rooms/" + roomName + ".txt");
-			Scanner findSize = new Scanner(roomFile);
-			Scanner rm = new Scanner(roomFile);
-			String line;
-			curGame = g;
-			columns = 0;
-
-			// Find out how many rows and columns the input file has
-			line = findSize.nextLine();
-			rows = line.length();
-			columns++;
-			while (findSize.hasNextLine()) {
-				findSize.nextLine();
-				columns++;
-			}
+			RoomLayout layout = source.getLayout();
+			rows = layout.getRows();
+			columns = layout.getColumns();
+			spawnRow = layout.getSpawnRow();
+			spawnColumn = layout.getSpawnColumn();
 
-			// Create the grid and fill it with the file contents
-			grid = new int[rows][columns];
-			int i = 0;
-			while (rm.hasNextLine()) {
-				line = rm.nextLine();
-				for (int j = 0; j < line.length(); j++) {
-					// Find player spawn position
-					if (line.charAt(j) == '@') {
-						spawnRow = i;
-						spawnColumn = j;
-					} else {
-						grid[i][j] = identifyChar(line.charAt(j));
-					}
-				}
-				i++;
-			}
+			// Use the shared layout as the grid, only copying the rows that change
+			grid = new CopyOnWriteGridStorage(layout);
+			template = layout;
 
 			// Check to make sure that there is a spawn position
 			if (spawnRow == -1) {
-				System.out.println("No spawn position in the room file.");
+				message("No spawn position in the room file.");
 			} else {
 				spawnPlayer();
 			}
-		} catch (Exception FileNotFoundException) {
-			System.out.println("Invalid room file '" + roomName + "'");
+		} catch (IOException e) {
+			message("Invalid room file '" + source.getName() + "'");
+			if (Metrics.ENABLED) {
+				Metrics.ROOM_LOAD_FAILURES.increment();
+			}
+		}
+		if (Metrics.ENABLED) {
+			Metrics.ROOM_LOAD.record(System.nanoTime() - start);
 		}
 	}
 
@@ -165,67 +213,106 @@ public class Room {
 	 */
 	public int objectAt(int r, int c) {
 		if (hasPos(r, c)) {
-			return grid[r][c];
+			return grid.get(r, c);
 		} else {
 			return 999;
 		}
 	}
 
 	/**
-	 * The method used to convert an integer identifier into its corresponding
-	 * character.
+	 * The method used to display the contents of the grid.
+	 */
+	public void display() {
+		if (out == null) {
+			return;
+		}
+		if (renderer == null) {
+			renderer = new FrameRenderer();
+		}
+		long start = Metrics.ENABLED ? System.nanoTime() : 0;
+		renderer.render(this, out);
+		if (Metrics.ENABLED) {
+			Metrics.DISPLAY.record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * The method used to display the part of the grid that is within a
+	 * viewport centred on the player.
 	 *
-	 * @param indentifier The integer identifier to be converted to a character
-	 * @return The character specified by the integer identifier
+	 * @param viewport The viewport to display
 	 */
-	private char identifyInt(int indentifier) {
-		switch (indentifier) {
-			case 0:	// Blank spaces
-				return ' ';
-			case 1:	// Walls
-				return '#';
-			case 2:	// Player
-				return '@';
-			case 3:	// Portal
-				return '*';
-			default:
-				return '?';
+	public void display(Viewport viewport) {
+		if (out == null) {
+			return;
+		}
+		if (renderer == null) {
+			renderer = new FrameRenderer();
+		}
+		long start = Metrics.ENABLED ? System.nanoTime() : 0;
+		renderer.render(this, viewport.top(this, playerRow), viewport.left(this, playerColumn),
+				viewport.rowsIn(this), viewport.columnsIn(this), out);
+		if (Metrics.ENABLED) {
+			Metrics.DISPLAY.record(System.nanoTime() - start);
 		}
 	}
 
 	/**
-	 * The method used to convert a character into its corresponding integer
-	 * identifier.
+	 * The method used to find the stream that a room prints its messages on.
 	 *
-	 * @param character The character to be converted into an integer identifier
-	 * @return The integer identifier specified by the character
+	 * @param g The current instance of the game that is being played
+	 * @return The stream of the game, or the console if there is no game
 	 */
-	private int identifyChar(char character) {
-		switch (character) {
-			case ' ':
-				return 0;
-			case '#':
-				return 1;
-			case '@':
-				return 2;
-			case '*':
-				return 3;
-			default:
-				return 999;
+	private static PrintStream outputOf(Game g) {
+		if (g == null) {
+			return System.out;
+		} else {
+			return g.getOutput();
 		}
 	}
 
 	/**
-	 * The method used to display the contents of the grid.
+	 * The method used to print a message about the room, unless the room is
+	 * not printing anything.
+	 *
+	 * @param text The message to print
 	 */
-	public void display() {
-		for (int i = 0; i < rows; i++) {
-			for (int j = 0; j < columns; j++) {
-				// Print out each entry of the grid
-				System.out.print(identifyInt(objectAt(i, j)));
-			}
-			// Handle the rows of the grid
-			System.out.println("");
+	private void message(String text) {
+		if (out != null) {
+			out.println(text);
+		}
+	}
+
+	/**
+	 * The method used to check whether the player has been spawned, so that
+	 * it can be kept in a snapshot.
+	 *
+	 * @return Whether the player has been spawned
+	 */
+	boolean isSpawned() {
+		return spawned;
+	}
+
+	/**
+	 * The method used to get the storage that holds the grid of the room.
+	 *
+	 * @return The storage of the grid
+	 */
+	GridStorage getStorage() {
+		return grid;
+	}
+
+	/**
+	 * The method used to close the storage of the grid, such as the file that
+	 * holds an off-heap grid. The room can not be used after it has been
+	 * closed.
+	 *
+	 * @throws IOException If the storage could not be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		if (grid instanceof Closeable) {
+			((Closeable) grid).close();
 		}
 	}
 
@@ -236,11 +323,16 @@ public class Room {
 	 * @param c The column of the position
 	 * @param id The integer identifier of the object to be added
 	 */
-	private void addObject(int r, int c, int id) {
+	public void addObject(int r, int c, int id) {
 		if (hasPos(r, c)) {
-			grid[r][c] = id;
+			int oldId = listeners.length == 0 && template == null ? id : grid.get(r, c);
+			if (isObstacle(id) || isObstacle(oldId)) {
+				template = null;
+			}
+			grid.set(r, c, id);
+			fireObjectChanged(r, c, oldId, id);
 		} else {
-			System.out.println("Invalid position for addObject.");
+			message("Invalid position for addObject.");
 		}
 	}
 
@@ -250,11 +342,154 @@ public class Room {
 	 * @param r The row of the position
 	 * @param c The column of the position
 	 */
-	private void removeObject(int r, int c) {
+	public void removeObject(int r, int c) {
 		if (hasPos(r, c)) {
-			grid[r][c] = 0;
+			int oldId = listeners.length == 0 && template == null ? 0 : grid.get(r, c);
+			if (isObstacle(oldId)) {
+				template = null;
+			}
+			grid.set(r, c, 0);
+			fireObjectChanged(r, c, oldId, 0);
 		} else {
-			System.out.println("Invalid position for removeObject.");
+			message("Invalid position for removeObject.");
+		}
+	}
+
+	/**
+	 * The method used to check if an object changes the distances to the
+	 * portals, so that the room no longer matches its template once it is
+	 * added or removed.
+	 *
+	 * @param id The integer identifier of the object
+	 * @return Whether the object is anything other than an empty space or the
+	 * player
+	 */
+	private static boolean isObstacle(int id) {
+		return id != Tiles.EMPTY && id != Tiles.PLAYER;
+	}
+
+	/**
+	 * The method used to get the entities that move around the room, such as
+	 * NPCs and projectiles.
+	 *
+	 * @return The entities of the room
+	 */
+	public EntityStore getEntities() {
+		if (entities == null) {
+			entities = new EntityStore(grid);
+		}
+		return entities;
+	}
+
+	/**
+	 * The method used to get the entities of the room without creating them,
+	 * so that rooms without entities are drawn and moved through as before.
+	 *
+	 * @return The entities of the room, or null if none have been added
+	 */
+	EntityStore entities() {
+		return entities;
+	}
+
+	/**
+	 * The method used to get the character that a point of the room is drawn
+	 * as, which is the entity at the point if there is one.
+	 *
+	 * @param r The row of the point
+	 * @param c The column of the point
+	 * @return The character of the point
+	 */
+	char charAt(int r, int c) {
+		if (entities != null) {
+			int entity = entities.getIndex().entityAt(r, c);
+			if (entity >= 0) {
+				return EntityStore.toChar(entities.getType(entity));
+			}
+		}
+		return Tiles.toChar(objectAt(r, c));
+	}
+
+	/**
+	 * The method used to get the distances from each position of the room to
+	 * its nearest portal. They are found the first time they are needed, by
+	 * copying the distances of the room file if the walls and portals have not
+	 * changed since it was loaded, and are then kept up to date as objects are
+	 * added and removed.
+	 *
+	 * @return The distance field of the room
+	 * @throws IllegalStateException If the room has more positions than an
+	 * array can hold
+	 */
+	public DistanceField getDistanceField() {
+		if (distanceField == null) {
+			if (template != null) {
+				distanceField = template.getDistanceField().copy();
+			} else {
+				distanceField = DistanceField.compute(grid);
+			}
+			addRoomListener(distanceField);
+		}
+		return distanceField;
+	}
+
+	/**
+	 * The method used to move the player a single step along a shortest path
+	 * to the nearest portal.
+	 *
+	 * @return What happened when the player tried to move, or INVALID if no
+	 * portal can be reached
+	 * @throws IllegalStateException If the room has more positions than an
+	 * array can hold
+	 */
+	public MoveResult stepTowardPortal() {
+		Direction direction = getDistanceField().nextStep(playerRow, playerColumn);
+		if (direction == null) {
+			message("No path to a portal.");
+			return MoveResult.INVALID;
+		}
+		return movePlayer(direction, 1);
+	}
+
+	/**
+	 * The method used to add a listener that is told about the objects that
+	 * change within the room.
+	 *
+	 * @param listener The listener to add
+	 */
+	public void addRoomListener(RoomListener listener) {
+		RoomListener[] added = Arrays.copyOf(listeners, listeners.length + 1);
+		added[listeners.length] = listener;
+		listeners = added;
+	}
+
+	/**
+	 * The method used to remove a listener that was added to the room.
+	 *
+	 * @param listener The listener to remove
+	 */
+	public void removeRoomListener(RoomListener listener) {
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i] == listener) {
+				RoomListener[] removed = new RoomListener[listeners.length - 1];
+				System.arraycopy(listeners, 0, removed, 0, i);
+				System.arraycopy(listeners, i + 1, removed, i, removed.length - i);
+				listeners = removed;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * The method used to tell each of the listeners that an object changed.
+	 *
+	 * @param r The row of the position that changed
+	 * @param c The column of the position that changed
+	 * @param oldId The integer identifier of the object that was there before
+	 * @param newId The integer identifier of the object that is there now
+	 */
+	private void fireObjectChanged(int r, int c, int oldId, int newId) {
+		for (RoomListener listener : listeners) {
+			listener.objectChanged(this, r, c, oldId, newId);
 		}
 	}
 
@@ -292,7 +527,7 @@ public class Room {
 			removeObject(or, oc);
 			addObject(nr, nc, id);
 		} else {
-			System.out.println("Incorrect position for moveObject.");
+			message("Incorrect position for moveObject.");
 		}
 	}
 
@@ -301,52 +536,174 @@ public class Room {
 	 *
 	 * @param d The direction to move the player in
 	 * @param a The amount of steps to move the player
+	 * @return What happened when the player tried to move
 	 */
-	public void movePlayer(String d, int a) {
-		// Variables to store the possible new row and column fo the player
-		int newRow = playerRow;
-		int newColumn = playerColumn;
+	public MoveResult movePlayer(String d, int a) {
+		Direction direction = Direction.fromName(d);
+		if (direction == null) {
+			message("Invalid direction for movePlayer.");
+			if (Metrics.ENABLED) {
+				Metrics.INVALID.increment();
+			}
+			return MoveResult.INVALID;	// Do not attempt to move player, as their position did not change
+		}
+		return movePlayer(direction, a);
+	}
 
-		// Find the new position of the player based on the direction arguement
-		switch (d) {
-			case "up":
-				newRow -= a;
-				break;
-			case "down":
-				newRow += a;
-				break;
-			case "left":
-				newColumn -= a;
+	/**
+	 * The method used to move the player in a given direction. The path is
+	 * checked one cell at a time in a single pass, so the player stops in
+	 * front of the first object or the edge of the room, and goes through the
+	 * first portal that is crossed. Nothing is allocated unless a message is
+	 * printed.
+	 *
+	 * @param d The direction to move the player in
+	 * @param a The amount of steps to move the player
+	 * @return What happened when the player tried to move, which is MOVED if
+	 * the player moved at least one step
+	 */
+	public MoveResult movePlayer(Direction d, int a) {
+		if (!Metrics.ENABLED) {
+			return makeMove(d, a);
+		}
+		MoveResult result;
+		if (++untimedMoves < Metrics.MOVE_SAMPLE_PERIOD) {
+			result = makeMove(d, a);
+		} else {
+			untimedMoves = 0;
+			long start = System.nanoTime();
+			result = makeMove(d, a);
+			Metrics.MOVE.record(System.nanoTime() - start);
+		}
+		Metrics.countMove(result);
+		return result;
+	}
+
+	/**
+	 * The method used to move the player without recording any metrics.
+	 *
+	 * @param d The direction to move the player in
+	 * @param a The amount of steps to move the player
+	 * @return What happened when the player tried to move
+	 */
+	private MoveResult makeMove(Direction d, int a) {
+		int dr = d.getRowDelta();
+		int dc = d.getColumnDelta();
+
+		// Only check the cells up to the edge of the room
+		int room;
+		if (dr < 0) {
+			room = playerRow;
+		} else if (dr > 0) {
+			room = rows - 1 - playerRow;
+		} else if (dc < 0) {
+			room = playerColumn;
+		} else {
+			room = columns - 1 - playerColumn;
+		}
+		int limit = Math.min(a, room);
+
+		// Find how many steps the player can take before something is in the
+		// way, which includes the entities of the room
+		int steps = 0;
+		int blocker = 0;
+		int entity = -1;
+		while (steps < limit) {
+			int r = playerRow + dr * (steps + 1);
+			int c = playerColumn + dc * (steps + 1);
+			int id = grid.get(r, c);
+			if (id != 0) {
+				blocker = id;
 				break;
-			case "right":
-				newColumn += a;
+			}
+			if (entities != null && (entity = entities.getIndex().entityAt(r, c)) >= 0) {
 				break;
-			default:
-				System.out.println("Invalid direction for movePlayer.");
-				return;	// Do not attempt to move player, as their position did not change
+			}
+			steps++;
+		}
+
+		if (blocker == 3) {
+			curGame.nextRoom();
+			return MoveResult.PORTAL;
+		} else if (steps > 0) {
+			int newRow = playerRow + dr * steps;
+			int newColumn = playerColumn + dc * steps;
+			moveObject(playerRow, playerColumn, newRow, newColumn, 2);
+			playerRow = newRow;
+			playerColumn = newColumn;
+			return MoveResult.MOVED;
 		}
 
-		// Test to make sure that the new position is empty and that the new
-		// poistion is valid
-		if (hasPos(newRow, newColumn)) {
-			switch (objectAt(newRow, newColumn)) {
-				case 0:
-					moveObject(playerRow, playerColumn, newRow, newColumn, 2);
-					playerRow = newRow;
-					playerColumn = newColumn;
-					break;
-				case 3:
-					curGame.nextRoom();
-					break;
-				default:
-					System.out.println("New position " + formatPosition(newRow, newColumn) + " is not empty: " + identifyInt(objectAt(newRow, newColumn)));
-					break;
+		// The player could not take a single step
+		int newRow = playerRow + dr;
+		int newColumn = playerColumn + dc;
+		if (a < 1) {
+			message("Invalid amount for movePlayer.");
+			return MoveResult.INVALID;
+		} else if (blocker != 0 || entity >= 0) {
+			if (out != null) {
+				message("New position " + formatPosition(newRow, newColumn) + " is not empty: " + charAt(newRow, newColumn));
 			}
+			return MoveResult.BLOCKED;
 		} else {
-			System.out.println("New position " + formatPosition(newRow, newColumn) + " does not exist.");
+			if (out != null) {
+				message("New position " + formatPosition(newRow, newColumn) + " does not exist.");
+			}
+			return MoveResult.OUT_OF_BOUNDS;
 		}
 	}
 
+	/**
+	 * The method used to slide the player in a given direction until it
+	 * reaches an object, the edge of the room or a portal.
+	 *
+	 * @param d The direction to slide the player in
+	 * @return What happened when the player tried to move
+	 */
+	public MoveResult slidePlayer(Direction d) {
+		return movePlayer(d, Math.max(rows, columns));
+	}
+
+	/**
+	 * The method used to get the row of the player, without allocating an
+	 * array as getPlayerPos does.
+	 *
+	 * @return The row of the player
+	 */
+	public int getPlayerRow() {
+		return playerRow;
+	}
+
+	/**
+	 * The method used to get the column of the player, without allocating an
+	 * array as getPlayerPos does.
+	 *
+	 * @return The column of the player
+	 */
+	public int getPlayerColumn() {
+		return playerColumn;
+	}
+
+	/**
+	 * The method used to get the row of the spawn point, without allocating an
+	 * array as getSpawnPos does.
+	 *
+	 * @return The row of the spawn point
+	 */
+	public int getSpawnRow() {
+		return spawnRow;
+	}
+
+	/**
+	 * The method used to get the column of the spawn point, without allocating
+	 * an array as getSpawnPos does.
+	 *
+	 * @return The column of the spawn point
+	 */
+	public int getSpawnColumn() {
+		return spawnColumn;
+	}
+
 	/**
 	 * The method used to get the position of the player.
 	 *
@@ -0,0 +1,104 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Converts text room files into the binary room format. Each converted room
+ * is written next to its text file, so that the game loads it instead of the
+ * text file until the text file is changed again.
+ *
+ * @author Christopher Wells
+ */
+public final class RoomConverter {
+
+	/**
+	 * RoomConverter only holds static methods, so it is not meant to be
+	 * constructed.
+	 */
+	private RoomConverter() {
+	}
+
+	/**
+	 * The method that is run when the converter starts. Each argument is
+	 * either a text room file or a directory of them, and with no arguments
+	 * the rooms directory is converted.
+	 *
+	 * @param args The room files and directories to convert
+	 * @throws IOException If a room could not be read or written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			args = new String[]{RoomLoader.ROOM_DIRECTORY};
+		}
+		for (String arg : args) {
+			File file = new File(arg);
+			if (file.isDirectory()) {
+				File[] rooms = file.listFiles();
+				if (rooms == null) {
+					throw new IOException("Could not list the directory " + file + ".");
+				}
+				for (File room : rooms) {
+					if (room.getName().endsWith(RoomLoader.ROOM_EXTENSION)) {
+						System.out.println("Converted " + convert(room));
+					}
+				}
+			} else {
+				System.out.println("Converted " + convert(file));
+			}
+		}
+	}
+
+	/**
+	 * The method used to convert a text room file into a binary room file
+	 * next to it.
+	 *
+	 * @param textFile The text room file
+	 * @return The binary room file
+	 * @throws IOException If the room could not be read or written
+	 */
+	public static File convert(File textFile) throws IOException {
+		String name = textFile.getName();
+		if (name.endsWith(RoomLoader.ROOM_EXTENSION)) {
+			name = name.substring(0, name.length() - RoomLoader.ROOM_EXTENSION.length());
+		}
+		File binaryFile = new File(textFile.getParentFile(), name + RoomLoader.BINARY_EXTENSION);
+		convert(textFile, binaryFile);
+		return binaryFile;
+	}
+
+	/**
+	 * The method used to convert a text room file into a given binary room
+	 * file.
+	 *
+	 * @param textFile The text room file
+	 * @param binaryFile The file to write the binary room to
+	 * @throws IOException If the room could not be read or written
+	 */
+	public static void convert(File textFile, File binaryFile) throws IOException {
+		BinaryRoomFormat.write(RoomLoader.load(textFile), binaryFile);
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+/**
+ * The RoomLayout class represents the contents of a room file once it has been
+ * parsed. It holds the size of the room, the player spawn point and the
+ * objects within the room, but none of the state of a room that is being
+ * played.
+ *
+ * @author Christopher Wells
+ */
+public class RoomLayout {
+
+	private final int rows;	// The total number of rows that the room has
+	private final int columns;	// The total number of columns that the room has
+	private final int spawnRow;	// The row of the player spawn point, or -1 if there is none
+	private final int spawnColumn;	// The column of the player spawn point, or -1 if there is none
+	private final byte[] cells;	// The compact codes of the objects, in row-major order
+	private final boolean hasUnknown;	// Whether any of the objects were not recognized
+	private DistanceField distanceField;	// The distances to the nearest portal, or null until they are needed
+
+	/**
+	 * The constructor method to create the layout.
+	 *
+	 * @param r The number of rows that the room has
+	 * @param c The number of columns that the room has
+	 * @param sr The row of the player spawn point, or -1 if there is none
+	 * @param sc The column of the player spawn point, or -1 if there is none
+	 * @param cells The compact codes of the objects in row-major order, which
+	 * may be longer than the number of cells in the room
+	 * @param unknown Whether any of the objects were not recognized
+	 */
+	RoomLayout(int r, int c, int sr, int sc, byte[] cells, boolean unknown) {
+		rows = r;
+		columns = c;
+		spawnRow = sr;
+		spawnColumn = sc;
+		this.cells = cells;
+		hasUnknown = unknown;
+	}
+
+	/**
+	 * The method used to get the number of rows that the room has.
+	 *
+	 * @return The number of rows the room has
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * The method used to get the number of columns that the room has.
+	 *
+	 * @return The number of columns the room has
+	 */
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * The method used to get the row of the player spawn point.
+	 *
+	 * @return The row of the spawn point, or -1 if the room has none
+	 */
+	public int getSpawnRow() {
+		return spawnRow;
+	}
+
+	/**
+	 * The method used to get the column of the player spawn point.
+	 *
+	 * @return The column of the spawn point, or -1 if the room has none
+	 */
+	public int getSpawnColumn() {
+		return spawnColumn;
+	}
+
+	/**
+	 * The method used to check whether the room file contained any characters
+	 * that do not correspond to a known object.
+	 *
+	 * @return Whether the room has any unknown objects
+	 */
+	public boolean hasUnknown() {
+		return hasUnknown;
+	}
+
+	/**
+	 * The method used to get the integer identifier of the object at a given
+	 * point. The player spawn point holds an empty space, as the player is only
+	 * added once a room is created from the layout.
+	 *
+	 * @param r The row of the object
+	 * @param c The column of the object
+	 * @return The integer identifier of the object at the specified point
+	 */
+	public int objectAt(int r, int c) {
+		if (r < 0 || r >= rows || c < 0 || c >= columns) {
+			return Tiles.UNKNOWN;
+		}
+		return Tiles.decode(cells[r * columns + c]);
+	}
+
+	/**
+	 * The method used to get the array of compact codes that backs the layout.
+	 * The array must not be modified.
+	 *
+	 * @return The compact codes of the objects in row-major order
+	 */
+	byte[] cells() {
+		return cells;
+	}
+
+	/**
+	 * The method used to get the distances from each position to the nearest
+	 * portal. They are only found the first time they are needed, and are then
+	 * kept with the layout so that every room made from it can copy them
+	 * instead of searching again. The distance field must not be changed.
+	 *
+	 * @return The distance field of the layout
+	 */
+	synchronized DistanceField getDistanceField() {
+		if (distanceField == null) {
+			distanceField = DistanceField.compute(this);
+		}
+		return distanceField;
+	}
+}
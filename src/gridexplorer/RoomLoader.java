@@ -0,0 +1,215 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The RoomLoader class reads room files into room layouts. Each file is
+ * memory-mapped and read in a single pass, which finds the size of the room,
+ * the spawn point and the objects within the room all at once. Files in the
+ * binary room format are read with a bulk copy instead.
+ *
+ * @author Christopher Wells
+ */
+public final class RoomLoader {
+
+	public static final String ROOM_DIRECTORY = "resources/rooms/";	// The directory that holds the room files
+	public static final String ROOM_EXTENSION = ".txt";	// The file type of the room files
+	public static final String BINARY_EXTENSION = ".room";	// The file type of the binary room files
+	private static final int CHUNK_SIZE = 1 << 16;	// The number of bytes parsed at a time
+
+	/**
+	 * RoomLoader only holds static methods, so it is not meant to be
+	 * constructed.
+	 */
+	private RoomLoader() {
+	}
+
+	/**
+	 * The method used to get the file of a room based on the name of the room.
+	 * A binary room file is used if there is one that is at least as new as
+	 * the text room file.
+	 *
+	 * @param roomName The name of the room file without its location and file
+	 * type
+	 * @return The room file
+	 */
+	public static File roomFile(String roomName) {
+		File text = new File(ROOM_DIRECTORY + roomName + ROOM_EXTENSION);
+		File binary = new File(ROOM_DIRECTORY + roomName + BINARY_EXTENSION);
+		if (binary.isFile() && binary.lastModified() >= text.lastModified()) {
+			return binary;
+		}
+		return text;
+	}
+
+	/**
+	 * The method used to load a room based on the name of the room.
+	 *
+	 * @param roomName The name of the room file without its location and file
+	 * type
+	 * @return The layout of the room
+	 * @throws IOException If the room file could not be read or is not a valid
+	 * room file
+	 */
+	public static RoomLayout load(String roomName) throws IOException {
+		return load(roomFile(roomName));
+	}
+
+	/**
+	 * The method used to load a room from a room file.
+	 *
+	 * @param file The room file
+	 * @return The layout of the room
+	 * @throws IOException If the room file could not be read or is not a valid
+	 * room file
+	 */
+	public static RoomLayout load(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("Room file '" + file + "' is too large to be loaded.");
+			}
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			if (BinaryRoomFormat.isBinary(buffer, (int) size)) {
+				return BinaryRoomFormat.parse(buffer, (int) size);
+			}
+			return parse(buffer, (int) size);
+		}
+	}
+
+	/**
+	 * The method used to parse the contents of a room file. Each line of the
+	 * file is a row of the room, and the first line sets the number of columns.
+	 * Shorter lines are padded with empty spaces.
+	 *
+	 * @param buffer The contents of the room file, starting at its position
+	 * @param size The number of bytes in the room file
+	 * @return The layout of the room
+	 * @throws IOException If the contents are not a valid room file
+	 */
+	static RoomLayout parse(ByteBuffer buffer, int size) throws IOException {
+		if (size == 0) {
+			throw new IOException("Room file is empty.");
+		}
+
+		// A room can not have more cells than its file has bytes, unless it has
+		// short lines which get padded, in which case the array is grown
+		byte[] cells = new byte[size];
+		int columns = -1;
+		int row = 0;
+		int column = 0;
+		int spawnRow = -1;
+		int spawnColumn = -1;
+		boolean unknown = false;
+		boolean lineEnded = false;
+
+		boolean afterReturn = false;
+		byte[] chunk = new byte[Math.min(size, CHUNK_SIZE)];
+
+		// Copy the file into a small array a chunk at a time, as reading from
+		// an array is faster than reading from the buffer a byte at a time
+		for (int offset = 0; offset < size; offset += chunk.length) {
+			int length = Math.min(chunk.length, size - offset);
+			buffer.get(chunk, 0, length);
+			for (int i = 0; i < length; i++) {
+				byte b = chunk[i];
+
+				// Handle the ends of lines, which may be "\n", "\r\n" or "\r"
+				if (b == '\n' || b == '\r') {
+					if (b == '\n' && afterReturn) {
+						afterReturn = false;
+						continue;
+					}
+					afterReturn = b == '\r';
+					if (columns == -1) {
+						columns = column;
+					}
+					row++;
+					column = 0;
+					lineEnded = true;
+					cells = ensureCapacity(cells, (long) (row + 1) * columns);
+					continue;
+				}
+				afterReturn = false;
+				lineEnded = false;
+
+				// Multi-byte characters only take up a single cell
+				if ((b & 0xC0) == 0x80) {
+					continue;
+				}
+				if (columns != -1 && column >= columns) {
+					throw new IOException("Line " + (row + 1) + " of the room file is longer than the first line.");
+				}
+
+				byte code = Tiles.codeOf(b);
+				if (code == Tiles.PLAYER) {
+					// The player is added when the room is created, so the spawn
+					// point is left empty
+					spawnRow = row;
+					spawnColumn = column;
+					code = Tiles.EMPTY;
+				} else if (code == Tiles.UNKNOWN_CODE) {
+					unknown = true;
+				}
+				cells[row == 0 ? column : row * columns + column] = code;
+				column++;
+			}
+		}
+
+		// Handle a last line without a line ending
+		if (!lineEnded) {
+			if (columns == -1) {
+				columns = column;
+			}
+			row++;
+		}
+
+		return new RoomLayout(row, columns, spawnRow, spawnColumn, cells, unknown);
+	}
+
+	/**
+	 * The method used to make sure that the array of cells is large enough to
+	 * hold a given number of cells.
+	 *
+	 * @param cells The array of cells
+	 * @param needed The number of cells that need to fit in the array
+	 * @return The array of cells, or a larger copy of it
+	 * @throws IOException If the room has more cells than an array can hold
+	 */
+	private static byte[] ensureCapacity(byte[] cells, long needed) throws IOException {
+		if (needed <= cells.length) {
+			return cells;
+		} else if (needed > Integer.MAX_VALUE - 8) {
+			throw new IOException("Room file has too many cells to be loaded.");
+		}
+		return Arrays.copyOf(cells, (int) Math.max(needed, Math.min(Integer.MAX_VALUE - 8, 2L * cells.length)));
+	}
+}
@@ -0,0 +1,274 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * The RoomTemplateCache class keeps the layouts of room files once they have
+ * been loaded, so that rooms used by many games are only parsed once. Layouts
+ * are never changed once they are loaded, so they are shared by every room
+ * made from them through a CopyOnWriteGridStorage.
+ *
+ * The cache holds a limited number of layouts, and a limited number of cells
+ * across all of them, and evicts the least recently used layouts when either
+ * limit is passed, so a few huge rooms cannot pin most of the heap. A layout
+ * that is larger than the cell limit on its own is not cached at all. Each
+ * time a layout is asked for, the size and
+ * modification time of its file are checked, and the file is loaded again if
+ * it has changed.
+ *
+ * @author Christopher Wells
+ */
+public class RoomTemplateCache {
+
+	private static final int DEFAULT_CAPACITY = 64;	// The number of layouts the shared cache holds
+	private static final long DEFAULT_MAX_CELLS = Runtime.getRuntime().maxMemory() / 8;	// The number of cells the shared cache holds, an eighth of the heap
+	private static final RoomTemplateCache SHARED = new RoomTemplateCache(DEFAULT_CAPACITY, DEFAULT_MAX_CELLS);	// The cache used by rooms
+
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);	// The cached layouts, least recently used first
+	private int capacity;	// The largest number of layouts to keep
+	private long maxCells;	// The largest number of cells to keep across all of the layouts
+	private long cells;	// The number of cells of the cached layouts
+	private long hits;	// The number of times a layout was already cached
+	private long misses;	// The number of times a layout had to be loaded
+	private long evictions;	// The number of layouts that have been evicted
+
+	/**
+	 * The constructor method to create a cache that only limits the number of
+	 * layouts.
+	 *
+	 * @param cap The largest number of layouts to keep
+	 */
+	public RoomTemplateCache(int cap) {
+		this(cap, Long.MAX_VALUE);
+	}
+
+	/**
+	 * The constructor method to create a cache that limits both the number of
+	 * layouts and their total number of cells.
+	 *
+	 * @param cap The largest number of layouts to keep
+	 * @param cellLimit The largest number of cells to keep across all of the
+	 * layouts
+	 */
+	public RoomTemplateCache(int cap, long cellLimit) {
+		capacity = cap;
+		maxCells = cellLimit;
+	}
+
+	/**
+	 * The method used to get the cache that is shared by every room.
+	 *
+	 * @return The shared cache
+	 */
+	public static RoomTemplateCache shared() {
+		return SHARED;
+	}
+
+	/**
+	 * The method used to get the layout of a room based on the name of the
+	 * room.
+	 *
+	 * @param roomName The name of the room file without its location and file
+	 * type
+	 * @return The layout of the room
+	 * @throws IOException If the room file could not be read or is not a valid
+	 * room file
+	 */
+	public RoomLayout get(String roomName) throws IOException {
+		return get(RoomLoader.roomFile(roomName));
+	}
+
+	/**
+	 * The method used to get the layout of a room file, loading it if it is
+	 * not cached or if the file has changed since it was cached.
+	 *
+	 * @param file The room file
+	 * @return The layout of the room
+	 * @throws IOException If the room file could not be read or is not a valid
+	 * room file
+	 */
+	public RoomLayout get(File file) throws IOException {
+		String key = file.getPath();
+		long modified = file.lastModified();
+		long length = file.length();
+		synchronized (this) {
+			Entry entry = entries.get(key);
+			if (entry != null && entry.modified == modified && entry.length == length) {
+				hits++;
+				return entry.layout;
+			}
+			misses++;
+		}
+
+		// Load the file without holding the lock, so that other rooms can be
+		// read from the cache in the meantime
+		RoomLayout layout = RoomLoader.load(file);
+		synchronized (this) {
+			Entry old = entries.remove(key);
+			if (old != null) {
+				cells -= old.cells;
+			}
+			Entry entry = new Entry(layout, modified, length);
+			if (entry.cells <= maxCells) {
+				entries.put(key, entry);
+				cells += entry.cells;
+				trim();
+			}
+		}
+		return layout;
+	}
+
+	/**
+	 * The method used to remove the layout of a room from the cache.
+	 *
+	 * @param roomName The name of the room file without its location and file
+	 * type
+	 */
+	public synchronized void invalidate(String roomName) {
+		Entry entry = entries.remove(RoomLoader.roomFile(roomName).getPath());
+		if (entry != null) {
+			cells -= entry.cells;
+		}
+	}
+
+	/**
+	 * The method used to remove every layout from the cache.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		cells = 0;
+	}
+
+	/**
+	 * The method used to change the largest number of layouts to keep,
+	 * evicting the least recently used layouts if there are too many.
+	 *
+	 * @param cap The largest number of layouts to keep
+	 */
+	public synchronized void setCapacity(int cap) {
+		capacity = cap;
+		trim();
+	}
+
+	/**
+	 * The method used to change the largest number of cells to keep across all
+	 * of the layouts, evicting the least recently used layouts if there are
+	 * too many.
+	 *
+	 * @param cellLimit The largest number of cells to keep
+	 */
+	public synchronized void setMaxCells(long cellLimit) {
+		maxCells = cellLimit;
+		trim();
+	}
+
+	/**
+	 * The method used to evict the least recently used layouts until the
+	 * cache is within both of its limits. The lock must be held.
+	 */
+	private void trim() {
+		Iterator<Entry> eldest = entries.values().iterator();
+		while (entries.size() > capacity || cells > maxCells) {
+			cells -= eldest.next().cells;
+			eldest.remove();
+			evictions++;
+		}
+	}
+
+	/**
+	 * The method used to get the number of cells of the layouts that are
+	 * cached.
+	 *
+	 * @return The number of cached cells
+	 */
+	public synchronized long getCells() {
+		return cells;
+	}
+
+	/**
+	 * The method used to get the number of layouts that are cached.
+	 *
+	 * @return The number of cached layouts
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * The method used to get the number of times a layout was already cached.
+	 *
+	 * @return The number of cache hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * The method used to get the number of times a layout had to be loaded.
+	 *
+	 * @return The number of cache misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * The method used to get the number of layouts that have been evicted.
+	 *
+	 * @return The number of evictions
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * A cached layout, along with the state of its file when it was loaded.
+	 */
+	private static final class Entry {
+
+		private final RoomLayout layout;	// The layout of the room
+		private final long modified;	// The modification time of the file
+		private final long length;	// The size of the file
+		private final long cells;	// The number of cells held by the layout
+
+		/**
+		 * The constructor method to create the entry.
+		 *
+		 * @param l The layout of the room
+		 * @param m The modification time of the file
+		 * @param len The size of the file
+		 */
+		private Entry(RoomLayout l, long m, long len) {
+			layout = l;
+			modified = m;
+			length = len;
+			cells = l.cells().length;
+		}
+	}
+}
@@ -0,0 +1,359 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * The RoomValidator class checks that rooms can be played: that they have a
+ * spawn point inside the room on an empty position, that they have no
+ * unknown objects, and that a portal can be reached from the spawn point.
+ *
+ * Reachability is found with a scanline flood fill that marks the visited
+ * positions in a BitSet, so a 10000 by 10000 room needs about 12 MiB on top
+ * of its layout, and the fill stops as soon as it finds a portal.
+ *
+ * @author Christopher Wells
+ */
+public final class RoomValidator {
+
+	private static final byte EMPTY_CODE = Tiles.encode(Tiles.EMPTY);	// The compact code of an empty position
+	private static final byte PORTAL_CODE = Tiles.encode(Tiles.PORTAL);	// The compact code of a portal
+
+	/**
+	 * RoomValidator only holds static methods, so it is not meant to be
+	 * constructed.
+	 */
+	private RoomValidator() {
+	}
+
+	/**
+	 * The method that is run when the validator starts. Each argument is a
+	 * room file or a directory of them, and with no arguments the rooms
+	 * directory is checked. The rooms are checked in parallel, and the exit
+	 * status is 1 if any room is invalid.
+	 *
+	 * @param args The room files and directories to check
+	 * @throws IOException If a directory could not be listed
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			args = new String[]{RoomLoader.ROOM_DIRECTORY};
+		}
+		List<File> files = new ArrayList<>();
+		for (String arg : args) {
+			File file = new File(arg);
+			if (file.isDirectory()) {
+				files.addAll(roomFiles(file));
+			} else {
+				files.add(file);
+			}
+		}
+		boolean valid = true;
+		for (ValidationReport report : validateFiles(files, Runtime.getRuntime().availableProcessors())) {
+			System.out.println(report);
+			valid &= report.isValid();
+		}
+		if (!valid) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * The method used to check every room of a game, in the order they are
+	 * played. The layouts are loaded through the shared RoomTemplateCache, so
+	 * the game does not read them again.
+	 *
+	 * @param rooms The names of the rooms
+	 * @return The report of each room
+	 */
+	public static List<ValidationReport> validateRooms(String[] rooms) {
+		return validateSources(FileRoomSource.named(rooms));
+	}
+
+	/**
+	 * The method used to check the room from each of a list of sources, in
+	 * order.
+	 *
+	 * @param sources The sources of the rooms
+	 * @return The report of each room
+	 */
+	public static List<ValidationReport> validateSources(RoomSource[] sources) {
+		List<ValidationReport> reports = new ArrayList<>(sources.length);
+		for (RoomSource source : sources) {
+			try {
+				reports.add(validate(source.getName(), source.getLayout()));
+			} catch (IOException e) {
+				ValidationReport report = new ValidationReport(source.getName());
+				report.addProblem("Invalid room file: " + e.getMessage());
+				reports.add(report);
+			}
+		}
+		return reports;
+	}
+
+	/**
+	 * The method used to check every room file in a directory.
+	 *
+	 * @param directory The directory of text and binary room files
+	 * @param parallelism The number of rooms to check at once, which also
+	 * limits how many layouts are in memory at once
+	 * @return The report of each room file, in order of their names
+	 * @throws IOException If the directory could not be listed
+	 */
+	public static List<ValidationReport> validateDirectory(File directory, int parallelism) throws IOException {
+		return validateFiles(roomFiles(directory), parallelism);
+	}
+
+	/**
+	 * The method used to check a list of room files in parallel.
+	 *
+	 * @param files The room files
+	 * @param parallelism The number of rooms to check at once
+	 * @return The report of each room file, in the same order as the files
+	 */
+	public static List<ValidationReport> validateFiles(List<File> files, int parallelism) {
+		List<Callable<ValidationReport>> tasks = new ArrayList<>(files.size());
+		for (final File file : files) {
+			tasks.add(new Callable<ValidationReport>() {
+				@Override
+				public ValidationReport call() {
+					return validate(file);
+				}
+			});
+		}
+		ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+		try {
+			List<ValidationReport> reports = new ArrayList<>(files.size());
+			for (Future<ValidationReport> future : pool.invokeAll(tasks)) {
+				reports.add(future.get());
+			}
+			return reports;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while validating rooms.", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Could not validate rooms.", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * The method used to check a single room file.
+	 *
+	 * @param file The room file
+	 * @return The report of the room
+	 */
+	public static ValidationReport validate(File file) {
+		try {
+			return validate(file.getName(), RoomLoader.load(file));
+		} catch (IOException e) {
+			ValidationReport report = new ValidationReport(file.getName());
+			report.addProblem("Invalid room file: " + e.getMessage());
+			return report;
+		}
+	}
+
+	/**
+	 * The method used to check the layout of a room.
+	 *
+	 * @param name The name of the room, used in the report
+	 * @param layout The layout of the room
+	 * @return The report of the room
+	 */
+	public static ValidationReport validate(String name, RoomLayout layout) {
+		ValidationReport report = new ValidationReport(name);
+		int rows = layout.getRows();
+		int columns = layout.getColumns();
+		byte[] cells = layout.cells();
+
+		if (layout.hasUnknown()) {
+			long count = 0;
+			int first = -1;
+			for (int i = 0; i < rows * columns; i++) {
+				if (cells[i] == Tiles.UNKNOWN_CODE) {
+					if (first == -1) {
+						first = i;
+					}
+					count++;
+				}
+			}
+			report.addProblem(count + " unknown objects, the first at " + formatIndex(first, columns) + ".");
+		}
+
+		int spawnRow = layout.getSpawnRow();
+		int spawnColumn = layout.getSpawnColumn();
+		if (spawnRow == -1) {
+			report.addProblem("No spawn position.");
+		} else if (spawnRow < 0 || spawnRow >= rows || spawnColumn < 0 || spawnColumn >= columns) {
+			report.addProblem("Spawn position (" + spawnRow + ", " + spawnColumn + ") is outside of the room.");
+		} else if (cells[spawnRow * columns + spawnColumn] != EMPTY_CODE) {
+			report.addProblem("Spawn position (" + spawnRow + ", " + spawnColumn + ") is not empty.");
+		} else if (!fillToPortal(layout, report)) {
+			if (hasPortal(cells, rows * columns)) {
+				report.addProblem("No portal can be reached from the spawn position.");
+			} else {
+				report.addProblem("No portal in the room.");
+			}
+		}
+		return report;
+	}
+
+	/**
+	 * The method used to flood fill the room from the spawn point until a
+	 * portal is found. Each run of empty positions along a row is filled at
+	 * once, and only the start of each run above and below it is kept to be
+	 * filled later.
+	 *
+	 * @param layout The layout of the room
+	 * @param report The report that the number of reached positions is
+	 * recorded in
+	 * @return Whether a portal was reached
+	 */
+	private static boolean fillToPortal(RoomLayout layout, ValidationReport report) {
+		int rows = layout.getRows();
+		int columns = layout.getColumns();
+		byte[] cells = layout.cells();
+		BitSet visited = new BitSet(rows * columns);
+		int[] stack = new int[64];
+		int size = 0;
+		long reached = 0;
+		stack[size++] = layout.getSpawnRow() * columns + layout.getSpawnColumn();
+
+		while (size > 0) {
+			int index = stack[--size];
+			if (visited.get(index)) {
+				continue;
+			}
+			int r = index / columns;
+			int rowStart = r * columns;
+			int rowEnd = rowStart + columns - 1;
+
+			// Extend the run as far left and right as it goes
+			int left = index;
+			while (left > rowStart && cells[left - 1] == EMPTY_CODE && !visited.get(left - 1)) {
+				left--;
+			}
+			int right = index;
+			while (right < rowEnd && cells[right + 1] == EMPTY_CODE && !visited.get(right + 1)) {
+				right++;
+			}
+			visited.set(left, right + 1);
+			reached += right - left + 1;
+			if ((left > rowStart && cells[left - 1] == PORTAL_CODE)
+					|| (right < rowEnd && cells[right + 1] == PORTAL_CODE)) {
+				report.setReachedCells(reached);
+				return true;
+			}
+
+			// Keep the start of each run of empty positions in the rows above
+			// and below
+			for (int offset = -columns; offset <= columns; offset += 2 * columns) {
+				if ((offset < 0 && r == 0) || (offset > 0 && r == rows - 1)) {
+					continue;
+				}
+				boolean inRun = false;
+				for (int i = left + offset; i <= right + offset; i++) {
+					byte code = cells[i];
+					if (code == PORTAL_CODE) {
+						report.setReachedCells(reached);
+						return true;
+					}
+					boolean open = code == EMPTY_CODE && !visited.get(i);
+					if (open && !inRun) {
+						if (size == stack.length) {
+							stack = Arrays.copyOf(stack, size * 2);
+						}
+						stack[size++] = i;
+					}
+					inRun = open;
+				}
+			}
+		}
+		report.setReachedCells(reached);
+		return false;
+	}
+
+	/**
+	 * The method used to check whether a room has any portals.
+	 *
+	 * @param cells The compact codes of the room
+	 * @param count The number of positions in the room
+	 * @return Whether any position holds a portal
+	 */
+	private static boolean hasPortal(byte[] cells, int count) {
+		for (int i = 0; i < count; i++) {
+			if (cells[i] == PORTAL_CODE) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * The method used to list the room files in a directory, in order of
+	 * their names.
+	 *
+	 * @param directory The directory
+	 * @return The text and binary room files in the directory
+	 * @throws IOException If the directory could not be listed
+	 */
+	private static List<File> roomFiles(File directory) throws IOException {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			throw new IOException("Could not list the directory " + directory + ".");
+		}
+		Arrays.sort(files);
+		List<File> rooms = new ArrayList<>();
+		for (File file : files) {
+			String name = file.getName();
+			if (name.endsWith(RoomLoader.ROOM_EXTENSION) || name.endsWith(RoomLoader.BINARY_EXTENSION)) {
+				rooms.add(file);
+			}
+		}
+		return rooms;
+	}
+
+	/**
+	 * The method used to format a position given by its index in row-major
+	 * order.
+	 *
+	 * @param index The index of the position
+	 * @param columns The number of columns of the room
+	 * @return The position expressed as a set of coordinates
+	 */
+	private static String formatIndex(int index, int columns) {
+		return "(" + index / columns + ", " + index % columns + ")";
+	}
+}
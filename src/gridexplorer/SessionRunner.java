@@ -0,0 +1,176 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The SessionRunner class plays many independent game sessions at once on a
+ * fork-join pool. Each session is its own Game with its own output, and the
+ * outcomes are combined into SessionStats without the workers sharing any
+ * state while they play.
+ *
+ * @author Christopher Wells
+ */
+public class SessionRunner {
+
+	/**
+	 * The number of sessions that a worker plays without splitting them up
+	 * any further.
+	 */
+	private static final int SESSIONS_PER_TASK = 8;
+
+	private final ForkJoinPool pool;	// The pool that plays the sessions
+	private final String[] rooms;	// The rooms of each game, in the order they are used in
+	private Sinks sinks;	// Creates the output of each session, or null for headless sessions
+
+	/**
+	 * The constructor method to create a runner that uses every processor.
+	 *
+	 * @param rooms A string array of the rooms used in each game in the order
+	 * they will be used in
+	 */
+	public SessionRunner(String[] rooms) {
+		this(rooms, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * The constructor method to create a runner with a given number of worker
+	 * threads.
+	 *
+	 * @param rooms A string array of the rooms used in each game in the order
+	 * they will be used in
+	 * @param parallelism The number of worker threads
+	 */
+	public SessionRunner(String[] rooms, int parallelism) {
+		this.rooms = rooms;
+		pool = new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * The method used to give each session its own output instead of playing
+	 * it headless.
+	 *
+	 * @param sessionSinks Creates the output of each session, or null for
+	 * headless sessions
+	 */
+	public void setSinks(Sinks sessionSinks) {
+		sinks = sessionSinks;
+	}
+
+	/**
+	 * The method used to play a session for each sequence of moves and combine
+	 * their outcomes.
+	 *
+	 * @param sessions The keys of the moves of each session
+	 * @return The combined outcomes of the sessions
+	 */
+	public SessionStats run(List<char[]> sessions) {
+		return pool.invoke(new SessionTask(sessions, 0, sessions.size()));
+	}
+
+	/**
+	 * The method used to stop the worker threads once the runner is no longer
+	 * needed.
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	/**
+	 * The method used to play a single session, closing its game once it has
+	 * been played.
+	 *
+	 * @param index The index of the session
+	 * @param moves The keys of the moves of the session
+	 * @return The outcome of the session
+	 */
+	private SimulationResult play(int index, char[] moves) {
+		PrintStream out = sinks == null ? null : sinks.sinkFor(index);
+		try (Game game = new Game(rooms, out)) {
+			return Simulation.run(game, moves);
+		}
+	}
+
+	/**
+	 * The Sinks interface creates the output of each session.
+	 */
+	public interface Sinks {
+
+		/**
+		 * The method used to create the output of a session.
+		 *
+		 * @param session The index of the session
+		 * @return The stream that the session is displayed on, or null for a
+		 * headless session
+		 */
+		PrintStream sinkFor(int session);
+	}
+
+	/**
+	 * A task that plays a range of the sessions, splitting the range in half
+	 * until it is small enough to play directly.
+	 */
+	private final class SessionTask extends RecursiveTask<SessionStats> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<char[]> sessions;	// The keys of the moves of every session
+		private final int start;	// The index of the first session of the range
+		private final int end;	// The index after the last session of the range
+
+		/**
+		 * The constructor method to create the task.
+		 *
+		 * @param s The keys of the moves of every session
+		 * @param first The index of the first session of the range
+		 * @param last The index after the last session of the range
+		 */
+		private SessionTask(List<char[]> s, int first, int last) {
+			sessions = s;
+			start = first;
+			end = last;
+		}
+
+		@Override
+		protected SessionStats compute() {
+			if (end - start <= SESSIONS_PER_TASK) {
+				SessionStats stats = new SessionStats();
+				for (int i = start; i < end; i++) {
+					stats.add(play(i, sessions.get(i)));
+				}
+				return stats;
+			}
+			int middle = (start + end) >>> 1;
+			SessionTask right = new SessionTask(sessions, middle, end);
+			right.fork();
+			SessionStats stats = new SessionTask(sessions, start, middle).compute();
+			stats.merge(right.join());
+			return stats;
+		}
+	}
+}
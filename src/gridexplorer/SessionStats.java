@@ -0,0 +1,183 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+/**
+ * The SessionStats class holds the combined outcomes of many simulated game
+ * sessions. Each worker of a SessionRunner fills its own SessionStats, and
+ * they are merged once the workers finish, so recording an outcome never
+ * waits on another thread.
+ *
+ * @author Christopher Wells
+ */
+public class SessionStats {
+
+	private long sessions;	// The number of sessions played
+	private long completed;	// The number of sessions where the player won
+	private long quit;	// The number of sessions where the player quit
+	private long steps;	// The total number of moves made
+	private long blocked;	// The total number of moves into an object, such as a wall
+	private long outOfBounds;	// The total number of moves outside of a room
+	private long invalid;	// The total number of moves that were not valid moves
+	private long portals;	// The total number of portals that players went through
+	private long stepsToLastPortal;	// The total of the moves made when players last went through a portal
+
+	/**
+	 * The method used to add the outcome of a single session.
+	 *
+	 * @param result The outcome of the session
+	 */
+	void add(SimulationResult result) {
+		sessions++;
+		if (result.isWon()) {
+			completed++;
+		}
+		if (result.isQuit()) {
+			quit++;
+		}
+		steps += result.getSteps();
+		blocked += result.getBlocked();
+		outOfBounds += result.getOutOfBounds();
+		invalid += result.getInvalid();
+		portals += result.getPortals();
+		stepsToLastPortal += result.getStepsToLastPortal();
+	}
+
+	/**
+	 * The method used to add the outcomes of another set of sessions.
+	 *
+	 * @param other The outcomes to add
+	 */
+	void merge(SessionStats other) {
+		sessions += other.sessions;
+		completed += other.completed;
+		quit += other.quit;
+		steps += other.steps;
+		blocked += other.blocked;
+		outOfBounds += other.outOfBounds;
+		invalid += other.invalid;
+		portals += other.portals;
+		stepsToLastPortal += other.stepsToLastPortal;
+	}
+
+	/**
+	 * The method used to get the number of sessions that were played.
+	 *
+	 * @return The number of sessions
+	 */
+	public long getSessions() {
+		return sessions;
+	}
+
+	/**
+	 * The method used to get the number of sessions where the player won.
+	 *
+	 * @return The number of completed sessions
+	 */
+	public long getCompleted() {
+		return completed;
+	}
+
+	/**
+	 * The method used to get the fraction of sessions where the player won.
+	 *
+	 * @return The completion rate, from 0 to 1
+	 */
+	public double getCompletionRate() {
+		return sessions == 0 ? 0 : (double) completed / sessions;
+	}
+
+	/**
+	 * The method used to get the number of sessions where the player quit.
+	 *
+	 * @return The number of quit sessions
+	 */
+	public long getQuit() {
+		return quit;
+	}
+
+	/**
+	 * The method used to get the total number of moves made.
+	 *
+	 * @return The number of moves
+	 */
+	public long getSteps() {
+		return steps;
+	}
+
+	/**
+	 * The method used to get the total number of moves into an object, such as
+	 * a wall.
+	 *
+	 * @return The number of blocked moves
+	 */
+	public long getBlocked() {
+		return blocked;
+	}
+
+	/**
+	 * The method used to get the total number of moves outside of a room.
+	 *
+	 * @return The number of moves out of bounds
+	 */
+	public long getOutOfBounds() {
+		return outOfBounds;
+	}
+
+	/**
+	 * The method used to get the total number of moves that were not valid
+	 * moves.
+	 *
+	 * @return The number of invalid moves
+	 */
+	public long getInvalid() {
+		return invalid;
+	}
+
+	/**
+	 * The method used to get the total number of portals that players went
+	 * through.
+	 *
+	 * @return The number of portals
+	 */
+	public long getPortals() {
+		return portals;
+	}
+
+	/**
+	 * The method used to get the average number of moves that it took to reach
+	 * each portal.
+	 *
+	 * @return The average moves per portal, or 0 if no portals were reached
+	 */
+	public double getAverageStepsToPortal() {
+		return portals == 0 ? 0 : (double) stepsToLastPortal / portals;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("sessions=%d completed=%.1f%% steps=%d blocked=%d outOfBounds=%d invalid=%d stepsToPortal=%.1f",
+				sessions, getCompletionRate() * 100, steps, blocked, outOfBounds, invalid, getAverageStepsToPortal());
+	}
+}
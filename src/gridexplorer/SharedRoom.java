@@ -0,0 +1,253 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The SharedRoom class is a room that many players can move around at once,
+ * each on their own thread. Every change to the grid claims its position with
+ * a compare and set, so two players can never end up in the same position and
+ * an object is only removed if it is still there, without a lock around the
+ * room.
+ *
+ * @author Christopher Wells
+ */
+public class SharedRoom {
+
+	private final AtomicGridStorage grid;	// A grid of the objects that are within the room
+	private final int spawnRow;	// The row of the player spawn point
+	private final int spawnColumn;	// The column of the player spawn point
+	private final AtomicInteger players = new AtomicInteger();	// The number of players in the room
+
+	/**
+	 * The constructor method to create a shared room from a room layout.
+	 *
+	 * @param layout The layout of the room
+	 */
+	public SharedRoom(RoomLayout layout) {
+		this(AtomicGridStorage.copyOf(layout), layout.getSpawnRow(), layout.getSpawnColumn());
+	}
+
+	/**
+	 * The constructor method to create a shared room from a source of rooms.
+	 *
+	 * @param source The source of the room
+	 * @throws IOException If the room could not be loaded
+	 */
+	public SharedRoom(RoomSource source) throws IOException {
+		this(source.getLayout());
+	}
+
+	/**
+	 * The constructor method to create a shared room on top of a grid. Any
+	 * objects already in the grid are kept.
+	 *
+	 * @param storage The grid of the room
+	 * @param sr The row of the player spawn point
+	 * @param sc The column of the player spawn point
+	 */
+	public SharedRoom(AtomicGridStorage storage, int sr, int sc) {
+		grid = storage;
+		spawnRow = sr;
+		spawnColumn = sc;
+	}
+
+	/**
+	 * The method used to add a player to the room, at the spawn point if it is
+	 * empty or else at the nearest empty position to it.
+	 *
+	 * @return The handle that moves the player, or null if there is no empty
+	 * position left
+	 */
+	public PlayerHandle join() {
+		int rows = grid.getRows();
+		int columns = grid.getColumns();
+		int rings = Math.max(Math.max(spawnRow, rows - 1 - spawnRow), Math.max(spawnColumn, columns - 1 - spawnColumn));
+		for (int ring = 0; ring <= rings; ring++) {
+			for (int r = spawnRow - ring; r <= spawnRow + ring; r++) {
+				// Only the edge of the square is new in each ring
+				int step = r == spawnRow - ring || r == spawnRow + ring ? 1 : Math.max(2 * ring, 1);
+				for (int c = spawnColumn - ring; c <= spawnColumn + ring; c += step) {
+					if (hasPos(r, c) && grid.compareAndSet(r, c, Tiles.EMPTY, Tiles.PLAYER)) {
+						players.incrementAndGet();
+						return new PlayerHandle(this, r, c);
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The method used to check if a position exists within the room.
+	 *
+	 * @param r The row of the position
+	 * @param c The column of the position
+	 * @return Whether the position is within the room
+	 */
+	public boolean hasPos(int r, int c) {
+		return r >= 0 && c >= 0 && r < grid.getRows() && c < grid.getColumns();
+	}
+
+	/**
+	 * The method used to get the object at a position.
+	 *
+	 * @param r The row of the position
+	 * @param c The column of the position
+	 * @return The object at the position
+	 */
+	public int objectAt(int r, int c) {
+		return grid.get(r, c);
+	}
+
+	/**
+	 * The method used to add an object to a position, only if the position is
+	 * empty. Players can only be added by joining the room.
+	 *
+	 * @param r The row of the position
+	 * @param c The column of the position
+	 * @param id The integer identifier of the object to be added
+	 * @return Whether the object was added
+	 * @throws IllegalArgumentException If the object is a player
+	 */
+	public boolean addObject(int r, int c, int id) {
+		checkNotPlayer(id);
+		return hasPos(r, c) && grid.compareAndSet(r, c, Tiles.EMPTY, id);
+	}
+
+	/**
+	 * The method used to remove an object from a position, only if that object
+	 * is still there. Players can only be removed by leaving the room.
+	 *
+	 * @param r The row of the position
+	 * @param c The column of the position
+	 * @param id The integer identifier of the object to be removed
+	 * @return Whether the object was removed
+	 * @throws IllegalArgumentException If the object is a player
+	 */
+	public boolean removeObject(int r, int c, int id) {
+		checkNotPlayer(id);
+		return hasPos(r, c) && grid.compareAndSet(r, c, id, Tiles.EMPTY);
+	}
+
+	/**
+	 * The method used to reject a player being added or removed as an object.
+	 * Each player owns the position it is at, which is what lets a move free
+	 * its old position without a compare and set, so only the PlayerHandle of
+	 * a player may change that position.
+	 *
+	 * @param id The integer identifier of the object
+	 * @throws IllegalArgumentException If the object is a player
+	 */
+	private static void checkNotPlayer(int id) {
+		if (id == Tiles.PLAYER) {
+			throw new IllegalArgumentException("Players can only join and leave the room through a PlayerHandle.");
+		}
+	}
+
+	/**
+	 * The method used to move a player one step, claiming the new position
+	 * before giving up the old one.
+	 *
+	 * @param handle The player to move
+	 * @param d The direction to move the player in
+	 * @return What happened when the move was made
+	 */
+	MoveResult move(PlayerHandle handle, Direction d) {
+		int r = handle.getRow();
+		int c = handle.getColumn();
+		int nr = r + d.getRowDelta();
+		int nc = c + d.getColumnDelta();
+		if (!hasPos(nr, nc)) {
+			return MoveResult.OUT_OF_BOUNDS;
+		}
+		while (true) {
+			int id = grid.get(nr, nc);
+			if (id == Tiles.EMPTY) {
+				if (grid.compareAndSet(nr, nc, Tiles.EMPTY, Tiles.PLAYER)) {
+					// Only this player can be at its old position, so it is freed
+					// without a compare and set
+					grid.set(r, c, Tiles.EMPTY);
+					handle.moveTo(nr, nc);
+					return MoveResult.MOVED;
+				}
+				// Another thread changed the position first, so look at it again
+			} else if (id == Tiles.PORTAL) {
+				leave(handle);
+				return MoveResult.PORTAL;
+			} else {
+				return MoveResult.BLOCKED;
+			}
+		}
+	}
+
+	/**
+	 * The method used to remove a player from the room.
+	 *
+	 * @param handle The player to remove
+	 */
+	void leave(PlayerHandle handle) {
+		grid.set(handle.getRow(), handle.getColumn(), Tiles.EMPTY);
+		handle.left();
+		players.decrementAndGet();
+	}
+
+	/**
+	 * The method used to get the number of players in the room.
+	 *
+	 * @return The number of players
+	 */
+	public int getPlayers() {
+		return players.get();
+	}
+
+	/**
+	 * The method used to get the grid of the room.
+	 *
+	 * @return The grid of the room
+	 */
+	public AtomicGridStorage getStorage() {
+		return grid;
+	}
+
+	/**
+	 * The method used to get the row of the player spawn point.
+	 *
+	 * @return The row of the spawn point
+	 */
+	public int getSpawnRow() {
+		return spawnRow;
+	}
+
+	/**
+	 * The method used to get the column of the player spawn point.
+	 *
+	 * @return The column of the spawn point
+	 */
+	public int getSpawnColumn() {
+		return spawnColumn;
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * The Simulation class plays headless games through sequences of moves
+ * without reading from the console or displaying anything, so that level
+ * designs can be tested with large numbers of moves. Each move is one of the
+ * keys used by Game.move, and whitespace between moves is skipped.
+ *
+ * @author Christopher Wells
+ */
+public final class Simulation {
+
+	/**
+	 * Simulation only holds static methods, so it is not meant to be
+	 * constructed.
+	 */
+	private Simulation() {
+	}
+
+	/**
+	 * The method used to play a new headless game through a sequence of moves.
+	 * The game is closed once it has been played.
+	 *
+	 * @param rooms A string array of the rooms used in the game in the order
+	 * they will be used in
+	 * @param moves The keys of the moves to make
+	 * @return The outcome of the game
+	 */
+	public static SimulationResult run(String[] rooms, char[] moves) {
+		try (Game game = Game.headless(rooms)) {
+			return run(game, moves);
+		}
+	}
+
+	/**
+	 * The method used to play a game through a sequence of moves, stopping
+	 * early if the game finishes. The game is left open for the caller.
+	 *
+	 * @param game The game to play
+	 * @param moves The keys of the moves to make
+	 * @return The outcome of the game
+	 */
+	public static SimulationResult run(Game game, char[] moves) {
+		SimulationResult result = new SimulationResult();
+		for (int i = 0; i < moves.length && game.isPlaying(); i++) {
+			if (!Character.isWhitespace(moves[i])) {
+				result.record(game.move(moves[i]));
+			}
+		}
+		result.finish(game);
+		return result;
+	}
+
+	/**
+	 * The method used to play a game through the moves given by an iterator,
+	 * stopping early if the game finishes.
+	 *
+	 * @param game The game to play
+	 * @param moves The keys of the moves to make
+	 * @return The outcome of the game
+	 */
+	public static SimulationResult run(Game game, Iterator<Character> moves) {
+		SimulationResult result = new SimulationResult();
+		while (moves.hasNext() && game.isPlaying()) {
+			char key = moves.next();
+			if (!Character.isWhitespace(key)) {
+				result.record(game.move(key));
+			}
+		}
+		result.finish(game);
+		return result;
+	}
+
+	/**
+	 * The method used to play a game through the moves read from a reader,
+	 * stopping early if the game finishes.
+	 *
+	 * @param game The game to play
+	 * @param moves The reader of the keys of the moves to make
+	 * @return The outcome of the game
+	 * @throws IOException If the moves could not be read
+	 */
+	public static SimulationResult run(Game game, Reader moves) throws IOException {
+		SimulationResult result = new SimulationResult();
+		char[] buffer = new char[8192];
+		int length;
+		while (game.isPlaying() && (length = moves.read(buffer)) != -1) {
+			for (int i = 0; i < length && game.isPlaying(); i++) {
+				if (!Character.isWhitespace(buffer[i])) {
+					result.record(game.move(buffer[i]));
+				}
+			}
+		}
+		result.finish(game);
+		return result;
+	}
+
+	/**
+	 * The method used to play a game through the moves in a file, stopping
+	 * early if the game finishes.
+	 *
+	 * @param game The game to play
+	 * @param movesFile The file of the keys of the moves to make
+	 * @return The outcome of the game
+	 * @throws IOException If the file could not be read
+	 */
+	public static SimulationResult run(Game game, File movesFile) throws IOException {
+		try (Reader moves = new BufferedReader(new InputStreamReader(new FileInputStream(movesFile), StandardCharsets.UTF_8))) {
+			return run(game, moves);
+		}
+	}
+}
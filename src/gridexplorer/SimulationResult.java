@@ -0,0 +1,209 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+/**
+ * The SimulationResult class holds the outcome of playing a headless game
+ * through a sequence of moves.
+ *
+ * @author Christopher Wells
+ */
+public class SimulationResult {
+
+	private long steps;	// The number of moves that were made
+	private long moved;	// The number of moves where the player moved
+	private long blocked;	// The number of moves into an object, such as a wall
+	private long outOfBounds;	// The number of moves outside of the room
+	private long invalid;	// The number of moves that were not valid moves
+	private int portals;	// The number of portals that the player went through
+	private long stepsToLastPortal;	// The number of moves made when the player last went through a portal
+	private boolean won;	// Whether the player went through the portal of the last room
+	private boolean quit;	// Whether the player quit the game
+	private int roomIndex;	// The index of the room that the game finished in
+	private int playerRow = -1;	// The final row of the player, or -1 if the game was won
+	private int playerColumn = -1;	// The final column of the player, or -1 if the game was won
+
+	/**
+	 * The method used to count the outcome of a single move.
+	 *
+	 * @param result What happened when the move was made
+	 */
+	void record(MoveResult result) {
+		steps++;
+		switch (result) {
+			case MOVED:
+				moved++;
+				break;
+			case BLOCKED:
+				blocked++;
+				break;
+			case OUT_OF_BOUNDS:
+				outOfBounds++;
+				break;
+			case PORTAL:
+				portals++;
+				stepsToLastPortal = steps;
+				break;
+			case QUIT:
+				quit = true;
+				break;
+			default:
+				invalid++;
+				break;
+		}
+	}
+
+	/**
+	 * The method used to record the state of the game once the moves have
+	 * been made.
+	 *
+	 * @param game The game that was played
+	 */
+	void finish(Game game) {
+		roomIndex = game.getRoomIndex();
+		won = !quit && !game.isPlaying();
+		if (!won) {
+			playerRow = game.getCurrentRoom().getPlayerRow();
+			playerColumn = game.getCurrentRoom().getPlayerColumn();
+		}
+	}
+
+	/**
+	 * The method used to get the number of moves that were made.
+	 *
+	 * @return The number of moves
+	 */
+	public long getSteps() {
+		return steps;
+	}
+
+	/**
+	 * The method used to get the number of moves where the player moved.
+	 *
+	 * @return The number of successful moves
+	 */
+	public long getMoved() {
+		return moved;
+	}
+
+	/**
+	 * The method used to get the number of moves into an object, such as a
+	 * wall.
+	 *
+	 * @return The number of blocked moves
+	 */
+	public long getBlocked() {
+		return blocked;
+	}
+
+	/**
+	 * The method used to get the number of moves outside of the room.
+	 *
+	 * @return The number of moves out of bounds
+	 */
+	public long getOutOfBounds() {
+		return outOfBounds;
+	}
+
+	/**
+	 * The method used to get the number of moves that were not valid moves.
+	 *
+	 * @return The number of invalid moves
+	 */
+	public long getInvalid() {
+		return invalid;
+	}
+
+	/**
+	 * The method used to get the number of portals that the player went
+	 * through.
+	 *
+	 * @return The number of portals
+	 */
+	public int getPortals() {
+		return portals;
+	}
+
+	/**
+	 * The method used to get the number of moves that had been made when the
+	 * player last went through a portal.
+	 *
+	 * @return The number of moves to the last portal, or 0 if there was none
+	 */
+	public long getStepsToLastPortal() {
+		return stepsToLastPortal;
+	}
+
+	/**
+	 * The method used to check whether the player won the game.
+	 *
+	 * @return Whether the player went through the portal of the last room
+	 */
+	public boolean isWon() {
+		return won;
+	}
+
+	/**
+	 * The method used to check whether the player quit the game.
+	 *
+	 * @return Whether the player quit
+	 */
+	public boolean isQuit() {
+		return quit;
+	}
+
+	/**
+	 * The method used to get the index of the room that the game finished in.
+	 *
+	 * @return The index of the final room
+	 */
+	public int getRoomIndex() {
+		return roomIndex;
+	}
+
+	/**
+	 * The method used to get the final row of the player.
+	 *
+	 * @return The row of the player, or -1 if the game was won
+	 */
+	public int getPlayerRow() {
+		return playerRow;
+	}
+
+	/**
+	 * The method used to get the final column of the player.
+	 *
+	 * @return The column of the player, or -1 if the game was won
+	 */
+	public int getPlayerColumn() {
+		return playerColumn;
+	}
+
+	@Override
+	public String toString() {
+		return "steps=" + steps + " moved=" + moved + " blocked=" + blocked
+				+ " outOfBounds=" + outOfBounds + " invalid=" + invalid
+				+ " portals=" + portals + " room=" + roomIndex + " won=" + won;
+	}
+}
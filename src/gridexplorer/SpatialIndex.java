@@ -0,0 +1,409 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.util.Arrays;
+
+/**
+ * The SpatialIndex class finds the entities of an EntityStore by position. The
+ * room is divided into square buckets of positions, and the entities are
+ * sorted by bucket into slots, so that the entities of each bucket, along with
+ * their positions, are next to each other in memory. Each bucket holds its
+ * entities in order of their index. The slots are sorted again after every
+ * tick with a counting sort, without making any objects.
+ *
+ * Entities added between ticks are kept in a small hash table until the slots
+ * are next sorted, so that adding many entities does not sort them each time.
+ *
+ * @author Christopher Wells
+ */
+public class SpatialIndex {
+
+	static final int BUCKET_SHIFT = 3;	// The log of the width of a bucket, so each bucket is 8 by 8 positions
+
+	private static final int[] NONE = new int[0];	// The array used when only counting entities
+
+	private final EntityStore store;	// The entities that are indexed
+	private final int rows;	// The number of rows of the room
+	private final int columns;	// The number of columns of the room
+	private final int bucketRows;	// The number of rows of buckets
+	private final int bucketColumns;	// The number of buckets in each row of buckets
+	private final int[] starts;	// The first slot of each bucket, followed by the number of slots
+	private int sorted;	// The number of entities in the slots
+	private int[] ids = new int[16];	// The index of the entity in each slot
+	private int[] slotRows = new int[16];	// The row of the entity in each slot
+	private int[] slotColumns = new int[16];	// The column of the entity in each slot
+	private int[] slotOf = new int[16];	// The slot of each entity
+	private long[] addedPositions = new long[16];	// The hash table of the positions of added entities, plus one, or 0 where empty
+	private int[] addedIds = new int[16];	// The index of each added entity in the hash table
+	private int added;	// The number of entities added since the slots were sorted
+
+	/**
+	 * The constructor method to create an empty index for a room.
+	 *
+	 * @param entities The entities that are indexed
+	 * @param r The number of rows of the room
+	 * @param c The number of columns of the room
+	 */
+	SpatialIndex(EntityStore entities, int r, int c) {
+		store = entities;
+		rows = r;
+		columns = c;
+		bucketRows = ((r - 1) >> BUCKET_SHIFT) + 1;
+		bucketColumns = ((c - 1) >> BUCKET_SHIFT) + 1;
+		starts = new int[bucketRows * bucketColumns + 1];
+	}
+
+	/**
+	 * The method used to get the bucket of a position.
+	 *
+	 * @param r The row of the position
+	 * @param c The column of the position
+	 * @return The index of the bucket
+	 */
+	private int bucket(int r, int c) {
+		return (r >> BUCKET_SHIFT) * bucketColumns + (c >> BUCKET_SHIFT);
+	}
+
+	/**
+	 * The method used to add an entity that was added to the store since the
+	 * slots were sorted.
+	 *
+	 * @param i The index of the entity
+	 */
+	void insert(int i) {
+		if ((added + 1) * 2 > addedPositions.length) {
+			long[] oldPositions = addedPositions;
+			int[] oldIds = addedIds;
+			addedPositions = new long[oldPositions.length * 2];
+			addedIds = new int[oldPositions.length * 2];
+			for (int j = 0; j < oldPositions.length; j++) {
+				if (oldPositions[j] != 0) {
+					put(oldPositions[j], oldIds[j]);
+				}
+			}
+		}
+		put(key(store.getRow(i), store.getColumn(i)), i);
+		added++;
+	}
+
+	/**
+	 * The method used to get the key of a position in the hash table of added
+	 * entities.
+	 *
+	 * @param r The row of the position
+	 * @param c The column of the position
+	 * @return The key of the position, which is never 0
+	 */
+	private long key(int r, int c) {
+		return (long) r * columns + c + 1;
+	}
+
+	/**
+	 * The method used to find the place of a key in the hash table of added
+	 * entities, which is either where the key is or the empty place it would
+	 * go in.
+	 *
+	 * @param key The key of the position
+	 * @return The place in the hash table
+	 */
+	private int place(long key) {
+		int mask = addedPositions.length - 1;
+		long mixed = key * 0x9E3779B97F4A7C15L;
+		int p = (int) (mixed >>> 32) & mask;
+		while (addedPositions[p] != 0 && addedPositions[p] != key) {
+			p = (p + 1) & mask;
+		}
+		return p;
+	}
+
+	/**
+	 * The method used to put an entity in the hash table of added entities.
+	 *
+	 * @param key The key of the position of the entity
+	 * @param i The index of the entity
+	 */
+	private void put(long key, int i) {
+		int p = place(key);
+		addedPositions[p] = key;
+		addedIds[p] = i;
+	}
+
+	/**
+	 * The method used to sort every entity into the slots, if any have been
+	 * added since they were last sorted.
+	 */
+	void update() {
+		if (added > 0) {
+			rebuild();
+		}
+	}
+
+	/**
+	 * The method used to sort every entity into the slots by bucket. The
+	 * entities are counted into their buckets, and then placed in order of
+	 * their index, so each bucket lists its entities in order.
+	 */
+	void rebuild() {
+		int size = store.size();
+		if (ids.length < size) {
+			int capacity = Math.max(ids.length * 2, size);
+			ids = new int[capacity];
+			slotRows = new int[capacity];
+			slotColumns = new int[capacity];
+			slotOf = new int[capacity];
+		}
+
+		// Count the entities of each bucket after its start, then add up the
+		// counts so that each start is the first slot of its bucket
+		Arrays.fill(starts, 0);
+		for (int i = 0; i < size; i++) {
+			starts[bucket(store.getRow(i), store.getColumn(i)) + 1]++;
+		}
+		for (int b = 1; b < starts.length; b++) {
+			starts[b] += starts[b - 1];
+		}
+
+		// Place each entity, moving the start of its bucket along as a cursor,
+		// then move the starts back
+		for (int i = 0; i < size; i++) {
+			int r = store.getRow(i);
+			int c = store.getColumn(i);
+			int slot = starts[bucket(r, c)]++;
+			ids[slot] = i;
+			slotRows[slot] = r;
+			slotColumns[slot] = c;
+			slotOf[i] = slot;
+		}
+		System.arraycopy(starts, 0, starts, 1, starts.length - 1);
+		starts[0] = 0;
+		sorted = size;
+
+		if (added > 0) {
+			Arrays.fill(addedPositions, 0);
+			added = 0;
+		}
+	}
+
+	/**
+	 * The method used to find the slot of the entity at a position, looking
+	 * only at the sorted entities.
+	 *
+	 * @param r The row of the position
+	 * @param c The column of the position
+	 * @return The slot of the entity, or -1 if there is none or the position
+	 * is outside of the room
+	 */
+	int slotAt(int r, int c) {
+		if (r < 0 || c < 0 || r >= rows || c >= columns) {
+			return -1;
+		}
+		int b = bucket(r, c);
+		for (int slot = starts[b], end = starts[b + 1]; slot < end; slot++) {
+			if (slotRows[slot] == r && slotColumns[slot] == c) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * The method used to find the entity at a position.
+	 *
+	 * @param r The row of the position
+	 * @param c The column of the position
+	 * @return The index of the entity, or -1 if there is none or the position
+	 * is outside of the room
+	 */
+	public int entityAt(int r, int c) {
+		int slot = slotAt(r, c);
+		if (slot >= 0) {
+			return ids[slot];
+		}
+		if (added > 0 && r >= 0 && c >= 0 && r < rows && c < columns) {
+			int p = place(key(r, c));
+			if (addedPositions[p] != 0) {
+				return addedIds[p];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * The method used to find the entities within a square around a position.
+	 *
+	 * @param r The row of the center of the square
+	 * @param c The column of the center of the square
+	 * @param radius The largest number of rows and columns that an entity can
+	 * be from the center
+	 * @param found The array that the indexes of the entities are copied into,
+	 * up to its length
+	 * @return The number of entities within the square, which can be more than
+	 * the length of the array
+	 */
+	public int findWithin(int r, int c, int radius, int[] found) {
+		return find(r - radius, r + radius, c - radius, c + radius, found);
+	}
+
+	/**
+	 * The method used to find the entities within a rectangle of the room,
+	 * such as the part of the room that is drawn.
+	 *
+	 * @param top The row of the top of the rectangle
+	 * @param left The column of the left side of the rectangle
+	 * @param height The number of rows of the rectangle
+	 * @param width The number of columns of the rectangle
+	 * @param found The array that the indexes of the entities are copied into,
+	 * up to its length
+	 * @return The number of entities within the rectangle, which can be more
+	 * than the length of the array
+	 */
+	public int findIn(int top, int left, int height, int width, int[] found) {
+		int bottom = (int) Math.min((long) top + height - 1, Integer.MAX_VALUE);
+		int right = (int) Math.min((long) left + width - 1, Integer.MAX_VALUE);
+		return find(top, bottom, left, right, found);
+	}
+
+	/**
+	 * The method used to find the entities within a rectangle of the room,
+	 * searching only the buckets that overlap it.
+	 *
+	 * @param top The first row of the rectangle
+	 * @param bottom The last row of the rectangle
+	 * @param left The first column of the rectangle
+	 * @param right The last column of the rectangle
+	 * @param found The array that the indexes of the entities are copied into,
+	 * up to its length
+	 * @return The number of entities within the rectangle
+	 */
+	private int find(int top, int bottom, int left, int right, int[] found) {
+		update();
+		top = Math.max(top, 0);
+		bottom = Math.min(bottom, rows - 1);
+		left = Math.max(left, 0);
+		right = Math.min(right, columns - 1);
+		if (top > bottom || left > right) {
+			return 0;
+		}
+		int count = 0;
+		for (int br = top >> BUCKET_SHIFT; br <= bottom >> BUCKET_SHIFT; br++) {
+			int first = br * bucketColumns + (left >> BUCKET_SHIFT);
+			int last = br * bucketColumns + (right >> BUCKET_SHIFT);
+			for (int slot = starts[first], end = starts[last + 1]; slot < end; slot++) {
+				int er = slotRows[slot];
+				int ec = slotColumns[slot];
+				if (er >= top && er <= bottom && ec >= left && ec <= right) {
+					if (count < found.length) {
+						found[count] = ids[slot];
+					}
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * The method used to count the entities within a square around a
+	 * position.
+	 *
+	 * @param r The row of the center of the square
+	 * @param c The column of the center of the square
+	 * @param radius The largest number of rows and columns that an entity can
+	 * be from the center
+	 * @return The number of entities within the square
+	 */
+	public int countWithin(int r, int c, int radius) {
+		return findWithin(r, c, radius, NONE);
+	}
+
+	/**
+	 * The method used to get the number of sorted entities.
+	 *
+	 * @return The number of slots in use
+	 */
+	int getSlots() {
+		return sorted;
+	}
+
+	/**
+	 * The method used to get the number of rows of buckets.
+	 *
+	 * @return The number of rows of buckets
+	 */
+	int getBucketRows() {
+		return bucketRows;
+	}
+
+	/**
+	 * The method used to get the first slot of a row of buckets.
+	 *
+	 * @param bucketRow The row of buckets, up to the number of rows of buckets
+	 * @return The first slot of the row, or the number of slots for the row
+	 * after the last
+	 */
+	int firstSlotOfRow(int bucketRow) {
+		return starts[bucketRow * bucketColumns];
+	}
+
+	/**
+	 * The method used to get the index of the entity in a slot.
+	 *
+	 * @param slot The slot
+	 * @return The index of the entity
+	 */
+	int idAt(int slot) {
+		return ids[slot];
+	}
+
+	/**
+	 * The method used to get the row of the entity in a slot.
+	 *
+	 * @param slot The slot
+	 * @return The row of the entity
+	 */
+	int rowAt(int slot) {
+		return slotRows[slot];
+	}
+
+	/**
+	 * The method used to get the column of the entity in a slot.
+	 *
+	 * @param slot The slot
+	 * @return The column of the entity
+	 */
+	int columnAt(int slot) {
+		return slotColumns[slot];
+	}
+
+	/**
+	 * The method used to get the slot of an entity.
+	 *
+	 * @param i The index of the entity
+	 * @return The slot of the entity
+	 */
+	int slotOf(int i) {
+		return slotOf[i];
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+/**
+ * The StorageChunkSource class loads and stores chunks from another grid
+ * storage, such as a memory-mapped grid file.
+ *
+ * @author Christopher Wells
+ */
+public class StorageChunkSource implements ChunkSource {
+
+	private final GridStorage storage;	// The storage that holds the whole grid
+
+	/**
+	 * The constructor method to create the chunk source.
+	 *
+	 * @param storage The storage that holds the whole grid
+	 */
+	public StorageChunkSource(GridStorage storage) {
+		this.storage = storage;
+	}
+
+	@Override
+	public void load(int top, int left, int height, int width, byte[] codes) {
+		for (int i = 0; i < height; i++) {
+			for (int j = 0; j < width; j++) {
+				codes[i * width + j] = Tiles.encode(storage.get(top + i, left + j));
+			}
+		}
+	}
+
+	@Override
+	public void store(int top, int left, int height, int width, byte[] codes) {
+		for (int i = 0; i < height; i++) {
+			for (int j = 0; j < width; j++) {
+				storage.set(top + i, left + j, Tiles.decode(codes[i * width + j]));
+			}
+		}
+	}
+}
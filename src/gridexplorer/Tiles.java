@@ -0,0 +1,137 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+/**
+ * The Tiles class holds the integer identifiers of the objects that can be
+ * placed in a room, along with the lookup tables used to convert between those
+ * identifiers and the characters used in room files.
+ *
+ * @author Christopher Wells
+ */
+public final class Tiles {
+
+	public static final int EMPTY = 0;	// Blank spaces
+	public static final int WALL = 1;	// Walls
+	public static final int PLAYER = 2;	// Player
+	public static final int PORTAL = 3;	// Portal
+	public static final int UNKNOWN = 999;	// Unrecognized characters and positions outside of a room
+
+	/**
+	 * The compact code used in place of the unknown identifier when objects are
+	 * stored one per byte.
+	 */
+	public static final byte UNKNOWN_CODE = 4;
+
+	private static final byte[] BYTE_CODES = new byte[256];	// Room file bytes to compact codes
+	private static final char[] CHARACTERS = {' ', '#', '@', '*', '?'};	// Compact codes to characters
+
+	static {
+		for (int i = 0; i < BYTE_CODES.length; i++) {
+			BYTE_CODES[i] = UNKNOWN_CODE;
+		}
+		BYTE_CODES[' '] = EMPTY;
+		BYTE_CODES['#'] = WALL;
+		BYTE_CODES['@'] = PLAYER;
+		BYTE_CODES['*'] = PORTAL;
+	}
+
+	/**
+	 * Tiles only holds constants and static methods, so it is not meant to be
+	 * constructed.
+	 */
+	private Tiles() {
+	}
+
+	/**
+	 * The method used to convert a character into its corresponding integer
+	 * identifier.
+	 *
+	 * @param character The character to be converted into an integer identifier
+	 * @return The integer identifier specified by the character
+	 */
+	public static int fromChar(char character) {
+		if (character < BYTE_CODES.length) {
+			return decode(BYTE_CODES[character]);
+		} else {
+			return UNKNOWN;
+		}
+	}
+
+	/**
+	 * The method used to convert an integer identifier into its corresponding
+	 * character.
+	 *
+	 * @param identifier The integer identifier to be converted to a character
+	 * @return The character specified by the integer identifier
+	 */
+	public static char toChar(int identifier) {
+		if (identifier >= EMPTY && identifier <= PORTAL) {
+			return CHARACTERS[identifier];
+		} else {
+			return CHARACTERS[UNKNOWN_CODE];
+		}
+	}
+
+	/**
+	 * The method used to convert a single byte of a room file into its compact
+	 * code. Bytes that do not correspond to a known object give the unknown
+	 * code.
+	 *
+	 * @param b The byte from the room file
+	 * @return The compact code of the object
+	 */
+	static byte codeOf(byte b) {
+		return BYTE_CODES[b & 0xFF];
+	}
+
+	/**
+	 * The method used to convert an integer identifier into its compact code.
+	 *
+	 * @param identifier The integer identifier of the object
+	 * @return The compact code of the object
+	 */
+	public static byte encode(int identifier) {
+		if (identifier >= EMPTY && identifier <= PORTAL) {
+			return (byte) identifier;
+		} else {
+			return UNKNOWN_CODE;
+		}
+	}
+
+	/**
+	 * The method used to convert a compact code back into its integer
+	 * identifier.
+	 *
+	 * @param code The compact code of the object
+	 * @return The integer identifier of the object
+	 */
+	public static int decode(byte code) {
+		if (code == UNKNOWN_CODE) {
+			return UNKNOWN;
+		} else {
+			return code;
+		}
+	}
+}
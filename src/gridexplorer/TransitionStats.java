@@ -0,0 +1,156 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+/**
+ * The TransitionStats class holds how long a game took to move the player
+ * into each next room, and whether the room had already been prefetched on a
+ * worker thread when the player reached the portal. When metrics are
+ * recorded, every transition is also added to the metrics of the game, so
+ * that they can be seen over JMX and in the metrics file.
+ *
+ * @author Christopher Wells
+ */
+public class TransitionStats {
+
+	private long transitions;	// The number of times the game moved to a next room
+	private long totalNanos;	// The total time taken by the transitions, in nanoseconds
+	private long maxNanos;	// The longest time taken by a transition, in nanoseconds
+	private long prefetched;	// The number of transitions whose room was already prefetched
+	private long waited;	// The number of transitions that waited for a prefetch that was running
+	private long synchronous;	// The number of transitions that loaded their room on the game thread
+
+	/**
+	 * The method used to record a transition whose room was already
+	 * prefetched.
+	 *
+	 * @param nanos The time taken by the transition, in nanoseconds
+	 */
+	void recordPrefetched(long nanos) {
+		prefetched++;
+		record(nanos, Metrics.TRANSITION_PREFETCHED);
+	}
+
+	/**
+	 * The method used to record a transition that waited for its prefetch to
+	 * finish.
+	 *
+	 * @param nanos The time taken by the transition, in nanoseconds
+	 */
+	void recordWaited(long nanos) {
+		waited++;
+		record(nanos, Metrics.TRANSITION_WAITED);
+	}
+
+	/**
+	 * The method used to record a transition that loaded its room on the game
+	 * thread.
+	 *
+	 * @param nanos The time taken by the transition, in nanoseconds
+	 */
+	void recordSynchronous(long nanos) {
+		synchronous++;
+		record(nanos, Metrics.TRANSITION_SYNCHRONOUS);
+	}
+
+	/**
+	 * The method used to add the time taken by a transition.
+	 *
+	 * @param nanos The time taken by the transition, in nanoseconds
+	 * @param kind The counter of the metrics for the kind of transition
+	 */
+	private void record(long nanos, Counter kind) {
+		transitions++;
+		totalNanos += nanos;
+		maxNanos = Math.max(maxNanos, nanos);
+		if (Metrics.ENABLED) {
+			Metrics.TRANSITION.record(nanos);
+			kind.increment();
+		}
+	}
+
+	/**
+	 * The method used to get the number of times the game moved to a next
+	 * room.
+	 *
+	 * @return The number of transitions
+	 */
+	public long getTransitions() {
+		return transitions;
+	}
+
+	/**
+	 * The method used to get the average time taken by a transition.
+	 *
+	 * @return The average time in nanoseconds, or 0 if there were none
+	 */
+	public long getAverageNanos() {
+		return transitions == 0 ? 0 : totalNanos / transitions;
+	}
+
+	/**
+	 * The method used to get the longest time taken by a transition.
+	 *
+	 * @return The longest time in nanoseconds
+	 */
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+
+	/**
+	 * The method used to get the number of transitions whose room was already
+	 * prefetched.
+	 *
+	 * @return The number of prefetched transitions
+	 */
+	public long getPrefetched() {
+		return prefetched;
+	}
+
+	/**
+	 * The method used to get the number of transitions that waited for a
+	 * prefetch that was still running.
+	 *
+	 * @return The number of transitions that waited
+	 */
+	public long getWaited() {
+		return waited;
+	}
+
+	/**
+	 * The method used to get the number of transitions that loaded their room
+	 * on the game thread.
+	 *
+	 * @return The number of synchronous transitions
+	 */
+	public long getSynchronous() {
+		return synchronous;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d transitions, average %.3f ms, max %.3f ms (%d prefetched, %d waited, %d synchronous)",
+				transitions, getAverageNanos() / 1e6, maxNanos / 1e6, prefetched, waited, synchronous);
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The ValidationReport class holds the problems that a RoomValidator found
+ * with a single room, such as a portal that cannot be reached from the spawn
+ * point.
+ *
+ * @author Christopher Wells
+ */
+public class ValidationReport {
+
+	private final String name;	// The name of the room that was checked
+	private final List<String> problems = new ArrayList<>();	// The problems found with the room
+	private long reachedCells;	// The number of positions the player can reach from the spawn point
+
+	/**
+	 * The constructor method to create an empty report for a room.
+	 *
+	 * @param roomName The name of the room that is checked
+	 */
+	ValidationReport(String roomName) {
+		name = roomName;
+	}
+
+	/**
+	 * The method used to add a problem that was found with the room.
+	 *
+	 * @param problem The description of the problem
+	 */
+	void addProblem(String problem) {
+		problems.add(problem);
+	}
+
+	/**
+	 * The method used to record how many positions the flood fill reached.
+	 *
+	 * @param cells The number of positions that were reached
+	 */
+	void setReachedCells(long cells) {
+		reachedCells = cells;
+	}
+
+	/**
+	 * The method used to get the name of the room that was checked.
+	 *
+	 * @return The name of the room
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * The method used to check whether the room had no problems.
+	 *
+	 * @return Whether the room is valid
+	 */
+	public boolean isValid() {
+		return problems.isEmpty();
+	}
+
+	/**
+	 * The method used to get the problems that were found with the room.
+	 *
+	 * @return The descriptions of the problems, which is empty for a valid
+	 * room
+	 */
+	public List<String> getProblems() {
+		return Collections.unmodifiableList(problems);
+	}
+
+	/**
+	 * The method used to get the number of positions that the flood fill
+	 * reached from the spawn point before it found a portal.
+	 *
+	 * @return The number of positions reached
+	 */
+	public long getReachedCells() {
+		return reachedCells;
+	}
+
+	@Override
+	public String toString() {
+		if (isValid()) {
+			return name + ": valid";
+		}
+		StringBuilder text = new StringBuilder(name).append(": invalid");
+		for (String problem : problems) {
+			text.append(System.lineSeparator()).append("  ").append(problem);
+		}
+		return text.toString();
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+/**
+ * The Viewport class represents the window of a room that is displayed, which
+ * is centred on the player and kept within the bounds of the room. It lets the
+ * cost of displaying a room depend on the size of the window instead of the
+ * size of the room.
+ *
+ * @author Christopher Wells
+ */
+public class Viewport {
+
+	private final int height;	// The largest number of rows that are displayed
+	private final int width;	// The largest number of columns that are displayed
+
+	/**
+	 * The constructor method to create the viewport.
+	 *
+	 * @param h The largest number of rows to display
+	 * @param w The largest number of columns to display
+	 * @throws IllegalArgumentException If the size is not positive
+	 */
+	public Viewport(int h, int w) {
+		if (h <= 0 || w <= 0) {
+			throw new IllegalArgumentException("Viewport size must be positive.");
+		}
+		height = h;
+		width = w;
+	}
+
+	/**
+	 * The method used to get the largest number of rows that are displayed.
+	 *
+	 * @return The height of the viewport
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * The method used to get the largest number of columns that are
+	 * displayed.
+	 *
+	 * @return The width of the viewport
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * The method used to find the first row of the window, centred on a given
+	 * row and kept within the room.
+	 *
+	 * @param room The room being displayed
+	 * @param r The row to centre the window on
+	 * @return The row of the top of the window
+	 */
+	public int top(Room room, int r) {
+		return clamp(r - height / 2, room.getRows() - height);
+	}
+
+	/**
+	 * The method used to find the first column of the window, centred on a
+	 * given column and kept within the room.
+	 *
+	 * @param room The room being displayed
+	 * @param c The column to centre the window on
+	 * @return The column of the left side of the window
+	 */
+	public int left(Room room, int c) {
+		return clamp(c - width / 2, room.getColumns() - width);
+	}
+
+	/**
+	 * The method used to find the number of rows of the window that fit in the
+	 * room.
+	 *
+	 * @param room The room being displayed
+	 * @return The number of rows in the window
+	 */
+	public int rowsIn(Room room) {
+		return Math.min(height, room.getRows());
+	}
+
+	/**
+	 * The method used to find the number of columns of the window that fit in
+	 * the room.
+	 *
+	 * @param room The room being displayed
+	 * @return The number of columns in the window
+	 */
+	public int columnsIn(Room room) {
+		return Math.min(width, room.getColumns());
+	}
+
+	/**
+	 * The method used to keep the start of the window within the room.
+	 *
+	 * @param start The start of the window when it is centred
+	 * @param last The last start that keeps the window within the room
+	 * @return The start of the window
+	 */
+	private static int clamp(int start, int last) {
+		return Math.max(0, Math.min(start, last));
+	}
+}
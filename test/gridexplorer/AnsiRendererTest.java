@@ -0,0 +1,194 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Christopher Wells <cwellsny@nycap.rr.com>
+ */
+public class AnsiRendererTest {
+
+	private static final String ESCAPE = "\u001B[";
+
+	private String[] testRooms = {"room1"};
+	private Game testGame;
+	private Room testRoom;
+	private AnsiRenderer testRenderer;
+	private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+	private PrintStream out;
+
+	@Before
+	public void setUp() {
+		out = new PrintStream(outContent);
+		System.setOut(out);
+		testGame = new Game(testRooms);
+		testRoom = new Room(4, 5, 3, 2, testGame);
+		testRenderer = new AnsiRenderer();
+	}
+
+	@After
+	public void tearDown() {
+		System.setOut(null);
+	}
+
+	/**
+	 * A test which checks that the first frame redraws the whole room.
+	 */
+	@Test
+	public void testFirstFrame() {
+		String testInfo = "A test of the first frame of the ANSI renderer";
+		testRenderer.render(testRoom, out);
+		assertEquals(testInfo, ESCAPE + "H" + ESCAPE + "2J" + "     \n     \n     \n  @  \n" + ESCAPE + "J", outContent.toString());
+	}
+
+	/**
+	 * A test which checks that a frame after a move only redraws the two
+	 * objects that changed.
+	 */
+	@Test
+	public void testMoveFrame() {
+		String testInfo = "A test of the frame after the player moves";
+		testRenderer.render(testRoom, out);
+		outContent.reset();
+		testRoom.movePlayer("up", 1);
+		testRenderer.render(testRoom, out);
+		assertEquals(testInfo, ESCAPE + "4;3H " + ESCAPE + "3;3H@" + ESCAPE + "5;1H" + ESCAPE + "J", outContent.toString());
+	}
+
+	/**
+	 * A test which checks that a frame with no changes only clears the lines
+	 * below the room.
+	 */
+	@Test
+	public void testUnchangedFrame() {
+		String testInfo = "A test of a frame where nothing changed";
+		testRenderer.render(testRoom, out);
+		outContent.reset();
+		testRenderer.render(testRoom, out);
+		assertEquals(testInfo, ESCAPE + "5;1H" + ESCAPE + "J", outContent.toString());
+	}
+
+	/**
+	 * A test which checks that drawing a different room, resizing the terminal
+	 * and invalidating the renderer all redraw the whole room.
+	 */
+	@Test
+	public void testFullRedraw() {
+		String testInfo = "A test of the cases which redraw the whole room";
+		String clear = ESCAPE + "H" + ESCAPE + "2J";
+		testRenderer.render(testRoom, out);
+		outContent.reset();
+		Room otherRoom = new Room(2, 2, 0, 0, testGame);
+		testRenderer.render(otherRoom, out);
+		assertTrue(testInfo, outContent.toString().startsWith(clear));
+
+		outContent.reset();
+		testRenderer.setTerminalSize(24, 80);
+		testRenderer.render(otherRoom, out);
+		assertTrue(testInfo, outContent.toString().startsWith(clear));
+
+		outContent.reset();
+		testRenderer.invalidate();
+		testRenderer.render(otherRoom, out);
+		assertTrue(testInfo, outContent.toString().startsWith(clear));
+	}
+
+	/**
+	 * A test which checks that a room which is taller than the terminal is
+	 * only drawn around the player, with the cursor kept on the terminal.
+	 */
+	@Test
+	public void testSmallTerminal() {
+		String testInfo = "A test of drawing a room on a terminal that is too small for it";
+		testRenderer.setTerminalSize(4, 5);
+		testRenderer.render(testRoom, out);
+		assertEquals(testInfo, ESCAPE + "H" + ESCAPE + "2J" + "     \n  @  \n" + ESCAPE + "J", outContent.toString());
+
+		outContent.reset();
+		testRoom.movePlayer("left", 1);
+		testRenderer.render(testRoom, out);
+		assertEquals(testInfo, ESCAPE + "2;3H " + ESCAPE + "2;2H@" + ESCAPE + "3;1H" + ESCAPE + "J", outContent.toString());
+	}
+
+	/**
+	 * A test which checks that entities are drawn over the room, and that
+	 * their old and new positions are redrawn once they move.
+	 */
+	@Test
+	public void testEntities() {
+		String testInfo = "A test of drawing the entities of a room";
+		testRoom.getEntities().add(EntityStore.NPC, 0, 0, Direction.RIGHT);
+		testRenderer.render(testRoom, out);
+		assertEquals(testInfo, ESCAPE + "H" + ESCAPE + "2J" + "&    \n     \n     \n  @  \n" + ESCAPE + "J", outContent.toString());
+
+		outContent.reset();
+		testRoom.getEntities().tick();
+		testRenderer.render(testRoom, out);
+		assertEquals(testInfo, ESCAPE + "1;1H " + ESCAPE + "1;2H&" + ESCAPE + "5;1H" + ESCAPE + "J", outContent.toString());
+	}
+
+	/**
+	 * A test which checks that entities moving outside of the viewport do not
+	 * redraw anything.
+	 */
+	@Test
+	public void testEntitiesOutsideViewport() {
+		String testInfo = "A test of entities moving outside of the viewport";
+		Room largeRoom = new Room(20, 5, 3, 2, testGame);
+		for (int r = 10; r < 14; r++) {
+			for (int c = 0; c < 5; c++) {
+				largeRoom.getEntities().add(EntityStore.NPC, r, c, Direction.DOWN);
+			}
+		}
+		Viewport viewport = new Viewport(4, 5);
+		testRenderer.render(largeRoom, viewport, out);
+		outContent.reset();
+		largeRoom.getEntities().tick();
+		testRenderer.render(largeRoom, viewport, out);
+		assertEquals(testInfo, ESCAPE + "5;1H" + ESCAPE + "J", outContent.toString());
+	}
+
+	/**
+	 * A test which checks that changes to a room that is no longer being drawn
+	 * are not tracked.
+	 */
+	@Test
+	public void testDetachedRoom() {
+		String testInfo = "A test of changes to a room that is no longer drawn";
+		testRenderer.render(testRoom, out);
+		Room otherRoom = new Room(2, 2, 0, 0, testGame);
+		testRenderer.render(otherRoom, out);
+		outContent.reset();
+		testRoom.movePlayer("up", 1);
+		testRenderer.render(otherRoom, out);
+		assertEquals(testInfo, ESCAPE + "3;1H" + ESCAPE + "J", outContent.toString());
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+/**
+ * Compares the time taken to load large rooms from text room files against
+ * the same rooms converted into the binary room format. Run it with the sizes
+ * of the rooms to load as arguments, for example "1000 10000".
+ *
+ * @author Christopher Wells
+ */
+public class BinaryRoomBenchmark {
+
+	private static final int WARMUP_RUNS = 3;	// The number of untimed loads of each room
+	private static final int RUNS = 5;	// The number of timed loads of each room
+
+	/**
+	 * The method that is run when the benchmark starts.
+	 *
+	 * @param args The sizes of the square rooms to load
+	 * @throws IOException If a room file could not be written or read
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			args = new String[]{"1000", "10000"};
+		}
+		for (String arg : args) {
+			int size = Integer.parseInt(arg);
+			File textFile = File.createTempFile("room" + size + "x" + size, RoomLoader.ROOM_EXTENSION);
+			File binaryFile = File.createTempFile("room" + size + "x" + size, RoomLoader.BINARY_EXTENSION);
+			textFile.deleteOnExit();
+			binaryFile.deleteOnExit();
+			writeRoom(textFile, size);
+			RoomConverter.convert(textFile, binaryFile);
+
+			for (int i = 0; i < WARMUP_RUNS; i++) {
+				RoomLoader.load(textFile);
+				RoomLoader.load(binaryFile);
+			}
+
+			long text = Long.MAX_VALUE;
+			long binary = Long.MAX_VALUE;
+			for (int i = 0; i < RUNS; i++) {
+				long start = System.nanoTime();
+				RoomLoader.load(textFile);
+				text = Math.min(text, System.nanoTime() - start);
+
+				start = System.nanoTime();
+				RoomLoader.load(binaryFile);
+				binary = Math.min(binary, System.nanoTime() - start);
+			}
+			System.out.printf("%dx%d: text %d ms (%d KiB), binary %d ms (%d KiB)%n",
+					size, size, text / 1000000, textFile.length() / 1024,
+					binary / 1000000, binaryFile.length() / 1024);
+			textFile.delete();
+			binaryFile.delete();
+		}
+	}
+
+	/**
+	 * The method used to write a square room with walls around its edges and
+	 * some walls scattered within it.
+	 *
+	 * @param roomFile The file to write the room to
+	 * @param size The number of rows and columns of the room
+	 * @throws IOException If the room file could not be written
+	 */
+	private static void writeRoom(File roomFile, int size) throws IOException {
+		Random random = new Random(size);
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(roomFile), 1 << 16)) {
+			for (int i = 0; i < size; i++) {
+				for (int j = 0; j < size; j++) {
+					if (i == 0 || j == 0 || i == size - 1 || j == size - 1 || random.nextInt(8) == 0) {
+						out.write('#');
+					} else if (i == size / 2 && j == size / 2) {
+						out.write('@');
+					} else if (i == size - 2 && j == size - 2) {
+						out.write('*');
+					} else {
+						out.write(' ');
+					}
+				}
+				out.write('\n');
+			}
+		}
+	}
+}
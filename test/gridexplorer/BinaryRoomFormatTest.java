@@ -0,0 +1,126 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Christopher Wells <cwellsny@nycap.rr.com>
+ */
+public class BinaryRoomFormatTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * The method used to write a text room file with the given contents.
+	 *
+	 * @param name The name of the file
+	 * @param contents The contents of the room file
+	 * @return The room file
+	 * @throws IOException If the room file could not be written
+	 */
+	private File writeRoom(String name, String contents) throws IOException {
+		File roomFile = folder.newFile(name);
+		try (FileOutputStream out = new FileOutputStream(roomFile)) {
+			out.write(contents.getBytes(StandardCharsets.UTF_8));
+		}
+		return roomFile;
+	}
+
+	/**
+	 * The method used to check that two layouts hold the same room.
+	 *
+	 * @param testInfo The description of the test
+	 * @param expected The expected layout
+	 * @param actual The layout that was loaded
+	 */
+	private void assertSameLayout(String testInfo, RoomLayout expected, RoomLayout actual) {
+		assertEquals(testInfo, expected.getRows(), actual.getRows());
+		assertEquals(testInfo, expected.getColumns(), actual.getColumns());
+		assertEquals(testInfo, expected.getSpawnRow(), actual.getSpawnRow());
+		assertEquals(testInfo, expected.getSpawnColumn(), actual.getSpawnColumn());
+		assertEquals(testInfo, expected.hasUnknown(), actual.hasUnknown());
+		for (int i = 0; i < expected.getRows(); i++) {
+			for (int j = 0; j < expected.getColumns(); j++) {
+				assertEquals(testInfo, expected.objectAt(i, j), actual.objectAt(i, j));
+			}
+		}
+	}
+
+	/**
+	 * A test which checks that a converted room file loads into the same
+	 * layout as its text file.
+	 */
+	@Test
+	public void testConvertRoundTrip() throws IOException {
+		String testInfo = "A test of converting a room to the binary format";
+		File textFile = new File(RoomLoader.ROOM_DIRECTORY + "room2" + RoomLoader.ROOM_EXTENSION);
+		File binaryFile = folder.newFile("room2.room");
+		RoomConverter.convert(textFile, binaryFile);
+		assertSameLayout(testInfo, RoomLoader.load(textFile), RoomLoader.load(binaryFile));
+	}
+
+	/**
+	 * A test which checks that rooms whose cells do not fill the last packed
+	 * byte and rooms with unknown objects are both converted correctly.
+	 */
+	@Test
+	public void testConvertOddSizeAndUnknown() throws IOException {
+		String testInfo = "A test of converting odd sized rooms and unknown objects";
+		File packed = writeRoom("packed.txt", "#####\n#@ *#\n#####\n");
+		File packedBinary = RoomConverter.convert(packed);
+		assertEquals(testInfo, "packed.room", packedBinary.getName());
+		assertEquals(testInfo, BinaryRoomFormat.HEADER_LENGTH + 4, packedBinary.length());
+		assertSameLayout(testInfo, RoomLoader.load(packed), RoomLoader.load(packedBinary));
+
+		File unknown = writeRoom("unknown.txt", "###\n#?#\n#@#\n");
+		File unknownBinary = RoomConverter.convert(unknown);
+		assertEquals(testInfo, BinaryRoomFormat.HEADER_LENGTH + 9, unknownBinary.length());
+		RoomLayout layout = RoomLoader.load(unknownBinary);
+		assertSameLayout(testInfo, RoomLoader.load(unknown), layout);
+		assertEquals(testInfo, Tiles.UNKNOWN, layout.objectAt(1, 1));
+	}
+
+	/**
+	 * A test which checks that a truncated binary room file is rejected.
+	 */
+	@Test(expected = IOException.class)
+	public void testTruncatedFile() throws IOException {
+		File binaryFile = RoomConverter.convert(writeRoom("room.txt", "####\n#@*#\n####\n"));
+		try (RandomAccessFile file = new RandomAccessFile(binaryFile, "rw")) {
+			file.setLength(file.length() - 1);
+		}
+		RoomLoader.load(binaryFile);
+	}
+}
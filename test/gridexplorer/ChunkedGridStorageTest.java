@@ -0,0 +1,154 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Christopher Wells <cwellsny@nycap.rr.com>
+ */
+public class ChunkedGridStorageTest {
+
+	private String[] testRooms = {"room1"};
+	private int testRows = 20;
+	private int testColumns = 30;
+	private int testChunkSize = 8;
+	private GridStorage backing;
+	private ChunkedGridStorage testStorage;
+	private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+
+	@Before
+	public void setUp() {
+		System.setOut(new PrintStream(outContent));
+		backing = new ByteGridStorage(testRows, testColumns);
+		for (int i = 0; i < testRows; i++) {
+			for (int j = 0; j < testColumns; j++) {
+				backing.set(i, j, (i * 7 + j) % 4);
+			}
+		}
+	}
+
+	@After
+	public void tearDown() {
+		System.setOut(null);
+	}
+
+	/**
+	 * A test which checks that every object of the backing grid can be read
+	 * through the chunks, including the smaller chunks at the edges.
+	 */
+	@Test
+	public void testGet() {
+		String testInfo = "A test of reading objects through chunks";
+		testStorage = new ChunkedGridStorage(testRows, testColumns, testChunkSize, 2, new StorageChunkSource(backing));
+		for (int i = 0; i < testRows; i++) {
+			for (int j = 0; j < testColumns; j++) {
+				assertEquals(testInfo, backing.get(i, j), testStorage.get(i, j));
+			}
+		}
+		assertEquals(testInfo, 2, testStorage.getLoadedChunks());
+	}
+
+	/**
+	 * A test which checks the hit, miss and eviction counters.
+	 */
+	@Test
+	public void testCounters() {
+		String testInfo = "A test of the chunk cache counters";
+		testStorage = new ChunkedGridStorage(testRows, testColumns, testChunkSize, 2, new StorageChunkSource(backing));
+		testStorage.get(0, 0);	// Miss
+		testStorage.get(1, 1);	// Hit
+		testStorage.get(0, 8);	// Miss
+		testStorage.get(0, 0);	// Hit
+		testStorage.get(8, 0);	// Miss, evicts the chunk at (0, 8)
+		testStorage.get(0, 8);	// Miss, evicts the chunk at (0, 0)
+		assertEquals(testInfo, 2, testStorage.getHits());
+		assertEquals(testInfo, 4, testStorage.getMisses());
+		assertEquals(testInfo, 2, testStorage.getEvictions());
+	}
+
+	/**
+	 * A test which checks that changed chunks are stored back when they are
+	 * evicted, and read back when they are loaded again.
+	 */
+	@Test
+	public void testEvictDirty() {
+		String testInfo = "A test of storing back changed chunks";
+		testStorage = new ChunkedGridStorage(testRows, testColumns, testChunkSize, 1, new StorageChunkSource(backing));
+		testStorage.setPrefetchMargin(0);
+		testStorage.set(3, 3, Tiles.UNKNOWN);
+		testStorage.get(19, 29);
+		assertEquals(testInfo, Tiles.UNKNOWN, backing.get(3, 3));
+		assertEquals(testInfo, Tiles.UNKNOWN, testStorage.get(3, 3));
+	}
+
+	/**
+	 * A test which checks that loading the chunks around the corner of a chunk
+	 * ahead of time never evicts that chunk, and that it is still the most
+	 * recently used afterwards.
+	 */
+	@Test
+	public void testPrefetchKeepsCurrentChunk() {
+		String testInfo = "A test of loading ahead without evicting the chunk in use";
+		testStorage = new ChunkedGridStorage(testRows, testColumns, testChunkSize, 2, new StorageChunkSource(backing));
+		testStorage.set(8, 8, Tiles.WALL);	// Loads the chunks above and to the left ahead of time
+		assertEquals(testInfo, 2, testStorage.getLoadedChunks());
+		testStorage.resetCounters();
+		assertEquals(testInfo, Tiles.WALL, testStorage.get(8, 8));	// Hit
+		testStorage.get(0, 0);	// Miss, evicts the chunk at (8, 0)
+		assertEquals(testInfo, Tiles.WALL, testStorage.get(8, 8));	// Hit
+		assertEquals(testInfo, 2, testStorage.getHits());
+		assertEquals(testInfo, 1, testStorage.getMisses());
+		assertEquals(testInfo, 1, testStorage.getEvictions());
+	}
+
+	/**
+	 * A test which checks that moving the player close to the edge of a chunk
+	 * loads the chunk across that edge.
+	 */
+	@Test
+	public void testPrefetch() {
+		String testInfo = "A test of loading chunks ahead of the player";
+		GridStorage empty = new ByteGridStorage(testRows, testColumns);
+		testStorage = new ChunkedGridStorage(testRows, testColumns, testChunkSize, 4, new StorageChunkSource(empty));
+		Room testRoom = new Room(testStorage, 3, 3, new Game(testRooms));
+		assertEquals(testInfo, 1, testStorage.getLoadedChunks());
+		testRoom.movePlayer("right", 1);
+		testRoom.movePlayer("right", 1);
+		assertEquals(testInfo, 1, testStorage.getLoadedChunks());
+		testRoom.movePlayer("right", 1);
+		assertEquals(testInfo, 2, testStorage.getLoadedChunks());
+		testStorage.resetCounters();
+		testRoom.movePlayer("right", 1);
+		testRoom.movePlayer("right", 1);
+		assertEquals(testInfo, 0, testStorage.getMisses());
+		assertArrayEquals(testInfo, new int[]{3, 8}, testRoom.getPlayerPos());
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Christopher Wells <cwellsny@nycap.rr.com>
+ */
+public class DirectionTest {
+
+	private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+	private final String[] testRooms = {"room1"};
+
+	@Before
+	public void setUpStreams() {
+		System.setOut(new PrintStream(outContent));
+	}
+
+	@After
+	public void cleanUpStreams() {
+		System.setOut(null);
+	}
+
+	/**
+	 * A test which checks that directions are found from their keys and
+	 * names, and that other keys and names have no direction.
+	 */
+	@Test
+	public void testLookup() {
+		String testInfo = "A test of finding directions by key and name";
+		assertEquals(testInfo, Direction.UP, Direction.fromKey('w'));
+		assertEquals(testInfo, Direction.LEFT, Direction.fromKey('a'));
+		assertEquals(testInfo, Direction.DOWN, Direction.fromKey('s'));
+		assertEquals(testInfo, Direction.RIGHT, Direction.fromKey('d'));
+		assertNull(testInfo, Direction.fromKey('q'));
+		assertNull(testInfo, Direction.fromKey('é'));
+		assertEquals(testInfo, Direction.RIGHT, Direction.fromName("right"));
+		assertNull(testInfo, Direction.fromName("weast"));
+	}
+
+	/**
+	 * A test which checks that moving the player by direction changes its row
+	 * and column in the same way as moving it by the name of the direction.
+	 */
+	@Test
+	public void testMovePlayerByDirection() {
+		String testInfo = "A test of moving the player by direction";
+		Game testGame = new Game(testRooms);
+		Room testRoom = new Room("room1", testGame);
+		assertEquals(testInfo, MoveResult.MOVED, testRoom.movePlayer(Direction.UP, 1));
+		assertEquals(testInfo, MoveResult.MOVED, testRoom.movePlayer(Direction.LEFT, 1));
+		assertEquals(testInfo, 3, testRoom.getPlayerRow());
+		assertEquals(testInfo, 4, testRoom.getPlayerColumn());
+		assertArrayEquals(testInfo, new int[]{3, 4}, testRoom.getPlayerPos());
+	}
+
+	/**
+	 * A test which checks that a move of several steps stops in front of a
+	 * wall instead of jumping over it, and only reports a blocked move when
+	 * the player could not take any step.
+	 */
+	@Test
+	public void testLongMoveStopsAtWall() {
+		String testInfo = "A test of a long move stopping in front of a wall";
+		Game testGame = new Game(testRooms);
+		Room testRoom = new Room("room1", testGame);
+		assertEquals(testInfo, MoveResult.MOVED, testRoom.movePlayer(Direction.RIGHT, 8));
+		assertEquals(testInfo, 4, testRoom.getPlayerRow());
+		assertEquals(testInfo, 8, testRoom.getPlayerColumn());
+		assertEquals(testInfo, Tiles.WALL, testRoom.objectAt(4, 9));
+		assertEquals(testInfo, Tiles.EMPTY, testRoom.objectAt(4, 5));
+		assertEquals(testInfo, "", outContent.toString());
+		assertEquals(testInfo, MoveResult.BLOCKED, testRoom.movePlayer(Direction.RIGHT, 3));
+		assertEquals(testInfo, "New position (4, 9) is not empty: #" + System.lineSeparator(), outContent.toString());
+	}
+
+	/**
+	 * A test which checks that sliding the player goes through a portal that
+	 * is on its path, and that capital keys slide the player in a game.
+	 */
+	@Test
+	public void testSlideThroughPortal() {
+		String testInfo = "A test of sliding through a portal";
+		Game testGame = Game.headless(testRooms);
+		assertEquals(testInfo, MoveResult.MOVED, testGame.move('A'));
+		assertEquals(testInfo, 1, testGame.getCurrentRoom().getPlayerColumn());
+		assertEquals(testInfo, MoveResult.MOVED, testGame.move('S'));
+		assertEquals(testInfo, 8, testGame.getCurrentRoom().getPlayerRow());
+		assertEquals(testInfo, MoveResult.MOVED, testGame.move('d'));
+		assertEquals(testInfo, MoveResult.PORTAL, testGame.move('D'));
+		assertFalse(testInfo, testGame.isPlaying());
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Compares the time taken to display a room with the FrameRenderer against
+ * printing each object on its own, as Room.display did before it. Both write
+ * to a buffered stream that throws its output away, like a redirected
+ * System.out. Run it with the sizes of the rooms as arguments, for example
+ * "200 1000".
+ *
+ * @author Christopher Wells
+ */
+public class DisplayBenchmark {
+
+	private static final int CELLS_PER_TIMING = 20000000;	// The number of objects drawn for each timing
+
+	/**
+	 * The method that is run when the benchmark starts.
+	 *
+	 * @param args The sizes of the square rooms to display
+	 */
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			args = new String[]{"200", "1000"};
+		}
+		PrintStream out = new PrintStream(new BufferedOutputStream(new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+			}
+		}, 8192), false);
+		String[] rooms = {"room1"};
+		for (String arg : args) {
+			int size = Integer.parseInt(arg);
+			Room room = new Room(size, size, size / 2, size / 2, new Game(rooms));
+			FrameRenderer renderer = new FrameRenderer();
+			int frames = Math.max(1, CELLS_PER_TIMING / (size * size));
+
+			long perCell = Long.MAX_VALUE;
+			long frame = Long.MAX_VALUE;
+			for (int run = 0; run < 5; run++) {
+				long start = System.nanoTime();
+				for (int i = 0; i < frames; i++) {
+					printEachObject(room, out);
+				}
+				perCell = Math.min(perCell, (System.nanoTime() - start) / frames);
+
+				start = System.nanoTime();
+				for (int i = 0; i < frames; i++) {
+					renderer.render(room, out);
+				}
+				frame = Math.min(frame, (System.nanoTime() - start) / frames);
+			}
+			System.out.printf("%dx%d: print each object %d us/frame, FrameRenderer %d us/frame%n",
+					size, size, perCell / 1000, frame / 1000);
+		}
+	}
+
+	/**
+	 * The method used to display a room by printing each object on its own,
+	 * as Room.display did before the FrameRenderer.
+	 *
+	 * @param room The room to display
+	 * @param out The stream to display the room on
+	 */
+	private static void printEachObject(Room room, PrintStream out) {
+		for (int i = 0; i < room.getRows(); i++) {
+			for (int j = 0; j < room.getColumns(); j++) {
+				out.print(Tiles.toChar(room.objectAt(i, j)));
+			}
+			out.println("");
+		}
+	}
+}
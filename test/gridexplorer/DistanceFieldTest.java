@@ -0,0 +1,177 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Christopher Wells <cwellsny@nycap.rr.com>
+ */
+public class DistanceFieldTest {
+
+	private final String[] testRooms = {"room1"};
+
+	/**
+	 * A test which checks the distances and path from the spawn point of a
+	 * room to its portal.
+	 */
+	@Test
+	public void testDistancesAndPath() {
+		String testInfo = "A test of the distances to the portal of a room";
+		Room testRoom = new Room("room1", Game.headless(testRooms));
+		DistanceField field = testRoom.getDistanceField();
+		assertEquals(testInfo, 0, field.distanceAt(8, 3));
+		assertEquals(testInfo, 6, field.distanceAt(4, 5));
+		assertEquals(testInfo, DistanceField.UNREACHABLE, field.distanceAt(0, 0));
+		assertEquals(testInfo, DistanceField.UNREACHABLE, field.distanceAt(-1, 3));
+
+		Direction[] path = field.pathFrom(4, 5);
+		assertEquals(testInfo, 6, path.length);
+		int r = 4;
+		int c = 5;
+		for (Direction step : path) {
+			r += step.getRowDelta();
+			c += step.getColumnDelta();
+		}
+		assertEquals(testInfo, Tiles.PORTAL, testRoom.objectAt(r, c));
+	}
+
+	/**
+	 * A test which checks that stepping towards the portal reaches it in the
+	 * fewest moves.
+	 */
+	@Test
+	public void testStepTowardPortal() {
+		String testInfo = "A test of stepping towards the portal";
+		Game testGame = Game.headless(testRooms);
+		for (int i = 0; i < 5; i++) {
+			assertEquals(testInfo, MoveResult.MOVED, testGame.getCurrentRoom().stepTowardPortal());
+		}
+		assertEquals(testInfo, MoveResult.PORTAL, testGame.getCurrentRoom().stepTowardPortal());
+		assertFalse(testInfo, testGame.isPlaying());
+	}
+
+	/**
+	 * A test which checks that the distances kept up to date as walls and
+	 * portals are added and removed match the distances found from scratch.
+	 */
+	@Test
+	public void testIncrementalUpdates() {
+		String testInfo = "A test of updating the distances as walls change";
+		Room testRoom = new Room("room2", Game.headless(testRooms));
+		Room otherRoom = new Room("room2", Game.headless(testRooms));
+		DistanceField field = testRoom.getDistanceField();
+		int[] objects = {Tiles.EMPTY, Tiles.WALL, Tiles.WALL, Tiles.PORTAL};
+		Random random = new Random(14);
+		for (int i = 0; i < 2000; i++) {
+			int r = random.nextInt(testRoom.getRows());
+			int c = random.nextInt(testRoom.getColumns());
+			if (testRoom.objectAt(r, c) == Tiles.PLAYER) {
+				continue;
+			}
+			int id = objects[random.nextInt(objects.length)];
+			if (id == Tiles.EMPTY) {
+				testRoom.removeObject(r, c);
+			} else {
+				testRoom.addObject(r, c, id);
+			}
+			DistanceField expected = DistanceField.compute(testRoom.getStorage());
+			for (int j = 0; j < testRoom.getRows(); j++) {
+				for (int k = 0; k < testRoom.getColumns(); k++) {
+					assertEquals(testInfo, expected.distanceAt(j, k), field.distanceAt(j, k));
+				}
+			}
+		}
+
+		// The distances of the room file are shared without being changed
+		DistanceField original = DistanceField.compute(otherRoom.getStorage());
+		DistanceField other = otherRoom.getDistanceField();
+		for (int j = 0; j < otherRoom.getRows(); j++) {
+			for (int k = 0; k < otherRoom.getColumns(); k++) {
+				assertEquals(testInfo, original.distanceAt(j, k), other.distanceAt(j, k));
+			}
+		}
+	}
+
+	/**
+	 * A test which checks that replacing a portal or wall of a room before its
+	 * distances are first found does not reuse the distances of the room file.
+	 */
+	@Test
+	public void testChangesBeforeFirstUse() {
+		String testInfo = "A test of finding the distances after a portal and a wall are replaced";
+		Room testRoom = new Room("room1", Game.headless(testRooms));
+		testRoom.addObject(8, 3, Tiles.EMPTY);
+		DistanceField field = testRoom.getDistanceField();
+		assertEquals(testInfo, -1, field.distanceAt(8, 3));
+		assertEquals(testInfo, -1, field.distanceAt(4, 5));
+
+		Room otherRoom = new Room("room1", Game.headless(testRooms));
+		otherRoom.addObject(0, 3, Tiles.PLAYER);
+		DistanceField expected = DistanceField.compute(otherRoom.getStorage());
+		DistanceField other = otherRoom.getDistanceField();
+		for (int j = 0; j < otherRoom.getRows(); j++) {
+			for (int k = 0; k < otherRoom.getColumns(); k++) {
+				assertEquals(testInfo, expected.distanceAt(j, k), other.distanceAt(j, k));
+			}
+		}
+	}
+
+	/**
+	 * A test which checks that a grid with more positions than an array can
+	 * hold is refused instead of overflowing the size of the distances.
+	 */
+	@Test
+	public void testTooLarge() {
+		String testInfo = "A test of finding the distances of a grid that is too large";
+		GridStorage grid = new GridStorage() {
+			@Override
+			public int getRows() {
+				return 50000;
+			}
+
+			@Override
+			public int getColumns() {
+				return 50000;
+			}
+
+			@Override
+			public int get(int r, int c) {
+				return Tiles.EMPTY;
+			}
+
+			@Override
+			public void set(int r, int c, int id) {
+			}
+		};
+		try {
+			DistanceField.compute(grid);
+			fail(testInfo);
+		} catch (IllegalStateException e) {
+		}
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.util.Random;
+
+/**
+ * Measures how many ticks per second the entities of a room can be moved at
+ * as the number of entities grows. The room is open apart from scattered
+ * walls, and the entities are NPCs so that their number stays the same from
+ * tick to tick. Run it with the size of the room as an argument, for example
+ * "2000".
+ *
+ * @author Christopher Wells
+ */
+public class EntityBenchmark {
+
+	private static final int[] COUNTS = {1000, 10000, 100000, 500000};	// The numbers of entities measured
+	private static final long RUN_NANOS = 1000000000L;	// The time spent ticking each number of entities
+
+	/**
+	 * The method that is run when the benchmark starts.
+	 *
+	 * @param args The size of the square room
+	 */
+	public static void main(String[] args) {
+		int size = args.length == 0 ? 2000 : Integer.parseInt(args[0]);
+		for (int count : COUNTS) {
+			EntityStore entities = populate(size, count, new Random(count));
+
+			// Warm up, then tick for a fixed time
+			for (int i = 0; i < 20; i++) {
+				entities.tick();
+			}
+			int ticks = 0;
+			long start = System.nanoTime();
+			long elapsed;
+			do {
+				entities.tick();
+				ticks++;
+				elapsed = System.nanoTime() - start;
+			} while (elapsed < RUN_NANOS);
+			System.out.printf("%d entities: %.1f ticks/s, %.1f ns per entity, %d moved and %d blocked in the last tick%n",
+					count, ticks * 1e9 / elapsed, elapsed / (double) ticks / count,
+					entities.getMoved(), entities.getCollisions());
+		}
+	}
+
+	/**
+	 * The method used to fill a room with walls and entities.
+	 *
+	 * @param size The size of the square room
+	 * @param count The number of entities
+	 * @param random The source of the positions
+	 * @return The entities of the room
+	 */
+	static EntityStore populate(int size, int count, Random random) {
+		GridStorage grid = new ByteGridStorage(size, size);
+		for (int i = 0; i < size * size / 50; i++) {
+			grid.set(random.nextInt(size), random.nextInt(size), Tiles.WALL);
+		}
+		Direction[] directions = Direction.values();
+		EntityStore entities = new EntityStore(grid);
+		while (entities.size() < count) {
+			entities.add(EntityStore.NPC, random.nextInt(size), random.nextInt(size),
+					directions[random.nextInt(directions.length)]);
+		}
+		return entities;
+	}
+}
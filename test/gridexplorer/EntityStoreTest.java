@@ -0,0 +1,146 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Christopher Wells <cwellsny@nycap.rr.com>
+ */
+public class EntityStoreTest {
+
+	/**
+	 * A test which checks that when two entities step into the same position
+	 * the one with the lower index moves, and that an entity cannot step into
+	 * a position that another entity is leaving.
+	 */
+	@Test
+	public void testStepConflicts() {
+		String testInfo = "A test of entities stepping into the same position";
+		EntityStore entities = new EntityStore(new ByteGridStorage(10, 10));
+		entities.add(EntityStore.NPC, 2, 1, Direction.RIGHT);
+		entities.add(EntityStore.NPC, 2, 3, Direction.LEFT);
+		entities.add(EntityStore.NPC, 5, 5, Direction.RIGHT);
+		entities.add(EntityStore.NPC, 5, 6, Direction.RIGHT);
+
+		assertEquals(testInfo, 2, entities.tick());
+		assertEquals(testInfo, 2, entities.getCollisions());
+		assertEquals(testInfo, 2, entities.getColumn(0));
+		assertEquals(testInfo, Direction.RIGHT, entities.getDirection(0));
+		assertEquals(testInfo, 3, entities.getColumn(1));
+		assertEquals(testInfo, Direction.UP, entities.getDirection(1));
+		assertEquals(testInfo, 5, entities.getColumn(2));
+		assertEquals(testInfo, Direction.DOWN, entities.getDirection(2));
+		assertEquals(testInfo, 7, entities.getColumn(3));
+		assertEquals(testInfo, 2, entities.getIndex().entityAt(5, 5));
+		assertEquals(testInfo, -1, entities.getIndex().entityAt(5, 6));
+	}
+
+	/**
+	 * A test which checks that a projectile is destroyed when it hits a wall
+	 * or the edge of the room, and that the other entities keep their order.
+	 */
+	@Test
+	public void testProjectiles() {
+		String testInfo = "A test of projectiles hitting walls";
+		Room testRoom = new Room(new ByteGridStorage(10, 10), 8, 8, null);
+		testRoom.addObject(4, 6, Tiles.WALL);
+		EntityStore entities = testRoom.getEntities();
+		assertEquals(testInfo, -1, entities.add(EntityStore.NPC, 4, 6, Direction.UP));
+		entities.add(EntityStore.PROJECTILE, 4, 4, Direction.RIGHT);
+		entities.add(EntityStore.PROJECTILE, 0, 2, Direction.UP);
+		entities.add(EntityStore.NPC, 3, 3, Direction.DOWN);
+		assertEquals(testInfo, -1, entities.add(EntityStore.NPC, 3, 3, Direction.UP));
+
+		entities.tick();
+		assertEquals(testInfo, 2, entities.size());
+		assertEquals(testInfo, EntityStore.PROJECTILE, entities.getType(0));
+		assertEquals(testInfo, 5, entities.getColumn(0));
+		assertEquals(testInfo, EntityStore.NPC, entities.getType(1));
+		assertEquals(testInfo, 4, entities.getRow(1));
+
+		entities.tick();
+		assertEquals(testInfo, 1, entities.size());
+		assertEquals(testInfo, EntityStore.NPC, entities.getType(0));
+		assertEquals(testInfo, 5, entities.getRow(0));
+		assertEquals(testInfo, 0, entities.getIndex().entityAt(5, 3));
+	}
+
+	/**
+	 * A test which checks that the player stops in front of an entity and
+	 * cannot step into it.
+	 */
+	@Test
+	public void testPlayerBlocked() {
+		String testInfo = "A test of the player moving into an entity";
+		Room testRoom = new Room(new ByteGridStorage(10, 10), 8, 8, null);
+		testRoom.getEntities().add(EntityStore.NPC, 8, 5, Direction.UP);
+		assertEquals(testInfo, MoveResult.MOVED, testRoom.movePlayer(Direction.LEFT, 5));
+		assertEquals(testInfo, 6, testRoom.getPlayerColumn());
+		assertEquals(testInfo, MoveResult.BLOCKED, testRoom.movePlayer(Direction.LEFT, 1));
+		assertEquals(testInfo, 6, testRoom.getPlayerColumn());
+
+		testRoom.getEntities().tick();
+		assertEquals(testInfo, MoveResult.MOVED, testRoom.movePlayer(Direction.LEFT, 1));
+		assertEquals(testInfo, 5, testRoom.getPlayerColumn());
+	}
+
+	/**
+	 * A test which checks that the entities within a square are all found,
+	 * including those in other buckets of the index.
+	 */
+	@Test
+	public void testNeighbourhoodQueries() {
+		String testInfo = "A test of finding the entities around a position";
+		EntityStore entities = new EntityStore(new ByteGridStorage(40, 40));
+		for (int r = 0; r < 40; r += 3) {
+			for (int c = 0; c < 40; c += 2) {
+				entities.add(EntityStore.NPC, r, c, Direction.UP);
+			}
+		}
+		SpatialIndex index = entities.getIndex();
+		int[] found = new int[64];
+		for (int r = 0; r < 40; r += 7) {
+			for (int c = 0; c < 40; c += 5) {
+				int expected = 0;
+				for (int i = 0; i < entities.size(); i++) {
+					if (Math.abs(entities.getRow(i) - r) <= 4 && Math.abs(entities.getColumn(i) - c) <= 4) {
+						expected++;
+					}
+				}
+				assertEquals(testInfo, expected, index.countWithin(r, c, 4));
+				int count = index.findWithin(r, c, 4, found);
+				assertEquals(testInfo, expected, count);
+				for (int i = 0; i < count; i++) {
+					assertTrue(testInfo, Math.abs(entities.getRow(found[i]) - r) <= 4);
+					assertTrue(testInfo, Math.abs(entities.getColumn(found[i]) - c) <= 4);
+				}
+			}
+		}
+		assertEquals(testInfo, -1, index.entityAt(1, 0));
+		assertEquals(testInfo, entities.size() - 1, index.entityAt(39, 38));
+	}
+}
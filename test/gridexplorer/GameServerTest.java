@@ -0,0 +1,143 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Christopher Wells <cwellsny@nycap.rr.com>
+ */
+public class GameServerTest {
+
+	private GameServer server;
+
+	@Before
+	public void setUp() throws IOException {
+		String[] rooms = {"room1", "room2", "special"};
+		server = new GameServer(FileRoomSource.named(rooms), new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		server.close();
+	}
+
+	/**
+	 * The method used to connect to the server.
+	 *
+	 * @return The connection
+	 */
+	private Socket connect() throws IOException {
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+		socket.setSoTimeout(5000);
+		return socket;
+	}
+
+	/**
+	 * A test which checks that each key is answered with only what changed,
+	 * including the move into the next room.
+	 */
+	@Test
+	public void testMoves() throws IOException {
+		String testInfo = "A test of playing over the network";
+		try (Socket socket = connect()) {
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+			OutputStream out = socket.getOutputStream();
+			assertEquals(testInfo, "ROOM 0 room1 4 5", in.readLine());
+			out.write("sss\naas x\n".getBytes(StandardCharsets.US_ASCII));
+			String[] expected = {"M 5 5", "M 6 5", "M 7 5", "M 7 4", "M 7 3", "ROOM 1 room2 8 7", "X"};
+			for (String line : expected) {
+				assertEquals(testInfo, line, in.readLine());
+			}
+			assertEquals(testInfo, 0, server.getRoom(0).getPlayers());
+			assertEquals(testInfo, 1, server.getRoom(1).getPlayers());
+
+			out.write('q');
+			assertNull(testInfo, in.readLine());
+		}
+	}
+
+	/**
+	 * A test which checks that players block each other, and that a player
+	 * leaves its room when it disconnects.
+	 */
+	@Test
+	public void testSharedRoom() throws IOException, InterruptedException {
+		String testInfo = "A test of two players in one room";
+		try (Socket first = connect(); Socket second = connect()) {
+			BufferedReader firstIn = new BufferedReader(new InputStreamReader(first.getInputStream(), StandardCharsets.US_ASCII));
+			BufferedReader secondIn = new BufferedReader(new InputStreamReader(second.getInputStream(), StandardCharsets.US_ASCII));
+			String firstRoom = firstIn.readLine();
+			String secondRoom = secondIn.readLine();
+			assertTrue(testInfo, firstRoom.startsWith("ROOM 0 room1 "));
+			assertTrue(testInfo, secondRoom.startsWith("ROOM 0 room1 "));
+			assertFalse(testInfo, firstRoom.equals(secondRoom));
+
+			// Whichever player joined first is at the spawn point, and the other
+			// is diagonally up and to the left of it
+			BufferedReader lowerIn = firstRoom.equals("ROOM 0 room1 4 5") ? firstIn : secondIn;
+			Socket lower = lowerIn == firstIn ? first : second;
+			Socket upper = lowerIn == firstIn ? second : first;
+			BufferedReader upperIn = lowerIn == firstIn ? secondIn : firstIn;
+			upper.getOutputStream().write('s');
+			assertEquals(testInfo, "M 4 4", upperIn.readLine());
+			lower.getOutputStream().write('a');
+			assertEquals(testInfo, "B", lowerIn.readLine());
+
+			upper.close();
+			for (int i = 0; i < 100 && server.getRoom(0).getPlayers() > 1; i++) {
+				Thread.sleep(10);
+			}
+			assertEquals(testInfo, 1, server.getRoom(0).getPlayers());
+			lower.getOutputStream().write('a');
+			assertEquals(testInfo, "M 4 4", lowerIn.readLine());
+		}
+	}
+
+	/**
+	 * A test which checks that the load client measures the time taken to
+	 * answer moves over loopback.
+	 */
+	@Test
+	public void testLoadClient() throws IOException {
+		String testInfo = "A test of the load client";
+		InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+		LatencyHistogram latencies = LoadClient.run(address, 20, 300);
+		assertTrue(testInfo, latencies.getCount() > 0);
+		assertTrue(testInfo, latencies.getPercentile(0.5) <= latencies.getPercentile(0.99));
+		assertTrue(testInfo, latencies.getPercentile(0.99) <= latencies.getMax());
+	}
+}
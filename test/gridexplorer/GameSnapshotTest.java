@@ -0,0 +1,167 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Christopher Wells <cwellsny@nycap.rr.com>
+ */
+public class GameSnapshotTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final String[] testRooms = {"room1", "room2", "special"};
+
+	/**
+	 * The method used to check that two rooms hold the same objects and
+	 * positions.
+	 *
+	 * @param testInfo The description of the test
+	 * @param expected The room that was saved
+	 * @param actual The room that was restored
+	 */
+	private void assertSameRoom(String testInfo, Room expected, Room actual) {
+		assertEquals(testInfo, expected.getRows(), actual.getRows());
+		assertEquals(testInfo, expected.getColumns(), actual.getColumns());
+		assertEquals(testInfo, expected.getSpawnRow(), actual.getSpawnRow());
+		assertEquals(testInfo, expected.getSpawnColumn(), actual.getSpawnColumn());
+		assertEquals(testInfo, expected.getPlayerRow(), actual.getPlayerRow());
+		assertEquals(testInfo, expected.getPlayerColumn(), actual.getPlayerColumn());
+		for (int i = 0; i < expected.getRows(); i++) {
+			for (int j = 0; j < expected.getColumns(); j++) {
+				assertEquals(testInfo, expected.objectAt(i, j), actual.objectAt(i, j));
+			}
+		}
+	}
+
+	/**
+	 * A test which checks that a game restored from a snapshot is in the same
+	 * room, with the same grid, and carries on in the same way.
+	 */
+	@Test
+	public void testSaveAndRestoreGame() throws IOException {
+		String testInfo = "A test of saving and restoring a game";
+		Game saved = Game.headless(testRooms);
+		Simulation.run(saved, "sssaaswwwwwwwaaa".toCharArray());
+		saved.getCurrentRoom().addObject(5, 5, Tiles.WALL);
+		File file = folder.newFile("game.snapshot");
+		saved.saveSnapshot(file);
+
+		Game restored = Game.headless(testRooms);
+		restored.restoreSnapshot(file);
+		assertEquals(testInfo, 1, restored.getRoomIndex());
+		assertTrue(testInfo, restored.isPlaying());
+		assertSameRoom(testInfo, saved.getCurrentRoom(), restored.getCurrentRoom());
+
+		char[] rest = "aaasssssssdddssssaaaaaaawwwwd".toCharArray();
+		SimulationResult expected = Simulation.run(saved, rest);
+		SimulationResult actual = Simulation.run(restored, rest);
+		assertEquals(testInfo, expected.toString(), actual.toString());
+		assertFalse(testInfo, restored.isPlaying());
+	}
+
+	/**
+	 * A test which checks that a captured game is saved as it was when it was
+	 * captured, even after the game has carried on and changed its grid.
+	 */
+	@Test
+	public void testCapture() throws IOException {
+		String testInfo = "A test of capturing a game";
+		Game captured = Game.headless(testRooms);
+		Simulation.run(captured, "sss".toCharArray());
+		GameSnapshot.Capture capture = GameSnapshot.capture(captured);
+		byte[] expected = GameSnapshot.toBytes(captured);
+		Simulation.run(captured, "aa".toCharArray());
+		captured.getCurrentRoom().addObject(5, 5, Tiles.WALL);
+		assertEquals(testInfo, expected.length, capture.length());
+		assertArrayEquals(testInfo, expected, capture.toBytes());
+
+		Game restored = Game.headless(testRooms);
+		GameSnapshot.restore(restored, ByteBuffer.wrap(capture.toBytes()));
+		assertEquals(testInfo, 7, restored.getCurrentRoom().getPlayerRow());
+		assertEquals(testInfo, 5, restored.getCurrentRoom().getPlayerColumn());
+		assertEquals(testInfo, Tiles.EMPTY, restored.getCurrentRoom().objectAt(5, 5));
+	}
+
+	/**
+	 * A test which checks that a room held in each kind of grid storage is
+	 * restored with the same objects.
+	 */
+	@Test
+	public void testSaveAndRestoreRoom() throws IOException {
+		String testInfo = "A test of saving and restoring rooms";
+		Room[] rooms = {
+			new Room(new PackedGridStorage(40, 70), 3, 4, null),
+			new Room(new ByteGridStorage(33, 17), 1, 1, null),
+			new Room("room2", Game.headless(testRooms))
+		};
+		for (Room room : rooms) {
+			room.addObject(0, 2, Tiles.WALL);
+			room.addObject(5, 3, Tiles.PORTAL);
+			room.movePlayer(Direction.DOWN, 2);
+			File file = folder.newFile();
+			GameSnapshot.saveRoom(room, file);
+			assertSameRoom(testInfo, room, GameSnapshot.restoreRoom(file, Game.headless(testRooms)));
+		}
+	}
+
+	/**
+	 * A test which checks that a game is checkpointed every given number of
+	 * moves, and that a snapshot of other rooms is rejected.
+	 */
+	@Test
+	public void testCheckpointing() throws IOException {
+		String testInfo = "A test of checkpointing a game";
+		File file = new File(folder.getRoot(), "checkpoint");
+		Game testGame = Game.headless(testRooms);
+		testGame.setCheckpointing(file, 3);
+		testGame.move('s');
+		testGame.move('s');
+		assertFalse(testInfo, file.exists());
+		testGame.move('s');
+		assertTrue(testInfo, file.exists());
+		testGame.move('a');
+
+		Game restored = Game.headless(testRooms);
+		restored.restoreSnapshot(file);
+		assertEquals(testInfo, 7, restored.getCurrentRoom().getPlayerRow());
+		assertEquals(testInfo, 5, restored.getCurrentRoom().getPlayerColumn());
+
+		try {
+			Game.headless(new String[]{"room2"}).restoreSnapshot(file);
+			fail(testInfo);
+		} catch (IOException e) {
+			assertEquals(testInfo, "The snapshot is of a game with different rooms.", e.getMessage());
+		}
+	}
+}
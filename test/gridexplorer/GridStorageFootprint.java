@@ -0,0 +1,118 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the heap allocated for the grid of a room when it is stored as an
+ * int[][], as byte storage and as packed storage. Run it with the sizes of
+ * the rooms to measure as arguments, for example "1000 10000".
+ *
+ * @author Christopher Wells
+ */
+public class GridStorageFootprint {
+
+	private static Object keep;	// Keeps the measured grid reachable
+
+	/**
+	 * The method that is run when the measurement starts.
+	 *
+	 * @param args The sizes of the square rooms to measure
+	 */
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			args = new String[]{"1000", "10000"};
+		}
+		// The first measurements include loading the classes of the grids, so a
+		// small grid is measured first without printing the results
+		report(64, false);
+		for (String arg : args) {
+			report(Integer.parseInt(arg), true);
+		}
+	}
+
+	/**
+	 * The method used to measure the heap allocated for each kind of grid for a room
+	 * of a given size.
+	 *
+	 * @param size The number of rows and columns of the room
+	 * @param print Whether to print the measurements
+	 */
+	private static void report(final int size, boolean print) {
+		long ints = measure(new Allocation() {
+			@Override
+			public Object allocate() {
+				return new int[size][size];
+			}
+		});
+		long bytes = measure(new Allocation() {
+			@Override
+			public Object allocate() {
+				return new ByteGridStorage(size, size);
+			}
+		});
+		long packed = measure(new Allocation() {
+			@Override
+			public Object allocate() {
+				return new PackedGridStorage(size, size);
+			}
+		});
+		if (print) {
+			System.out.printf("%dx%d: int[][] %d KiB, byte %d KiB, packed %d KiB%n",
+					size, size, ints / 1024, bytes / 1024, packed / 1024);
+		}
+	}
+
+	/**
+	 * The method used to measure how many bytes of heap are allocated when a
+	 * grid is created.
+	 *
+	 * @param allocation The allocation to measure
+	 * @return The number of bytes that were allocated
+	 */
+	private static long measure(Allocation allocation) {
+		ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(thread);
+		keep = allocation.allocate();
+		long after = threads.getThreadAllocatedBytes(thread);
+		keep = null;
+		return after - before;
+	}
+
+	/**
+	 * An allocation of a grid to be measured.
+	 */
+	private interface Allocation {
+
+		/**
+		 * The method used to allocate the grid.
+		 *
+		 * @return The grid
+		 */
+		Object allocate();
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Christopher Wells <cwellsny@nycap.rr.com>
+ */
+public class GridStorageTest {
+
+	private int testRows = 7;
+	private int testColumns = 13;
+
+	/**
+	 * The method used to fill a grid with a pattern of objects and then check
+	 * that each of the objects can be read back.
+	 *
+	 * @param testInfo The description of the test
+	 * @param storage The storage to test
+	 * @param kinds The number of different objects to use in the pattern
+	 */
+	private void checkPattern(String testInfo, GridStorage storage, int kinds) {
+		for (int i = 0; i < testRows; i++) {
+			for (int j = 0; j < testColumns; j++) {
+				storage.set(i, j, (i * testColumns + j) % kinds);
+			}
+		}
+		for (int i = 0; i < testRows; i++) {
+			for (int j = 0; j < testColumns; j++) {
+				assertEquals(testInfo, (i * testColumns + j) % kinds, storage.get(i, j));
+			}
+		}
+	}
+
+	/**
+	 * A test which checks that byte storage holds each kind of object,
+	 * including unknown objects.
+	 */
+	@Test
+	public void testByteStorage() {
+		String testInfo = "A test of setting and getting objects in byte storage";
+		GridStorage storage = new ByteGridStorage(testRows, testColumns);
+		checkPattern(testInfo, storage, 4);
+		storage.set(2, 3, Tiles.UNKNOWN);
+		assertEquals(testInfo, Tiles.UNKNOWN, storage.get(2, 3));
+		assertEquals(testInfo, testRows, storage.getRows());
+		assertEquals(testInfo, testColumns, storage.getColumns());
+	}
+
+	/**
+	 * A test which checks that packed storage holds each kind of object, and
+	 * that setting an object does not change its neighbours.
+	 */
+	@Test
+	public void testPackedStorage() {
+		String testInfo = "A test of setting and getting objects in packed storage";
+		GridStorage storage = new PackedGridStorage(testRows, testColumns);
+		checkPattern(testInfo, storage, 4);
+		storage.set(2, 3, Tiles.PORTAL);
+		storage.set(2, 3, Tiles.WALL);
+		assertEquals(testInfo, Tiles.WALL, storage.get(2, 3));
+		assertEquals(testInfo, (2 * testColumns + 2) % 4, storage.get(2, 2));
+		assertEquals(testInfo, (2 * testColumns + 4) % 4, storage.get(2, 4));
+	}
+
+	/**
+	 * A test which checks that packed storage refuses unknown objects.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testPackedStorageUnknown() {
+		new PackedGridStorage(testRows, testColumns).set(0, 0, Tiles.UNKNOWN);
+	}
+
+	/**
+	 * A test which checks that the kind of storage is chosen based on the size
+	 * of the grid and whether it has unknown objects.
+	 */
+	@Test
+	public void testCreate() {
+		String testInfo = "A test of choosing the kind of storage for a grid";
+		assertTrue(testInfo, GridStorages.create(testRows, testColumns, false) instanceof ByteGridStorage);
+		assertTrue(testInfo, GridStorages.create(2048, 2048, false) instanceof PackedGridStorage);
+		assertTrue(testInfo, GridStorages.create(2048, 2048, true) instanceof ByteGridStorage);
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Measures the cost of recording every move of a game in a journal, and the
+ * time taken to replay the journal and to seek to random turns of it. The
+ * moves are random loops around the spawn point of the first room, as in the
+ * SimulationBenchmark. Run it with the number of moves as an argument, for
+ * example "10000000".
+ *
+ * @author Christopher Wells
+ */
+public class JournalBenchmark {
+
+	private static final int KEYFRAME_MOVES = 10000;	// The number of moves between keyframes
+	private static final int SEEKS = 100;	// The number of random turns that are seeked to
+
+	/**
+	 * The method that is run when the benchmark starts.
+	 *
+	 * @param args The number of moves to make
+	 * @throws IOException If the journal could not be written or read
+	 */
+	public static void main(String[] args) throws IOException {
+		int count = args.length == 0 ? 10000000 : Integer.parseInt(args[0]);
+		String[] rooms = {"room1"};
+
+		String[] loops = {"ws", "sw", "ad", "da", "wasd", "dsaw", "wwss", "aadd"};
+		Random random = new Random(1);
+		char[] moves = new char[count];
+		int length = 0;
+		while (length < count) {
+			String loop = loops[random.nextInt(loops.length)];
+			for (int i = 0; i < loop.length() && length < count; i++) {
+				moves[length++] = loop.charAt(i);
+			}
+		}
+		File file = File.createTempFile("game", ".journal");
+		file.deleteOnExit();
+
+		long start = System.nanoTime();
+		Simulation.run(rooms, moves);
+		long plain = System.nanoTime() - start;
+
+		Game game = Game.headless(rooms);
+		MoveJournal journal = new MoveJournal(file, FileRoomSource.named(rooms));
+		start = System.nanoTime();
+		game.setJournal(journal, KEYFRAME_MOVES);
+		Simulation.run(game, moves);
+		long recorded = System.nanoTime() - start;
+		journal.close();
+		long closed = System.nanoTime() - start;
+		System.out.printf("%d moves: %.1f ms without a journal, %.1f ms recorded, %.1f ms with the final flush%n",
+				count, plain / 1e6, recorded / 1e6, closed / 1e6);
+		System.out.printf("%d KiB in %d commits, %.1f ns per recorded move%n",
+				file.length() / 1024, journal.getCommits(), (recorded - plain) / (double) count);
+
+		start = System.nanoTime();
+		JournalReplay replay = new JournalReplay(file);
+		long indexed = System.nanoTime() - start;
+		start = System.nanoTime();
+		replay.replay();
+		long replayed = System.nanoTime() - start;
+		System.out.printf("index %.1f ms, %d keyframes; full replay %.1f ms%n",
+				indexed / 1e6, replay.getKeyframes(), replayed / 1e6);
+
+		long seeks = 0;
+		for (int i = 0; i < SEEKS; i++) {
+			long turn = (long) (random.nextDouble() * replay.getTurns());
+			start = System.nanoTime();
+			replay.seek(turn);
+			seeks += System.nanoTime() - start;
+		}
+		System.out.printf("%d random seeks, %.2f ms each%n", SEEKS, seeks / 1e6 / SEEKS);
+		file.delete();
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Christopher Wells <cwellsny@nycap.rr.com>
+ */
+public class LatencyHistogramTest {
+
+	/**
+	 * A test which checks that the percentiles of recorded durations are found
+	 * to within the precision of the buckets.
+	 */
+	@Test
+	public void testPercentiles() {
+		String testInfo = "A test of the percentiles of a histogram";
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(testInfo, 0, histogram.getPercentile(0.5));
+		for (long i = 1; i <= 100000; i++) {
+			histogram.record(i * 1000);
+		}
+		assertEquals(testInfo, 100000, histogram.getCount());
+		assertEquals(testInfo, 100000000, histogram.getMax());
+		assertEquals(testInfo, 50000000, histogram.getPercentile(0.5), 50000000 * 0.04);
+		assertEquals(testInfo, 99000000, histogram.getPercentile(0.99), 99000000 * 0.04);
+		assertEquals(testInfo, 100000000, histogram.getPercentile(1));
+		assertEquals(testInfo, 1000, histogram.getPercentile(0), 1000 * 0.04);
+
+		LatencyHistogram other = new LatencyHistogram();
+		other.record(5);
+		other.record(-3);
+		histogram.add(other);
+		assertEquals(testInfo, 100002, histogram.getCount());
+		assertEquals(testInfo, 0, histogram.getPercentile(0));
+		histogram.reset();
+		assertEquals(testInfo, 0, histogram.getCount());
+		assertEquals(testInfo, 0, histogram.getMax());
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Christopher Wells <cwellsny@nycap.rr.com>
+ */
+public class MappedGridStorageTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private String[] testRooms = {"room1"};
+	private MappedGridStorage testStorage;
+	private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+
+	@Before
+	public void setUp() {
+		System.setOut(new PrintStream(outContent));
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		System.setOut(null);
+		if (testStorage != null) {
+			testStorage.close();
+		}
+	}
+
+	/**
+	 * A test which checks that objects can be set and read back across the
+	 * boundaries between segments.
+	 */
+	@Test
+	public void testSegments() throws IOException {
+		String testInfo = "A test of setting and getting objects across segments";
+		testStorage = new MappedGridStorage(folder.newFile(), true, 10, 30, 6);
+		for (int i = 0; i < 10; i++) {
+			for (int j = 0; j < 30; j++) {
+				testStorage.set(i, j, (i + j) % 4);
+			}
+		}
+		testStorage.set(5, 7, Tiles.UNKNOWN);
+		for (int i = 0; i < 10; i++) {
+			for (int j = 0; j < 30; j++) {
+				int expected = i == 5 && j == 7 ? Tiles.UNKNOWN : (i + j) % 4;
+				assertEquals(testInfo, expected, testStorage.get(i, j));
+			}
+		}
+		assertEquals(testInfo, 5, testStorage.getMappedSegments());
+	}
+
+	/**
+	 * A test which checks that a grid with more cells than an array can hold
+	 * only maps the segments that are used.
+	 */
+	@Test
+	public void testLargeGrid() throws IOException {
+		String testInfo = "A test of a grid with more cells than an array can hold";
+		int rows = 50000;
+		int columns = 100000;
+		testStorage = new MappedGridStorage(folder.newFile(), true, rows, columns, 20);
+		assertEquals(testInfo, Tiles.EMPTY, testStorage.get(rows - 1, columns - 1));
+		testStorage.set(rows - 1, columns - 1, Tiles.PORTAL);
+		testStorage.set(0, 0, Tiles.WALL);
+		assertEquals(testInfo, Tiles.PORTAL, testStorage.get(rows - 1, columns - 1));
+		assertEquals(testInfo, Tiles.WALL, testStorage.get(0, 0));
+		assertEquals(testInfo, 2, testStorage.getMappedSegments());
+	}
+
+	/**
+	 * A test which checks that the objects in a grid file are kept when the
+	 * file is opened again.
+	 */
+	@Test
+	public void testReopen() throws IOException {
+		String testInfo = "A test of reopening a grid file";
+		File gridFile = folder.newFile();
+		MappedGridStorage storage = new MappedGridStorage(gridFile, 4, 4);
+		storage.set(2, 1, Tiles.WALL);
+		storage.flush();
+		storage.close();
+		testStorage = new MappedGridStorage(gridFile, 4, 4);
+		assertEquals(testInfo, Tiles.WALL, testStorage.get(2, 1));
+	}
+
+	/**
+	 * A test which checks that a temporary grid file is deleted as soon as it
+	 * is open, while the grid can still be used.
+	 */
+	@Test
+	public void testTemporaryFile() throws IOException {
+		String testInfo = "A test of deleting a temporary grid file";
+		File gridFile = folder.newFile();
+		testStorage = new MappedGridStorage(gridFile, true, 8, 8, 4);
+		assertFalse(testInfo, gridFile.exists());
+		testStorage.set(7, 7, Tiles.PORTAL);
+		assertEquals(testInfo, Tiles.PORTAL, testStorage.get(7, 7));
+	}
+
+	/**
+	 * A test which checks that a grid file holding a grid of another size is
+	 * rejected instead of being resized.
+	 */
+	@Test
+	public void testSizeMismatch() throws IOException {
+		String testInfo = "A test of opening a grid file of the wrong size";
+		File gridFile = folder.newFile();
+		new MappedGridStorage(gridFile, 4, 4).close();
+		try {
+			testStorage = new MappedGridStorage(gridFile, 4, 5);
+			fail(testInfo);
+		} catch (IOException e) {
+			assertEquals(testInfo, 16, gridFile.length());
+		}
+	}
+
+	/**
+	 * A test which checks that a room can be played and displayed on top of an
+	 * off-heap grid, and that closing the room closes the grid.
+	 */
+	@Test
+	public void testRoom() throws IOException {
+		String testInfo = "A test of a room stored off the heap";
+		testStorage = new MappedGridStorage(folder.newFile(), true, 3, 4, 30);
+		testStorage.set(0, 0, Tiles.WALL);
+		Room testRoom = new Room(testStorage, 2, 1, new Game(testRooms));
+		outContent.reset();
+		testRoom.movePlayer("up", 1);
+		testRoom.movePlayer("right", 1);
+		assertArrayEquals(testInfo, new int[]{1, 2}, testRoom.getPlayerPos());
+		assertEquals(testInfo, Tiles.PLAYER, testRoom.objectAt(1, 2));
+		assertEquals(testInfo, Tiles.UNKNOWN, testRoom.objectAt(3, 0));
+		testRoom.display();
+		assertEquals(testInfo, "#   \n  @ \n    \n", outContent.toString());
+		testRoom.close();
+		try {
+			testStorage.get(1, 2);
+			fail(testInfo);
+		} catch (IllegalStateException e) {
+			// The file of the grid has been closed
+		}
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Christopher Wells <cwellsny@nycap.rr.com>
+ */
+public class MetricsRegistryTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * A test which checks that metrics are created once by name, and are
+	 * described in order of name as text and as JSON.
+	 */
+	@Test
+	public void testDescriptions() {
+		String testInfo = "A test of describing metrics";
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.counter("b.count").add(3);
+		registry.counter("a.count").increment();
+		assertSame(testInfo, registry.counter("a.count"), registry.counter("a.count"));
+		registry.histogram("move").record(10);
+
+		assertEquals(testInfo, "a.count 1\nb.count 3\nmove count=1 p50=0.0us p99=0.0us max=0.0us\n", registry.toText());
+		assertEquals(testInfo, "{\"counters\":{\"a.count\":1,\"b.count\":3},"
+				+ "\"histograms\":{\"move\":{\"count\":1,\"p50\":10,\"p99\":10,\"max\":10}}}", registry.toJson());
+
+		registry.reset();
+		assertEquals(testInfo, 0, registry.counter("b.count").get());
+		assertEquals(testInfo, 0, registry.histogram("move").getCount());
+	}
+
+	/**
+	 * A test which checks that the view shown over JMX holds the values of
+	 * the metrics.
+	 */
+	@Test
+	public void testBean() {
+		String testInfo = "A test of the metrics shown over JMX";
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.counter("room.move.blocked").add(2);
+		registry.histogram("room.move").record(1000);
+		MetricsMXBean bean = new Metrics.Bean(registry);
+		assertEquals(testInfo, Long.valueOf(2), bean.getCounters().get("room.move.blocked"));
+		assertEquals(testInfo, Long.valueOf(1), bean.getLatencyCounts().get("room.move"));
+		assertEquals(testInfo, Long.valueOf(1000), bean.getLatencyMax().get("room.move"));
+		assertTrue(testInfo, bean.getLatencyP99().get("room.move") <= 1000);
+		bean.reset();
+		assertEquals(testInfo, Long.valueOf(0), bean.getCounters().get("room.move.blocked"));
+	}
+
+	/**
+	 * A test which checks that a reporter writes JSON to a file whose name
+	 * ends with ".json".
+	 */
+	@Test
+	public void testReporter() throws IOException {
+		String testInfo = "A test of writing metrics to a file";
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.counter("room.move.invalid").add(5);
+		File file = new File(folder.getRoot(), "metrics.json");
+		MetricsReporter reporter = new MetricsReporter(registry, file, 60000);
+		reporter.close();
+		String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		assertEquals(testInfo, "{\"counters\":{\"room.move.invalid\":5},\"histograms\":{}}\n", json);
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the heap allocated for each move of a headless game, comparing
+ * moving by the name of a direction and reading the position of the player
+ * as an array against moving by key and reading the row and column directly.
+ * Run it with the number of moves as an argument, for example "10000000".
+ *
+ * @author Christopher Wells
+ */
+public class MoveAllocationBenchmark {
+
+	private static final String[] NAMES = {"up", "down", "left", "right"};	// The names of the looping moves
+	private static final char[] KEYS = {'w', 's', 'a', 'd'};	// The keys of the looping moves
+
+	private static long sink;	// Keeps the positions that are read from being optimised away
+
+	/**
+	 * The method that is run when the benchmark starts.
+	 *
+	 * @param args The number of moves to make
+	 */
+	public static void main(String[] args) {
+		int count = args.length == 0 ? 10000000 : Integer.parseInt(args[0]);
+		ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		String[] rooms = {"room1"};
+
+		for (int run = 0; run < 5; run++) {
+			Game game = Game.headless(rooms);
+			Room room = game.getCurrentRoom();
+
+			long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+			long start = System.nanoTime();
+			for (int i = 0; i < count; i++) {
+				room.movePlayer(NAMES[i & 3], 1);
+				int[] playerPos = room.getPlayerPos();
+				sink += playerPos[0] + playerPos[1];
+			}
+			long namesTime = System.nanoTime() - start;
+			long names = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+
+			before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+			start = System.nanoTime();
+			for (int i = 0; i < count; i++) {
+				game.move(KEYS[i & 3]);
+				sink += room.getPlayerRow() + room.getPlayerColumn();
+			}
+			long keysTime = System.nanoTime() - start;
+			long keys = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+
+			System.out.printf("names and getPlayerPos: %.2f bytes/move, %d ms; keys and getPlayerRow: %.2f bytes/move, %d ms%n",
+					(double) names / count, namesTime / 1000000, (double) keys / count, keysTime / 1000000);
+		}
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Christopher Wells <cwellsny@nycap.rr.com>
+ */
+public class MoveJournalTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final String[] testRooms = {"room1", "room2", "special"};
+	private final String winningMoves = "sssaaswwwwwwwaaaaaasssssssdddssssaaaaaaawwwwd";
+
+	/**
+	 * The method used to play a game while recording it in a journal.
+	 *
+	 * @param moves The moves to play
+	 * @param keyframeMoves The number of moves between keyframes
+	 * @return The file of the journal
+	 */
+	private File record(String moves, int keyframeMoves) throws IOException {
+		File file = folder.newFile();
+		Game recorded = Game.headless(testRooms);
+		try (MoveJournal journal = new MoveJournal(file, FileRoomSource.named(testRooms))) {
+			recorded.setJournal(journal, keyframeMoves);
+			Simulation.run(recorded, moves.toCharArray());
+		}
+		return file;
+	}
+
+	/**
+	 * The method used to check that two games are in the same room, with the
+	 * player at the same position.
+	 *
+	 * @param testInfo The description of the test
+	 * @param expected The game that was played directly
+	 * @param actual The game that was rebuilt from the journal
+	 */
+	private void assertSameGame(String testInfo, Game expected, Game actual) {
+		assertEquals(testInfo, expected.getRoomIndex(), actual.getRoomIndex());
+		assertEquals(testInfo, expected.isPlaying(), actual.isPlaying());
+		if (expected.isPlaying()) {
+			assertEquals(testInfo, expected.getCurrentRoom().getPlayerRow(), actual.getCurrentRoom().getPlayerRow());
+			assertEquals(testInfo, expected.getCurrentRoom().getPlayerColumn(), actual.getCurrentRoom().getPlayerColumn());
+		}
+	}
+
+	/**
+	 * A test which checks that a recorded game is replayed to the same end,
+	 * and that seeking to any turn rebuilds the game as it was at that turn.
+	 */
+	@Test
+	public void testReplayAndSeek() throws IOException {
+		String testInfo = "A test of replaying and seeking a journal";
+		JournalReplay replay = new JournalReplay(record(winningMoves, 4));
+		assertArrayEquals(testInfo, testRooms, replay.getRoomNames());
+		assertEquals(testInfo, winningMoves.length(), replay.getTurns());
+		assertEquals(testInfo, 1 + winningMoves.length() / 4, replay.getKeyframes());
+
+		Game replayed = replay.replay();
+		assertFalse(testInfo, replayed.isPlaying());
+		assertEquals(testInfo, testRooms.length, replayed.getRoomIndex());
+
+		for (int turn = 0; turn <= winningMoves.length(); turn++) {
+			Game expected = Game.headless(testRooms);
+			Simulation.run(expected, winningMoves.substring(0, turn).toCharArray());
+			assertSameGame(testInfo + " at turn " + turn, expected, replay.seek(turn));
+		}
+	}
+
+	/**
+	 * A test which checks that a journal cut short in the middle of a record
+	 * is still replayed up to its last complete record.
+	 */
+	@Test
+	public void testTruncatedJournal() throws IOException {
+		String testInfo = "A test of replaying a truncated journal";
+		File file = record("sssaa", 100);
+		try (RandomAccessFile cut = new RandomAccessFile(file, "rw")) {
+			cut.setLength(cut.length() - 1);
+		}
+		JournalReplay replay = new JournalReplay(file);
+		assertEquals(testInfo, 4, replay.getTurns());
+
+		Game expected = Game.headless(testRooms);
+		Simulation.run(expected, "sssa".toCharArray());
+		assertSameGame(testInfo, expected, replay.replay());
+	}
+
+	/**
+	 * A test which checks that a replay with rooms that lead somewhere other
+	 * than the recorded game is rejected.
+	 */
+	@Test
+	public void testDivergingReplay() throws IOException {
+		String testInfo = "A test of a replay that does not match its journal";
+		JournalReplay replay = new JournalReplay(record(winningMoves, 100));
+		RoomSource[] others = FileRoomSource.named(testRooms);
+		others[1] = new MemoryRoomSource("room2", RoomLoader.load("room1"));
+		try {
+			replay.seek(others, replay.getTurns());
+			fail(testInfo);
+		} catch (IOException e) {
+			assertTrue(testInfo, e.getMessage().startsWith("The replay moved to room"));
+		}
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.util.Random;
+
+/**
+ * Measures how many ticks per second the entities of a room can be moved at
+ * on one thread and on every processor. Run it with the size of the room and
+ * the number of entities as arguments, for example "4000 2000000".
+ *
+ * @author Christopher Wells
+ */
+public class ParallelTickBenchmark {
+
+	private static final int TICKS = 20;	// The number of timed ticks of each engine
+
+	/**
+	 * The method that is run when the benchmark starts.
+	 *
+	 * @param args The size of the square room and the number of entities
+	 */
+	public static void main(String[] args) {
+		int size = args.length < 1 ? 4000 : Integer.parseInt(args[0]);
+		int count = args.length < 2 ? 2000000 : Integer.parseInt(args[1]);
+		int threads = Runtime.getRuntime().availableProcessors();
+
+		EntityStore sequential = EntityBenchmark.populate(size, count, new Random(1));
+		long elapsed = time(sequential, null);
+		System.out.printf("1 thread: %.2f ticks/s%n", TICKS * 1e9 / elapsed);
+
+		ParallelTickEngine engine = new ParallelTickEngine(threads);
+		EntityStore parallel = EntityBenchmark.populate(size, count, new Random(1));
+		long parallelElapsed = time(parallel, engine);
+		engine.shutdown();
+		System.out.printf("%d threads: %.2f ticks/s, %.2fx%n",
+				threads, TICKS * 1e9 / parallelElapsed, elapsed / (double) parallelElapsed);
+	}
+
+	/**
+	 * The method used to time the ticks of an engine, after warming it up.
+	 *
+	 * @param entities The entities to move
+	 * @param engine The engine to move them with, or null to move them on the
+	 * calling thread
+	 * @return The time taken by the timed ticks, in nanoseconds
+	 */
+	private static long time(EntityStore entities, ParallelTickEngine engine) {
+		long start = 0;
+		for (int i = -5; i < TICKS; i++) {
+			if (i == 0) {
+				start = System.nanoTime();
+			}
+			if (engine == null) {
+				entities.tick();
+			} else {
+				engine.tick(entities);
+			}
+		}
+		return System.nanoTime() - start;
+	}
+}
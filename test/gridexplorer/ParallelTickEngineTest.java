@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Christopher Wells <cwellsny@nycap.rr.com>
+ */
+public class ParallelTickEngineTest {
+
+	/**
+	 * The method used to fill a room with walls and a crowd of NPCs and
+	 * projectiles, so that many steps cross the edges of the bands.
+	 *
+	 * @param seed The seed of the positions
+	 * @return The entities of the room
+	 */
+	private EntityStore crowd(long seed) {
+		Random random = new Random(seed);
+		GridStorage grid = new ByteGridStorage(300, 300);
+		for (int i = 0; i < 3000; i++) {
+			grid.set(random.nextInt(300), random.nextInt(300), Tiles.WALL);
+		}
+		Direction[] directions = Direction.values();
+		EntityStore entities = new EntityStore(grid);
+		while (entities.size() < 30000) {
+			byte type = random.nextInt(4) == 0 ? EntityStore.PROJECTILE : EntityStore.NPC;
+			entities.add(type, random.nextInt(300), random.nextInt(300), directions[random.nextInt(directions.length)]);
+		}
+		return entities;
+	}
+
+	/**
+	 * A test which checks that ticking the entities on several threads gives
+	 * exactly the same entities as ticking them on one thread.
+	 */
+	@Test
+	public void testMatchesSequentialTicks() {
+		String testInfo = "A test of parallel ticks matching sequential ticks";
+		EntityStore sequential = crowd(7);
+		EntityStore parallel = crowd(7);
+		ParallelTickEngine engine = new ParallelTickEngine(4);
+		try {
+			for (int tick = 0; tick < 40; tick++) {
+				int expected = sequential.tick();
+				assertEquals(testInfo, expected, engine.tick(parallel));
+				assertEquals(testInfo, sequential.getCollisions(), parallel.getCollisions());
+				assertEquals(testInfo, sequential.size(), parallel.size());
+				for (int i = 0; i < sequential.size(); i++) {
+					assertEquals(testInfo, sequential.getRow(i), parallel.getRow(i));
+					assertEquals(testInfo, sequential.getColumn(i), parallel.getColumn(i));
+					assertEquals(testInfo, sequential.getType(i), parallel.getType(i));
+					assertEquals(testInfo, sequential.getDirection(i), parallel.getDirection(i));
+				}
+			}
+			assertTrue(testInfo, parallel.size() < 30000);
+		} finally {
+			engine.shutdown();
+		}
+	}
+}
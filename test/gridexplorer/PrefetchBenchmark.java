@@ -0,0 +1,64 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+/**
+ * Measures how long moving through a portal into a large generated room takes
+ * with and without prefetching the room. The player spends a short time in
+ * the first room before reaching the portal, as it would while playing. Run it
+ * with the size of the room as an argument, for example "5000".
+ *
+ * @author Christopher Wells
+ */
+public class PrefetchBenchmark {
+
+	private static final int RUNS = 5;	// The number of transitions timed each way
+	private static final long PLAY_MILLIS = 2000;	// The time spent in the first room before the portal
+
+	/**
+	 * The method that is run when the benchmark starts.
+	 *
+	 * @param args The size of the square room to move into
+	 * @throws InterruptedException If the benchmark is interrupted
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int size = args.length == 0 ? 5000 : Integer.parseInt(args[0]);
+		for (boolean prefetching : new boolean[]{false, true}) {
+			long total = 0;
+			for (int run = 0; run < RUNS; run++) {
+				RoomSource[] rooms = {new FileRoomSource("room1"), new MazeRoomSource(size, size, run)};
+				Game game = Game.headless(rooms);
+				game.setPrefetching(prefetching);
+				Thread.sleep(PLAY_MILLIS);
+				while (game.getRoomIndex() == 0) {
+					game.getCurrentRoom().stepTowardPortal();
+				}
+				total += game.getTransitionStats().getMaxNanos();
+				System.out.println((prefetching ? "prefetching: " : "synchronous: ") + game.getTransitionStats());
+			}
+			System.out.printf("%dx%d %s: average transition %.3f ms%n",
+					size, size, prefetching ? "with prefetching" : "without prefetching", total / 1e6 / RUNS);
+		}
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Christopher Wells <cwellsny@nycap.rr.com>
+ */
+public class PrefetchTest {
+
+	/**
+	 * A room source that records the thread its layout was loaded on, and can
+	 * hold the load until it is released.
+	 */
+	private static final class RecordingSource implements RoomSource {
+
+		private final CountDownLatch started = new CountDownLatch(1);	// Counted down once the load starts
+		private final CountDownLatch release;	// Waited on before the load finishes
+		private volatile Thread loadedOn;	// The thread the layout was loaded on
+
+		/**
+		 * The constructor method to create the source.
+		 *
+		 * @param hold Whether to hold the load until it is released
+		 */
+		private RecordingSource(boolean hold) {
+			release = new CountDownLatch(hold ? 1 : 0);
+		}
+
+		@Override
+		public String getName() {
+			return "recorded";
+		}
+
+		@Override
+		public RoomLayout getLayout() throws IOException {
+			loadedOn = Thread.currentThread();
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+			return MemoryRoomSource.fromText(getName(), "#####\n#@ *#\n#####\n").getLayout();
+		}
+	}
+
+	/**
+	 * The method used to walk the player through the portal of the current
+	 * room.
+	 *
+	 * @param game The game
+	 */
+	private void reachPortal(Game game) {
+		int index = game.getRoomIndex();
+		while (game.getRoomIndex() == index && game.isPlaying()) {
+			game.getCurrentRoom().stepTowardPortal();
+		}
+	}
+
+	/**
+	 * A test which checks that the next room is loaded on a worker thread and
+	 * swapped in when the player reaches the portal.
+	 */
+	@Test
+	public void testPrefetchedRoom() throws InterruptedException {
+		String testInfo = "A test of prefetching the next room";
+		RecordingSource next = new RecordingSource(false);
+		Game testGame = Game.headless(new RoomSource[]{new FileRoomSource("room1"), next});
+		testGame.setPrefetching(true);
+		assertTrue(testInfo, next.started.await(5, TimeUnit.SECONDS));
+		assertNotSame(testInfo, Thread.currentThread(), next.loadedOn);
+
+		reachPortal(testGame);
+		assertEquals(testInfo, 1, testGame.getRoomIndex());
+		assertEquals(testInfo, 1, testGame.getCurrentRoom().getPlayerColumn());
+		TransitionStats stats = testGame.getTransitionStats();
+		assertEquals(testInfo, 1, stats.getTransitions());
+		assertEquals(testInfo, 1, stats.getPrefetched() + stats.getWaited());
+		assertEquals(testInfo, 0, stats.getSynchronous());
+	}
+
+	/**
+	 * A test which checks that reaching a portal while the next room is still
+	 * being loaded waits for that load instead of loading the room again.
+	 */
+	@Test
+	public void testWaitForRunningPrefetch() throws InterruptedException {
+		String testInfo = "A test of waiting for a prefetch that is running";
+		final RecordingSource next = new RecordingSource(true);
+		Game testGame = Game.headless(new RoomSource[]{new FileRoomSource("room1"), next});
+		testGame.setPrefetching(true);
+		assertTrue(testInfo, next.started.await(5, TimeUnit.SECONDS));
+		Thread releaser = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					return;
+				}
+				next.release.countDown();
+			}
+		};
+		releaser.start();
+
+		reachPortal(testGame);
+		releaser.join();
+		assertEquals(testInfo, 1, testGame.getRoomIndex());
+		assertNotSame(testInfo, Thread.currentThread(), next.loadedOn);
+		assertEquals(testInfo, 1, testGame.getTransitionStats().getWaited());
+	}
+
+	/**
+	 * A test which checks that rooms are loaded on the game thread when
+	 * prefetching is not enabled.
+	 */
+	@Test
+	public void testSynchronousWithoutPrefetching() {
+		String testInfo = "A test of loading rooms without prefetching";
+		RecordingSource next = new RecordingSource(false);
+		Game testGame = Game.headless(new RoomSource[]{new FileRoomSource("room1"), next});
+		reachPortal(testGame);
+		assertSame(testInfo, Thread.currentThread(), next.loadedOn);
+		assertEquals(testInfo, 1, testGame.getTransitionStats().getSynchronous());
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Christopher Wells <cwellsny@nycap.rr.com>
+ */
+public class RealtimeLoopTest {
+
+	private final String[] testRooms = {"room1", "room2", "special"};
+
+	/**
+	 * The method used to create a pump that reads from a string.
+	 *
+	 * @param text The keys to read
+	 * @param capacity The largest number of keys that are queued
+	 * @return The pump
+	 */
+	private InputPump pump(String text, int capacity) {
+		return new InputPump(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)), capacity);
+	}
+
+	/**
+	 * A test which checks that the keys read by a pump are drained in order,
+	 * that whitespace is ignored, and that keys which do not fit in the queue
+	 * are dropped.
+	 */
+	@Test
+	public void testInputPump() throws InterruptedException {
+		String testInfo = "A test of reading keys into a bounded queue";
+		InputPump input = pump("wa\nsd ww\n", 4);
+		input.run();
+		char[] batch = new char[8];
+		assertEquals(testInfo, 4, input.drain(batch));
+		assertEquals(testInfo, "wasd", new String(batch, 0, 4));
+		assertEquals(testInfo, 2, input.getDropped());
+		assertEquals(testInfo, -1, input.drain(batch));
+		assertEquals(testInfo, -1, input.drain(batch));
+	}
+
+	/**
+	 * A test which checks that a game is played through to the end from keys
+	 * typed a line at a time, without drawing a frame for every key.
+	 */
+	@Test
+	public void testWinningGame() throws InterruptedException {
+		String testInfo = "A test of winning a game in real time";
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		Game testGame = new Game(testRooms, new PrintStream(output));
+		String moves = "sssaas\nwwwwwwwaaaaaasssssss\ndddssssaaaaaaawwwwd\n";
+		RealtimeLoop loop = new RealtimeLoop(testGame, pump(moves, 64), 10);
+		loop.run();
+		assertFalse(testInfo, testGame.isPlaying());
+		assertEquals(testInfo, testRooms.length, testGame.getRoomIndex());
+		assertEquals(testInfo, 45, loop.getMoves());
+		assertTrue(testInfo, loop.getFrames() <= loop.getBatches());
+		assertTrue(testInfo, output.toString().contains("Congratulations! You won!"));
+	}
+
+	/**
+	 * A test which checks that the game ends once the input ends.
+	 */
+	@Test
+	public void testEndOfInput() throws InterruptedException {
+		String testInfo = "A test of the input ending before the game";
+		Game testGame = Game.headless(testRooms);
+		RealtimeLoop loop = new RealtimeLoop(testGame, pump("ss", 64), 1000);
+		loop.run();
+		assertFalse(testInfo, testGame.isPlaying());
+		assertEquals(testInfo, 0, testGame.getRoomIndex());
+		assertEquals(testInfo, 6, testGame.getCurrentRoom().getPlayerRow());
+		assertEquals(testInfo, 2, loop.getMoves());
+	}
+
+	/**
+	 * A test which checks that a move which fails on the simulation thread
+	 * ends the loop with the error, instead of leaving it waiting forever.
+	 */
+	@Test(timeout = 10000)
+	public void testFailedMove() throws InterruptedException {
+		String testInfo = "A test of a move that fails";
+		Game testGame = new Game(testRooms, null) {
+			@Override
+			public MoveResult move(char key) {
+				throw new UnsupportedOperationException("No moves");
+			}
+		};
+		RealtimeLoop loop = new RealtimeLoop(testGame, pump("ss", 64), 1000);
+		try {
+			loop.run();
+			fail(testInfo);
+		} catch (IllegalStateException e) {
+			assertTrue(testInfo, e.getCause() instanceof UnsupportedOperationException);
+		}
+		assertEquals(testInfo, 0, loop.getMoves());
+	}
+}
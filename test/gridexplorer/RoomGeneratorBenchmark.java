@@ -0,0 +1,70 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+/**
+ * Measures the time taken to generate large mazes and caves straight into a
+ * room layout, with one thread and with every processor. Run it with the sizes
+ * of the rooms to generate as arguments, for example "1000 10000".
+ *
+ * @author Christopher Wells
+ */
+public class RoomGeneratorBenchmark {
+
+	private static final int RUNS = 3;	// The number of timed generations of each room
+
+	/**
+	 * The method that is run when the benchmark starts.
+	 *
+	 * @param args The sizes of the square rooms to generate
+	 */
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			args = new String[]{"1000", "10000"};
+		}
+		int processors = Runtime.getRuntime().availableProcessors();
+		for (String arg : args) {
+			int size = Integer.parseInt(arg);
+			for (int threads : new int[]{1, processors}) {
+				long maze = Long.MAX_VALUE;
+				long cave = Long.MAX_VALUE;
+				for (int i = 0; i < RUNS; i++) {
+					GeneratedRoomSource source = new MazeRoomSource(size, size, i);
+					source.setParallelism(threads);
+					long start = System.nanoTime();
+					source.getLayout();
+					maze = Math.min(maze, System.nanoTime() - start);
+
+					source = new CaveRoomSource(size, size, i);
+					source.setParallelism(threads);
+					start = System.nanoTime();
+					source.getLayout();
+					cave = Math.min(cave, System.nanoTime() - start);
+				}
+				System.out.printf("%dx%d with %d threads: maze %d ms, cave %d ms%n",
+						size, size, threads, maze / 1000000, cave / 1000000);
+			}
+		}
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * Compares the time taken to load large rooms with the single pass RoomLoader
+ * against the two Scanner parse that Room used before it. Run it with the
+ * sizes of the rooms to load as arguments, for example "1000 10000".
+ *
+ * @author Christopher Wells
+ */
+public class RoomLoaderBenchmark {
+
+	private static final int WARMUP_RUNS = 3;	// The number of untimed loads of each room
+	private static final int RUNS = 5;	// The number of timed loads of each room
+
+	/**
+	 * The method that is run when the benchmark starts.
+	 *
+	 * @param args The sizes of the square rooms to load
+	 * @throws IOException If a room file could not be written or read
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			args = new String[]{"1000", "10000"};
+		}
+		for (String arg : args) {
+			int size = Integer.parseInt(arg);
+			File roomFile = File.createTempFile("room" + size + "x" + size, ".txt");
+			roomFile.deleteOnExit();
+			writeRoom(roomFile, size);
+
+			// Warm up both loaders before timing them
+			for (int i = 0; i < WARMUP_RUNS; i++) {
+				legacyLoad(roomFile);
+				toGrid(RoomLoader.load(roomFile));
+			}
+
+			long legacy = Long.MAX_VALUE;
+			long loader = Long.MAX_VALUE;
+			for (int i = 0; i < RUNS; i++) {
+				long start = System.nanoTime();
+				legacyLoad(roomFile);
+				legacy = Math.min(legacy, System.nanoTime() - start);
+
+				start = System.nanoTime();
+				toGrid(RoomLoader.load(roomFile));
+				loader = Math.min(loader, System.nanoTime() - start);
+			}
+			System.out.printf("%dx%d: two Scanners %d ms, RoomLoader %d ms%n",
+					size, size, legacy / 1000000, loader / 1000000);
+			roomFile.delete();
+		}
+	}
+
+	/**
+	 * The method used to write a square room with walls around its edges and
+	 * some walls scattered within it.
+	 *
+	 * @param roomFile The file to write the room to
+	 * @param size The number of rows and columns of the room
+	 * @throws IOException If the room file could not be written
+	 */
+	private static void writeRoom(File roomFile, int size) throws IOException {
+		Random random = new Random(size);
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(roomFile), 1 << 16)) {
+			for (int i = 0; i < size; i++) {
+				for (int j = 0; j < size; j++) {
+					if (i == 0 || j == 0 || i == size - 1 || j == size - 1 || random.nextInt(8) == 0) {
+						out.write('#');
+					} else if (i == size / 2 && j == size / 2) {
+						out.write('@');
+					} else if (i == size - 2 && j == size - 2) {
+						out.write('*');
+					} else {
+						out.write(' ');
+					}
+				}
+				out.write('\n');
+			}
+		}
+	}
+
+	/**
+	 * The method used to fill a grid from a layout in the same way that Room
+	 * does.
+	 *
+	 * @param layout The layout of the room
+	 * @return The grid of the room
+	 */
+	private static int[][] toGrid(RoomLayout layout) {
+		int[][] grid = new int[layout.getRows()][layout.getColumns()];
+		for (int i = 0; i < layout.getRows(); i++) {
+			for (int j = 0; j < layout.getColumns(); j++) {
+				grid[i][j] = layout.objectAt(i, j);
+			}
+		}
+		return grid;
+	}
+
+	/**
+	 * The method used to load a room with the two Scanner parse that Room used
+	 * before RoomLoader.
+	 *
+	 * @param roomFile The room file
+	 * @return The grid of the room
+	 * @throws IOException If the room file could not be read
+	 */
+	private static int[][] legacyLoad(File roomFile) throws IOException {
+		try (Scanner findSize = new Scanner(roomFile); Scanner rm = new Scanner(roomFile)) {
+			String line = findSize.nextLine();
+			int rows = line.length();
+			int columns = 1;
+			while (findSize.hasNextLine()) {
+				findSize.nextLine();
+				columns++;
+			}
+
+			int[][] grid = new int[rows][columns];
+			int i = 0;
+			while (rm.hasNextLine()) {
+				line = rm.nextLine();
+				for (int j = 0; j < line.length(); j++) {
+					if (line.charAt(j) != '@') {
+						grid[i][j] = Tiles.fromChar(line.charAt(j));
+					}
+				}
+				i++;
+			}
+			return grid;
+		}
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Christopher Wells <cwellsny@nycap.rr.com>
+ */
+public class RoomLoaderTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * The method used to write a room file with the given contents.
+	 *
+	 * @param contents The contents of the room file
+	 * @return The room file
+	 * @throws IOException If the room file could not be written
+	 */
+	private File writeRoom(String contents) throws IOException {
+		File roomFile = folder.newFile();
+		try (FileOutputStream out = new FileOutputStream(roomFile)) {
+			out.write(contents.getBytes(StandardCharsets.UTF_8));
+		}
+		return roomFile;
+	}
+
+	/**
+	 * A test which checks that a room file from the rooms directory is loaded
+	 * with the correct size, spawn point and objects.
+	 */
+	@Test
+	public void testLoadRoomName() throws IOException {
+		String testInfo = "A test of loading a room by its name";
+		RoomLayout layout = RoomLoader.load("room1");
+		assertEquals(testInfo, 10, layout.getRows());
+		assertEquals(testInfo, 10, layout.getColumns());
+		assertEquals(testInfo, 4, layout.getSpawnRow());
+		assertEquals(testInfo, 5, layout.getSpawnColumn());
+		assertEquals(testInfo, Tiles.WALL, layout.objectAt(0, 0));
+		assertEquals(testInfo, Tiles.EMPTY, layout.objectAt(4, 5));
+		assertEquals(testInfo, Tiles.PORTAL, layout.objectAt(8, 3));
+		assertFalse(testInfo, layout.hasUnknown());
+	}
+
+	/**
+	 * A test which checks that rooms with a different number of rows and
+	 * columns are loaded with the rows and columns the right way around.
+	 */
+	@Test
+	public void testLoadNonSquare() throws IOException {
+		String testInfo = "A test of loading a room that is not square";
+		RoomLayout layout = RoomLoader.load(writeRoom("#####\n#@ *#\n#####\n"));
+		assertEquals(testInfo, 3, layout.getRows());
+		assertEquals(testInfo, 5, layout.getColumns());
+		assertEquals(testInfo, 1, layout.getSpawnRow());
+		assertEquals(testInfo, 1, layout.getSpawnColumn());
+		assertEquals(testInfo, Tiles.PORTAL, layout.objectAt(1, 3));
+	}
+
+	/**
+	 * A test which checks that Windows line endings and a missing final line
+	 * ending are handled, and that short lines are padded with empty spaces.
+	 */
+	@Test
+	public void testLoadLineEndings() throws IOException {
+		String testInfo = "A test of loading a room with different line endings";
+		RoomLayout layout = RoomLoader.load(writeRoom("####\r\n#@\r\n\r\n####"));
+		assertEquals(testInfo, 4, layout.getRows());
+		assertEquals(testInfo, 4, layout.getColumns());
+		assertEquals(testInfo, Tiles.EMPTY, layout.objectAt(1, 3));
+		assertEquals(testInfo, Tiles.EMPTY, layout.objectAt(2, 0));
+		assertEquals(testInfo, Tiles.WALL, layout.objectAt(3, 3));
+	}
+
+	/**
+	 * A test which checks that unrecognized characters, including multi-byte
+	 * ones, each become a single unknown object.
+	 */
+	@Test
+	public void testLoadUnknown() throws IOException {
+		String testInfo = "A test of loading a room with unknown characters";
+		RoomLayout layout = RoomLoader.load(writeRoom("#xé#\n@   \n"));
+		assertEquals(testInfo, 4, layout.getColumns());
+		assertEquals(testInfo, Tiles.UNKNOWN, layout.objectAt(0, 1));
+		assertEquals(testInfo, Tiles.UNKNOWN, layout.objectAt(0, 2));
+		assertEquals(testInfo, Tiles.WALL, layout.objectAt(0, 3));
+		assertTrue(testInfo, layout.hasUnknown());
+	}
+
+	/**
+	 * A test which checks that a room without a spawn point is reported as
+	 * such.
+	 */
+	@Test
+	public void testLoadNoSpawn() throws IOException {
+		String testInfo = "A test of loading a room without a spawn point";
+		RoomLayout layout = RoomLoader.load(writeRoom("###\n# #\n###\n"));
+		assertEquals(testInfo, -1, layout.getSpawnRow());
+		assertEquals(testInfo, -1, layout.getSpawnColumn());
+	}
+
+	/**
+	 * A test which checks that lines longer than the first line are rejected.
+	 */
+	@Test(expected = IOException.class)
+	public void testLoadLongLine() throws IOException {
+		RoomLoader.load(writeRoom("###\n#@ #\n###\n"));
+	}
+
+	/**
+	 * A test which checks that missing room files are rejected.
+	 */
+	@Test(expected = IOException.class)
+	public void testLoadNoFile() throws IOException {
+		RoomLoader.load("NonExistantRoom");
+	}
+}
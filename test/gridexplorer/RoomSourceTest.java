@@ -0,0 +1,101 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Christopher Wells <cwellsny@nycap.rr.com>
+ */
+public class RoomSourceTest {
+
+	/**
+	 * A test which checks that a room held in memory is played in the same way
+	 * as one read from a file.
+	 */
+	@Test
+	public void testMemorySource() throws IOException {
+		String testInfo = "A test of playing a room held in memory";
+		RoomSource[] sources = {MemoryRoomSource.fromText("corridor", "#####\n#@ *#\n#####\n")};
+		Game testGame = Game.headless(sources);
+		assertEquals(testInfo, 1, testGame.getCurrentRoom().getPlayerColumn());
+		assertEquals(testInfo, MoveResult.MOVED, testGame.move('d'));
+		assertEquals(testInfo, MoveResult.PORTAL, testGame.move('d'));
+		assertFalse(testInfo, testGame.isPlaying());
+	}
+
+	/**
+	 * A test which checks that generated rooms are the same for the same seed
+	 * whatever the number of threads, and differ for another seed.
+	 */
+	@Test
+	public void testDeterministic() {
+		String testInfo = "A test of generating the same room from the same seed";
+		GeneratedRoomSource single = new MazeRoomSource(301, 200, 42);
+		single.setParallelism(1);
+		GeneratedRoomSource parallel = new MazeRoomSource(301, 200, 42);
+		parallel.setParallelism(4);
+		byte[] expected = single.getLayout().cells();
+		assertArrayEquals(testInfo, expected, parallel.getLayout().cells());
+		assertFalse(testInfo, Arrays.equals(expected, new MazeRoomSource(301, 200, 43).getLayout().cells()));
+
+		CaveRoomSource cave = new CaveRoomSource(301, 200, 42);
+		cave.setParallelism(1);
+		assertArrayEquals(testInfo, cave.getLayout().cells(), new CaveRoomSource(301, 200, 42).getLayout().cells());
+		assertSame(testInfo, cave.getLayout(), cave.getLayout());
+	}
+
+	/**
+	 * A test which checks that generated mazes and caves of odd and even
+	 * sizes can all be completed.
+	 */
+	@Test
+	public void testGeneratedRoomsAreValid() {
+		String testInfo = "A test of generating rooms that can be completed";
+		RoomSource[] sources = {
+			new MazeRoomSource(5, 5, 1),
+			new MazeRoomSource(40, 61, 2),
+			new MazeRoomSource(3, 30, 3),
+			new CaveRoomSource(64, 64, 4),
+			new CaveRoomSource(3, 9, 5),
+			new CaveRoomSource(101, 37, 6, 0.6)
+		};
+		for (ValidationReport report : RoomValidator.validateSources(sources)) {
+			assertTrue(testInfo + ": " + report, report.isValid());
+		}
+
+		// A game can be won by always stepping towards the portal
+		Game testGame = Game.headless(new RoomSource[]{new MazeRoomSource(41, 41, 7)});
+		int steps = 0;
+		while (testGame.isPlaying() && steps < 41 * 41) {
+			testGame.getCurrentRoom().stepTowardPortal();
+			steps++;
+		}
+		assertFalse(testInfo, testGame.isPlaying());
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Christopher Wells <cwellsny@nycap.rr.com>
+ */
+public class RoomTemplateCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private String[] testRooms = {"room1"};
+	private RoomTemplateCache testCache;
+	private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+
+	@Before
+	public void setUp() {
+		System.setOut(new PrintStream(outContent));
+		testCache = new RoomTemplateCache(2);
+	}
+
+	@After
+	public void tearDown() {
+		System.setOut(null);
+	}
+
+	/**
+	 * The method used to write a room file with the given contents.
+	 *
+	 * @param roomFile The room file
+	 * @param contents The contents of the room file
+	 * @throws IOException If the room file could not be written
+	 */
+	private void writeRoom(File roomFile, String contents) throws IOException {
+		try (FileOutputStream out = new FileOutputStream(roomFile)) {
+			out.write(contents.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * A test which checks that a room file is only loaded once.
+	 */
+	@Test
+	public void testHit() throws IOException {
+		String testInfo = "A test of getting a cached layout";
+		RoomLayout first = testCache.get("room1");
+		RoomLayout second = testCache.get("room1");
+		assertSame(testInfo, first, second);
+		assertEquals(testInfo, 1, testCache.getMisses());
+		assertEquals(testInfo, 1, testCache.getHits());
+	}
+
+	/**
+	 * A test which checks that a room file is loaded again once it changes.
+	 */
+	@Test
+	public void testChangedFile() throws IOException {
+		String testInfo = "A test of reloading a changed room file";
+		File roomFile = folder.newFile();
+		writeRoom(roomFile, "###\n#@#\n###\n");
+		RoomLayout first = testCache.get(roomFile);
+		writeRoom(roomFile, "####\n#@*#\n####\n");
+		RoomLayout second = testCache.get(roomFile);
+		assertNotSame(testInfo, first, second);
+		assertEquals(testInfo, 4, second.getColumns());
+		assertEquals(testInfo, 2, testCache.getMisses());
+	}
+
+	/**
+	 * A test which checks that the least recently used layout is evicted once
+	 * the cache is full, and that layouts can be invalidated.
+	 */
+	@Test
+	public void testEviction() throws IOException {
+		String testInfo = "A test of evicting and invalidating layouts";
+		testCache.get("room1");
+		testCache.get("room2");
+		testCache.get("room1");
+		testCache.get("special");
+		assertEquals(testInfo, 2, testCache.size());
+		assertEquals(testInfo, 1, testCache.getEvictions());
+		testCache.get("room1");
+		assertEquals(testInfo, 3, testCache.getMisses());
+		testCache.invalidate("room1");
+		testCache.get("room1");
+		assertEquals(testInfo, 4, testCache.getMisses());
+	}
+
+	/**
+	 * A test which checks that layouts are evicted once their cells pass the
+	 * cell limit, and that a layout larger than the limit is not cached.
+	 */
+	@Test
+	public void testCellLimit() throws IOException {
+		String testInfo = "A test of limiting the cells of the cached layouts";
+		long room1Cells = RoomLoader.load("room1").cells().length;
+		long room2Cells = RoomLoader.load("room2").cells().length;
+		testCache = new RoomTemplateCache(10, room1Cells + room2Cells);
+		testCache.get("room1");
+		testCache.get("room2");
+		assertEquals(testInfo, room1Cells + room2Cells, testCache.getCells());
+		testCache.get("room2");
+		testCache.get("special");
+		assertEquals(testInfo, 2, testCache.size());
+		assertEquals(testInfo, 1, testCache.getEvictions());
+		assertTrue(testInfo, testCache.getCells() <= room1Cells + room2Cells);
+		assertEquals(testInfo, 3, testCache.getMisses());
+		testCache.get("room2");
+		assertEquals(testInfo, 3, testCache.getMisses());
+
+		testCache.setMaxCells(room1Cells - 1);
+		assertEquals(testInfo, 0, testCache.getCells());
+		testCache.get("room1");
+		testCache.get("room1");
+		assertEquals(testInfo, 0, testCache.size());
+		assertEquals(testInfo, 5, testCache.getMisses());
+	}
+
+	/**
+	 * A test which checks that rooms made from the same layout do not see each
+	 * other's changes, and only copy the rows that they change.
+	 */
+	@Test
+	public void testCopyOnWrite() throws IOException {
+		String testInfo = "A test of rooms sharing a layout";
+		Game testGame = new Game(testRooms);
+		Room first = new Room("room1", testGame);
+		Room second = new Room("room1", testGame);
+		first.movePlayer("up", 1);
+		assertEquals(testInfo, Tiles.PLAYER, first.objectAt(3, 5));
+		assertEquals(testInfo, Tiles.EMPTY, second.objectAt(3, 5));
+		assertEquals(testInfo, Tiles.PLAYER, second.objectAt(4, 5));
+		assertEquals(testInfo, Tiles.EMPTY, RoomTemplateCache.shared().get("room1").objectAt(4, 5));
+		assertEquals(testInfo, 2, ((CopyOnWriteGridStorage) first.getStorage()).getCopiedRows());
+	}
+}
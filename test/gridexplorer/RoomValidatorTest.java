@@ -0,0 +1,135 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Christopher Wells <cwellsny@nycap.rr.com>
+ */
+public class RoomValidatorTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * The method used to write a room file with the given contents.
+	 *
+	 * @param name The name of the file
+	 * @param contents The contents of the room file
+	 * @return The room file
+	 * @throws IOException If the room file could not be written
+	 */
+	private File writeRoom(String name, String contents) throws IOException {
+		File roomFile = folder.newFile(name);
+		try (FileOutputStream out = new FileOutputStream(roomFile)) {
+			out.write(contents.getBytes(StandardCharsets.UTF_8));
+		}
+		return roomFile;
+	}
+
+	/**
+	 * A test which checks that the rooms of the game are all valid.
+	 */
+	@Test
+	public void testGameRooms() {
+		String testInfo = "A test of validating the rooms of a game";
+		String[] rooms = {"room1", "room2", "special"};
+		List<ValidationReport> reports = Game.headless(rooms).validateRooms();
+		assertEquals(testInfo, 3, reports.size());
+		for (ValidationReport report : reports) {
+			assertTrue(testInfo + ": " + report, report.isValid());
+			assertTrue(testInfo, report.getReachedCells() > 0);
+		}
+	}
+
+	/**
+	 * A test which checks that a portal walled off from the spawn point, a
+	 * missing portal, a missing spawn point and unknown objects are all found.
+	 */
+	@Test
+	public void testProblems() throws IOException {
+		String testInfo = "A test of finding the problems with rooms";
+		ValidationReport walled = RoomValidator.validate(writeRoom("walled.txt",
+				"#######\n#@ #  #\n#  # *#\n#######\n"));
+		assertEquals(testInfo, "[No portal can be reached from the spawn position.]", walled.getProblems().toString());
+		assertEquals(testInfo, 4, walled.getReachedCells());
+
+		ValidationReport noPortal = RoomValidator.validate(writeRoom("noportal.txt", "####\n#@ #\n####\n"));
+		assertEquals(testInfo, "[No portal in the room.]", noPortal.getProblems().toString());
+
+		ValidationReport noSpawn = RoomValidator.validate(writeRoom("nospawn.txt", "####\n# *#\n####\n"));
+		assertEquals(testInfo, "[No spawn position.]", noSpawn.getProblems().toString());
+
+		ValidationReport unknown = RoomValidator.validate(writeRoom("unknown.txt", "#####\n#@?*#\n#x  #\n#####\n"));
+		assertEquals(testInfo, "[2 unknown objects, the first at (1, 2)., No portal can be reached from the spawn position.]",
+				unknown.getProblems().toString());
+		assertFalse(testInfo, unknown.isValid());
+	}
+
+	/**
+	 * A test which checks that a winding path to the portal is followed
+	 * through runs above and below each row.
+	 */
+	@Test
+	public void testWindingPath() throws IOException {
+		String testInfo = "A test of filling a winding path";
+		ValidationReport report = RoomValidator.validate(writeRoom("winding.txt",
+				"#########\n"
+				+ "#@      #\n"
+				+ "####### #\n"
+				+ "#       #\n"
+				+ "# #######\n"
+				+ "#      *#\n"
+				+ "#########\n"));
+		assertTrue(testInfo, report.isValid());
+	}
+
+	/**
+	 * A test which checks that every room file in a directory is checked, in
+	 * order of their names.
+	 */
+	@Test
+	public void testValidateDirectory() throws IOException {
+		String testInfo = "A test of validating a directory of rooms";
+		writeRoom("b.txt", "####\n#@*#\n####\n");
+		writeRoom("a.txt", "####\n#@ #\n####\n");
+		writeRoom("notes.md", "not a room");
+		List<ValidationReport> reports = RoomValidator.validateDirectory(folder.getRoot(), 2);
+		assertEquals(testInfo, 2, reports.size());
+		assertEquals(testInfo, "a.txt", reports.get(0).getName());
+		assertFalse(testInfo, reports.get(0).isValid());
+		assertEquals(testInfo, "b.txt", reports.get(1).getName());
+		assertTrue(testInfo, reports.get(1).isValid());
+	}
+}
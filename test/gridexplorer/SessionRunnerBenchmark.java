@@ -0,0 +1,79 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures how the time taken to play many sessions changes with the number
+ * of worker threads. Run it with the number of sessions and the number of
+ * moves in each session as arguments, for example "4000 20000".
+ *
+ * @author Christopher Wells
+ */
+public class SessionRunnerBenchmark {
+
+	/**
+	 * The method that is run when the benchmark starts.
+	 *
+	 * @param args The number of sessions and the number of moves in each
+	 */
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 4000;
+		int length = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+		String[] rooms = {"room1", "room2", "special"};
+		char[] keys = {'w', 'a', 's', 'd'};
+		Random random = new Random(1);
+		List<char[]> sessions = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			char[] moves = new char[length];
+			for (int j = 0; j < length; j++) {
+				moves[j] = keys[random.nextInt(keys.length)];
+			}
+			sessions.add(moves);
+		}
+
+		int processors = Runtime.getRuntime().availableProcessors();
+		long single = 0;
+		for (int parallelism = 1; parallelism <= processors; parallelism *= 2) {
+			SessionRunner runner = new SessionRunner(rooms, parallelism);
+			runner.run(sessions);
+			long best = Long.MAX_VALUE;
+			SessionStats stats = null;
+			for (int run = 0; run < 3; run++) {
+				long start = System.nanoTime();
+				stats = runner.run(sessions);
+				best = Math.min(best, System.nanoTime() - start);
+			}
+			runner.shutdown();
+			if (parallelism == 1) {
+				single = best;
+			}
+			System.out.printf("%d threads: %d ms, speedup %.2f (%s)%n",
+					parallelism, best / 1000000, (double) single / best, stats);
+		}
+	}
+}
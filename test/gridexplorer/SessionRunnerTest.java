@@ -0,0 +1,100 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Christopher Wells <cwellsny@nycap.rr.com>
+ */
+public class SessionRunnerTest {
+
+	private String[] testRooms = {"room1", "room2", "special"};
+	private String winningMoves = "sssaas" + "wwwwwwwaaaaaasssssss" + "dddssssaaaaaaawwwwd";
+	private String losingMoves = "sssaas" + "x" + "wd";
+	private int testSessions = 100;
+	private List<char[]> sessions;
+	private SessionRunner testRunner;
+
+	@Before
+	public void setUp() {
+		sessions = new ArrayList<>();
+		for (int i = 0; i < testSessions; i++) {
+			sessions.add((i % 2 == 0 ? winningMoves : losingMoves).toCharArray());
+		}
+		testRunner = new SessionRunner(testRooms, 4);
+	}
+
+	@After
+	public void tearDown() {
+		testRunner.shutdown();
+	}
+
+	/**
+	 * A test which checks that the outcomes of sessions played in parallel are
+	 * combined correctly.
+	 */
+	@Test
+	public void testRun() {
+		String testInfo = "A test of combining the outcomes of parallel sessions";
+		SessionStats stats = testRunner.run(sessions);
+		assertEquals(testInfo, testSessions, stats.getSessions());
+		assertEquals(testInfo, testSessions / 2, stats.getCompleted());
+		assertEquals(testInfo, 0.5, stats.getCompletionRate(), 0);
+		assertEquals(testInfo, testSessions / 2 * (winningMoves.length() + losingMoves.length()), stats.getSteps());
+		assertEquals(testInfo, testSessions / 2, stats.getInvalid());
+		assertEquals(testInfo, testSessions / 2 * 4, stats.getPortals());
+		assertEquals(testInfo, (double) (winningMoves.length() + 6) / 4, stats.getAverageStepsToPortal(), 1e-9);
+	}
+
+	/**
+	 * A test which checks that each session is displayed on its own output.
+	 */
+	@Test
+	public void testSinks() {
+		String testInfo = "A test of giving each session its own output";
+		final ByteArrayOutputStream[] outputs = new ByteArrayOutputStream[testSessions];
+		testRunner.setSinks(new SessionRunner.Sinks() {
+			@Override
+			public PrintStream sinkFor(int session) {
+				outputs[session] = new ByteArrayOutputStream();
+				return new PrintStream(outputs[session]);
+			}
+		});
+		testRunner.run(sessions);
+		for (int i = 0; i < testSessions; i++) {
+			boolean won = outputs[i].toString().contains("Congratulations! You won!");
+			assertEquals(testInfo, i % 2 == 0, won);
+			assertTrue(testInfo, i % 2 == 0 || outputs[i].toString().contains("Invalid command."));
+		}
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how many moves per second a number of players can make at once in
+ * one shared room, with each move claiming its position by compare and set,
+ * and compares it with the same moves made while holding a single lock around
+ * the room. The room is small enough that the players often get in each
+ * other's way. Run it with the size of the room as an argument, for example
+ * "32".
+ *
+ * @author Christopher Wells
+ */
+public class SharedRoomBenchmark {
+
+	private static final int[] PLAYERS = {1, 2, 4, 8, 16};	// The numbers of players measured
+	private static final long RUN_MILLIS = 1000;	// The time that the players move for
+
+	/**
+	 * The method that is run when the benchmark starts.
+	 *
+	 * @param args The size of the square room
+	 * @throws InterruptedException If the benchmark was interrupted
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int size = args.length == 0 ? 32 : Integer.parseInt(args[0]);
+		for (int players : PLAYERS) {
+			double free = run(size, players, false);
+			double locked = run(size, players, true);
+			System.out.printf("%d players: %.1f million moves/s with compare and set, %.1f million with a lock%n",
+					players, free / 1e6, locked / 1e6);
+		}
+	}
+
+	/**
+	 * The method used to time a number of players moving around a room at
+	 * random.
+	 *
+	 * @param size The size of the square room
+	 * @param count The number of players
+	 * @param lock Whether every move holds a lock around the room
+	 * @return The number of moves made per second
+	 * @throws InterruptedException If the benchmark was interrupted
+	 */
+	private static double run(int size, int count, final boolean lock) throws InterruptedException {
+		final SharedRoom room = new SharedRoom(new AtomicGridStorage(size, size), size / 2, size / 2);
+		final AtomicLong moves = new AtomicLong();
+		final CountDownLatch start = new CountDownLatch(1);
+		final long[] end = new long[1];
+		Thread[] threads = new Thread[count];
+		for (int i = 0; i < count; i++) {
+			final PlayerHandle player = room.join();
+			final Random random = new Random(i);
+			threads[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					Direction[] directions = Direction.values();
+					long made = 0;
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					while (System.nanoTime() < end[0]) {
+						for (int j = 0; j < 1000; j++) {
+							Direction direction = directions[random.nextInt(directions.length)];
+							if (lock) {
+								synchronized (room) {
+									player.move(direction);
+								}
+							} else {
+								player.move(direction);
+							}
+						}
+						made += 1000;
+					}
+					moves.addAndGet(made);
+				}
+			});
+			threads[i].start();
+		}
+		long begin = System.nanoTime();
+		end[0] = begin + RUN_MILLIS * 1000000;
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		return moves.get() * 1e9 / (System.nanoTime() - begin);
+	}
+}
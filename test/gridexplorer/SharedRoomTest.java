@@ -0,0 +1,142 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.IOException;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Christopher Wells <cwellsny@nycap.rr.com>
+ */
+public class SharedRoomTest {
+
+	/**
+	 * A test which checks that players join at the spawn point or the nearest
+	 * empty position to it, that objects are only removed if they are still
+	 * there, and that players cannot be added or removed as objects.
+	 */
+	@Test
+	public void testJoinAndObjects() throws IOException {
+		String testInfo = "A test of joining a shared room";
+		SharedRoom room = new SharedRoom(new FileRoomSource("room1"));
+		PlayerHandle first = room.join();
+		assertEquals(testInfo, 4, first.getRow());
+		assertEquals(testInfo, 5, first.getColumn());
+		PlayerHandle second = room.join();
+		assertEquals(testInfo, 3, second.getRow());
+		assertEquals(testInfo, 4, second.getColumn());
+		assertEquals(testInfo, 2, room.getPlayers());
+
+		assertFalse(testInfo, room.addObject(4, 5, Tiles.WALL));
+		assertTrue(testInfo, room.addObject(2, 2, Tiles.WALL));
+		assertFalse(testInfo, room.removeObject(2, 2, Tiles.PORTAL));
+		assertTrue(testInfo, room.removeObject(2, 2, Tiles.WALL));
+		assertEquals(testInfo, Tiles.EMPTY, room.objectAt(2, 2));
+		try {
+			room.removeObject(4, 5, Tiles.PLAYER);
+			fail(testInfo);
+		} catch (IllegalArgumentException e) {
+			assertEquals(testInfo, Tiles.PLAYER, room.objectAt(4, 5));
+		}
+		try {
+			room.addObject(2, 2, Tiles.PLAYER);
+			fail(testInfo);
+		} catch (IllegalArgumentException e) {
+			assertEquals(testInfo, Tiles.EMPTY, room.objectAt(2, 2));
+		}
+
+		assertEquals(testInfo, MoveResult.MOVED, second.move(Direction.DOWN));
+		assertEquals(testInfo, MoveResult.BLOCKED, first.move(Direction.LEFT));
+	}
+
+	/**
+	 * A test which checks that a player leaves the room through a portal.
+	 */
+	@Test
+	public void testPortal() throws IOException {
+		String testInfo = "A test of leaving a shared room through a portal";
+		SharedRoom room = new SharedRoom(new FileRoomSource("room1"));
+		PlayerHandle player = room.join();
+		for (char key : "sssaa".toCharArray()) {
+			assertEquals(testInfo, MoveResult.MOVED, player.move(Direction.fromKey(key)));
+		}
+		assertEquals(testInfo, MoveResult.PORTAL, player.move(Direction.DOWN));
+		assertFalse(testInfo, player.isInRoom());
+		assertEquals(testInfo, MoveResult.INVALID, player.move(Direction.UP));
+		assertEquals(testInfo, 0, room.getPlayers());
+		assertEquals(testInfo, Tiles.EMPTY, room.objectAt(7, 3));
+	}
+
+	/**
+	 * A test which checks that players moving on many threads at once in a
+	 * crowded room never share a position or leave a player behind in the
+	 * grid.
+	 */
+	@Test
+	public void testConcurrentMoves() throws InterruptedException {
+		String testInfo = "A test of many players moving at once";
+		final SharedRoom room = new SharedRoom(new AtomicGridStorage(12, 12), 6, 6);
+		final PlayerHandle[] players = new PlayerHandle[8];
+		Thread[] threads = new Thread[players.length];
+		for (int i = 0; i < players.length; i++) {
+			players[i] = room.join();
+			final PlayerHandle player = players[i];
+			final Random random = new Random(i);
+			threads[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					Direction[] directions = Direction.values();
+					for (int move = 0; move < 50000; move++) {
+						player.move(directions[random.nextInt(directions.length)]);
+					}
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		int found = 0;
+		for (int r = 0; r < 12; r++) {
+			for (int c = 0; c < 12; c++) {
+				if (room.objectAt(r, c) == Tiles.PLAYER) {
+					found++;
+				}
+			}
+		}
+		assertEquals(testInfo, players.length, found);
+		for (int i = 0; i < players.length; i++) {
+			assertEquals(testInfo, Tiles.PLAYER, room.objectAt(players[i].getRow(), players[i].getColumn()));
+			for (int j = 0; j < i; j++) {
+				assertFalse(testInfo, players[i].getRow() == players[j].getRow() && players[i].getColumn() == players[j].getColumn());
+			}
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.util.Random;
+
+/**
+ * Measures how many moves per second a headless game can be played at. The
+ * moves are random loops around the spawn point of the first room, so every
+ * move is played in the same room. Run it with the number of moves as an
+ * argument, for example "10000000".
+ *
+ * @author Christopher Wells
+ */
+public class SimulationBenchmark {
+
+	/**
+	 * The method that is run when the benchmark starts.
+	 *
+	 * @param args The number of moves to make
+	 */
+	public static void main(String[] args) {
+		int count = args.length == 0 ? 10000000 : Integer.parseInt(args[0]);
+		String[] rooms = {"room1"};
+
+		// Each loop of moves comes back to where it started, so the player stays
+		// around the spawn point and never reaches the portal
+		String[] loops = {"ws", "sw", "ad", "da", "wasd", "dsaw", "wwss", "aadd"};
+		Random random = new Random(1);
+		char[] moves = new char[count];
+		int length = 0;
+		while (length < count) {
+			String loop = loops[random.nextInt(loops.length)];
+			for (int i = 0; i < loop.length() && length < count; i++) {
+				moves[length++] = loop.charAt(i);
+			}
+		}
+
+		for (int run = 0; run < 5; run++) {
+			long start = System.nanoTime();
+			SimulationResult result = Simulation.run(rooms, moves);
+			long elapsed = System.nanoTime() - start;
+			System.out.printf("%d moves in %d ms, %.1f million moves/s (%s)%n",
+					result.getSteps(), elapsed / 1000000, result.getSteps() * 1000.0 / elapsed, result);
+		}
+	}
+}
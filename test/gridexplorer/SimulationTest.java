@@ -0,0 +1,117 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.Arrays;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Christopher Wells <cwellsny@nycap.rr.com>
+ */
+public class SimulationTest {
+
+	private String[] testRooms = {"room1", "room2", "special"};
+	private String toFirstPortal = "sssaas";
+	private String winningMoves = toFirstPortal + "wwwwwwwaaaaaasssssss" + "dddssssaaaaaaawwwwd";
+	private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+
+	@Before
+	public void setUp() {
+		System.setOut(new PrintStream(outContent));
+	}
+
+	@After
+	public void tearDown() {
+		System.setOut(null);
+	}
+
+	/**
+	 * A test which checks that moving through the first portal is counted and
+	 * that the game moves on to the next room.
+	 */
+	@Test
+	public void testPortal() {
+		String testInfo = "A test of simulating moves through a portal";
+		SimulationResult result = Simulation.run(testRooms, toFirstPortal.toCharArray());
+		assertEquals(testInfo, 6, result.getSteps());
+		assertEquals(testInfo, 1, result.getPortals());
+		assertEquals(testInfo, 6, result.getStepsToLastPortal());
+		assertEquals(testInfo, 1, result.getRoomIndex());
+		assertEquals(testInfo, 8, result.getPlayerRow());
+		assertEquals(testInfo, 7, result.getPlayerColumn());
+		assertFalse(testInfo, result.isWon());
+	}
+
+	/**
+	 * A test which checks that a headless game can be won and does not print
+	 * anything.
+	 */
+	@Test
+	public void testWin() {
+		String testInfo = "A test of simulating a whole game";
+		SimulationResult result = Simulation.run(testRooms, (winningMoves + "wwww").toCharArray());
+		assertTrue(testInfo, result.isWon());
+		assertEquals(testInfo, 3, result.getPortals());
+		assertEquals(testInfo, winningMoves.length(), result.getSteps());
+		assertEquals(testInfo, "", outContent.toString());
+	}
+
+	/**
+	 * A test which checks that blocked and invalid moves are counted, and
+	 * that whitespace between moves is skipped.
+	 */
+	@Test
+	public void testBlockedAndInvalid() throws IOException {
+		String testInfo = "A test of counting blocked and invalid moves";
+		SimulationResult result = Simulation.run(Game.headless(testRooms), new StringReader("wwww\nx? d\n"));
+		assertEquals(testInfo, 7, result.getSteps());
+		assertEquals(testInfo, 4, result.getMoved());
+		assertEquals(testInfo, 1, result.getBlocked());
+		assertEquals(testInfo, 2, result.getInvalid());
+		assertEquals(testInfo, 1, result.getPlayerRow());
+		assertEquals(testInfo, 6, result.getPlayerColumn());
+	}
+
+	/**
+	 * A test which checks that quitting stops the simulation.
+	 */
+	@Test
+	public void testQuit() {
+		String testInfo = "A test of quitting a simulated game";
+		Character[] moves = {'w', 'q', 'w'};
+		SimulationResult result = Simulation.run(Game.headless(testRooms), Arrays.asList(moves).iterator());
+		assertEquals(testInfo, 2, result.getSteps());
+		assertTrue(testInfo, result.isQuit());
+		assertFalse(testInfo, result.isWon());
+		assertEquals(testInfo, 3, result.getPlayerRow());
+	}
+}
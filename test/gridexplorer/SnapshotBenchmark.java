@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Measures the time taken to save and restore a game whose current room is a
+ * large generated maze, once with the room still shared with its layout and
+ * once with every row copied. Run it with the size of the room as an
+ * argument, for example "4000".
+ *
+ * @author Christopher Wells
+ */
+public class SnapshotBenchmark {
+
+	private static final int RUNS = 5;	// The number of timed saves and restores
+
+	/**
+	 * The method that is run when the benchmark starts.
+	 *
+	 * @param args The size of the square room to save
+	 * @throws IOException If the snapshot could not be written or read
+	 */
+	public static void main(String[] args) throws IOException {
+		int size = args.length == 0 ? 4000 : Integer.parseInt(args[0]);
+		RoomSource[] rooms = {new MazeRoomSource(size, size, 1)};
+		File file = File.createTempFile("game", ".snapshot");
+		file.deleteOnExit();
+
+		Game game = Game.headless(rooms);
+		report("shared rows", game, rooms, file);
+
+		// Change a position in every row so that each row is copied
+		Room room = game.getCurrentRoom();
+		for (int i = 0; i < size; i++) {
+			room.addObject(i, 0, Tiles.WALL);
+		}
+		report("copied rows", game, rooms, file);
+
+		// Restored rooms are held in a single array
+		game.restoreSnapshot(file);
+		report("restored room", game, rooms, file);
+		file.delete();
+	}
+
+	/**
+	 * The method used to time saving and restoring a game.
+	 *
+	 * @param label The description of the grid of the game
+	 * @param game The game to save
+	 * @param rooms The rooms of the game
+	 * @param file The file to save the game to
+	 * @throws IOException If the snapshot could not be written or read
+	 */
+	private static void report(String label, Game game, RoomSource[] rooms, File file) throws IOException {
+		long save = Long.MAX_VALUE;
+		long restore = Long.MAX_VALUE;
+		Game restored = Game.headless(rooms);
+		for (int i = 0; i < RUNS; i++) {
+			long start = System.nanoTime();
+			game.saveSnapshot(file);
+			save = Math.min(save, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			restored.restoreSnapshot(file);
+			restore = Math.min(restore, System.nanoTime() - start);
+		}
+		System.out.printf("%s, %d KiB: save %.2f ms, restore %.2f ms%n",
+				label, file.length() / 1024, save / 1e6, restore / 1e6);
+	}
+}
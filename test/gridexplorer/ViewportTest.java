@@ -0,0 +1,107 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Christopher Wells.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package gridexplorer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Christopher Wells <cwellsny@nycap.rr.com>
+ */
+public class ViewportTest {
+
+	private String[] testRooms = {"room1"};
+	private Game testGame;
+	private Room testRoom;
+	private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+
+	@Before
+	public void setUp() {
+		System.setOut(new PrintStream(outContent));
+		testGame = new Game(testRooms);
+		testRoom = new Room(20, 30, 10, 15, testGame);
+	}
+
+	@After
+	public void tearDown() {
+		System.setOut(null);
+	}
+
+	/**
+	 * A test which checks that the viewport is centred on a position in the
+	 * middle of the room.
+	 */
+	@Test
+	public void testCentred() {
+		String testInfo = "A test of a viewport in the middle of a room";
+		Viewport viewport = new Viewport(5, 7);
+		assertEquals(testInfo, 8, viewport.top(testRoom, 10));
+		assertEquals(testInfo, 12, viewport.left(testRoom, 15));
+	}
+
+	/**
+	 * A test which checks that the viewport is kept within the bounds of the
+	 * room near its edges.
+	 */
+	@Test
+	public void testClamped() {
+		String testInfo = "A test of a viewport near the edges of a room";
+		Viewport viewport = new Viewport(5, 7);
+		assertEquals(testInfo, 0, viewport.top(testRoom, 1));
+		assertEquals(testInfo, 0, viewport.left(testRoom, 0));
+		assertEquals(testInfo, 15, viewport.top(testRoom, 19));
+		assertEquals(testInfo, 23, viewport.left(testRoom, 29));
+	}
+
+	/**
+	 * A test which checks that a viewport larger than the room shows the whole
+	 * room.
+	 */
+	@Test
+	public void testLargerThanRoom() {
+		String testInfo = "A test of a viewport larger than the room";
+		Viewport viewport = new Viewport(50, 50);
+		assertEquals(testInfo, 0, viewport.top(testRoom, 10));
+		assertEquals(testInfo, 0, viewport.left(testRoom, 15));
+		assertEquals(testInfo, 20, viewport.rowsIn(testRoom));
+		assertEquals(testInfo, 30, viewport.columnsIn(testRoom));
+	}
+
+	/**
+	 * A test which checks that displaying a room through a viewport only shows
+	 * the window around the player.
+	 */
+	@Test
+	public void testDisplay() {
+		String testInfo = "A test of displaying a room through a viewport";
+		outContent.reset();
+		testRoom.display(new Viewport(3, 3));
+		assertEquals(testInfo, "   \n @ \n   \n", outContent.toString());
+	}
+}